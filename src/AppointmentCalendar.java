@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * Bir doktorun ya da hastanın randevuları, zamana göre sıralı.
+ * Her randevu tek bir long olarak tutulur: (başlangıç dakikası << 32) | randevu ID;
+ * sıralı dizide ikili arama ile çakışma kontrolü O(log n), kayıt başına 8 byte.
+ * Randevular çoğunlukla zaman sırasıyla eklendiği için ekleme genelde dizinin sonuna yapılır.
+ * Metotlar nesne üzerinde senkronizedir (kilit sadece bu takvimin sahibini etkiler).
+ */
+class AppointmentCalendar {
+
+    private long[] entries = new long[4];
+    private int size;
+
+    private static long entry(long minute, int appointmentId) {
+        return (minute << 32) | (appointmentId & 0xFFFFFFFFL);
+    }
+
+    private static long minuteOf(long entry) {
+        return entry >> 32;
+    }
+
+    synchronized void add(long minute, int appointmentId) {
+        long e = entry(minute, appointmentId);
+        int pos = Arrays.binarySearch(entries, 0, size, e);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        System.arraycopy(entries, pos, entries, pos + 1, size - pos);
+        entries[pos] = e;
+        size++;
+    }
+
+    // Toplu ekleme (örn. arşivden okunan bir gün): sona yazılıp bir kez sıralanır
+    synchronized void addAll(int[] minutes, int[] appointmentIds, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            entries[size++] = entry(minutes[i], appointmentIds[i]);
+        }
+        sortAndDedup();
+    }
+
+    void addAll(AppointmentCalendar other) {
+        long[] copy;
+        synchronized (other) {
+            copy = Arrays.copyOf(other.entries, other.size);
+        }
+        synchronized (this) {
+            ensureCapacity(size + copy.length);
+            System.arraycopy(copy, 0, entries, size, copy.length);
+            size += copy.length;
+            sortAndDedup();
+        }
+    }
+
+    synchronized void remove(long minute, int appointmentId) {
+        int pos = Arrays.binarySearch(entries, 0, size, entry(minute, appointmentId));
+        if (pos >= 0) {
+            System.arraycopy(entries, pos + 1, entries, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    // minute'tan önce başlayan randevuları çıkarır (günleri arşive taşınınca); kalan kayıt sayısını döner
+    synchronized int removeBefore(long minute) {
+        int pos = Arrays.binarySearch(entries, 0, size, minute << 32);
+        int from = pos >= 0 ? pos : -pos - 1;
+        if (from > 0) {
+            System.arraycopy(entries, from, entries, 0, size - from);
+            size -= from;
+        }
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(capacity, entries.length * 2));
+        }
+    }
+
+    private void sortAndDedup() {
+        Arrays.sort(entries, 0, size);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (n == 0 || entries[n - 1] != entries[i]) {
+                entries[n++] = entries[i];
+            }
+        }
+        size = n;
+    }
+
+    // [start, start + duration) aralığı mevcut bir randevuyla çakışıyor mu?
+    synchronized boolean overlaps(long start, int duration) {
+        int floor = floorIndex(start);
+        if (floor >= 0 && minuteOf(entries[floor]) + duration > start) {
+            return true;
+        }
+        int ceiling = floor + 1;
+        return ceiling < size && minuteOf(entries[ceiling]) < start + duration;
+    }
+
+    // from anından itibaren duration dakikalık ilk boşluğun başlangıcı
+    synchronized long nextFree(long from, int duration) {
+        long candidate = from;
+        // Önceki randevu hâlâ sürüyorsa onun bitişinden başla
+        int floor = floorIndex(candidate);
+        if (floor >= 0 && minuteOf(entries[floor]) + duration > candidate) {
+            candidate = minuteOf(entries[floor]) + duration;
+        }
+        // Arka arkaya dolu randevuları atla
+        for (int i = floor + 1; i < size && minuteOf(entries[i]) < candidate + duration; i++) {
+            candidate = Math.max(candidate, minuteOf(entries[i]) + duration);
+        }
+        return candidate;
+    }
+
+    // Zaman sırasıyla randevu ID'leri
+    synchronized int[] appointmentIds() {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = (int) entries[i];
+        }
+        return ids;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Başlangıcı minute'a eşit ya da ondan önce olan son kaydın indeksi (yoksa -1)
+    private int floorIndex(long minute) {
+        int pos = Arrays.binarySearch(entries, 0, size, entry(minute, -1));
+        return pos >= 0 ? pos : -pos - 2;
+    }
+}
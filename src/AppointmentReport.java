@@ -0,0 +1,171 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Randevu raporları: doktor, branş ve gün bazında randevu sayısı, gelmeyen hasta (no-show) oranı.
+ * Rapor randevu deposu üzerinde tek bir paralel geçişle hesaplanır: her fork-join görevi kendi
+ * (kilitsiz) ara sonucunu doldurur, sonuçlar en sonda birleştirilir. Paylaşılan sayaç yoktur,
+ * bu yüzden süre çekirdek sayısıyla ölçeklenir.
+ */
+class AppointmentReport {
+
+    // Bir grup için sayaçlar (rapor içinde değişmez kabul edilir)
+    static class Counts {
+        long total;
+        long completed;
+        long noShow;
+
+        void add(AppointmentStatus status, long delta) {
+            total += delta;
+            if (status == AppointmentStatus.COMPLETED) {
+                completed += delta;
+            } else if (status == AppointmentStatus.NO_SHOW) {
+                noShow += delta;
+            }
+        }
+
+        void merge(Counts other) {
+            total += other.total;
+            completed += other.completed;
+            noShow += other.noShow;
+        }
+
+        // Sonuçlanmış (gelen + gelmeyen) randevular içinde gelmeyenlerin oranı
+        double noShowRate() {
+            long closed = completed + noShow;
+            return closed == 0 ? 0 : (double) noShow / closed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d appointments, %d completed, %d no-show (%.1f%%)",
+                    total, completed, noShow, 100 * noShowRate());
+        }
+    }
+
+    final Counts total = new Counts();
+    final Map<Integer, Counts> byDoctor = new HashMap<>();
+    final Map<String, Counts> byBranch = new HashMap<>();
+    final Map<LocalDate, Counts> byDay = new HashMap<>();
+    // Rapor çıktısında isim göstermek için
+    final Map<Integer, Doctor> doctors = new HashMap<>();
+
+    /**
+     * [from, to) aralığındaki randevular (null sınır = sınırsız).
+     * Akış paralelleştirilir; depo akışı bölünebilir olduğu için iş parçaları eşit dağılır.
+     */
+    static AppointmentReport build(Stream<Appointment> appointments, LocalDateTime from, LocalDateTime to) {
+        return appointments.parallel()
+                .filter(a -> (from == null || !a.getDateTime().isBefore(from))
+                        && (to == null || a.getDateTime().isBefore(to)))
+                .collect(AppointmentReport::new, AppointmentReport::add, AppointmentReport::merge);
+    }
+
+    private void add(Appointment a) {
+        AppointmentStatus status = a.getStatus();
+        Doctor d = a.getDoctor();
+        total.add(status, 1);
+        byDoctor.computeIfAbsent(d.getId(), k -> {
+            doctors.put(k, d);
+            return new Counts();
+        }).add(status, 1);
+        byBranch.computeIfAbsent(d.getBranch(), k -> new Counts()).add(status, 1);
+        byDay.computeIfAbsent(a.getDateTime().toLocalDate(), k -> new Counts()).add(status, 1);
+    }
+
+    void merge(AppointmentReport other) {
+        total.merge(other.total);
+        other.byDoctor.forEach((id, c) -> byDoctor.computeIfAbsent(id, k -> new Counts()).merge(c));
+        other.byBranch.forEach((b, c) -> byBranch.computeIfAbsent(b, k -> new Counts()).merge(c));
+        other.byDay.forEach((day, c) -> byDay.computeIfAbsent(day, k -> new Counts()).merge(c));
+        other.doctors.forEach(doctors::putIfAbsent);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Total: ").append(total);
+        sb.append("\n\n--- By Branch ---");
+        new TreeMap<>(byBranch).forEach((b, c) -> sb.append("\n").append(b).append(": ").append(c));
+        sb.append("\n\n--- By Doctor ---");
+        new TreeMap<>(byDoctor).forEach((id, c) -> sb.append("\n").append(id).append(" ")
+                .append(doctors.get(id).getName()).append(": ").append(c));
+        sb.append("\n\n--- By Day ---");
+        new TreeMap<>(byDay).forEach((day, c) -> sb.append("\n").append(day).append(": ").append(c));
+        return sb.toString();
+    }
+}
+
+/**
+ * Gün + branş bazında artımlı sayaçlar: randevu oluşturulurken ve durumu değişirken güncellenir.
+ * "Bugün hangi branşta kaç randevu var" gibi panolar depoyu taramadan, branş sayısıyla orantılı
+ * sürede okunur. LongAdder sayesinde yoğun yazma altında sayaçlar tek bir cache satırında yarışmaz.
+ * Branşsız doktor servis sınırında reddedilir; branş kontrolünden önce diske yazılmış branşsız
+ * randevular sayılmaz.
+ */
+class LoadCounters {
+
+    private static final class Adders {
+        final LongAdder total = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder noShow = new LongAdder();
+
+        void add(AppointmentStatus status, long delta) {
+            if (status == AppointmentStatus.COMPLETED) {
+                completed.add(delta);
+            } else if (status == AppointmentStatus.NO_SHOW) {
+                noShow.add(delta);
+            }
+        }
+    }
+
+    private final Map<LocalDate, Map<String, Adders>> days = new ConcurrentHashMap<>();
+
+    void added(Appointment a) {
+        Adders c = adders(a);
+        if (c != null) {
+            c.total.increment();
+            c.add(a.getStatus(), 1);
+        }
+    }
+
+    void statusChanged(Appointment updated, AppointmentStatus oldStatus) {
+        Adders c = adders(updated);
+        if (c != null) {
+            c.add(oldStatus, -1);
+            c.add(updated.getStatus(), 1);
+        }
+    }
+
+    // Arşive taşınan günler (sayıları gerektiğinde arşivden hesaplanır)
+    void dropBefore(LocalDate day) {
+        days.keySet().removeIf(d -> d.isBefore(day));
+    }
+
+    // Branşsız (eski) kayıtta null
+    private Adders adders(Appointment a) {
+        String branch = a.getDoctor().getBranch();
+        if (branch == null) {
+            return null;
+        }
+        return days.computeIfAbsent(a.getDateTime().toLocalDate(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(branch, k -> new Adders());
+    }
+
+    // Branş adına göre sıralı
+    Map<String, AppointmentReport.Counts> byBranch(LocalDate day) {
+        Map<String, AppointmentReport.Counts> result = new TreeMap<>();
+        days.getOrDefault(day, Collections.emptyMap()).forEach((branch, adders) -> {
+            AppointmentReport.Counts c = new AppointmentReport.Counts();
+            c.total = adders.total.sum();
+            c.completed = adders.completed.sum();
+            c.noShow = adders.noShow.sum();
+            result.put(branch, c);
+        });
+        return result;
+    }
+}
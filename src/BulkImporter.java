@@ -0,0 +1,385 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CSV dosyalarından toplu kayıt aktarımı.
+ * Akış: okuma (tek thread, parçalar halinde) -> ayrıştırma + doğrulama (paralel)
+ *       -> dosya sırasıyla toplu ekleme (servisin batch API'leri, INSERT_BATCH satırlık paketler).
+ * Bir paket reddedilirse (örn. tekrarlanan T.C. no) o paket satır satır denenir.
+ * Hatalı satırlar atlanır ve "<dosya>.errors.txt" raporuna satır numarasıyla yazılır.
+ *
+ * Dosya formatları (ilk satır başlık olabilir):
+ *   patients     : name,phone,nationalId,bloodType
+ *   doctors      : name,phone,branch
+ *   appointments : patientId,doctorId,dateTime,note   (dateTime: 2025-01-01T10:00 ya da 2025-01-01 10:00)
+ *
+ * Komut satırı:
+ *   java BulkImporter patients hastalar.csv [doctors doktorlar.csv] [appointments randevular.csv]
+ */
+public class BulkImporter {
+
+    static final int CHUNK_LINES = 10_000;
+    static final int INSERT_BATCH = 1_000;
+    private static final int SAMPLE_ERRORS = 20;
+
+    private static final DateTimeFormatter SPACE_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    enum EntityType {
+        PATIENTS(4), DOCTORS(3), APPOINTMENTS(4);
+
+        final int columns;
+
+        EntityType(int columns) {
+            this.columns = columns;
+        }
+
+        static EntityType parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown import type: " + name
+                        + " (expected patients, doctors or appointments)");
+            }
+        }
+    }
+
+    // Ayrıştırılmış ve doğrulanmış tek satır
+    static class Row {
+        final long line;
+        final String[] fields;
+        int patientId;
+        int doctorId;
+        LocalDateTime dateTime;
+
+        Row(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    static class Chunk {
+        final List<Row> rows = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+    }
+
+    static class ImportReport {
+        EntityType type;
+        long rowsRead;
+        long imported;
+        long failed;
+        final List<String> sampleErrors = new ArrayList<>();
+        Path errorFile;
+        long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "%s: %d rows read, %d imported, %d failed in %.2f s (%.0f rows/s)",
+                    type.name().toLowerCase(Locale.ROOT), rowsRead, imported, failed, seconds,
+                    seconds == 0 ? 0 : rowsRead / seconds));
+            for (String e : sampleErrors) {
+                sb.append("\n  ").append(e);
+            }
+            if (failed > sampleErrors.size()) {
+                sb.append("\n  ... ").append(failed - sampleErrors.size()).append(" more");
+            }
+            if (failed > 0) {
+                sb.append("\n  Full error report: ").append(errorFile);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final ClinicService service;
+    private final int parserThreads;
+
+    BulkImporter(ClinicService service) {
+        this(service, Runtime.getRuntime().availableProcessors());
+    }
+
+    BulkImporter(ClinicService service, int parserThreads) {
+        this.service = service;
+        this.parserThreads = Math.max(1, parserThreads);
+    }
+
+    ImportReport importFile(EntityType type, Path csv) throws IOException {
+        Path errorFile = csv.resolveSibling(csv.getFileName() + ".errors.txt");
+        ImportReport report;
+        try (Reader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             Writer errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+            report = run(type, in, errors);
+        }
+        report.errorFile = errorFile;
+        // Rapor dosyası kapandıktan sonra: hata yoksa boş rapor bırakılmaz
+        if (report.failed == 0) {
+            Files.deleteIfExists(errorFile);
+        }
+        return report;
+    }
+
+    ImportReport run(EntityType type, Reader reader, Writer errorOut) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        report.type = type;
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, r -> {
+            Thread t = new Thread(r, "csv-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        // Sıralı sonuç kuyruğu; bellekte sınırlı sayıda parça bekler
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        int maxInFlight = parserThreads * 2;
+
+        try (BufferedReader in = new BufferedReader(reader, 1 << 16)) {
+            long lineNo = 0;
+            boolean first = true;
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long chunkStartLine = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (first) {
+                    first = false;
+                    if (isHeader(type, line)) {
+                        chunkStartLine = lineNo + 1;
+                        continue;
+                    }
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    submit(type, lines, chunkStartLine, parsers, inFlight);
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    chunkStartLine = lineNo + 1;
+                    while (inFlight.size() >= maxInFlight) {
+                        insert(type, await(inFlight.poll()), report, errorOut);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(type, lines, chunkStartLine, parsers, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                insert(type, await(inFlight.poll()), report, errorOut);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private static void submit(EntityType type, List<String> lines, long firstLine,
+                               ExecutorService parsers, Deque<Future<Chunk>> inFlight) {
+        inFlight.add(parsers.submit(() -> parseChunk(type, lines, firstLine)));
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("CSV parsing failed", e.getCause());
+        }
+    }
+
+    // === AYRIŞTIRMA + DOĞRULAMA (paralel) ===
+
+    static Chunk parseChunk(EntityType type, List<String> lines, long firstLine) {
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < lines.size(); i++) {
+            long lineNo = firstLine + i;
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                String[] fields = splitCsv(line, type.columns);
+                chunk.rows.add(validate(type, lineNo, fields));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                chunk.errors.add("line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    private static Row validate(EntityType type, long lineNo, String[] f) {
+        Row row = new Row(lineNo, f);
+        switch (type) {
+            case PATIENTS:
+            case DOCTORS:
+                // Swing formundaki kuralla aynı: isim ve telefon zorunlu
+                if (f[0].isEmpty() || f[1].isEmpty()) {
+                    throw new IllegalArgumentException("Name and Phone are required");
+                }
+                break;
+            case APPOINTMENTS:
+                try {
+                    row.patientId = Integer.parseInt(f[0]);
+                    row.doctorId = Integer.parseInt(f[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Patient ID and Doctor ID must be numbers");
+                }
+                row.dateTime = f[2].indexOf('T') >= 0
+                        ? LocalDateTime.parse(f[2])
+                        : LocalDateTime.parse(f[2], SPACE_DATE_TIME);
+                break;
+        }
+        return row;
+    }
+
+    /**
+     * Basit CSV ayrıştırıcı: virgülle ayrılmış alanlar, çift tırnak içinde virgül
+     * ve "" (kaçışlı tırnak) desteklenir. Eksik sondaki alanlar boş kabul edilir.
+     */
+    static String[] splitCsv(String line, int columns) {
+        String[] fields = new String[columns];
+        int field = 0;
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (field == columns - 1) {
+                    throw new IllegalArgumentException("Too many columns (expected " + columns + ")");
+                }
+                fields[field++] = current.toString().trim();
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields[field++] = current.toString().trim();
+        while (field < columns) {
+            fields[field++] = "";
+        }
+        return fields;
+    }
+
+    private static boolean isHeader(EntityType type, String line) {
+        String first = line.split(",", 2)[0].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+        return type == EntityType.APPOINTMENTS ? first.equals("patientid") : first.equals("name");
+    }
+
+    // === EKLEME (dosya sırasıyla) ===
+
+    private void insert(EntityType type, Chunk chunk, ImportReport report, Writer errorOut) throws IOException {
+        report.rowsRead += chunk.rows.size() + chunk.errors.size();
+        for (String e : chunk.errors) {
+            fail(report, errorOut, e);
+        }
+        for (int from = 0; from < chunk.rows.size(); from += INSERT_BATCH) {
+            List<Row> batch = chunk.rows.subList(from, Math.min(chunk.rows.size(), from + INSERT_BATCH));
+            try {
+                insertBatch(type, batch);
+                report.imported += batch.size();
+            } catch (RuntimeException batchError) {
+                // Paket bütün olarak reddedildi; hatalı satırları bulmak için tek tek dene
+                for (Row row : batch) {
+                    try {
+                        insertRow(type, row);
+                        report.imported++;
+                    } catch (RuntimeException e) {
+                        fail(report, errorOut, "line " + row.line + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void insertBatch(EntityType type, List<Row> rows) {
+        switch (type) {
+            case PATIENTS: {
+                List<NewPatient> batch = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    String[] f = row.fields;
+                    batch.add(new NewPatient(f[0], f[1], f[2], f[3]));
+                }
+                service.registerPatients(batch);
+                break;
+            }
+            case DOCTORS: {
+                List<NewDoctor> batch = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    String[] f = row.fields;
+                    batch.add(new NewDoctor(f[0], f[1], f[2]));
+                }
+                service.registerDoctors(batch);
+                break;
+            }
+            case APPOINTMENTS: {
+                List<NewAppointment> batch = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    batch.add(new NewAppointment(row.patientId, row.doctorId, row.dateTime, row.fields[3]));
+                }
+                service.createAppointments(batch);
+                break;
+            }
+        }
+    }
+
+    private void insertRow(EntityType type, Row row) {
+        String[] f = row.fields;
+        switch (type) {
+            case PATIENTS:
+                service.registerPatient(f[0], f[1], f[2], f[3]);
+                break;
+            case DOCTORS:
+                service.registerDoctor(f[0], f[1], f[2]);
+                break;
+            case APPOINTMENTS:
+                service.createAppointment(row.patientId, row.doctorId, row.dateTime, f[3]);
+                break;
+        }
+    }
+
+    private static void fail(ImportReport report, Writer errorOut, String message) throws IOException {
+        report.failed++;
+        if (report.sampleErrors.size() < SAMPLE_ERRORS) {
+            report.sampleErrors.add(message);
+        }
+        errorOut.write(message);
+        errorOut.write('\n');
+    }
+
+    // === KOMUT SATIRI ===
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length % 2 != 0) {
+            System.out.println("Usage: java BulkImporter <patients|doctors|appointments> <file.csv> [...]");
+            return;
+        }
+        try (ClinicService service = ClinicServiceImpl.open()) {
+            BulkImporter importer = new BulkImporter(service);
+            for (int i = 0; i < args.length; i += 2) {
+                System.out.println(importer.importFile(EntityType.parse(args[i]), Paths.get(args[i + 1])));
+            }
+        }
+    }
+}
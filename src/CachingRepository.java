@@ -0,0 +1,282 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Kalıcı bir repository'nin önüne konan okuma önbelleği (read-through, write-through).
+ * Kayıtlar ID'ye göre şeritlere bölünür; her şerit kendi kilidiyle korunan erişim sıralı
+ * bir LinkedHashMap'tir ve kapasitesi dolunca en uzun süredir kullanılmayan kaydı atar
+ * (şerit bazında LRU, bütünde yaklaşık LRU).
+ *
+ * Tutarlılık: ıskalamada yükleme ve save/delete aynı şerit kilidi altında yapılır, böylece
+ * eski bir değer yeni yazılmış değerin üstüne önbelleğe konamaz.
+ * Tarama işlemleri (forEach, findAll, stream, findPage) doğrudan alttaki repository'ye gider;
+ * toplu okumalar sıcak kayıtları önbellekten atmasın diye.
+ *
+ * Kapasite entity bazında ayarlanır: -Dclinic.cache.<ad>=<kayıt sayısı>, 0 = önbellek yok,
+ * "all" = sınırsız (örn. doktorların hepsi bellekte, hastalar için sınırlı bir sıcak küme).
+ * Küçük kapasitelerde şerit sayısı kapasiteye inilir: her şerit en az bir kayıt tutar.
+ *
+ * Sadece okuması pahalı depoların önüne konur (memory-mapped depo her get'te kaydı çözer).
+ * Bellek içi ve WAL depoları kayıtları zaten heap'te bir dizide tutar; önbellek orada
+ * sadece ikinci bir kopya ve kilit maliyeti olurdu.
+ */
+class CachingRepository<T> implements IntRepository<T>, Closeable {
+
+    static final String CAPACITY_PROPERTY_PREFIX = "clinic.cache.";
+    static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    // Must be a power of two (stripe index is computed with a mask)
+    private static final int MAX_STRIPES = 64;
+
+    private final String name;
+    private final IntRepository<T> delegate;
+    private final int capacity;
+    private final Stripe<T>[] stripes;
+    private final int stripeMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Stripe<T> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        final LinkedHashMap<Integer, T> entries;
+
+        Stripe(int capacity, LongAdder evictions) {
+            // Sınırsız önbellekte erişim sırasını tutmaya gerek yok
+            entries = new LinkedHashMap<>(16, 0.75f, capacity != UNBOUNDED) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    CachingRepository(String name, IntRepository<T> delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.capacity = capacity;
+        // Kapasiteyi aşmayan en büyük ikinin kuvveti: kapasite 0 olan şerit kalmaz
+        int count = Integer.highestOneBit(Math.min(MAX_STRIPES, capacity));
+        stripeMask = count - 1;
+        stripes = newStripeArray(count);
+        for (int i = 0; i < count; i++) {
+            // Kalan kapasite ilk şeritlere dağıtılır; toplam kapasite aşılmaz
+            int perStripe = capacity == UNBOUNDED ? UNBOUNDED
+                    : capacity / count + (i < capacity % count ? 1 : 0);
+            stripes[i] = new Stripe<>(perStripe, evictions);
+        }
+    }
+
+    // Generic dizi oluşturulamadığı için ham tipten dönüştürülür
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Stripe<T>[] newStripeArray(int length) {
+        return (Stripe<T>[]) new Stripe[length];
+    }
+
+    /**
+     * clinic.cache.<name> ayarına göre önbellekli repository; ayar yoksa defaultCapacity kullanılır.
+     * Kapasite 0 ise repository olduğu gibi döner.
+     */
+    static <T> IntRepository<T> configure(String name, IntRepository<T> repo, int defaultCapacity) {
+        String value = System.getProperty(CAPACITY_PROPERTY_PREFIX + name);
+        int capacity = defaultCapacity;
+        if (value != null && !value.isBlank()) {
+            capacity = "all".equalsIgnoreCase(value.trim()) ? UNBOUNDED : Integer.parseInt(value.trim());
+        }
+        return capacity <= 0 ? repo : new CachingRepository<>(name, repo, capacity);
+    }
+
+    private Stripe<T> stripe(int id) {
+        return stripes[id & stripeMask];
+    }
+
+    @Override
+    public T get(int id) {
+        Stripe<T> s = stripe(id);
+        s.lock();
+        try {
+            T cached = s.entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+            T loaded = delegate.get(id);
+            if (loaded != null) {
+                s.entries.put(id, loaded);
+            }
+            return loaded;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    @Override
+    public void save(int id, T entity) {
+        Stripe<T> s = stripe(id);
+        s.lock();
+        try {
+            delegate.save(id, entity);
+            s.entries.put(id, entity);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Şeritler artan sırada kilitlenir (iki toplu işlem birbirini beklemez)
+    @Override
+    public void saveAll(Map<Integer, T> entities) {
+        List<Stripe<T>> held = lockStripes(entities.keySet());
+        try {
+            delegate.saveAll(entities);
+            entities.forEach((id, entity) -> stripe(id).entries.put(id, entity));
+        } finally {
+            unlock(held);
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        Stripe<T> s = stripe(id);
+        s.lock();
+        try {
+            delegate.delete(id);
+            s.entries.remove(id);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        List<Stripe<T>> held = lockStripes(ids);
+        try {
+            delegate.deleteAllById(ids);
+            for (int id : ids) {
+                stripe(id).entries.remove(id);
+            }
+        } finally {
+            unlock(held);
+        }
+    }
+
+    private List<Stripe<T>> lockStripes(Collection<Integer> ids) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (int id : ids) {
+            indexes.add(id & stripeMask);
+        }
+        List<Stripe<T>> held = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            stripes[i].lock();
+            held.add(stripes[i]);
+        }
+        return held;
+    }
+
+    private static void unlock(List<? extends ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    // === TARAMALAR (önbelleği kullanmaz) ===
+
+    @Override
+    public List<T> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super T> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public <V extends RecordView> boolean forEachView(V view, IntEntryConsumer<? super V> action) {
+        return delegate.forEachView(view, action);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public List<T> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public int idLimit() {
+        return delegate.idLimit();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IntRepository.closeDelegate(delegate);
+    }
+
+    // === İSTATİSTİK ===
+
+    CacheStats stats() {
+        int size = 0;
+        for (Stripe<T> s : stripes) {
+            s.lock();
+            try {
+                size += s.entries.size();
+            } finally {
+                s.unlock();
+            }
+        }
+        return new CacheStats(name, capacity, size, hits.sum(), misses.sum(), evictions.sum());
+    }
+}
+
+class CacheStats {
+    final String name;
+    final int capacity;
+    final int size;
+    final long hits;
+    final long misses;
+    final long evictions;
+
+    CacheStats(String name, int capacity, int size, long hits, long misses, long evictions) {
+        this.name = name;
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s cache: %d/%s entries, %d hits, %d misses (%.1f%% hit), %d evictions",
+                name, size, capacity == CachingRepository.UNBOUNDED ? "unbounded" : String.valueOf(capacity),
+                hits, misses, 100 * hitRate(), evictions);
+    }
+}
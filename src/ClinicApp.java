@@ -1,16 +1,52 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // === MAIN CLASS ===
 public class ClinicApp {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final ClinicService service = new ClinicServiceImpl();
+    // Argümanlar doğrulandıktan sonra açılır: kullanım hatasında veri klasörüne dokunulmaz
+    private static MetricsClinicService service;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
+        // --script dosya (ya da - ile stdin): menü göstermeden komut dosyası çalıştırılır
+        if (args.length > 0) {
+            Map<String, String> opts = CommandLine.parseArgs(args);
+            if (!opts.containsKey("script")) {
+                System.err.println("Usage: java ClinicApp [--script <file|-> [--out file] [--fail-fast]]");
+                System.exit(2);
+            }
+            service = MetricsClinicService.wrap(ClinicServiceImpl.open());
+            int status;
+            try {
+                status = ClinicScript.main(service, opts);
+            } finally {
+                service.close();
+            }
+            System.exit(status);
+        }
+
+        service = MetricsClinicService.wrap(ClinicServiceImpl.open());
         boolean run = true;
 
         while (run) {
@@ -39,8 +75,36 @@ public class ClinicApp {
                 case "7":
                     listBranches();
                     break;
+                case "8":
+                    findNextFreeSlot();
+                    break;
+                case "9":
+                    findPatient();
+                    break;
+                case "10":
+                    bulkImport();
+                    break;
+                case "11":
+                    findFreeSlotsInBranch();
+                    break;
+                case "12":
+                    markAppointment();
+                    break;
+                case "13":
+                    showReports();
+                    break;
+                case "14":
+                    showMetrics();
+                    break;
+                case "15":
+                    listTodaysAppointments();
+                    break;
+                case "16":
+                    searchNotes();
+                    break;
                 case "0":
                     run = false;
+                    service.close();
                     System.out.println("Program sonlandırıldı.");
                     break;
                 default:
@@ -58,6 +122,15 @@ public class ClinicApp {
         System.out.println("5 - List Doctors");
         System.out.println("6 - List Appointments");
         System.out.println("7 - List Doctor Branches");
+        System.out.println("8 - Next Free Slot of Doctor");
+        System.out.println("9 - Find Patient");
+        System.out.println("10 - Bulk Import (CSV)");
+        System.out.println("11 - Free Slots in Branch");
+        System.out.println("12 - Mark Appointment (completed / no-show)");
+        System.out.println("13 - Reports");
+        System.out.println("14 - Metrics");
+        System.out.println("15 - Today's Appointments");
+        System.out.println("16 - Search Appointment Notes");
         System.out.println("0 - Exit");
         System.out.print("Choice: ");
     }
@@ -72,8 +145,12 @@ public class ClinicApp {
         System.out.print("Blood Type: ");
         String blood = scanner.nextLine();
 
-        Patient p = service.registerPatient(name, phone, nid, blood);
-        System.out.println("Added patient: " + p);
+        try {
+            Patient p = service.registerPatient(name, phone, nid, blood);
+            System.out.println("Added patient: " + p);
+        } catch (Exception e) {
+            System.out.println("Error adding patient: " + e.getMessage());
+        }
     }
 
     private static void addDoctor() {
@@ -116,17 +193,48 @@ public class ClinicApp {
 
     private static void listPatients() {
         System.out.println("\n--- Patients ---");
-        PrintUtil.printList(service.listPatients());
+        PrintUtil.printStream(service.streamPatients());
     }
 
     private static void listDoctors() {
         System.out.println("\n--- Doctors ---");
-        PrintUtil.printList(service.listDoctors());
+        PrintUtil.printStream(service.streamDoctors());
     }
 
     private static void listAppointments() {
         System.out.println("\n--- Appointments ---");
-        PrintUtil.printList(service.listAppointments());
+        PrintUtil.printStream(service.streamAppointments());
+    }
+
+    private static void listTodaysAppointments() {
+        LocalDate today = LocalDate.now();
+        System.out.println("\n--- Appointments on " + today + " ---");
+        List<Appointment> appointments = service.listAppointmentsOn(today);
+        if (appointments.isEmpty()) {
+            System.out.println("No appointments today");
+        }
+        PrintUtil.printList(appointments);
+    }
+
+    private static void searchNotes() {
+        System.out.print("Search (\"phrase\" for exact words): ");
+        String query = scanner.nextLine();
+        System.out.print("Patient ID (empty = all): ");
+        String patient = scanner.nextLine().trim();
+        System.out.print("Doctor ID (empty = all): ");
+        String doctor = scanner.nextLine().trim();
+
+        try {
+            List<Appointment> found = service.searchNotes(query,
+                    patient.isEmpty() ? 0 : Integer.parseInt(patient),
+                    doctor.isEmpty() ? 0 : Integer.parseInt(doctor), 50);
+            if (found.isEmpty()) {
+                System.out.println("No notes match " + query);
+            }
+            PrintUtil.printList(found);
+        } catch (Exception e) {
+            System.out.println("Error searching notes: " + e.getMessage());
+        }
     }
 
     private static void listBranches() {
@@ -134,6 +242,137 @@ public class ClinicApp {
         service.listDoctorBranches()
                 .forEach(b -> System.out.println("- " + b)); // lambda
     }
+
+    private static void findPatient() {
+        System.out.println("1 - By National ID");
+        System.out.println("2 - By Phone");
+        System.out.println("3 - By Name (prefix)");
+        System.out.print("Choice: ");
+        String choice = scanner.nextLine();
+        System.out.print("Search: ");
+        String text = scanner.nextLine();
+
+        switch (choice) {
+            case "1":
+                Optional<Patient> p = service.findPatientByNationalId(text);
+                System.out.println(p.map(Patient::toString).orElse("No patient with national ID " + text));
+                break;
+            case "2":
+                PrintUtil.printList(service.findPatientsByPhone(text));
+                break;
+            case "3":
+                PrintUtil.printList(service.searchPatientsByName(text, 50));
+                break;
+            default:
+                System.out.println("Geçersiz seçim!");
+        }
+    }
+
+    private static void bulkImport() {
+        try {
+            System.out.print("Type (patients/doctors/appointments): ");
+            BulkImporter.EntityType type = BulkImporter.EntityType.parse(scanner.nextLine());
+            System.out.print("CSV file: ");
+            Path file = Paths.get(scanner.nextLine().trim());
+
+            System.out.println(new BulkImporter(service).importFile(type, file));
+        } catch (Exception e) {
+            System.out.println("Error importing: " + e.getMessage());
+        }
+    }
+
+    private static void markAppointment() {
+        try {
+            System.out.print("Appointment ID: ");
+            int id = Integer.parseInt(scanner.nextLine());
+
+            System.out.print("Status (scheduled/completed/no-show): ");
+            AppointmentStatus status = AppointmentStatus.parse(scanner.nextLine());
+
+            System.out.println("Updated appointment: " + service.markAppointment(id, status));
+        } catch (Exception e) {
+            System.out.println("Error updating appointment: " + e.getMessage());
+        }
+    }
+
+    private static void showReports() {
+        try {
+            System.out.println("\n--- Today's Load by Branch ---");
+            Map<String, AppointmentReport.Counts> today = service.branchLoad(LocalDate.now());
+            if (today.isEmpty()) {
+                System.out.println("No appointments today");
+            }
+            today.forEach((branch, c) -> System.out.println(branch + ": " + c));
+
+            System.out.print("\nFrom date (YYYY-MM-DD, empty = all): ");
+            String from = scanner.nextLine().trim();
+            System.out.print("To date (YYYY-MM-DD, inclusive, empty = all): ");
+            String to = scanner.nextLine().trim();
+
+            long start = System.nanoTime();
+            AppointmentReport report = service.report(
+                    from.isEmpty() ? null : LocalDate.parse(from).atStartOfDay(),
+                    to.isEmpty() ? null : LocalDate.parse(to).plusDays(1).atStartOfDay());
+            System.out.println();
+            System.out.println(report);
+            System.out.printf(Locale.ROOT, "%nReport computed in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.out.println("Error building report: " + e.getMessage());
+        }
+    }
+
+    private static void showMetrics() {
+        System.out.println("\n--- Metrics ---");
+        System.out.print(service.metrics().toText());
+        List<CacheStats> caches = service.cacheStats();
+        if (!caches.isEmpty()) {
+            System.out.println();
+            PrintUtil.printList(caches);
+        }
+    }
+
+    private static void findNextFreeSlot() {
+        try {
+            System.out.print("Doctor ID: ");
+            int dId = Integer.parseInt(scanner.nextLine());
+
+            System.out.print("From date (YYYY-MM-DD): ");
+            LocalDate date = LocalDate.parse(scanner.nextLine());
+
+            System.out.print("From time (HH:MM): ");
+            LocalTime time = LocalTime.parse(scanner.nextLine());
+
+            LocalDateTime slot = service.findNextFreeSlot(dId, LocalDateTime.of(date, time));
+            System.out.println("Next free slot: " + slot);
+        } catch (Exception e) {
+            System.out.println("Error finding free slot: " + e.getMessage());
+        }
+    }
+
+    private static void findFreeSlotsInBranch() {
+        try {
+            System.out.print("Branch: ");
+            String branch = scanner.nextLine().trim();
+
+            System.out.print("From date (YYYY-MM-DD): ");
+            LocalDate from = LocalDate.parse(scanner.nextLine());
+
+            System.out.print("To date (YYYY-MM-DD, inclusive): ");
+            LocalDate to = LocalDate.parse(scanner.nextLine());
+
+            System.out.print("How many: ");
+            int limit = Integer.parseInt(scanner.nextLine());
+
+            List<FreeSlot> slots = service.findFreeSlots(branch, from.atStartOfDay(),
+                    to.plusDays(1).atStartOfDay(), limit);
+            if (slots.isEmpty()) {
+                System.out.println("No free slots in " + branch);
+            }
+            PrintUtil.printList(slots);
+        } catch (Exception e) {
+            System.out.println("Error finding free slots: " + e.getMessage());
+        }
+    }
 }
 
 // === ABSTRACT SUPER CLASS ===
@@ -223,13 +462,25 @@ class Appointment {
     private Doctor doctor;
     private LocalDateTime dateTime;
     private String note;
+    private AppointmentStatus status;
 
     public Appointment(int id, Patient patient, Doctor doctor, LocalDateTime dateTime, String note) {
+        this(id, patient, doctor, dateTime, note, AppointmentStatus.SCHEDULED);
+    }
+
+    public Appointment(int id, Patient patient, Doctor doctor, LocalDateTime dateTime, String note,
+                       AppointmentStatus status) {
         this.id = id;
         this.patient = patient;
         this.doctor = doctor;
         this.dateTime = dateTime;
         this.note = note;
+        this.status = status;
+    }
+
+    // Randevular değiştirilmez; durum değişikliği yeni bir nesneyle kaydedilir
+    public Appointment withStatus(AppointmentStatus status) {
+        return new Appointment(id, patient, doctor, dateTime, note, status);
     }
 
     public int getId() {
@@ -252,6 +503,10 @@ class Appointment {
         return note;
     }
 
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+
     @Override
     public String toString() {
         return "Appointment{" +
@@ -260,22 +515,66 @@ class Appointment {
                 ", Doctor=" + doctor.getName() +
                 ", DateTime=" + dateTime +
                 ", Note='" + note + '\'' +
+                ", Status=" + status +
                 '}';
     }
 }
 
+enum AppointmentStatus {
+    SCHEDULED, COMPLETED, NO_SHOW;
+
+    static AppointmentStatus parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + name
+                    + " (expected scheduled, completed or no-show)");
+        }
+    }
+}
+
 // === GENERIC REPOSITORY INTERFACE ===
 interface Repository<T, ID> {
     void save(ID id, T entity);
     Optional<T> findById(ID id);
     List<T> findAll();
     void deleteById(ID id);
+
+    // Kopyalamadan, tembel (lazy) gezinme
+    default Stream<T> stream() {
+        return findAll().stream();
+    }
+
+    default int count() {
+        return findAll().size();
+    }
+
+    // === TOPLU İŞLEMLER ===
+    // Varsayılanlar tek tek çağırır; kalıcı repository'ler bunları tek yazma/fsync ile yapar
+
+    default void saveAll(Map<ID, T> entities) {
+        entities.forEach(this::save);
+    }
+
+    // Bulunamayan ID'ler atlanır
+    default List<T> findAllById(Collection<ID> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    default void deleteAllById(Collection<ID> ids) {
+        ids.forEach(this::deleteById);
+    }
 }
 
 // === GENERIC REPOSITORY IMPLEMENTATION ===
 class InMemoryRepository<T, ID> implements Repository<T, ID> {
 
-    private final Map<ID, T> store = new HashMap<>();
+    // Birden fazla thread aynı anda yazabildiği için ConcurrentHashMap
+    private final Map<ID, T> store = new ConcurrentHashMap<>();
 
     @Override
     public void save(ID id, T entity) {
@@ -293,103 +592,1430 @@ class InMemoryRepository<T, ID> implements Repository<T, ID> {
         return new ArrayList<>(store.values());
     }
 
+    @Override
+    public Stream<T> stream() {
+        return store.values().stream();
+    }
+
+    @Override
+    public int count() {
+        return store.size();
+    }
+
     @Override
     public void deleteById(ID id) {
         store.remove(id);
     }
 }
 
-// === SERVICE INTERFACE ===
-interface ClinicService {
+// === INT ANAHTARLI REPOSITORY ===
+// ID'ler sıralı int olduğu için Integer kutulama ve Optional oluşturmadan çalışan sürüm
+interface IntRepository<T> extends Repository<T, Integer> {
 
-    Patient registerPatient(String name, String phone, String nationalId, String bloodType);
+    void save(int id, T entity);
 
-    Doctor registerDoctor(String name, String phone, String branch);
+    // Kayıt yoksa null döner (sıcak yolda Optional oluşturmamak için)
+    T get(int id);
 
-    Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note);
+    void delete(int id);
 
-    List<Patient> listPatients();
+    void forEach(IntEntryConsumer<? super T> action);
 
-    List<Doctor> listDoctors();
+    // Şu ana kadar ayrılmış en büyük ID + 1 (tarama üst sınırı)
+    int idLimit();
 
-    List<Appointment> listAppointments();
+    // Kopyasız tarama (memory-mapped depo): view her kayda yeniden konumlanır, nesne oluşmaz.
+    // Desteklemeyen depolar false döner, çağıran forEach'e düşer. Yazma olmayan anlarda (açılışta) kullanılır.
+    default <V extends RecordView> boolean forEachView(V view, IntEntryConsumer<? super V> action) {
+        return false;
+    }
 
-    Set<String> listDoctorBranches();
+    // Sadece dolu ID'ler; view destekleyen depoda kayıtlar çözülmez
+    default void forEachId(IntConsumer action) {
+        if (!forEachView(new RecordView(), (id, view) -> action.accept(id))) {
+            forEach((id, entity) -> action.accept(id));
+        }
+    }
+
+    // Keyset sayfalama: afterId'den büyük ilk limit kayıt, ID sırasıyla.
+    // ID'ler sıralı olduğu için maliyet sayfa boyutuyla orantılıdır.
+    default List<T> findPage(int afterId, int limit) {
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        int end = idLimit();
+        // afterId + 1 int olarak taşabilir (afterId = Integer.MAX_VALUE): o zaman sayfa boştur
+        long start = Math.max((long) afterId + 1, 0);
+        for (int id = (int) Math.min(start, end); id < end && page.size() < limit; id++) {
+            T entity = get(id);
+            if (entity != null) {
+                page.add(entity);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    default Stream<T> stream() {
+        return StreamSupport.stream(new SlotSpliterator<>(this::get, 0, idLimit()), false);
+    }
+
+    @Override
+    default void save(Integer id, T entity) {
+        save(id.intValue(), entity);
+    }
+
+    @Override
+    default Optional<T> findById(Integer id) {
+        return Optional.ofNullable(get(id.intValue()));
+    }
+
+    @Override
+    default void deleteById(Integer id) {
+        delete(id.intValue());
+    }
+
+    // Sarmalayıcı repository'lerin close()'u için: alttaki depo kapatılabiliyorsa kapatır
+    static void closeDelegate(Object delegate) throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        } else if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing " + delegate.getClass().getSimpleName());
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
 
-// === SERVICE IMPLEMENTATION (BUSINESS LAYER) ===
-class ClinicServiceImpl implements ClinicService {
+interface IntEntryConsumer<T> {
+    void accept(int id, T entity);
+}
 
-    private final Repository<Patient, Integer> patientRepo = new InMemoryRepository<>();
-    private final Repository<Doctor, Integer> doctorRepo = new InMemoryRepository<>();
-    private final Repository<Appointment, Integer> appointmentRepo = new InMemoryRepository<>();
+// ID aralığı [from, to) üzerinde gezinir; boş slotları atlar, paralel stream için ikiye bölünebilir
+class SlotSpliterator<T> implements Spliterator<T> {
 
-    private int patientIdSeq = 1;
-    private int doctorIdSeq = 1;
-    private int appointmentIdSeq = 1;
+    private static final int MIN_SPLIT = 1024;
 
-    private final Set<String> branches = new HashSet<>();
+    private final IntFunction<T> slots;
+    private int from;
+    private final int to;
+
+    SlotSpliterator(IntFunction<T> slots, int from, int to) {
+        this.slots = slots;
+        this.from = from;
+        this.to = to;
+    }
 
     @Override
-    public Patient registerPatient(String name, String phone, String nationalId, String bloodType) {
-        Patient p = new Patient(patientIdSeq, name, phone, nationalId, bloodType);
-        patientRepo.save(patientIdSeq, p);
-        patientIdSeq++;
-        return p;
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (from < to) {
+            T entity = slots.apply(from++);
+            if (entity != null) {
+                action.accept(entity);
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    public Doctor registerDoctor(String name, String phone, String branch) {
-        Doctor d = new Doctor(doctorIdSeq, name, phone, branch);
-        doctorRepo.save(doctorIdSeq, d);
-        doctorIdSeq++;
-        branches.add(branch);
-        return d;
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (; from < to; from++) {
+            T entity = slots.apply(from);
+            if (entity != null) {
+                action.accept(entity);
+            }
+        }
     }
 
     @Override
-    public Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note) {
-        Patient p = patientRepo.findById(patientId).orElse(null);
-        Doctor d = doctorRepo.findById(doctorId).orElse(null);
+    public Spliterator<T> trySplit() {
+        int remaining = to - from;
+        if (remaining < MIN_SPLIT * 2) {
+            return null;
+        }
+        int mid = from + remaining / 2;
+        Spliterator<T> prefix = new SlotSpliterator<>(slots, from, mid);
+        from = mid;
+        return prefix;
+    }
 
-        if (p == null) {
-            throw new IllegalArgumentException("Patient not found: " + patientId);
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
+
+/**
+ * Segmentli dizi üzerinde repository: kayıt yeri doğrudan ID'dir.
+ * Segmentler ihtiyaç oldukça eklenir, mevcut segmentler kopyalanmaz.
+ * Entry başına maliyet sadece dizideki bir referanstır (HashMap'teki Node + Integer yok).
+ */
+class IntArrayRepository<T> implements IntRepository<T> {
+
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    // Segment dizini en fazla bu kadar uzar (~134M ID); daha büyük ID'ler reddedilir
+    private static final int MAX_SEGMENTS = 1 << 13;
+    static final int MAX_ID = (MAX_SEGMENTS << SEGMENT_SHIFT) - 1;
+
+    private volatile AtomicReferenceArray<T>[] segments = newSegmentArray(0);
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public void save(int id, T entity) {
+        if (entity == null) {
+            throw new IllegalArgumentException("Entity must not be null");
         }
-        if (d == null) {
-            throw new IllegalArgumentException("Doctor not found: " + doctorId);
+        if (segmentFor(id, true).getAndSet(id & (SEGMENT_SIZE - 1), entity) == null) {
+            size.incrementAndGet();
         }
+    }
 
-        Appointment a = new Appointment(appointmentIdSeq, p, d, dateTime, note);
-        appointmentRepo.save(appointmentIdSeq, a);
-        appointmentIdSeq++;
-        return a;
+    @Override
+    public T get(int id) {
+        AtomicReferenceArray<T> seg = segmentFor(id, false);
+        return seg == null ? null : seg.get(id & (SEGMENT_SIZE - 1));
     }
 
     @Override
-    public List<Patient> listPatients() {
-        return patientRepo.findAll();
+    public void delete(int id) {
+        AtomicReferenceArray<T> seg = segmentFor(id, false);
+        if (seg != null && seg.getAndSet(id & (SEGMENT_SIZE - 1), null) != null) {
+            size.decrementAndGet();
+        }
     }
 
     @Override
-    public List<Doctor> listDoctors() {
-        return doctorRepo.findAll();
+    public List<T> findAll() {
+        List<T> result = new ArrayList<>(size.get());
+        forEach((id, entity) -> result.add(entity));
+        return result;
     }
 
     @Override
-    public List<Appointment> listAppointments() {
-        return appointmentRepo.findAll();
+    public void forEach(IntEntryConsumer<? super T> action) {
+        AtomicReferenceArray<T>[] segs = segments;
+        for (int s = 0; s < segs.length; s++) {
+            AtomicReferenceArray<T> seg = segs[s];
+            if (seg == null) {
+                continue;
+            }
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                T entity = seg.get(i);
+                if (entity != null) {
+                    action.accept((s << SEGMENT_SHIFT) | i, entity);
+                }
+            }
+        }
     }
 
     @Override
-    public Set<String> listDoctorBranches() {
-        return branches;
+    public int count() {
+        return size.get();
+    }
+
+    @Override
+    public int idLimit() {
+        return segments.length << SEGMENT_SHIFT;
+    }
+
+    // Sadece ID'nin düştüğü segment ayrılır; aradaki segmentler ilk kayıtlarına kadar null kalır
+    private AtomicReferenceArray<T> segmentFor(int id, boolean create) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int index = id >>> SEGMENT_SHIFT;
+        AtomicReferenceArray<T>[] segs = segments;
+        if (index < segs.length && segs[index] != null) {
+            return segs[index];
+        }
+        if (!create) {
+            return null;
+        }
+        if (id > MAX_ID) {
+            throw new IllegalArgumentException("ID out of range (max " + MAX_ID + "): " + id);
+        }
+        synchronized (this) {
+            segs = segments;
+            if (index >= segs.length) {
+                segs = Arrays.copyOf(segs, Math.min(MAX_SEGMENTS, Math.max(index + 1, segs.length * 2)));
+            } else if (segs[index] != null) {
+                return segs[index];
+            } else {
+                // Yeni segment, kopya dizin üzerinden yayınlanır (volatile yazma)
+                segs = segs.clone();
+            }
+            segs[index] = new AtomicReferenceArray<>(SEGMENT_SIZE);
+            segments = segs;
+            return segs[index];
+        }
+    }
+
+    // Generic dizi oluşturulamadığı için ham tipten dönüştürülür
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> AtomicReferenceArray<T>[] newSegmentArray(int length) {
+        return (AtomicReferenceArray<T>[]) new AtomicReferenceArray[length];
     }
 }
 
-// === GENERIC METHOD + LAMBDA ===
-class PrintUtil {
+// === TOPLU KAYIT İSTEKLERİ ===
+class NewPatient {
+    final String name;
+    final String phone;
+    final String nationalId;
+    final String bloodType;
 
-    public static <T> void printList(List<T> list) {
-        list.forEach(item -> System.out.println(item)); // lambda
+    NewPatient(String name, String phone, String nationalId, String bloodType) {
+        this.name = name;
+        this.phone = phone;
+        this.nationalId = nationalId;
+        this.bloodType = bloodType;
+    }
+}
+
+class NewDoctor {
+    final String name;
+    final String phone;
+    final String branch;
+
+    NewDoctor(String name, String phone, String branch) {
+        this.name = name;
+        this.phone = phone;
+        this.branch = branch;
+    }
+}
+
+class NewAppointment {
+    final int patientId;
+    final int doctorId;
+    final LocalDateTime dateTime;
+    final String note;
+
+    NewAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note) {
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.dateTime = dateTime;
+        this.note = note;
+    }
+}
+
+// Aranan kayıt yok (HTTP 404); eski çağıranlar için IllegalArgumentException'dan türer
+class NotFoundException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    NotFoundException(String message) {
+        super(message);
+    }
+}
+
+// === SERVICE INTERFACE ===
+interface ClinicService extends AutoCloseable {
+
+    Patient registerPatient(String name, String phone, String nationalId, String bloodType);
+
+    Doctor registerDoctor(String name, String phone, String branch);
+
+    Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note);
+
+    // Toplu işlemler: ya hepsi kaydedilir ya hiçbiri (hata olursa exception fırlatılır)
+    List<Patient> registerPatients(List<NewPatient> patients);
+
+    List<Doctor> registerDoctors(List<NewDoctor> doctors);
+
+    List<Appointment> createAppointments(List<NewAppointment> appointments);
+
+    List<Patient> listPatients();
+
+    List<Doctor> listDoctors();
+
+    List<Appointment> listAppointments();
+
+    Set<String> listDoctorBranches();
+
+    // Tüm listeyi kopyalamadan gezmek için (canlı veri: gezinirken yapılan yazmalar görülebilir;
+    // tek bir andaki tutarlı görünüm için ClinicServiceImpl.snapshot() kullanılır)
+    Stream<Patient> streamPatients();
+
+    Stream<Doctor> streamDoctors();
+
+    Stream<Appointment> streamAppointments();
+
+    // Keyset sayfalama: afterId'den sonraki en fazla limit kayıt (ilk sayfa için afterId = 0)
+    List<Patient> listPatients(int afterId, int limit);
+
+    List<Doctor> listDoctors(int afterId, int limit);
+
+    List<Appointment> listAppointments(int afterId, int limit);
+
+    int countPatients();
+
+    int countDoctors();
+
+    int countAppointments();
+
+    // Zamana göre sıralı randevular
+    List<Appointment> listDoctorAppointments(int doctorId);
+
+    List<Appointment> listPatientAppointments(int patientId);
+
+    // Günün randevuları, saate göre sıralı; maliyet o günün randevu sayısıyla orantılı
+    List<Appointment> listAppointmentsOn(LocalDate day);
+
+    LocalDateTime findNextFreeSlot(int doctorId, LocalDateTime from);
+
+    // Branştaki doktorların [from, to) aralığında başlayan en erken limit boş dilimi (çalışma saatleri içinde)
+    List<FreeSlot> findFreeSlots(String branch, LocalDateTime from, LocalDateTime to, int limit);
+
+    // Randevu sonucu: gelindi / gelinmedi (ya da tekrar planlandı)
+    Appointment markAppointment(int appointmentId, AppointmentStatus status);
+
+    // Artımlı sayaçlardan, depoyu taramadan: günün branş bazında yükü
+    Map<String, AppointmentReport.Counts> branchLoad(LocalDate day);
+
+    // [from, to) aralığındaki randevular için paralel rapor (null = sınırsız)
+    default AppointmentReport report(LocalDateTime from, LocalDateTime to) {
+        return AppointmentReport.build(streamAppointments(), from, to);
+    }
+
+    // İkincil indeksler üzerinden hasta arama
+    Optional<Patient> findPatientByNationalId(String nationalId);
+
+    List<Patient> findPatientsByPhone(String phone);
+
+    List<Patient> searchPatientsByName(String prefix, int limit);
+
+    // Randevu notlarında tam metin arama: bütün kelimeler ve "tırnak içindeki" ifadeler geçmeli.
+    // patientId / doctorId 0 ise o filtre yok; sonuçlar en yeni randevu önce
+    List<Appointment> searchNotes(String query, int patientId, int doctorId, int limit);
+
+    // Değişiklik olayları (kayıt, randevu, durum); aboneler kendi thread'lerinde toplu olarak alır
+    EventBus events();
+
+    // Önbellekli repository'lerin isabet/ıskalama sayıları (önbellek yoksa boş)
+    default List<CacheStats> cacheStats() {
+        return Collections.emptyList();
+    }
+
+    // Kalıcı repository kullanan implementasyonlar dosyalarını burada kapatır
+    @Override
+    default void close() {
+    }
+}
+
+// === ANLIK GÖRÜNTÜ ===
+// Servisin tek bir sürümdeki salt okunur görünümü (raporlar, dışa aktarma, uzun listeler).
+// Açıkken yapılan yazmalar görünmez ve hiçbir yazma bu görünümü beklemez; açık kaldığı sürece
+// o andan sonra değişen kayıtların eski halleri bellekte tutulduğu için kapatılmalıdır.
+class ClinicSnapshot implements AutoCloseable {
+
+    private final VersionClock.Snapshot handle;
+    // Kapanınca artık gerekmeyen geri alma kayıtlarını temizler
+    private final Runnable onClose;
+    private final IntRepository<Patient> patients;
+    private final IntRepository<Doctor> doctors;
+    private final IntRepository<Appointment> appointments;
+    // Canlı gün takvimleri; anlık görüntüden sonra eklenen ID'ler görünümde bulunmadığı için atlanır
+    private final NavigableMap<Integer, AppointmentCalendar> dayCalendars;
+    // coldBefore'dan önceki günlerin takvimi bellekte değil, arşivden kurulur (archive null ise hiç yok)
+    private final PartitionedAppointmentRepository archive;
+    private final int coldBefore;
+
+    ClinicSnapshot(VersionClock.Snapshot handle, Runnable onClose,
+                   IntRepository<Patient> patients, IntRepository<Doctor> doctors,
+                   IntRepository<Appointment> appointments, NavigableMap<Integer, AppointmentCalendar> dayCalendars,
+                   PartitionedAppointmentRepository archive, int coldBefore) {
+        this.handle = handle;
+        this.onClose = onClose;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+        this.dayCalendars = dayCalendars;
+        this.archive = archive;
+        this.coldBefore = archive != null ? coldBefore : Integer.MIN_VALUE;
+    }
+
+    long version() {
+        return handle.version;
+    }
+
+    List<Patient> listPatients() {
+        return patients.findAll();
+    }
+
+    List<Doctor> listDoctors() {
+        return doctors.findAll();
+    }
+
+    List<Appointment> listAppointments() {
+        return appointments.findAll();
+    }
+
+    List<Patient> listPatients(int afterId, int limit) {
+        return patients.findPage(afterId, limit);
+    }
+
+    List<Doctor> listDoctors(int afterId, int limit) {
+        return doctors.findPage(afterId, limit);
+    }
+
+    List<Appointment> listAppointments(int afterId, int limit) {
+        return appointments.findPage(afterId, limit);
+    }
+
+    // Akışlar anlık görüntü kapanmadan tüketilmelidir
+    Stream<Patient> streamPatients() {
+        return patients.stream();
+    }
+
+    Stream<Doctor> streamDoctors() {
+        return doctors.stream();
+    }
+
+    Stream<Appointment> streamAppointments() {
+        return appointments.stream();
+    }
+
+    // İlk çağrıda tarayarak sayar
+    int countPatients() {
+        return patients.count();
+    }
+
+    int countDoctors() {
+        return doctors.count();
+    }
+
+    int countAppointments() {
+        return appointments.count();
+    }
+
+    Patient getPatient(int id) {
+        return patients.get(id);
+    }
+
+    Doctor getDoctor(int id) {
+        return doctors.get(id);
+    }
+
+    Appointment getAppointment(int id) {
+        return appointments.get(id);
+    }
+
+    List<Appointment> listAppointmentsOn(LocalDate day) {
+        int d = Math.toIntExact(day.toEpochDay());
+        return appointmentsOf(d < coldBefore ? archive.calendarOn(d, 0, 0) : dayCalendars.get(d));
+    }
+
+    List<Appointment> appointmentsOf(AppointmentCalendar calendar) {
+        return appointmentsOf(calendar, appointments);
+    }
+
+    // Takvimdeki ID'lerin verilen depodaki kayıtları (takvimden sonra silinenler atlanır)
+    static List<Appointment> appointmentsOf(AppointmentCalendar calendar, IntRepository<Appointment> appointments) {
+        if (calendar == null) {
+            return new ArrayList<>();
+        }
+        int[] ids = calendar.appointmentIds();
+        List<Appointment> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Appointment a = appointments.get(id);
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    // [from, to) aralığındaki randevular için paralel rapor (null = sınırsız).
+    // Sınırlı aralıkta sadece o günlerin randevuları okunur (arşivdeki diğer günlere dokunulmaz).
+    AppointmentReport report(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return AppointmentReport.build(streamAppointments(), null, null);
+        }
+        int first = from != null ? Math.toIntExact(from.toLocalDate().toEpochDay()) : Integer.MIN_VALUE;
+        int last = to != null ? Math.toIntExact(to.toLocalDate().toEpochDay()) : Integer.MAX_VALUE;
+        List<AppointmentCalendar> calendars = new ArrayList<>();
+        // Arşivlenmiş günler arşivden, diğerleri bellekteki gün takvimlerinden
+        if (first < coldBefore && first <= last) {
+            for (int day : archive.daysBefore(coldBefore).subSet(first, true, Math.min(last, coldBefore - 1), true)) {
+                calendars.add(archive.calendarOn(day, 0, 0));
+            }
+        }
+        first = Math.max(first, coldBefore);
+        if (first <= last) {
+            calendars.addAll(dayCalendars.subMap(first, true, last, true).values());
+        }
+        // Tek dizi: paralel akış gün sayısından bağımsız olarak eşit bölünür
+        int[] ids = new int[0];
+        int count = 0;
+        for (AppointmentCalendar calendar : calendars) {
+            int[] dayIds = calendar.appointmentIds();
+            if (count + dayIds.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(count + dayIds.length, ids.length * 2));
+            }
+            System.arraycopy(dayIds, 0, ids, count, dayIds.length);
+            count += dayIds.length;
+        }
+        Stream<Appointment> selected = Arrays.stream(ids, 0, count)
+                .mapToObj(appointments::get)
+                .filter(Objects::nonNull);
+        return AppointmentReport.build(selected, from, to);
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+        onClose.run();
+    }
+}
+
+// === SERVICE IMPLEMENTATION (BUSINESS LAYER) ===
+// Thread-safe: ID'ler atomik olarak alınır, randevular doktor bazlı kilitlerle oluşturulur.
+class ClinicServiceImpl implements ClinicService {
+
+    // Must be a power of two (stripe index is computed with a mask)
+    private static final int LOCK_STRIPES = 64;
+
+    // Her randevu sabit süreli kabul edilir; çakışma kontrolü bu süreye göre yapılır
+    static final int APPOINTMENT_MINUTES = 30;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Boş dilim aramasında kullanılan çalışma saatleri
+    static final LocalTime WORK_START = LocalTime.of(9, 0);
+    static final LocalTime WORK_END = LocalTime.of(17, 0);
+
+    // Veri klasörü; boş bırakılırsa her şey sadece bellekte tutulur
+    static final String DATA_DIR_PROPERTY = "clinic.data.dir";
+    static final String DEFAULT_DATA_DIR = "clinic-data";
+
+    // "wal" (varsayılan) ya da "mapped": hasta/doktor kayıtları memory-mapped dosyada
+    static final String STORAGE_PROPERTY = "clinic.storage";
+
+    private final IndexedPatientRepository patientRepo;
+    private final IntRepository<Doctor> doctorRepo;
+    private final IntRepository<Appointment> appointmentRepo;
+    // Kalıcı modda günlere bölünmüş, eski günleri arşivleyen randevu deposu; bellek içi modda null
+    private final PartitionedAppointmentRepository archive;
+    // Bu günden önceki günler bellekte indekslenmez (takvim, bitmap, sayaç, not indeksi); gerektiğinde arşivden okunur
+    private volatile int coldBefore = Integer.MIN_VALUE;
+
+    // Listeleme ve raporlar bu sürümlü görünümler üzerinden okunur (tek saat: üç repository birlikte tutarlı)
+    private final VersionClock versions = new VersionClock();
+    private final SnapshotRepository<Patient> patientVersions;
+    private final SnapshotRepository<Doctor> doctorVersions;
+    private final SnapshotRepository<Appointment> appointmentVersions;
+    private final List<CachingRepository<?>> caches = new ArrayList<>();
+
+    private final AtomicInteger patientIdSeq;
+    private final AtomicInteger doctorIdSeq;
+    private final AtomicInteger appointmentIdSeq;
+
+    // Branş -> doktorlar indeksi ve doktor bazlı günlük doluluk bitmap'leri
+    private final SlotScheduler scheduler = new SlotScheduler(WORK_START, WORK_END, APPOINTMENT_MINUTES);
+
+    // Gün + branş bazında randevu sayaçları (panolar için)
+    private final LoadCounters loadCounters = new LoadCounters();
+
+    // Randevu notları üzerinde tam metin arama (sadece sıcak günler); gün dönümünde yeniden kurulur,
+    // kurulurken gelen notlar yeni indekse de yazılır
+    private volatile NoteIndex noteIndex = new NoteIndex();
+    private volatile NoteIndex rebuildingNotes;
+
+    // Yazmalar kalıcı olduktan sonra yayınlanır. Randevu olaylarının sırası doktor kilidi altında ayrılır
+    // (doktor bazında sıralı), olay kilit bırakıldıktan sonra yazılır: dolu halka rezervasyonları durdurmaz.
+    private final EventBus events = EventBus.configured();
+
+    // Doktor ve hasta bazlı takvimler (zamana göre sıralı randevu ID'leri), çakışma kontrolü O(log n).
+    // Randevu nesneleri tutulmaz; listeleme sırasında repository'den okunur.
+    private final Map<Integer, AppointmentCalendar> doctorCalendars = new ConcurrentHashMap<>();
+    private final Map<Integer, AppointmentCalendar> patientCalendars = new ConcurrentHashMap<>();
+    // Gün (epoch day) -> o günün randevuları; "bugün" ve tarih aralıklı raporlar sadece ilgili günlere bakar
+    private final ConcurrentSkipListMap<Integer, AppointmentCalendar> dayCalendars = new ConcurrentSkipListMap<>();
+    // Okumalarda boş takvim yerine kullanılır (haritaya eklenmez, hiç yazılmaz)
+    private static final AppointmentCalendar NO_APPOINTMENTS = new AppointmentCalendar();
+
+    // Aynı doktora gelen randevu istekleri aynı kilidi paylaşır.
+    // Kilit sırası her zaman önce doktor, sonra hasta.
+    private final ReentrantLock[] doctorLocks = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock[] patientLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public ClinicServiceImpl() {
+        this(new IntArrayRepository<>(), new IntArrayRepository<>());
+    }
+
+    private ClinicServiceImpl(IntRepository<Patient> patientRepo, IntRepository<Doctor> doctorRepo) {
+        this(patientRepo, doctorRepo, new ColumnarAppointmentRepository(patientRepo::get, doctorRepo::get));
+    }
+
+    // Repository'ler dolu gelebilir (örn. diskten geri yüklenmiş); sayaçlar ve indeksler buna göre kurulur
+    ClinicServiceImpl(IntRepository<Patient> patientRepo,
+                      IntRepository<Doctor> doctorRepo,
+                      IntRepository<Appointment> appointmentRepo) {
+        this.patientVersions = new SnapshotRepository<>(patientRepo, versions);
+        this.doctorVersions = new SnapshotRepository<>(doctorRepo, versions);
+        this.appointmentVersions = new SnapshotRepository<>(appointmentRepo, versions);
+        this.patientRepo = new IndexedPatientRepository(patientVersions);
+        this.doctorRepo = doctorVersions;
+        this.appointmentRepo = appointmentVersions;
+        this.archive = archiveOf(appointmentRepo);
+        for (IntRepository<?> repo : List.of(patientRepo, doctorRepo, appointmentRepo)) {
+            if (repo instanceof CachingRepository) {
+                caches.add((CachingRepository<?>) repo);
+            }
+        }
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            doctorLocks[i] = new ReentrantLock();
+            patientLocks[i] = new ReentrantLock();
+        }
+
+        AtomicInteger maxPatientId = new AtomicInteger();
+        patientRepo.forEachId(id -> maxPatientId.accumulateAndGet(id, Math::max));
+        AtomicInteger maxDoctorId = new AtomicInteger();
+        doctorRepo.forEach((id, d) -> {
+            maxDoctorId.accumulateAndGet(id, Math::max);
+            // Branş kontrolünden önce kaydedilmiş branşsız doktorlar açılışı durdurmaz; randevu alamazlar
+            if (d.getBranch() != null) {
+                scheduler.addDoctor(id, d.getBranch());
+            }
+        });
+        AtomicInteger maxAppointmentId = new AtomicInteger();
+        if (archive != null) {
+            // Arşiv dosyaları okunmaz: ID'ler depo dizininden, indeksler sadece sıcak günlerden
+            archive.forEachId(id -> maxAppointmentId.accumulateAndGet(id, Math::max));
+            coldBefore = archive.archivedBefore();
+            archive.forEachFrom(coldBefore, (id, a) -> index(a));
+        } else {
+            appointmentRepo.forEach((id, a) -> {
+                maxAppointmentId.accumulateAndGet(id, Math::max);
+                index(a);
+            });
+        }
+
+        patientIdSeq = new AtomicInteger(maxPatientId.get() + 1);
+        doctorIdSeq = new AtomicInteger(maxDoctorId.get() + 1);
+        appointmentIdSeq = new AtomicInteger(maxAppointmentId.get() + 1);
+
+        if (archive != null) {
+            archive.onArchived(this::archived);
+            // Kurulum sırasında gün dönmüş olabilir
+            archived(archive.archivedBefore());
+        }
+    }
+
+    private static PartitionedAppointmentRepository archiveOf(IntRepository<Appointment> repo) {
+        if (repo instanceof WalRepository
+                && ((WalRepository<Appointment>) repo).store() instanceof PartitionedAppointmentRepository) {
+            return (PartitionedAppointmentRepository) ((WalRepository<Appointment>) repo).store();
+        }
+        return null;
+    }
+
+    // clinic.data.dir ayarına göre kalıcı ya da sadece bellekte çalışan servis;
+    // clinic.shards verilmişse ShardServer süreçlerine bağlanan dağıtık servis
+    static ClinicService open() {
+        String shards = System.getProperty(ShardedClinicService.SHARDS_PROPERTY, "");
+        if (!shards.isEmpty()) {
+            return ShardedClinicService.connect(shards);
+        }
+        String dir = System.getProperty(DATA_DIR_PROPERTY, DEFAULT_DATA_DIR);
+        if (dir.isEmpty()) {
+            return new ClinicServiceImpl();
+        }
+        try {
+            if ("mapped".equals(System.getProperty(STORAGE_PROPERTY))) {
+                return openMapped(Paths.get(dir));
+            }
+            return openDurable(Paths.get(dir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open clinic data in " + dir, e);
+        }
+    }
+
+    static ClinicServiceImpl openDurable(Path dir) throws IOException {
+        WalRepository<Patient> patients = new WalRepository<>(dir.resolve("patients"), new PatientCodec());
+        WalRepository<Doctor> doctors = new WalRepository<>(dir.resolve("doctors"), new DoctorCodec());
+        return new ClinicServiceImpl(patients, doctors, openAppointments(dir, patients, doctors));
+    }
+
+    // Randevular güne göre bölümlenir; clinic.archive.hotDays günden eskiler appointments/archive altına taşınır
+    static WalRepository<Appointment> openAppointments(Path dir, IntRepository<Patient> patients,
+                                                       IntRepository<Doctor> doctors) throws IOException {
+        Path appointmentDir = dir.resolve("appointments");
+        return new WalRepository<>(appointmentDir,
+                new AppointmentCodec(patients::get, doctors::get),
+                new PartitionedAppointmentRepository(appointmentDir.resolve("archive"),
+                        patients::get, doctors::get, PartitionedAppointmentRepository.configuredHotDays()));
+    }
+
+    // Varsayılan önbellek boyutları (clinic.cache.patients / clinic.cache.doctors ile değiştirilebilir)
+    static final int DEFAULT_PATIENT_CACHE = 100_000;
+    static final int DEFAULT_DOCTOR_CACHE = CachingRepository.UNBOUNDED;
+
+    // Milyonlarca hasta için: heap'te sadece randevular ve sıcak kayıtlar kalır.
+    // Doktorlar sürekli okunduğu için tamamen, hastalar sınırlı bir LRU ile önbelleğe alınır.
+    static ClinicServiceImpl openMapped(Path dir) throws IOException {
+        IntRepository<Patient> patients = CachingRepository.configure("patients",
+                new MappedRecordRepository<>(dir.resolve("patients.dat"), new PatientRecordCodec()),
+                DEFAULT_PATIENT_CACHE);
+        IntRepository<Doctor> doctors = CachingRepository.configure("doctors",
+                new MappedRecordRepository<>(dir.resolve("doctors.dat"), new DoctorRecordCodec()),
+                DEFAULT_DOCTOR_CACHE);
+        return new ClinicServiceImpl(patients, doctors, openAppointments(dir, patients, doctors));
+    }
+
+    @Override
+    public void close() {
+        // Önce bekleyen olaylar işlenir
+        events.close();
+        closeQuietly(appointmentRepo);
+        closeQuietly(doctorRepo);
+        closeQuietly(patientRepo);
+    }
+
+    private static void closeQuietly(Object repo) {
+        if (repo instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) repo).close();
+            } catch (Exception e) {
+                System.err.println("Error closing repository: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Patient registerPatient(String name, String phone, String nationalId, String bloodType) {
+        int id = patientIdSeq.getAndIncrement();
+        Patient p = new Patient(id, name, phone, nationalId, bloodType);
+        patientRepo.save(id, p);
+        events.publish(new PatientRegistered(p));
+        return p;
+    }
+
+    @Override
+    public Doctor registerDoctor(String name, String phone, String branch) {
+        requireBranch(branch, "");
+        int id = doctorIdSeq.getAndIncrement();
+        Doctor d = new Doctor(id, name, phone, branch);
+        doctorRepo.save(id, d);
+        scheduler.addDoctor(id, branch);
+        events.publish(new DoctorRegistered(d));
+        return d;
+    }
+
+    // Takvim ve branş sayaçları doktoru branşıyla tutar: kayıt hiçbir şey değiştirilmeden reddedilir
+    private static void requireBranch(String branch, String row) {
+        if (branch == null) {
+            throw new IllegalArgumentException("Branch is required" + row);
+        }
+    }
+
+    // Toplu doktor kaydı, ID ayrılmadan ve hiçbir parçaya yazılmadan doğrulanır
+    static void checkNewDoctors(List<NewDoctor> requests) {
+        for (int i = 0; i < requests.size(); i++) {
+            requireBranch(requests.get(i).branch, " (row " + (i + 1) + ")");
+        }
+    }
+
+    @Override
+    public Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note) {
+        // Randevular dakika hassasiyetinde saklanır
+        dateTime = dateTime.truncatedTo(ChronoUnit.MINUTES);
+        Patient p = patientRepo.get(patientId);
+        Doctor d = doctorRepo.get(doctorId);
+
+        if (p == null) {
+            throw new NotFoundException("Patient not found: " + patientId);
+        }
+        if (d == null) {
+            throw new NotFoundException("Doctor not found: " + doctorId);
+        }
+        if (d.getBranch() == null) {
+            throw new IllegalArgumentException("Doctor has no branch: " + doctorId);
+        }
+
+        ReentrantLock doctorLock = doctorLocks[doctorId & (LOCK_STRIPES - 1)];
+        ReentrantLock patientLock = patientLocks[patientId & (LOCK_STRIPES - 1)];
+        Appointment a;
+        long seq;
+        doctorLock.lock();
+        patientLock.lock();
+        try {
+            long minute = ColumnarAppointmentRepository.toEpochMinute(dateTime);
+            if (booked(doctorCalendars.getOrDefault(doctorId, NO_APPOINTMENTS), 0, doctorId, minute)) {
+                throw new IllegalStateException("Doctor " + doctorId + " is already booked around " + dateTime);
+            }
+            if (booked(patientCalendars.getOrDefault(patientId, NO_APPOINTMENTS), patientId, 0, minute)) {
+                throw new IllegalStateException("Patient " + patientId + " is already booked around " + dateTime);
+            }
+
+            int id = appointmentIdSeq.getAndIncrement();
+            a = new Appointment(id, p, d, dateTime, note);
+            appointmentRepo.save(id, a);
+            index(a);
+            seq = events.claim(1);
+        } finally {
+            patientLock.unlock();
+            doctorLock.unlock();
+        }
+        events.publish(seq, new AppointmentCreated(a));
+        return a;
+    }
+
+    // === TOPLU İŞLEMLER ===
+    // ID'ler sayaçtan tek seferde aralık olarak alınır; repository'ye tek saveAll ile yazılır.
+
+    @Override
+    public List<Patient> registerPatients(List<NewPatient> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int first = patientIdSeq.getAndAdd(requests.size());
+        Map<Integer, Patient> batch = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NewPatient r = requests.get(i);
+            batch.put(first + i, new Patient(first + i, r.name, r.phone, r.nationalId, r.bloodType));
+        }
+        // İndeks bütün T.C. numaralarını kontrol etmeden hiçbir şey yazmaz
+        patientRepo.saveAll(batch);
+        if (events.hasSubscribers()) {
+            for (Patient p : batch.values()) {
+                events.publish(new PatientRegistered(p));
+            }
+        }
+        return new ArrayList<>(batch.values());
+    }
+
+    @Override
+    public List<Doctor> registerDoctors(List<NewDoctor> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        checkNewDoctors(requests);
+        int first = doctorIdSeq.getAndAdd(requests.size());
+        Map<Integer, Doctor> batch = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NewDoctor r = requests.get(i);
+            batch.put(first + i, new Doctor(first + i, r.name, r.phone, r.branch));
+        }
+        doctorRepo.saveAll(batch);
+        for (Doctor d : batch.values()) {
+            scheduler.addDoctor(d.getId(), d.getBranch());
+            events.publish(new DoctorRegistered(d));
+        }
+        return new ArrayList<>(batch.values());
+    }
+
+    @Override
+    public List<Appointment> createAppointments(List<NewAppointment> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Patient[] patients = new Patient[requests.size()];
+        Doctor[] doctors = new Doctor[requests.size()];
+        LocalDateTime[] times = new LocalDateTime[requests.size()];
+        TreeSet<Integer> doctorStripes = new TreeSet<>();
+        TreeSet<Integer> patientStripes = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NewAppointment r = requests.get(i);
+            patients[i] = patientRepo.get(r.patientId);
+            doctors[i] = doctorRepo.get(r.doctorId);
+            times[i] = r.dateTime.truncatedTo(ChronoUnit.MINUTES);
+            if (patients[i] == null) {
+                throw new NotFoundException("Patient not found: " + r.patientId + " (row " + (i + 1) + ")");
+            }
+            if (doctors[i] == null) {
+                throw new NotFoundException("Doctor not found: " + r.doctorId + " (row " + (i + 1) + ")");
+            }
+            if (doctors[i].getBranch() == null) {
+                throw new IllegalArgumentException("Doctor has no branch: " + r.doctorId + " (row " + (i + 1) + ")");
+            }
+            doctorStripes.add(r.doctorId & (LOCK_STRIPES - 1));
+            patientStripes.add(r.patientId & (LOCK_STRIPES - 1));
+        }
+
+        // Kilitler tekil yoldaki sırayla alınır: önce doktorlar, sonra hastalar, her biri artan sırada
+        Map<Integer, Appointment> batch = new LinkedHashMap<>();
+        long seq;
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int stripe : doctorStripes) {
+                doctorLocks[stripe].lock();
+                held.add(doctorLocks[stripe]);
+            }
+            for (int stripe : patientStripes) {
+                patientLocks[stripe].lock();
+                held.add(patientLocks[stripe]);
+            }
+
+            // Önce tüm çakışmalar kontrol edilir (mevcut takvim + aynı paketteki önceki satırlar)
+            Map<Integer, AppointmentCalendar> batchDoctorCals = new HashMap<>();
+            Map<Integer, AppointmentCalendar> batchPatientCals = new HashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                NewAppointment r = requests.get(i);
+                long minute = ColumnarAppointmentRepository.toEpochMinute(times[i]);
+                AppointmentCalendar doctorBatch = batchDoctorCals.computeIfAbsent(r.doctorId, k -> new AppointmentCalendar());
+                AppointmentCalendar patientBatch = batchPatientCals.computeIfAbsent(r.patientId, k -> new AppointmentCalendar());
+                if (booked(doctorCalendars.getOrDefault(r.doctorId, NO_APPOINTMENTS), 0, r.doctorId, minute)
+                        || doctorBatch.overlaps(minute, APPOINTMENT_MINUTES)) {
+                    throw new IllegalStateException("Doctor " + r.doctorId + " is already booked around "
+                            + times[i] + " (row " + (i + 1) + ")");
+                }
+                if (booked(patientCalendars.getOrDefault(r.patientId, NO_APPOINTMENTS), r.patientId, 0, minute)
+                        || patientBatch.overlaps(minute, APPOINTMENT_MINUTES)) {
+                    throw new IllegalStateException("Patient " + r.patientId + " is already booked around "
+                            + times[i] + " (row " + (i + 1) + ")");
+                }
+                doctorBatch.add(minute, i);
+                patientBatch.add(minute, i);
+            }
+
+            int first = appointmentIdSeq.getAndAdd(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                NewAppointment r = requests.get(i);
+                batch.put(first + i, new Appointment(first + i, patients[i], doctors[i], times[i], r.note));
+            }
+            appointmentRepo.saveAll(batch);
+            for (Appointment a : batch.values()) {
+                index(a);
+            }
+            seq = events.claim(batch.size());
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+        if (seq >= 0) {
+            for (Appointment a : batch.values()) {
+                events.publish(seq++, new AppointmentCreated(a));
+            }
+        }
+        return new ArrayList<>(batch.values());
+    }
+
+    @Override
+    public List<Appointment> listDoctorAppointments(int doctorId) {
+        return appointmentsOf(withArchived(doctorCalendars.getOrDefault(doctorId, NO_APPOINTMENTS), 0, doctorId));
+    }
+
+    @Override
+    public List<Appointment> listPatientAppointments(int patientId) {
+        return appointmentsOf(withArchived(patientCalendars.getOrDefault(patientId, NO_APPOINTMENTS), patientId, 0));
+    }
+
+    // Bellekteki takvime arşivlenmiş günlerdeki randevular eklenir (deponun kişi indeksinden, dosya okunmaz)
+    private AppointmentCalendar withArchived(AppointmentCalendar calendar, int patientId, int doctorId) {
+        if (archive == null) {
+            return calendar;
+        }
+        AppointmentCalendar all = patientId != 0
+                ? archive.archivedOfPatient(patientId) : archive.archivedOfDoctor(doctorId);
+        if (all.size() == 0) {
+            return calendar;
+        }
+        all.addAll(calendar);
+        return all;
+    }
+
+    // Tek takvimin randevuları canlı okunur; anlık görüntü çok kayıtlı raporlara ayrılmıştır
+    @Override
+    public List<Appointment> listAppointmentsOn(LocalDate day) {
+        int d = Math.toIntExact(day.toEpochDay());
+        int cold = coldBefore;
+        return appointmentsOf(d < cold ? archive.calendarOn(d, 0, 0) : dayCalendars.get(d));
+    }
+
+    // O anki tutarlı görünüm; yazmaları engellemez. try-with-resources ile kapatılmalıdır.
+    // Servis arayüzünde yok: parçalı kurulumda parçalar arası tek bir sürüm bulunmaz.
+    ClinicSnapshot snapshot() {
+        VersionClock.Snapshot handle = versions.open();
+        return new ClinicSnapshot(handle, this::purgeVersions, patientVersions.at(handle),
+                doctorVersions.at(handle), appointmentVersions.at(handle), dayCalendars, archive, coldBefore);
+    }
+
+    private void purgeVersions() {
+        patientVersions.purgeAll();
+        doctorVersions.purgeAll();
+        appointmentVersions.purgeAll();
+    }
+
+    // Rapor tek bir anlık görüntü üzerinden hesaplanır: sürerken yapılan randevular sayılara karışmaz
+    @Override
+    public AppointmentReport report(LocalDateTime from, LocalDateTime to) {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.report(from, to);
+        }
+    }
+
+    private List<Appointment> appointmentsOf(AppointmentCalendar calendar) {
+        return ClinicSnapshot.appointmentsOf(calendar, appointmentRepo);
+    }
+
+    @Override
+    public LocalDateTime findNextFreeSlot(int doctorId, LocalDateTime from) {
+        if (doctorRepo.get(doctorId) == null) {
+            throw new NotFoundException("Doctor not found: " + doctorId);
+        }
+        // Randevular dakika başında başlar; saniyeli bir başlangıç bir sonraki dakikaya yuvarlanır
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        if (start.isBefore(from)) {
+            start = start.plusMinutes(1);
+        }
+        long free = ColumnarAppointmentRepository.toEpochMinute(start);
+        // Arşivlenmiş günlerde takvim bellekte yok: gün gün arşivden kurulur
+        while (dayOf(free) < coldBefore) {
+            long next = archive.calendarOn(dayOf(free), 0, doctorId).nextFree(free, APPOINTMENT_MINUTES);
+            if (dayOf(next) == dayOf(free)) {
+                return ColumnarAppointmentRepository.fromEpochMinute(next);
+            }
+            free = next;
+        }
+        free = doctorCalendars.getOrDefault(doctorId, NO_APPOINTMENTS).nextFree(free, APPOINTMENT_MINUTES);
+        return ColumnarAppointmentRepository.fromEpochMinute(free);
+    }
+
+    @Override
+    public Appointment markAppointment(int appointmentId, AppointmentStatus status) {
+        return mark(appointmentId, status).appointment;
+    }
+
+    // Güncellenen randevu ve kilit altında okunan önceki durum (değişmediyse previous == status)
+    AppointmentStatusChanged mark(int appointmentId, AppointmentStatus status) {
+        Appointment a = appointmentRepo.get(appointmentId);
+        if (a == null) {
+            throw new NotFoundException("Appointment not found: " + appointmentId);
+        }
+        int doctorId = a.getDoctor().getId();
+        int patientId = a.getPatient().getId();
+        ReentrantLock doctorLock = doctorLocks[doctorId & (LOCK_STRIPES - 1)];
+        ReentrantLock patientLock = patientLocks[patientId & (LOCK_STRIPES - 1)];
+        Appointment updated;
+        long seq;
+        doctorLock.lock();
+        patientLock.lock();
+        try {
+            // Kilit altında tekrar oku: aynı randevuyu güncelleyen başka bir çağrı olabilir
+            a = appointmentRepo.get(appointmentId);
+            if (a.getStatus() == status) {
+                return new AppointmentStatusChanged(a, status);
+            }
+            updated = a.withStatus(status);
+            appointmentRepo.save(appointmentId, updated);
+            if (!isCold(updated)) {
+                loadCounters.statusChanged(updated, a.getStatus());
+            }
+            seq = events.claim(1);
+        } finally {
+            patientLock.unlock();
+            doctorLock.unlock();
+        }
+        AppointmentStatusChanged changed = new AppointmentStatusChanged(updated, a.getStatus());
+        events.publish(seq, changed);
+        return changed;
+    }
+
+    @Override
+    public Map<String, AppointmentReport.Counts> branchLoad(LocalDate day) {
+        if (day.toEpochDay() < coldBefore) {
+            // Arşivlenmiş gün: sayaçlar o günün randevularından hesaplanır
+            LoadCounters counts = new LoadCounters();
+            for (Appointment a : archive.scanDay(Math.toIntExact(day.toEpochDay()), 0, 0)) {
+                counts.added(a);
+            }
+            return counts.byBranch(day);
+        }
+        return loadCounters.byBranch(day);
+    }
+
+    @Override
+    public EventBus events() {
+        return events;
+    }
+
+    @Override
+    public List<CacheStats> cacheStats() {
+        List<CacheStats> result = new ArrayList<>();
+        for (CachingRepository<?> cache : caches) {
+            result.add(cache.stats());
+        }
+        return result;
+    }
+
+    @Override
+    public List<FreeSlot> findFreeSlots(String branch, LocalDateTime from, LocalDateTime to, int limit) {
+        return scheduler.findFree(branch, from, to, limit, doctorRepo::get);
+    }
+
+    // Randevunun günü bellekte indeksleniyorsa takvimlere, boş dilim bitmap'ine, sayaçlara ve not indeksine eklenir.
+    // Açılış dışında randevunun doktor ve hasta kilitleri tutulurken çağrılır.
+    private void index(Appointment a) {
+        long minute = ColumnarAppointmentRepository.toEpochMinute(a.getDateTime());
+        if (dayOf(minute) < coldBefore) {
+            return;
+        }
+        doctorCalendars.computeIfAbsent(a.getDoctor().getId(), k -> new AppointmentCalendar()).add(minute, a.getId());
+        patientCalendars.computeIfAbsent(a.getPatient().getId(), k -> new AppointmentCalendar()).add(minute, a.getId());
+        dayCalendars.computeIfAbsent(dayOf(minute), k -> new AppointmentCalendar()).add(minute, a.getId());
+        scheduler.book(a.getDoctor().getId(), a.getDateTime(), APPOINTMENT_MINUTES);
+        loadCounters.added(a);
+        // Önce yeniden kurulan indeks okunur: kurulum bu arada biterse yeni indeks noteIndex'tedir
+        NoteIndex rebuilding = rebuildingNotes;
+        NoteIndex current = noteIndex;
+        current.add(a.getId(), a.getNote());
+        if (rebuilding != null && rebuilding != current) {
+            rebuilding.add(a.getId(), a.getNote());
+        }
+    }
+
+    private static int dayOf(long epochMinute) {
+        return (int) Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    private boolean isCold(Appointment a) {
+        return dayOf(ColumnarAppointmentRepository.toEpochMinute(a.getDateTime())) < coldBefore;
+    }
+
+    // Bellekteki takvim + aralığın değdiği arşivlenmiş günler (bu günlerin takvimi arşivden kurulur)
+    private boolean booked(AppointmentCalendar calendar, int patientId, int doctorId, long minute) {
+        if (calendar.overlaps(minute, APPOINTMENT_MINUTES)) {
+            return true;
+        }
+        int cold = coldBefore;
+        for (int day = dayOf(minute - APPOINTMENT_MINUTES + 1); day <= dayOf(minute + APPOINTMENT_MINUTES - 1)
+                && day < cold; day++) {
+            if (archive.calendarOn(day, patientId, doctorId).overlaps(minute, APPOINTMENT_MINUTES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gün dönümünde arşivleyici çağırır (snapshot thread'inde): before'dan önceki günlerin bellek içi
+     * indeksleri bırakılır. Takvimler randevu kilitleri altında yazıldığı için aynı kilitlerle temizlenir.
+     */
+    private void archived(int before) {
+        if (before <= coldBefore) {
+            return;
+        }
+        coldBefore = before;
+        long minute = (long) before * MINUTES_PER_DAY;
+        dropBefore(doctorCalendars, doctorLocks, minute);
+        dropBefore(patientCalendars, patientLocks, minute);
+        dayCalendars.headMap(before).clear();
+        scheduler.dropBefore(before);
+        loadCounters.dropBefore(LocalDate.ofEpochDay(before));
+        rebuildNoteIndex();
+    }
+
+    private static void dropBefore(Map<Integer, AppointmentCalendar> calendars, ReentrantLock[] locks, long minute) {
+        for (Map.Entry<Integer, AppointmentCalendar> e : calendars.entrySet()) {
+            ReentrantLock lock = locks[e.getKey() & (LOCK_STRIPES - 1)];
+            lock.lock();
+            try {
+                if (e.getValue().removeBefore(minute) == 0) {
+                    calendars.remove(e.getKey(), e.getValue());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Not indeksinde silme yok: sıcak günlerden yeniden kurulur
+    private void rebuildNoteIndex() {
+        NoteIndex rebuilt = new NoteIndex();
+        rebuildingNotes = rebuilt;
+        for (AppointmentCalendar day : dayCalendars.tailMap(coldBefore).values()) {
+            for (int id : day.appointmentIds()) {
+                Appointment a = appointmentRepo.get(id);
+                if (a != null) {
+                    rebuilt.add(id, a.getNote());
+                }
+            }
+        }
+        noteIndex = rebuilt;
+        rebuildingNotes = null;
+    }
+
+    @Override
+    public List<Patient> listPatients() {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listPatients();
+        }
+    }
+
+    @Override
+    public List<Doctor> listDoctors() {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listDoctors();
+        }
+    }
+
+    @Override
+    public List<Appointment> listAppointments() {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listAppointments();
+        }
+    }
+
+    @Override
+    public Optional<Patient> findPatientByNationalId(String nationalId) {
+        return Optional.ofNullable(patientRepo.findByNationalId(nationalId));
+    }
+
+    @Override
+    public List<Patient> findPatientsByPhone(String phone) {
+        return patientRepo.findByPhone(phone);
+    }
+
+    @Override
+    public List<Patient> searchPatientsByName(String prefix, int limit) {
+        return patientRepo.searchByNamePrefix(prefix, limit);
+    }
+
+    // Hasta/doktor filtresi takvimdeki randevu ID'leri olarak kesişime katılır
+    @Override
+    public List<Appointment> searchNotes(String query, int patientId, int doctorId, int limit) {
+        int[] filter = null;
+        if (patientId != 0) {
+            filter = sortedIds(patientCalendars.getOrDefault(patientId, NO_APPOINTMENTS));
+        }
+        if (doctorId != 0) {
+            int[] ids = sortedIds(doctorCalendars.getOrDefault(doctorId, NO_APPOINTMENTS));
+            filter = filter == null ? ids : intersect(filter, ids);
+        }
+        List<Appointment> result = noteIndex.search(query, filter, appointmentRepo::get, Appointment::getNote, limit);
+        // Arşivlenmiş günlerin notları deponun kendi indeksinde; gün dönümü sırasında iki indekste
+        // birden görünebilen randevular bir kez alınır
+        if (archive != null && result.size() < limit) {
+            Set<Integer> seen = new HashSet<>();
+            for (Appointment a : result) {
+                seen.add(a.getId());
+            }
+            for (Appointment a : archive.searchArchivedNotes(query, patientId, doctorId, limit)) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (seen.add(a.getId())) {
+                    result.add(a);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int[] sortedIds(AppointmentCalendar calendar) {
+        int[] ids = calendar.appointmentIds();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    @Override
+    public Stream<Patient> streamPatients() {
+        return patientRepo.stream();
+    }
+
+    @Override
+    public Stream<Doctor> streamDoctors() {
+        return doctorRepo.stream();
+    }
+
+    @Override
+    public Stream<Appointment> streamAppointments() {
+        return appointmentRepo.stream();
+    }
+
+    @Override
+    public List<Patient> listPatients(int afterId, int limit) {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listPatients(afterId, limit);
+        }
+    }
+
+    @Override
+    public List<Doctor> listDoctors(int afterId, int limit) {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listDoctors(afterId, limit);
+        }
+    }
+
+    @Override
+    public List<Appointment> listAppointments(int afterId, int limit) {
+        try (ClinicSnapshot s = snapshot()) {
+            return s.listAppointments(afterId, limit);
+        }
+    }
+
+    @Override
+    public int countPatients() {
+        return patientRepo.count();
+    }
+
+    @Override
+    public int countDoctors() {
+        return doctorRepo.count();
+    }
+
+    @Override
+    public int countAppointments() {
+        return appointmentRepo.count();
+    }
+
+    @Override
+    public Set<String> listDoctorBranches() {
+        return scheduler.branches();
+    }
+}
+
+// === GENERIC METHOD + LAMBDA ===
+class PrintUtil {
+
+    // Satırlar tek tek println yerine bu boyuttaki parçalar halinde yazılır
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    public static <T> void printList(List<T> list) {
+        printStream(list.stream());
+    }
+
+    // Elemanlar geldikçe yazılır, liste kopyası oluşturulmaz
+    public static <T> void printStream(Stream<T> stream) {
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 256);
+        String newline = System.lineSeparator();
+        stream.forEach(item -> {
+            chunk.append(item).append(newline); // lambda
+            if (chunk.length() >= CHUNK_CHARS) {
+                System.out.print(chunk);
+                chunk.setLength(0);
+            }
+        });
+        System.out.print(chunk);
     }
 }
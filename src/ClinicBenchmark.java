@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClinicService sıcak yolları için mikro benchmark (JMH tarzı, harici bağımlılık yok).
+ * Her ölçüm: ısınma turları + ölçüm turları, tek ve çok thread, 1K/100K/1M kayıt.
+ * Her tur için işlem/saniye, işlem başına ayrılan byte (thread allocation sayacı)
+ * ve GC sayısı/süresi raporlanır. --csv çıktısı regresyon karşılaştırması için saklanabilir.
+ *
+ * Çalıştırma:
+ *   javac -encoding UTF-8 -d out src/*.java
+ *   java -cp out ClinicBenchmark [--bench a,b] [--sizes 1000,100000] [--threads 1,8]
+ *                                [--warmup 3] [--iterations 5] [--time 1] [--durable] [--metrics] [--csv]
+ *                                [--shards localhost:9100,localhost:9101]
+ *
+ * --metrics: servis MetricsClinicService ile sarılır (ölçüm katmanının maliyetini görmek için).
+ * --shards: servis yerine önceden başlatılmış ShardServer süreçleri kullanılır (boş, --memory ile
+ *           başlatılmış olmalı; her ölçüm yeni kayıtlar ekler).
+ */
+public class ClinicBenchmark {
+
+    static final String[] ALL_BENCHMARKS = {
+            "registerPatient", "createAppointment", "findById", "findById-boxed", "listAppointments"
+    };
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    // JIT'in sonuçları ölü kod diye atmaması için
+    static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = CommandLine.parseArgs(args);
+        List<String> benches = Arrays.asList(opts.getOrDefault("bench", String.join(",", ALL_BENCHMARKS)).split(","));
+        int[] sizes = CommandLine.parseInts(opts.getOrDefault("sizes", "1000,100000,1000000"));
+        int[] threads = CommandLine.parseInts(opts.getOrDefault("threads", "1," + Runtime.getRuntime().availableProcessors()));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", "5"));
+        long iterationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(opts.getOrDefault("time", "1")));
+        boolean durable = opts.containsKey("durable");
+        boolean metered = opts.containsKey("metrics");
+        boolean csv = opts.containsKey("csv");
+        String shards = opts.get("shards");
+
+        if (csv) {
+            System.out.println("benchmark,size,threads,ops_per_sec,error_pct,bytes_per_op,gc_count,gc_ms");
+        } else {
+            System.out.printf("%-18s %9s %7s %15s %8s %12s %8s %8s%n",
+                    "Benchmark", "Size", "Threads", "ops/s", "err %", "B/op", "GCs", "GC ms");
+        }
+
+        for (String bench : benches) {
+            for (int size : sizes) {
+                for (int t : threads) {
+                    Result r = run(bench.trim(), size, t, warmup, iterations, iterationNanos, durable, metered, shards);
+                    if (csv) {
+                        System.out.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.1f,%d,%d%n",
+                                r.bench, r.size, r.threads, r.opsPerSec, r.errorPct, r.bytesPerOp, r.gcCount, r.gcMillis);
+                    } else {
+                        System.out.printf(Locale.ROOT, "%-18s %9d %7d %15.1f %8.2f %12.1f %8d %8d%n",
+                                r.bench, r.size, r.threads, r.opsPerSec, r.errorPct, r.bytesPerOp, r.gcCount, r.gcMillis);
+                    }
+                }
+            }
+        }
+    }
+
+    // === FIXTURE ===
+
+    // Hazır veri: size hasta, size/100 doktor (en az 1), size randevu
+    static class Fixture implements AutoCloseable {
+        final ClinicService service;
+        final int patients;
+        final int doctors;
+        // Servisin verdiği ID'ler (parçalı serviste ID'ler ardışık değildir)
+        final int[] patientIds;
+        final int[] doctorIds;
+        final AtomicLong appointmentCounter = new AtomicLong();
+        final Path dataDir;
+
+        // findById benchmark'ları için servis dışı repository'ler
+        final IntArrayRepository<Patient> intRepo = new IntArrayRepository<>();
+        final InMemoryRepository<Patient, Integer> boxedRepo = new InMemoryRepository<>();
+
+        Fixture(String bench, int size, boolean durable, boolean metered, String shards) throws Exception {
+            dataDir = durable && shards == null ? Files.createTempDirectory("clinic-bench") : null;
+            ClinicService impl = shards != null ? ShardedClinicService.connect(shards)
+                    : durable ? ClinicServiceImpl.openDurable(dataDir) : new ClinicServiceImpl();
+            service = metered ? new MetricsClinicService(impl) : impl;
+            patients = size;
+            doctors = Math.max(1, size / 100);
+            patientIds = new int[patients];
+            doctorIds = new int[doctors];
+
+            if (bench.startsWith("findById")) {
+                for (int i = 1; i <= size; i++) {
+                    Patient p = new Patient(i, "Patient " + i, "555" + i, "TC" + i, "A+");
+                    intRepo.save(i, p);
+                    boxedRepo.save(i, p);
+                }
+                return;
+            }
+            // Parçalar ölçümler arasında açık kalır: T.C. numaraları her fixture'da farklı olmalı
+            String nid = shards == null ? "TC" : "TC" + System.nanoTime() + "-";
+            for (int i = 0; i < patients; i++) {
+                patientIds[i] = service.registerPatient("Patient " + i, "555" + i, nid + i, "A+").getId();
+            }
+            for (int i = 0; i < doctors; i++) {
+                doctorIds[i] = service.registerDoctor("Doctor " + i, "444" + i, "Branch " + (i % 20)).getId();
+            }
+            if (!bench.equals("registerPatient")) {
+                for (int i = 0; i < size; i++) {
+                    bookNext();
+                }
+            }
+        }
+
+        /**
+         * Çakışmasız randevu: n. randevu doktor (n % doctors), hasta (n % patients),
+         * zaman dilimi (n / doctors). patients >= doctors olduğu için bir hastanın
+         * iki randevusu aynı zaman diliminde olamaz.
+         */
+        Appointment bookNext() {
+            long n = appointmentCounter.getAndIncrement();
+            int doctorId = doctorIds[(int) (n % doctors)];
+            int patientId = patientIds[(int) (n % patients)];
+            LocalDateTime dt = BASE_TIME.plusMinutes(ClinicServiceImpl.APPOINTMENT_MINUTES * (n / doctors));
+            return service.createAppointment(patientId, doctorId, dt, "benchmark");
+        }
+
+        @Override
+        public void close() throws IOException {
+            service.close();
+            if (dataDir != null) {
+                try (var files = Files.walk(dataDir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+                }
+            }
+        }
+    }
+
+    // Tek bir çağrı; dönen değer sink'e eklenir
+    static long invoke(String bench, Fixture f, ThreadLocalRandom rnd) {
+        switch (bench) {
+            case "registerPatient":
+                return f.service.registerPatient("New", "555", "", "0+").getId();
+            case "createAppointment":
+                return f.bookNext().getId();
+            case "findById": {
+                Patient p = f.intRepo.get(rnd.nextInt(f.patients) + 1);
+                return p == null ? 0 : p.getId();
+            }
+            case "findById-boxed": {
+                Patient p = f.boxedRepo.findById(rnd.nextInt(f.patients) + 1).orElse(null);
+                return p == null ? 0 : p.getId();
+            }
+            case "listAppointments":
+                return f.service.listAppointments().size();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + bench);
+        }
+    }
+
+    // === ÖLÇÜM ===
+
+    static class Result {
+        String bench;
+        int size;
+        int threads;
+        double opsPerSec;
+        double errorPct;
+        double bytesPerOp;
+        long gcCount;
+        long gcMillis;
+    }
+
+    static Result run(String bench, int size, int threads, int warmup, int iterations,
+                      long iterationNanos, boolean durable, boolean metered, String shards) throws Exception {
+        try (Fixture f = new Fixture(bench, size, durable, metered, shards)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                for (int i = 0; i < warmup; i++) {
+                    iteration(bench, f, pool, threads, iterationNanos);
+                }
+                System.gc();
+
+                double[] rates = new double[iterations];
+                long totalOps = 0;
+                long totalBytes = 0;
+                long gcCountBefore = gcCount();
+                long gcMillisBefore = gcMillis();
+                for (int i = 0; i < iterations; i++) {
+                    long[] opsAndBytes = iteration(bench, f, pool, threads, iterationNanos);
+                    rates[i] = opsAndBytes[0] * 1e9 / iterationNanos;
+                    totalOps += opsAndBytes[0];
+                    totalBytes += opsAndBytes[1];
+                }
+
+                Result r = new Result();
+                r.bench = bench;
+                r.size = size;
+                r.threads = threads;
+                r.opsPerSec = mean(rates);
+                r.errorPct = r.opsPerSec == 0 ? 0 : 100 * stdDev(rates) / r.opsPerSec;
+                r.bytesPerOp = totalOps == 0 ? 0 : (double) totalBytes / totalOps;
+                r.gcCount = gcCount() - gcCountBefore;
+                r.gcMillis = gcMillis() - gcMillisBefore;
+                return r;
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // Tüm thread'ler aynı anda başlar, süre dolana kadar çağırır; {işlem sayısı, ayrılan byte}
+    private static long[] iteration(String bench, Fixture f, ExecutorService pool, int threads,
+                                    long iterationNanos) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long tid = Thread.currentThread().getId();
+                start.await();
+                long bytesBefore = allocatedBytes(tid);
+                long deadline = System.nanoTime() + iterationNanos;
+                long ops = 0;
+                long local = 0;
+                while (System.nanoTime() < deadline) {
+                    local += invoke(bench, f, rnd);
+                    ops++;
+                }
+                long bytes = allocatedBytes(tid) - bytesBefore;
+                sink += local;
+                return new long[]{ops, bytes};
+            }));
+        }
+        long ops = 0;
+        long bytes = 0;
+        for (Future<long[]> future : futures) {
+            long[] r = future.get();
+            ops += r[0];
+            bytes += r[1];
+        }
+        return new long[]{ops, bytes};
+    }
+
+    private static long allocatedBytes(long threadId) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(threadId);
+        }
+        return 0;
+    }
+
+    static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double stdDev(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double m = mean(values);
+        double sq = 0;
+        for (double v : values) {
+            sq += (v - m) * (v - m);
+        }
+        return Math.sqrt(sq / (values.length - 1));
+    }
+}
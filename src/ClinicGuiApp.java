@@ -1,8 +1,17 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Basit Swing arayüzü.
@@ -12,7 +21,7 @@ import java.time.LocalTime;
  */
 public class ClinicGuiApp extends JFrame {
 
-    private final ClinicService service = new ClinicServiceImpl();
+    private final ClinicService service = ClinicServiceImpl.open();
 
     // Ortak çıktı alanı
     private JTextArea outputArea;
@@ -35,13 +44,77 @@ public class ClinicGuiApp extends JFrame {
     private JTextField appTimeField; // HH:MM
     private JTextField appNoteField;
 
+    // Tablolar (satırlar servisten sayfa sayfa çekilir)
+    private PagedTableModel<Patient> patientModel;
+    private PagedTableModel<Doctor> doctorModel;
+    private PagedTableModel<Appointment> appointmentModel;
+
+    // Durum çubuğu
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private SwingWorker<?, ?> currentTask;
+    private int runningTasks; // sadece EDT'den erişilir
+
+    // Filtre alanları
+    private JComboBox<String> patientSearchTypeBox;
+    private JTextField patientSearchField;
+    private JTextField doctorBranchFilterField;
+    private JTextField appDoctorFilterField;
+    private JTextField appPatientFilterField;
+
     public ClinicGuiApp() {
         setTitle("Clinic Management System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(700, 500);
+        setSize(900, 650);
         setLocationRelativeTo(null);
 
+        // Pencere kapanırken veri dosyalarını düzgün kapat
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                service.close();
+            }
+        });
+
         initComponents();
+        subscribeToChanges();
+    }
+
+    // Tablolar olay akışıyla büyür (tekrar listelenmez); olaylar abone thread'inde toplanır,
+    // her parti sonunda EDT'ye tek bir güncelleme gönderilir
+    private void subscribeToChanges() {
+        service.events().subscribe("gui", new ClinicEventListener() {
+            private int patients;
+            private int doctors;
+            private int appointments;
+            private boolean changed;
+
+            @Override
+            public void onEvent(ClinicEvent event, long sequence, boolean endOfBatch) {
+                if (event instanceof PatientRegistered) {
+                    patients = Math.max(patients, ((PatientRegistered) event).patient.getId());
+                    changed = true;
+                } else if (event instanceof DoctorRegistered) {
+                    doctors = Math.max(doctors, ((DoctorRegistered) event).doctor.getId());
+                    changed = true;
+                } else if (event instanceof AppointmentCreated) {
+                    appointments = Math.max(appointments, ((AppointmentCreated) event).appointment.getId());
+                    changed = true;
+                }
+                if (endOfBatch && changed) {
+                    changed = false;
+                    int p = patients;
+                    int d = doctors;
+                    int a = appointments;
+                    SwingUtilities.invokeLater(() -> {
+                        patientModel.rowsAvailable(p);
+                        doctorModel.rowsAvailable(d);
+                        appointmentModel.rowsAvailable(a);
+                    });
+                }
+            }
+        });
     }
 
     private void initComponents() {
@@ -62,9 +135,28 @@ public class ClinicGuiApp extends JFrame {
         outputArea.setEditable(false);
         JScrollPane scrollPane = new JScrollPane(outputArea);
         scrollPane.setBorder(BorderFactory.createTitledBorder("Output"));
-        scrollPane.setPreferredSize(new Dimension(700, 200));
-
-        add(scrollPane, BorderLayout.SOUTH);
+        scrollPane.setPreferredSize(new Dimension(900, 120));
+
+        // Durum çubuğu: arka plan işleri için ilerleme ve iptal
+        statusLabel = new JLabel("Ready");
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setVisible(false);
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> onCancelTask());
+
+        JPanel statusBar = new JPanel(new BorderLayout(5, 0));
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        JPanel statusRight = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        statusRight.add(progressBar);
+        statusRight.add(cancelButton);
+        statusBar.add(statusRight, BorderLayout.EAST);
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(scrollPane, BorderLayout.CENTER);
+        south.add(statusBar, BorderLayout.SOUTH);
+        add(south, BorderLayout.SOUTH);
     }
 
     private JPanel createPatientPanel() {
@@ -96,7 +188,32 @@ public class ClinicGuiApp extends JFrame {
         form.add(addBtn);
         form.add(listBtn);
 
+        patientModel = new PagedTableModel<>(
+                PagedTableModel.PageSource.of(service::countPatients, service::listPatients, Patient::getId),
+                List.of(new PagedTableModel.Column<>("ID", Patient::getId),
+                        new PagedTableModel.Column<>("Name", Patient::getName),
+                        new PagedTableModel.Column<>("Phone", Patient::getPhone),
+                        new PagedTableModel.Column<>("National ID", Patient::getNationalId),
+                        new PagedTableModel.Column<>("Blood Type", Patient::getBloodType)));
+
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        patientSearchTypeBox = new JComboBox<>(new String[]{"National ID", "Phone", "Name"});
+        patientSearchField = new JTextField(14);
+        JButton searchBtn = new JButton("Search");
+        searchBtn.addActionListener(e -> onSearchPatients());
+        JButton clearBtn = new JButton("Clear");
+        clearBtn.addActionListener(e -> {
+            patientSearchField.setText("");
+            patientModel.clearFilter();
+        });
+        filterBar.add(new JLabel("Find by:"));
+        filterBar.add(patientSearchTypeBox);
+        filterBar.add(patientSearchField);
+        filterBar.add(searchBtn);
+        filterBar.add(clearBtn);
+
         panel.add(form, BorderLayout.NORTH);
+        panel.add(createTablePanel(patientModel, filterBar), BorderLayout.CENTER);
         return panel;
     }
 
@@ -132,7 +249,29 @@ public class ClinicGuiApp extends JFrame {
         JPanel bottom = new JPanel();
         bottom.add(branchBtn);
 
+        doctorModel = new PagedTableModel<>(
+                PagedTableModel.PageSource.of(service::countDoctors, service::listDoctors, Doctor::getId),
+                List.of(new PagedTableModel.Column<>("ID", Doctor::getId),
+                        new PagedTableModel.Column<>("Name", Doctor::getName),
+                        new PagedTableModel.Column<>("Phone", Doctor::getPhone),
+                        new PagedTableModel.Column<>("Branch", Doctor::getBranch)));
+
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        doctorBranchFilterField = new JTextField(12);
+        JButton filterBtn = new JButton("Filter");
+        filterBtn.addActionListener(e -> onFilterDoctors());
+        JButton clearBtn = new JButton("Clear");
+        clearBtn.addActionListener(e -> {
+            doctorBranchFilterField.setText("");
+            doctorModel.clearFilter();
+        });
+        filterBar.add(new JLabel("Branch:"));
+        filterBar.add(doctorBranchFilterField);
+        filterBar.add(filterBtn);
+        filterBar.add(clearBtn);
+
         panel.add(form, BorderLayout.NORTH);
+        panel.add(createTablePanel(doctorModel, filterBar), BorderLayout.CENTER);
         panel.add(bottom, BorderLayout.SOUTH);
         return panel;
     }
@@ -169,11 +308,64 @@ public class ClinicGuiApp extends JFrame {
         form.add(createBtn);
         form.add(listBtn);
 
+        appointmentModel = new PagedTableModel<>(
+                PagedTableModel.PageSource.of(service::countAppointments, service::listAppointments,
+                        Appointment::getId),
+                List.of(new PagedTableModel.Column<>("ID", Appointment::getId),
+                        new PagedTableModel.Column<>("Patient", a -> a.getPatient().getName()),
+                        new PagedTableModel.Column<>("Doctor", a -> a.getDoctor().getName()),
+                        new PagedTableModel.Column<>("Date/Time", Appointment::getDateTime),
+                        new PagedTableModel.Column<>("Note", Appointment::getNote),
+                        new PagedTableModel.Column<>("Status", Appointment::getStatus)));
+
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        appDoctorFilterField = new JTextField(6);
+        appPatientFilterField = new JTextField(6);
+        JButton filterBtn = new JButton("Filter");
+        filterBtn.addActionListener(e -> onFilterAppointments());
+        JButton clearBtn = new JButton("Clear");
+        clearBtn.addActionListener(e -> {
+            appDoctorFilterField.setText("");
+            appPatientFilterField.setText("");
+            appointmentModel.clearFilter();
+        });
+        filterBar.add(new JLabel("Doctor ID:"));
+        filterBar.add(appDoctorFilterField);
+        filterBar.add(new JLabel("Patient ID:"));
+        filterBar.add(appPatientFilterField);
+        filterBar.add(filterBtn);
+        filterBar.add(clearBtn);
+
         panel.add(form, BorderLayout.NORTH);
+        panel.add(createTablePanel(appointmentModel, filterBar), BorderLayout.CENTER);
+        return panel;
+    }
+
+    // Tablo + (varsa) filtre çubuğu. Başlığa tıklamak ID sırasını ters çevirir.
+    private JPanel createTablePanel(PagedTableModel<?> model, JComponent filterBar) {
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!model.isFiltered()) {
+                    model.toggleSortOrder();
+                    table.getTableHeader().repaint();
+                }
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout());
+        if (filterBar != null) {
+            panel.add(filterBar, BorderLayout.NORTH);
+        }
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
         return panel;
     }
 
     // === EVENT METOTLARI ===
+    // Form alanları EDT'de okunur, servis çağrıları runAsync ile arka planda yapılır.
 
     private void onAddPatient() {
         String name = patientNameField.getText().trim();
@@ -186,9 +378,10 @@ public class ClinicGuiApp extends JFrame {
             return;
         }
 
-        Patient p = service.registerPatient(name, phone, nid, blood);
-        appendOutput("Added patient: " + p);
-        clearPatientFields();
+        runAsync("Adding patient", ctx -> service.registerPatient(name, phone, nid, blood), p -> {
+            appendOutput("Added patient: " + p);
+            clearPatientFields();
+        }, "Error adding patient: ");
     }
 
     private void clearPatientFields() {
@@ -208,9 +401,10 @@ public class ClinicGuiApp extends JFrame {
             return;
         }
 
-        Doctor d = service.registerDoctor(name, phone, branch);
-        appendOutput("Added doctor: " + d);
-        clearDoctorFields();
+        runAsync("Adding doctor", ctx -> service.registerDoctor(name, phone, branch), d -> {
+            appendOutput("Added doctor: " + d);
+            clearDoctorFields();
+        }, "Error adding doctor: ");
     }
 
     private void clearDoctorFields() {
@@ -220,21 +414,27 @@ public class ClinicGuiApp extends JFrame {
     }
 
     private void onCreateAppointment() {
+        int pId;
+        int dId;
+        LocalDateTime dt;
+        String note;
         try {
-            int pId = Integer.parseInt(appPatientIdField.getText().trim());
-            int dId = Integer.parseInt(appDoctorIdField.getText().trim());
+            pId = Integer.parseInt(appPatientIdField.getText().trim());
+            dId = Integer.parseInt(appDoctorIdField.getText().trim());
             LocalDate date = LocalDate.parse(appDateField.getText().trim());
             LocalTime time = LocalTime.parse(appTimeField.getText().trim());
-            String note = appNoteField.getText().trim();
+            note = appNoteField.getText().trim();
 
-            LocalDateTime dt = LocalDateTime.of(date, time);
-
-            Appointment a = service.createAppointment(pId, dId, dt, note);
-            appendOutput("Created appointment: " + a);
-            clearAppointmentFields();
+            dt = LocalDateTime.of(date, time);
         } catch (Exception ex) {
             showError("Error creating appointment: " + ex.getMessage());
+            return;
         }
+
+        runAsync("Creating appointment", ctx -> service.createAppointment(pId, dId, dt, note), a -> {
+            appendOutput("Created appointment: " + a);
+            clearAppointmentFields();
+        }, "Error creating appointment: ");
     }
 
     private void clearAppointmentFields() {
@@ -244,31 +444,180 @@ public class ClinicGuiApp extends JFrame {
         appNoteField.setText("");
     }
 
+    // Listeler artık tabloda; burada sadece tablo yenilenir
     private void onListPatients() {
-        appendOutput("--- Patients ---");
-        for (Patient p : service.listPatients()) {
-            appendOutput(p.toString());
-        }
+        patientModel.refresh(count -> appendOutput("Patients: " + count));
     }
 
     private void onListDoctors() {
-        appendOutput("--- Doctors ---");
-        for (Doctor d : service.listDoctors()) {
-            appendOutput(d.toString());
-        }
+        doctorModel.refresh(count -> appendOutput("Doctors: " + count));
     }
 
     private void onListAppointments() {
-        appendOutput("--- Appointments ---");
-        for (Appointment a : service.listAppointments()) {
-            appendOutput(a.toString());
+        appointmentModel.refresh(count -> appendOutput("Appointments: " + count));
+    }
+
+    // Hasta indeksleri üzerinden arama (T.C. no, telefon, isim öneki)
+    private void onSearchPatients() {
+        String text = patientSearchField.getText().trim();
+        if (text.isEmpty()) {
+            patientModel.clearFilter();
+            return;
+        }
+        int type = patientSearchTypeBox.getSelectedIndex();
+        runAsync("Searching patients", ctx -> {
+            switch (type) {
+                case 0:
+                    return service.findPatientByNationalId(text)
+                            .map(List::of)
+                            .orElse(List.of());
+                case 1:
+                    return service.findPatientsByPhone(text);
+                default:
+                    return service.searchPatientsByName(text, 1000);
+            }
+        }, rows -> patientModel.setFilter(rows), "Error searching patients: ");
+    }
+
+    // Tüm doktorları tarar; uzun sürebileceği için ilerleme gösterilir ve iptal edilebilir
+    private void onFilterDoctors() {
+        String branch = doctorBranchFilterField.getText().trim();
+        if (branch.isEmpty()) {
+            doctorModel.clearFilter();
+            return;
         }
+        runAsync("Filtering doctors", ctx -> {
+            int total = Math.max(1, service.countDoctors());
+            int[] scanned = {0};
+            return service.streamDoctors()
+                    .takeWhile(d -> !ctx.isCancelled())
+                    .peek(d -> {
+                        if (++scanned[0] % 10_000 == 0) {
+                            ctx.progress(100L * scanned[0] / total);
+                        }
+                    })
+                    .filter(d -> branch.equalsIgnoreCase(d.getBranch()))
+                    .collect(Collectors.toList());
+        }, rows -> doctorModel.setFilter(rows), "Error filtering doctors: ");
+    }
+
+    // Doktor/hasta takvim indeksinden gelir, zamana göre sıralıdır
+    private void onFilterAppointments() {
+        String doctorText = appDoctorFilterField.getText().trim();
+        String patientText = appPatientFilterField.getText().trim();
+        if (doctorText.isEmpty() && patientText.isEmpty()) {
+            appointmentModel.clearFilter();
+            return;
+        }
+
+        int doctorId;
+        int patientId;
+        try {
+            doctorId = doctorText.isEmpty() ? -1 : Integer.parseInt(doctorText);
+            patientId = patientText.isEmpty() ? -1 : Integer.parseInt(patientText);
+        } catch (NumberFormatException ex) {
+            showError("Doctor ID and Patient ID must be numbers!");
+            return;
+        }
+
+        runAsync("Filtering appointments", ctx -> {
+            if (doctorId < 0) {
+                return service.listPatientAppointments(patientId);
+            }
+            List<Appointment> rows = service.listDoctorAppointments(doctorId);
+            if (patientId >= 0) {
+                rows = rows.stream()
+                        .filter(a -> a.getPatient().getId() == patientId)
+                        .collect(Collectors.toList());
+            }
+            return rows;
+        }, rows -> appointmentModel.setFilter(rows), "Error filtering appointments: ");
     }
 
     private void onListBranches() {
-        appendOutput("--- Doctor Branches ---");
-        for (String b : service.listDoctorBranches()) {
-            appendOutput("- " + b);
+        runAsync("Listing branches", ctx -> new ArrayList<>(service.listDoctorBranches()), branches -> {
+            appendOutput("--- Doctor Branches ---");
+            for (String b : branches) {
+                appendOutput("- " + b);
+            }
+        }, "Error listing branches: ");
+    }
+
+    // === ARKA PLAN İŞLERİ ===
+
+    interface TaskContext {
+        boolean isCancelled();
+
+        // 0-100
+        void progress(long percent);
+    }
+
+    interface GuiTask<R> {
+        R run(TaskContext ctx) throws Exception;
+    }
+
+    /**
+     * İşi SwingWorker ile EDT dışında çalıştırır, sonucu EDT'de onSuccess'e verir.
+     * Çalışırken durum çubuğunda ilerleme gösterilir; Cancel en son başlatılan işi iptal eder.
+     */
+    private <R> void runAsync(String label, GuiTask<R> task, Consumer<R> onSuccess, String errorPrefix) {
+        class Worker extends SwingWorker<R, Void> implements TaskContext {
+            @Override
+            protected R doInBackground() throws Exception {
+                return task.run(this);
+            }
+
+            @Override
+            public void progress(long percent) {
+                setProgress((int) Math.max(0, Math.min(100, percent)));
+            }
+
+            @Override
+            protected void done() {
+                runningTasks--;
+                updateStatus(label + (isCancelled() ? " cancelled" : " done"));
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError(errorPrefix + cause.getMessage());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        Worker worker = new Worker();
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        currentTask = worker;
+        runningTasks++;
+        progressBar.setIndeterminate(true);
+        updateStatus(label + "...");
+        worker.execute();
+    }
+
+    private void onCancelTask() {
+        if (currentTask != null && !currentTask.isDone()) {
+            currentTask.cancel(false);
+        }
+    }
+
+    private void updateStatus(String text) {
+        statusLabel.setText(text);
+        boolean busy = runningTasks > 0;
+        progressBar.setVisible(busy);
+        cancelButton.setEnabled(busy);
+        if (!busy) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(0);
         }
     }
 
@@ -288,6 +637,9 @@ public class ClinicGuiApp extends JFrame {
         SwingUtilities.invokeLater(() -> {
             ClinicGuiApp app = new ClinicGuiApp();
             app.setVisible(true);
+            app.patientModel.refresh();
+            app.doctorModel.refresh();
+            app.appointmentModel.refresh();
         });
     }
 }
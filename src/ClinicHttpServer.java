@@ -0,0 +1,859 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ClinicService için gömülü HTTP/JSON API (JDK'nın com.sun.net.httpserver'ı, harici bağımlılık yok).
+ * Yanıtlar her zaman Content-Length ile gönderilir, böylece bağlantılar keep-alive ile tekrar kullanılır.
+ * İstekler Java 21+ üzerinde sanal thread'lerde, daha eski sürümlerde sabit boyutlu bir havuzda işlenir.
+ *
+ * Uç noktalar (gövdeler düz JSON nesnesi):
+ *   GET  /patients?afterId=0&limit=100         POST /patients {name, phone, nationalId, bloodType}
+ *   GET  /patients/{id}                        GET  /patients/{id}/appointments
+ *   GET  /patients/search?nationalId=|phone=|name=&limit=
+ *   GET  /doctors?afterId=&limit=              POST /doctors {name, phone, branch}
+ *   GET  /doctors/{id}                         GET  /doctors/{id}/appointments
+ *   GET  /doctors/{id}/next-free-slot?from=2025-01-01T09:00
+ *   GET  /branches                             GET  /free-slots?branch=&from=&to=&limit=
+ *   GET  /appointments?afterId=&limit=         POST /appointments {patientId, doctorId, dateTime, note}
+ *   GET  /appointments?day=2025-01-01|today
+ *   GET  /appointments/{id}                    POST /appointments/{id}/status {status}
+ *   GET  /appointments/search?q=&patientId=&doctorId=&limit=   (notlarda tam metin arama)
+ *   GET  /reports?from=&to=                    GET  /reports/branch-load?day=2025-01-01
+ *   GET  /metrics
+ *
+ * Çalıştırma:
+ *   java -cp out ClinicHttpServer [--port 8080] [--threads N]
+ */
+public class ClinicHttpServer {
+
+    static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PAGE = 1000;
+
+    private final ClinicService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Sanal thread'ler havuzlanmaz; thread başına JSON tamponu sadece platform thread'lerinde işe yarar
+    private final boolean virtualThreads;
+
+    static {
+        // Başlık ve gövde ayrı yazıldığında Nagle + gecikmeli ACK her yanıta ~40 ms ekler.
+        // Ayar sunucu sınıfları yüklenirken okunur, bu yüzden HttpServer oluşturulmadan önce verilmeli.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    ClinicHttpServer(ClinicService service, int port, int threads) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "http-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = CommandLine.parseArgs(args);
+        int port = Integer.parseInt(opts.getOrDefault("port", String.valueOf(DEFAULT_PORT)));
+        int threads = Integer.parseInt(opts.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors() * 4)));
+
+        MetricsClinicService service = MetricsClinicService.wrap(ClinicServiceImpl.open());
+        ClinicHttpServer http = new ClinicHttpServer(service, port, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            http.stop();
+            service.close();
+        }));
+        http.start();
+        System.out.println("Clinic API listening on http://localhost:" + http.port() + "/"
+                + (http.virtualThreads ? " (virtual threads)" : " (" + threads + " worker threads)"));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Java 21+ üzerinde istek başına sanal thread; eski sürümlerde null (derleme 17 ile de çalışsın diye reflection)
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // İşleyicide oluşan hatanın HTTP karşılığı
+    static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // === İSTEK İŞLEME ===
+
+    private void handle(HttpExchange ex) throws IOException {
+        JsonWriter out = virtualThreads ? new JsonWriter() : JsonWriter.forCurrentThread();
+        int status;
+        try {
+            // Keep-alive için gövde her durumda sonuna kadar okunmalı
+            byte[] body = readBody(ex.getRequestBody());
+            status = route(ex.getRequestMethod(), ex.getRequestURI().getRawPath(),
+                    parseQuery(ex.getRequestURI().getRawQuery()), body, out);
+        } catch (HttpError e) {
+            status = e.status;
+            error(out, e.getMessage());
+        } catch (NotFoundException e) {
+            status = 404;
+            error(out, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            status = 400;
+            error(out, e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 409;
+            error(out, e.getMessage());
+        } catch (RuntimeException e) {
+            // Ayrıntı (sınıf adları, iç durum) istemciye değil sunucu günlüğüne yazılır
+            System.err.println("HTTP " + ex.getRequestMethod() + " " + ex.getRequestURI().getRawPath() + " failed:");
+            e.printStackTrace();
+            status = 500;
+            error(out, "Internal server error");
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, out.length());
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(out.buffer(), 0, out.length());
+        }
+    }
+
+    private static void error(JsonWriter out, String message) {
+        out.reset();
+        out.beginObject().name("error").value(message).endObject();
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private int route(String method, String path, Map<String, String> query, byte[] body, JsonWriter out) {
+        String[] seg = path.split("/");
+        // seg[0] her zaman "" (yol "/" ile başlar)
+        String root = seg.length > 1 ? seg[1] : "";
+        boolean get = "GET".equals(method);
+        boolean post = "POST".equals(method);
+
+        switch (root) {
+            case "patients":
+                if (seg.length == 2 && get) {
+                    writePatients(out, service.listPatients(intParam(query, "afterId", 0), pageLimit(query)));
+                    return 200;
+                }
+                if (seg.length == 2 && post) {
+                    Map<String, String> f = JsonReader.parseObject(body);
+                    writePatient(out, service.registerPatient(required(f, "name"), required(f, "phone"),
+                            f.get("nationalId"), f.get("bloodType")));
+                    return 201;
+                }
+                if (seg.length == 3 && get && "search".equals(seg[2])) {
+                    writePatients(out, searchPatients(query));
+                    return 200;
+                }
+                if (seg.length == 3 && get) {
+                    writePatient(out, patient(pathId(seg[2])));
+                    return 200;
+                }
+                if (seg.length == 4 && get && "appointments".equals(seg[3])) {
+                    writeAppointments(out, service.listPatientAppointments(patient(pathId(seg[2])).getId()));
+                    return 200;
+                }
+                break;
+            case "doctors":
+                if (seg.length == 2 && get) {
+                    writeDoctors(out, service.listDoctors(intParam(query, "afterId", 0), pageLimit(query)));
+                    return 200;
+                }
+                if (seg.length == 2 && post) {
+                    Map<String, String> f = JsonReader.parseObject(body);
+                    writeDoctor(out, service.registerDoctor(required(f, "name"), required(f, "phone"),
+                            required(f, "branch")));
+                    return 201;
+                }
+                if (seg.length == 3 && get) {
+                    writeDoctor(out, doctor(pathId(seg[2])));
+                    return 200;
+                }
+                if (seg.length == 4 && get && "appointments".equals(seg[3])) {
+                    writeAppointments(out, service.listDoctorAppointments(doctor(pathId(seg[2])).getId()));
+                    return 200;
+                }
+                if (seg.length == 4 && get && "next-free-slot".equals(seg[3])) {
+                    LocalDateTime slot = service.findNextFreeSlot(pathId(seg[2]),
+                            dateTime(query.getOrDefault("from", LocalDateTime.now().toString())));
+                    out.beginObject().name("doctorId").value(pathId(seg[2]))
+                            .name("start").value(slot.toString()).endObject();
+                    return 200;
+                }
+                break;
+            case "branches":
+                if (seg.length == 2 && get) {
+                    out.beginArray();
+                    for (String b : new TreeSet<>(service.listDoctorBranches())) {
+                        out.value(b);
+                    }
+                    out.endArray();
+                    return 200;
+                }
+                break;
+            case "free-slots":
+                if (seg.length == 2 && get) {
+                    LocalDateTime from = dateTime(query.getOrDefault("from", LocalDateTime.now().toString()));
+                    LocalDateTime to = query.containsKey("to") ? dateTime(query.get("to")) : from.plusDays(30);
+                    writeFreeSlots(out, service.findFreeSlots(required(query, "branch"), from, to,
+                            intParam(query, "limit", 10)));
+                    return 200;
+                }
+                break;
+            case "appointments":
+                if (seg.length == 2 && get && query.containsKey("day")) {
+                    writeAppointments(out, service.listAppointmentsOn(day(query.get("day"))));
+                    return 200;
+                }
+                if (seg.length == 2 && get) {
+                    writeAppointments(out, service.listAppointments(intParam(query, "afterId", 0), pageLimit(query)));
+                    return 200;
+                }
+                if (seg.length == 2 && post) {
+                    Map<String, String> f = JsonReader.parseObject(body);
+                    writeAppointment(out, service.createAppointment(intValue(required(f, "patientId"), "patientId"),
+                            intValue(required(f, "doctorId"), "doctorId"), dateTime(required(f, "dateTime")),
+                            f.get("note")));
+                    return 201;
+                }
+                if (seg.length == 3 && get && "search".equals(seg[2])) {
+                    writeAppointments(out, service.searchNotes(required(query, "q"), intParam(query, "patientId", 0),
+                            intParam(query, "doctorId", 0), pageLimit(query)));
+                    return 200;
+                }
+                if (seg.length == 3 && get) {
+                    writeAppointment(out, appointment(pathId(seg[2])));
+                    return 200;
+                }
+                if (seg.length == 4 && post && "status".equals(seg[3])) {
+                    Map<String, String> f = JsonReader.parseObject(body);
+                    writeAppointment(out, service.markAppointment(pathId(seg[2]),
+                            AppointmentStatus.parse(required(f, "status"))));
+                    return 200;
+                }
+                break;
+            case "reports":
+                if (seg.length == 2 && get) {
+                    writeReport(out, service.report(
+                            query.containsKey("from") ? dateTime(query.get("from")) : null,
+                            query.containsKey("to") ? dateTime(query.get("to")) : null));
+                    return 200;
+                }
+                if (seg.length == 3 && get && "branch-load".equals(seg[2])) {
+                    LocalDate day = query.containsKey("day") ? day(query.get("day")) : LocalDate.now();
+                    out.beginObject();
+                    service.branchLoad(day).forEach((branch, c) -> writeCounts(out.name(branch), c));
+                    out.endObject();
+                    return 200;
+                }
+                break;
+            case "metrics":
+                if (seg.length == 2 && get && service instanceof MetricsClinicService) {
+                    out.raw(((MetricsClinicService) service).metrics().toJson());
+                    return 200;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new HttpError(404, "No route for " + method + " " + path);
+    }
+
+    private List<Patient> searchPatients(Map<String, String> query) {
+        if (query.containsKey("nationalId")) {
+            return service.findPatientByNationalId(query.get("nationalId"))
+                    .map(Collections::singletonList).orElse(Collections.emptyList());
+        }
+        if (query.containsKey("phone")) {
+            return service.findPatientsByPhone(query.get("phone"));
+        }
+        if (query.containsKey("name")) {
+            return service.searchPatientsByName(query.get("name"), pageLimit(query));
+        }
+        throw new HttpError(400, "One of nationalId, phone or name is required");
+    }
+
+    // Servis ID ile tek kayıt döndürmez; keyset sayfalama ile tek elemanlı sayfa istenir
+    private Patient patient(int id) {
+        List<Patient> page = service.listPatients(id - 1, 1);
+        if (page.isEmpty() || page.get(0).getId() != id) {
+            throw new NotFoundException("Patient not found: " + id);
+        }
+        return page.get(0);
+    }
+
+    private Doctor doctor(int id) {
+        List<Doctor> page = service.listDoctors(id - 1, 1);
+        if (page.isEmpty() || page.get(0).getId() != id) {
+            throw new NotFoundException("Doctor not found: " + id);
+        }
+        return page.get(0);
+    }
+
+    private Appointment appointment(int id) {
+        List<Appointment> page = service.listAppointments(id - 1, 1);
+        if (page.isEmpty() || page.get(0).getId() != id) {
+            throw new NotFoundException("Appointment not found: " + id);
+        }
+        return page.get(0);
+    }
+
+    // === PARAMETRELER ===
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new HttpError(400, "Missing field: " + name);
+        }
+        return value;
+    }
+
+    private static int pathId(String segment) {
+        return intValue(segment, "id");
+    }
+
+    private static int intValue(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        return value == null ? defaultValue : intValue(value, name);
+    }
+
+    private static int pageLimit(Map<String, String> query) {
+        return Math.max(1, Math.min(MAX_PAGE, intParam(query, "limit", 100)));
+    }
+
+    // "2025-01-01T10:00" ya da "2025-01-01 10:00"
+    private static LocalDateTime dateTime(String value) {
+        return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+    }
+
+    // "2025-01-01" ya da "today"
+    private static LocalDate day(String value) {
+        return "today".equalsIgnoreCase(value.trim()) ? LocalDate.now() : LocalDate.parse(value.trim());
+    }
+
+    // === JSON ÇIKTISI ===
+
+    private static void writePatients(JsonWriter out, List<Patient> patients) {
+        out.beginArray();
+        for (Patient p : patients) {
+            writePatient(out, p);
+        }
+        out.endArray();
+    }
+
+    private static void writePatient(JsonWriter out, Patient p) {
+        out.beginObject()
+                .name("id").value(p.getId())
+                .name("name").value(p.getName())
+                .name("phone").value(p.getPhone())
+                .name("nationalId").value(p.getNationalId())
+                .name("bloodType").value(p.getBloodType())
+                .endObject();
+    }
+
+    private static void writeDoctors(JsonWriter out, List<Doctor> doctors) {
+        out.beginArray();
+        for (Doctor d : doctors) {
+            writeDoctor(out, d);
+        }
+        out.endArray();
+    }
+
+    private static void writeDoctor(JsonWriter out, Doctor d) {
+        out.beginObject()
+                .name("id").value(d.getId())
+                .name("name").value(d.getName())
+                .name("phone").value(d.getPhone())
+                .name("branch").value(d.getBranch())
+                .endObject();
+    }
+
+    private static void writeAppointments(JsonWriter out, List<Appointment> appointments) {
+        out.beginArray();
+        for (Appointment a : appointments) {
+            writeAppointment(out, a);
+        }
+        out.endArray();
+    }
+
+    private static void writeAppointment(JsonWriter out, Appointment a) {
+        out.beginObject()
+                .name("id").value(a.getId())
+                .name("patientId").value(a.getPatient().getId())
+                .name("patientName").value(a.getPatient().getName())
+                .name("doctorId").value(a.getDoctor().getId())
+                .name("doctorName").value(a.getDoctor().getName())
+                .name("dateTime").value(a.getDateTime().toString())
+                .name("note").value(a.getNote())
+                .name("status").value(a.getStatus().name())
+                .endObject();
+    }
+
+    private static void writeFreeSlots(JsonWriter out, List<FreeSlot> slots) {
+        out.beginArray();
+        for (FreeSlot s : slots) {
+            out.beginObject()
+                    .name("start").value(s.getStart().toString())
+                    .name("doctorId").value(s.getDoctor().getId())
+                    .name("doctorName").value(s.getDoctor().getName())
+                    .name("branch").value(s.getDoctor().getBranch())
+                    .endObject();
+        }
+        out.endArray();
+    }
+
+    private static void writeCounts(JsonWriter out, AppointmentReport.Counts c) {
+        out.beginObject()
+                .name("total").value(c.total)
+                .name("completed").value(c.completed)
+                .name("noShow").value(c.noShow)
+                .name("noShowRate").value(c.noShowRate())
+                .endObject();
+    }
+
+    private static void writeReport(JsonWriter out, AppointmentReport r) {
+        out.beginObject();
+        writeCounts(out.name("total"), r.total);
+        out.name("byBranch").beginObject();
+        new TreeMap<>(r.byBranch).forEach((b, c) -> writeCounts(out.name(b), c));
+        out.endObject();
+        out.name("byDoctor").beginObject();
+        new TreeMap<>(r.byDoctor).forEach((id, c) -> writeCounts(out.name(String.valueOf(id)), c));
+        out.endObject();
+        out.name("byDay").beginObject();
+        new TreeMap<>(r.byDay).forEach((day, c) -> writeCounts(out.name(day.toString()), c));
+        out.endObject();
+        out.endObject();
+    }
+}
+
+/**
+ * Doğrudan UTF-8 byte dizisine yazan küçük JSON yazıcı.
+ * Ara String/StringBuilder oluşturmaz; havuz thread'lerinde thread başına bir örnek tekrar kullanılır.
+ * Virgüller iç içe seviye başına bir bitle takip edilir (en fazla 64 seviye).
+ */
+class JsonWriter {
+
+    private static final ThreadLocal<JsonWriter> PER_THREAD = ThreadLocal.withInitial(JsonWriter::new);
+    // Bundan büyük tamponlar thread'de tutulmaz (tek bir büyük yanıt belleği kalıcı olarak şişirmesin)
+    private static final int MAX_RETAINED = 1 << 20;
+
+    private byte[] buf = new byte[8192];
+    private int len;
+    private int depth;
+    private long hasElements;
+    private boolean afterName;
+
+    // Havuzdaki (platform) thread'ler için tekrar kullanılan, sıfırlanmış örnek
+    static JsonWriter forCurrentThread() {
+        JsonWriter w = PER_THREAD.get();
+        if (w.buf.length > MAX_RETAINED) {
+            w = new JsonWriter();
+            PER_THREAD.set(w);
+        }
+        w.reset();
+        return w;
+    }
+
+    void reset() {
+        len = 0;
+        depth = 0;
+        hasElements = 0;
+        afterName = false;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int length() {
+        return len;
+    }
+
+    JsonWriter beginObject() {
+        beforeValue();
+        push('{');
+        return this;
+    }
+
+    JsonWriter endObject() {
+        return pop('}');
+    }
+
+    JsonWriter beginArray() {
+        beforeValue();
+        push('[');
+        return this;
+    }
+
+    JsonWriter endArray() {
+        return pop(']');
+    }
+
+    JsonWriter name(String name) {
+        comma();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String s) {
+        beforeValue();
+        if (s == null) {
+            writeAscii("null");
+        } else {
+            writeString(s);
+        }
+        return this;
+    }
+
+    JsonWriter value(long v) {
+        beforeValue();
+        if (v == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return this;
+        }
+        if (v < 0) {
+            write('-');
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = len + digits - 1; i >= len; i--) {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        len += digits;
+        return this;
+    }
+
+    JsonWriter value(double v) {
+        beforeValue();
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            writeAscii("null");
+        } else {
+            writeAscii(Double.toString(v));
+        }
+        return this;
+    }
+
+    JsonWriter value(boolean v) {
+        beforeValue();
+        writeAscii(v ? "true" : "false");
+        return this;
+    }
+
+    // Hazır JSON metnini olduğu gibi ekler
+    JsonWriter raw(String json) {
+        beforeValue();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+        return this;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+        } else {
+            comma();
+        }
+    }
+
+    private void comma() {
+        if (depth == 0) {
+            return;
+        }
+        long bit = 1L << (depth - 1);
+        if ((hasElements & bit) != 0) {
+            write(',');
+        } else {
+            hasElements |= bit;
+        }
+    }
+
+    private void push(char c) {
+        if (depth == 64) {
+            throw new IllegalStateException("JSON nesting too deep");
+        }
+        write(c);
+        depth++;
+        hasElements &= ~(1L << (depth - 1));
+    }
+
+    private JsonWriter pop(char c) {
+        depth--;
+        write(c);
+        return this;
+    }
+
+    private void writeString(String s) {
+        // En kötü durumda karakter başına 6 byte (\\u00XX)
+        ensure(s.length() * 6 + 2);
+        byte[] b = buf;
+        int p = len;
+        b[p++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                b[p++] = '\\';
+                b[p++] = (byte) c;
+            } else if (c < 0x20) {
+                switch (c) {
+                    case '\n': b[p++] = '\\'; b[p++] = 'n'; break;
+                    case '\r': b[p++] = '\\'; b[p++] = 'r'; break;
+                    case '\t': b[p++] = '\\'; b[p++] = 't'; break;
+                    default:
+                        b[p++] = '\\';
+                        b[p++] = 'u';
+                        b[p++] = '0';
+                        b[p++] = '0';
+                        b[p++] = (byte) Character.forDigit(c >> 4, 16);
+                        b[p++] = (byte) Character.forDigit(c & 0xF, 16);
+                }
+            } else if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        b[p++] = '"';
+        len = p;
+    }
+
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[len++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void write(char c) {
+        ensure(1);
+        buf[len++] = (byte) c;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
+
+// İstek gövdeleri için düz (iç içe olmayan) JSON nesnesi okuyucu; değerler metin olarak döner
+class JsonReader {
+
+    private final String s;
+    private int pos;
+
+    private JsonReader(String s) {
+        this.s = s;
+    }
+
+    static Map<String, String> parseObject(byte[] body) {
+        return new JsonReader(new String(body, StandardCharsets.UTF_8)).object();
+    }
+
+    private Map<String, String> object() {
+        Map<String, String> fields = new HashMap<>();
+        skipSpace();
+        expect('{');
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+            return fields;
+        }
+        while (true) {
+            skipSpace();
+            String key = string();
+            skipSpace();
+            expect(':');
+            skipSpace();
+            fields.put(key, scalar());
+            skipSpace();
+            char c = next();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw fail("Expected ',' or '}'");
+            }
+        }
+        skipSpace();
+        if (pos != s.length()) {
+            throw fail("Unexpected trailing content");
+        }
+        return fields;
+    }
+
+    private String scalar() {
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw fail("Nested values are not supported");
+        }
+        int start = pos;
+        while (pos < s.length() && ",} \t\r\n".indexOf(s.charAt(pos)) < 0) {
+            pos++;
+        }
+        String token = s.substring(start, pos);
+        if (token.isEmpty()) {
+            throw fail("Expected a value");
+        }
+        return "null".equals(token) ? null : token;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = next();
+            switch (e) {
+                case '"': case '\\': case '/': sb.append(e); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) {
+                        throw fail("Bad unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw fail("Bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw fail("Bad escape \\" + e);
+            }
+        }
+    }
+
+    private void skipSpace() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= s.length()) {
+            throw fail("Unexpected end of JSON");
+        }
+        return s.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw fail("Expected '" + c + "'");
+        }
+    }
+
+    private ClinicHttpServer.HttpError fail(String message) {
+        return new ClinicHttpServer.HttpError(400, "Invalid JSON at " + pos + ": " + message);
+    }
+}
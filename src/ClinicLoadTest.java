@@ -0,0 +1,744 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Kapasite testi: tohumlu (seed) sentetik veri/trafik üreteci ve yük sürücüsü.
+ * Önce WorkloadGenerator servisi gerçekçi bir veriyle doldurur (branşlara dağılmış doktorlar,
+ * sık gelen hastalar, sabah yoğun / öğlen boş gün profili), sonra seçilen işlem karışımı
+ * kapalı ya da açık döngüde çalıştırılır. Her işlem için işlem/saniye ve p50/p99/p999 gecikme raporlanır.
+ *
+ * Kapalı döngü (closed): her thread bir önceki çağrı bitince sonrakini yapar (en yüksek işlem/saniye).
+ * Açık döngü (open): istekler --rate hızında Poisson sürecine göre planlanır; gecikme planlanan
+ * başlangıçtan ölçülür (servis geride kalınca bekleme süresi de gecikmeye yansır).
+ * --profile day: açık döngüde hız, çalışma günü profiline göre dalgalanır (sabah ve öğleden sonra patlamaları).
+ *
+ * Aynı tohum ve ayarlarla veri ve istek dizisi aynıdır; veri parmak izi (fingerprint) raporda yazılır.
+ * --report ile CSV rapor saklanır, --baseline ile önceki raporla karşılaştırılır.
+ * Hedef servis boş olmalıdır.
+ *
+ * Çalıştırma:
+ *   java -cp out ClinicLoadTest [--seed 42] [--patients 100000] [--doctors 500] [--days 20] [--fill 0.6]
+ *                               [--mode closed|open] [--threads 4] [--rate 5000] [--profile flat|day]
+ *                               [--duration 30] [--warmup 5] [--mix book=25,findPatient=20,...]
+ *                               [--data dir | --mapped dir | --shards localhost:9100,...] [--metrics]
+ *                               [--report run.csv] [--baseline previous.csv]
+ */
+public class ClinicLoadTest {
+
+    enum Op {
+        BOOK("book", 25),
+        FIND_PATIENT("findPatient", 20),
+        PATIENT_HISTORY("patientHistory", 15),
+        NEXT_FREE("nextFreeSlot", 10),
+        FREE_SLOTS("freeSlots", 10),
+        MARK("markAppointment", 10),
+        SEARCH_NAME("searchName", 5),
+        SEARCH_NOTES("searchNotes", 5);
+
+        final String label;
+        final int defaultWeight;
+
+        Op(String label, int defaultWeight) {
+            this.label = label;
+            this.defaultWeight = defaultWeight;
+        }
+
+        static Op parse(String label) {
+            for (Op op : values()) {
+                if (op.label.equalsIgnoreCase(label)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + label);
+        }
+    }
+
+    // JIT'in sonuçları ölü kod diye atmaması için; yük thread'leri aynı anda ekler
+    static final LongAdder sink = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = CommandLine.parseArgs(args);
+        Settings settings = Settings.from(opts);
+        WorkloadGenerator workload = new WorkloadGenerator(
+                Long.parseLong(opts.getOrDefault("seed", "42")),
+                Integer.parseInt(opts.getOrDefault("patients", "100000")),
+                Integer.parseInt(opts.getOrDefault("doctors", "500")),
+                Integer.parseInt(opts.getOrDefault("days", "20")),
+                Double.parseDouble(opts.getOrDefault("fill", "0.6")));
+
+        String target = "memory";
+        ClinicService impl;
+        if (opts.containsKey("shards")) {
+            target = "shards " + opts.get("shards");
+            impl = ShardedClinicService.connect(opts.get("shards"));
+        } else if (opts.containsKey("mapped")) {
+            target = "mapped";
+            impl = ClinicServiceImpl.openMapped(emptyDir(opts.get("mapped")));
+        } else if (opts.containsKey("data")) {
+            target = "durable";
+            impl = ClinicServiceImpl.openDurable(emptyDir(opts.get("data")));
+        } else {
+            impl = new ClinicServiceImpl();
+        }
+        if (opts.containsKey("metrics")) {
+            target += "+metrics";
+        }
+
+        try (ClinicService service = opts.containsKey("metrics") ? new MetricsClinicService(impl) : impl) {
+            long start = System.nanoTime();
+            workload.populate(service);
+            double populateSeconds = (System.nanoTime() - start) / 1e9;
+
+            Report report = run(service, workload, settings);
+            report.put("target", target);
+            report.put("populate_s", String.format(Locale.ROOT, "%.1f", populateSeconds));
+
+            report.print(System.out);
+            if (opts.containsKey("baseline")) {
+                Report.read(Paths.get(opts.get("baseline"))).compare(report, System.out);
+            }
+            if (opts.containsKey("report")) {
+                report.write(Paths.get(opts.get("report")));
+            }
+        }
+    }
+
+    // Sonuçlar karşılaştırılabilir olsun diye veri dizini boş başlamalı
+    private static Path emptyDir(String dir) throws IOException {
+        Path path = Paths.get(dir);
+        if (Files.isDirectory(path)) {
+            try (var entries = Files.list(path)) {
+                if (entries.findAny().isPresent()) {
+                    throw new IllegalArgumentException("Data directory must be empty: " + dir);
+                }
+            }
+        }
+        return path;
+    }
+
+    // === AYARLAR ===
+
+    static class Settings {
+        boolean open;
+        boolean dayProfile;
+        int threads;
+        double rate;
+        long durationNanos;
+        long warmupNanos;
+        // Op sırasıyla ağırlıklar
+        final int[] weights = new int[Op.values().length];
+
+        static Settings from(Map<String, String> opts) {
+            Settings s = new Settings();
+            String mode = opts.getOrDefault("mode", "closed");
+            if (!mode.equals("closed") && !mode.equals("open")) {
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+            s.open = mode.equals("open");
+            s.dayProfile = opts.getOrDefault("profile", s.open ? "day" : "flat").equals("day");
+            s.threads = Integer.parseInt(opts.getOrDefault("threads", "4"));
+            s.rate = Double.parseDouble(opts.getOrDefault("rate", "5000"));
+            s.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(opts.getOrDefault("duration", "30")));
+            s.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(opts.getOrDefault("warmup", "5")));
+            if (opts.containsKey("mix")) {
+                for (String part : opts.get("mix").split(",")) {
+                    String[] kv = part.split("=");
+                    s.weights[Op.parse(kv[0].trim()).ordinal()] = Integer.parseInt(kv[1].trim());
+                }
+            } else {
+                for (Op op : Op.values()) {
+                    s.weights[op.ordinal()] = op.defaultWeight;
+                }
+            }
+            if (Arrays.stream(s.weights).sum() <= 0) {
+                throw new IllegalArgumentException("Operation mix is empty");
+            }
+            return s;
+        }
+
+        String mix() {
+            StringJoiner sj = new StringJoiner(" ");
+            for (Op op : Op.values()) {
+                if (weights[op.ordinal()] > 0) {
+                    sj.add(op.label + "=" + weights[op.ordinal()]);
+                }
+            }
+            return sj.toString();
+        }
+    }
+
+    // === SÜRÜCÜ ===
+
+    /**
+     * Isınma (ayrı tohumla, ölçülmez) ve ölçüm turu. Her thread kendi tohumlu rastgele
+     * dizisini kullanır: ölçülen istek dizisi ısınmanın uzunluğundan bağımsızdır.
+     */
+    static Report run(ClinicService service, WorkloadGenerator workload, Settings s) throws Exception {
+        if (s.warmupNanos > 0) {
+            drive(service, workload, s, s.warmupNanos, workload.seed ^ 0x5DEECE66DL);
+            System.gc();
+        }
+        long gcCount = ClinicBenchmark.gcCount();
+        long gcMillis = ClinicBenchmark.gcMillis();
+        Result result = drive(service, workload, s, s.durationNanos, workload.seed);
+
+        Report report = new Report();
+        report.put("seed", String.valueOf(workload.seed));
+        report.put("patients", String.valueOf(workload.patients));
+        report.put("doctors", String.valueOf(workload.doctors));
+        report.put("days", String.valueOf(workload.days));
+        report.put("appointments", String.valueOf(workload.appointmentCount));
+        report.put("fingerprint", Long.toHexString(workload.fingerprint));
+        report.put("mode", s.open ? String.format(Locale.ROOT, "open %.0f/s", s.rate) : "closed");
+        report.put("profile", s.dayProfile ? "day" : "flat");
+        report.put("threads", String.valueOf(s.threads));
+        report.put("duration_s", String.format(Locale.ROOT, "%.1f", result.elapsedNanos / 1e9));
+        report.put("mix", s.mix());
+        report.put("cpus", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        report.put("java", System.getProperty("java.version"));
+        report.put("gc_count", String.valueOf(ClinicBenchmark.gcCount() - gcCount));
+        report.put("gc_ms", String.valueOf(ClinicBenchmark.gcMillis() - gcMillis));
+
+        LatencyHistogram total = new LatencyHistogram();
+        long rejected = 0;
+        long errors = 0;
+        for (Op op : Op.values()) {
+            LatencyHistogram.Snapshot snap = result.latencies[op.ordinal()].snapshot();
+            if (snap.count > 0) {
+                report.add(op.label, snap, result.rejected[op.ordinal()].sum(),
+                        result.errors[op.ordinal()].sum(), result.elapsedNanos);
+                total.add(snap);
+            }
+            rejected += result.rejected[op.ordinal()].sum();
+            errors += result.errors[op.ordinal()].sum();
+        }
+        report.add("total", total.snapshot(), rejected, errors, result.elapsedNanos);
+        return report;
+    }
+
+    static class Result {
+        final LatencyHistogram[] latencies = new LatencyHistogram[Op.values().length];
+        // İş kuralı reddi (dolu saat, bulunamayan kayıt); gecikmesi yine ölçülür
+        final LongAdder[] rejected = new LongAdder[Op.values().length];
+        final LongAdder[] errors = new LongAdder[Op.values().length];
+        long elapsedNanos;
+
+        Result() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+                rejected[i] = new LongAdder();
+                errors[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static Result drive(ClinicService service, WorkloadGenerator workload, Settings s,
+                                long durationNanos, long seed) throws Exception {
+        Result result = new Result();
+        int[] cumulative = new int[s.weights.length];
+        int sum = 0;
+        for (int i = 0; i < s.weights.length; i++) {
+            sum += s.weights[i];
+            cumulative[i] = sum;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(s.threads);
+        CountDownLatch ready = new CountDownLatch(s.threads);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] startAt = new long[1];
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < s.threads; t++) {
+            SplittableRandom rnd = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + t);
+            futures.add(pool.submit(() -> {
+                ready.countDown();
+                go.await();
+                long start = startAt[0];
+                long deadline = start + durationNanos;
+                double ratePerThread = s.rate / s.threads;
+                long intended = start;
+                long local = 0;
+                while (true) {
+                    if (s.open) {
+                        // Poisson geliş: üstel aralık, hız o anki gün profiliyle ölçeklenir
+                        double multiplier = s.dayProfile
+                                ? WorkloadGenerator.profileAt((double) (intended - start) / durationNanos) : 1.0;
+                        intended += (long) (-Math.log(1 - rnd.nextDouble()) / (ratePerThread * multiplier) * 1e9);
+                        if (intended >= deadline) {
+                            break;
+                        }
+                        long now;
+                        while ((now = System.nanoTime()) < intended) {
+                            LockSupport.parkNanos(intended - now);
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                        if (intended >= deadline) {
+                            break;
+                        }
+                    }
+                    Op op = pick(cumulative, rnd.nextInt(cumulative[cumulative.length - 1]));
+                    try {
+                        local += workload.execute(op, service, rnd);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        result.rejected[op.ordinal()].increment();
+                    } catch (RuntimeException e) {
+                        result.errors[op.ordinal()].increment();
+                    }
+                    result.latencies[op.ordinal()].record(System.nanoTime() - intended);
+                }
+                sink.add(local);
+                return null;
+            }));
+        }
+        ready.await();
+        startAt[0] = System.nanoTime();
+        go.countDown();
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        result.elapsedNanos = System.nanoTime() - startAt[0];
+        return result;
+    }
+
+    private static Op pick(int[] cumulative, int r) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) {
+                return Op.values()[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    // === RAPOR ===
+
+    /**
+     * Ayarlar (# anahtar=değer satırları) ve işlem başına bir satır; CSV olarak saklanıp
+     * sonraki çalıştırmayla karşılaştırılabilir.
+     */
+    static class Report {
+        static final String HEADER = "operation,count,ops_per_sec,rejected,errors,mean_us,p50_us,p99_us,p999_us,max_us";
+        // Bu ayarlar farklıysa sonuçlar karşılaştırılamaz
+        static final String[] WORKLOAD_KEYS = {"seed", "patients", "doctors", "days", "fingerprint", "mode", "profile", "threads", "mix"};
+
+        final Map<String, String> settings = new LinkedHashMap<>();
+        final Map<String, double[]> rows = new LinkedHashMap<>();
+
+        void put(String key, String value) {
+            settings.put(key, value);
+        }
+
+        void add(String op, LatencyHistogram.Snapshot s, long rejected, long errors, long elapsedNanos) {
+            rows.put(op, new double[]{
+                    s.count, s.count / (elapsedNanos / 1e9), rejected, errors, s.mean() / 1e3,
+                    s.percentile(50) / 1e3, s.percentile(99) / 1e3, s.percentile(99.9) / 1e3, s.max / 1e3});
+        }
+
+        void print(java.io.PrintStream out) {
+            out.printf("Workload: seed %s, %s patients, %s doctors, %s days, %s appointments (fingerprint %s)%n",
+                    settings.get("seed"), settings.get("patients"), settings.get("doctors"), settings.get("days"),
+                    settings.get("appointments"), settings.get("fingerprint"));
+            out.printf("Target: %s, populated in %s s; %s, profile %s, %s threads, %s s, mix %s%n",
+                    settings.get("target"), settings.get("populate_s"), settings.get("mode"),
+                    settings.get("profile"), settings.get("threads"), settings.get("duration_s"), settings.get("mix"));
+            out.printf("%-16s %10s %10s %9s %7s %9s %9s %9s %9s %10s%n", "Operation", "Count", "ops/s",
+                    "Rejected", "Errors", "mean us", "p50 us", "p99 us", "p999 us", "max us");
+            for (Map.Entry<String, double[]> e : rows.entrySet()) {
+                double[] r = e.getValue();
+                out.printf(Locale.ROOT, "%-16s %10d %10.1f %9d %7d %9.1f %9.1f %9.1f %9.1f %10.1f%n",
+                        e.getKey(), (long) r[0], r[1], (long) r[2], (long) r[3], r[4], r[5], r[6], r[7], r[8]);
+            }
+            out.printf("GC: %s collections, %s ms%n", settings.get("gc_count"), settings.get("gc_ms"));
+        }
+
+        void write(Path file) throws IOException {
+            try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                for (Map.Entry<String, String> e : settings.entrySet()) {
+                    w.println("# " + e.getKey() + "=" + e.getValue());
+                }
+                w.println(HEADER);
+                for (Map.Entry<String, double[]> e : rows.entrySet()) {
+                    double[] r = e.getValue();
+                    w.printf(Locale.ROOT, "%s,%d,%.1f,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                            e.getKey(), (long) r[0], r[1], (long) r[2], (long) r[3], r[4], r[5], r[6], r[7], r[8]);
+                }
+            }
+        }
+
+        static Report read(Path file) {
+            Report report = new Report();
+            try {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.startsWith("# ")) {
+                        int eq = line.indexOf('=');
+                        report.put(line.substring(2, eq), line.substring(eq + 1));
+                    } else if (!line.isEmpty() && !line.equals(HEADER)) {
+                        String[] parts = line.split(",");
+                        double[] r = new double[parts.length - 1];
+                        for (int i = 1; i < parts.length; i++) {
+                            r[i - 1] = Double.parseDouble(parts[i]);
+                        }
+                        report.rows.put(parts[0], r);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read baseline " + file, e);
+            }
+            return report;
+        }
+
+        // this = önceki çalıştırma; değişim yüzdesi yeni / eski - 1
+        void compare(Report current, java.io.PrintStream out) {
+            for (String key : WORKLOAD_KEYS) {
+                if (!Objects.equals(settings.get(key), current.settings.get(key))) {
+                    out.printf("Warning: baseline %s differs (%s vs %s), results are not comparable%n",
+                            key, settings.get(key), current.settings.get(key));
+                }
+            }
+            out.printf("Compared to baseline (target %s):%n", settings.get("target"));
+            out.printf("%-16s %10s %10s %8s %9s %9s %8s %9s %9s %8s%n", "Operation", "ops/s", "base", "change",
+                    "p99 us", "base", "change", "p999 us", "base", "change");
+            for (Map.Entry<String, double[]> e : current.rows.entrySet()) {
+                double[] base = rows.get(e.getKey());
+                if (base == null) {
+                    continue;
+                }
+                double[] r = e.getValue();
+                out.printf(Locale.ROOT, "%-16s %10.1f %10.1f %+7.1f%% %9.1f %9.1f %+7.1f%% %9.1f %9.1f %+7.1f%%%n",
+                        e.getKey(), r[1], base[1], change(r[1], base[1]), r[6], base[6], change(r[6], base[6]),
+                        r[7], base[7], change(r[7], base[7]));
+            }
+        }
+
+        private static double change(double now, double before) {
+            return before == 0 ? 0 : 100 * (now / before - 1);
+        }
+    }
+}
+
+/**
+ * Tohumlu sentetik klinik verisi ve istek üreteci.
+ * Doktorlar branşlara ağırlıklı dağılır; hastaların küçük bir kısmı randevuların büyük kısmını alır
+ * (kronik hastalar); randevular saat ağırlıklarıyla (sabah yoğun, öğle arası boş) ve haftanın gününe
+ * göre (pazartesi yoğun, hafta sonu kapalı) yerleşir. Doldurma tek thread'dedir ve çakışmasızdır:
+ * aynı tohum her zaman aynı veriyi üretir.
+ */
+class WorkloadGenerator {
+
+    static final String[] BRANCHES = {
+            "Dahiliye", "Pediatri", "Kardiyoloji", "Ortopedi", "Göz", "KBB",
+            "Dermatoloji", "Nöroloji", "Genel Cerrahi", "Psikiyatri"
+    };
+    private static final int[] BRANCH_WEIGHTS = {20, 15, 12, 11, 9, 9, 8, 7, 5, 4};
+
+    // Çalışma saatlerinin her saati için yoğunluk (09:00'dan başlayarak)
+    private static final int[] HOUR_WEIGHTS = {9, 10, 8, 3, 6, 7, 5, 3};
+    // Pazartesi..cuma
+    private static final double[] WEEKDAY_LOAD = {1.25, 1.1, 1.0, 1.0, 0.85};
+
+    static final int SLOTS = (int) java.time.Duration.between(ClinicServiceImpl.WORK_START,
+            ClinicServiceImpl.WORK_END).toMinutes() / ClinicServiceImpl.APPOINTMENT_MINUTES;
+    private static final int[] SLOT_WEIGHTS = new int[SLOTS];
+    private static final double MEAN_SLOT_WEIGHT;
+
+    static {
+        // Günün dolu dilimleri tek bir long bit maskesinde tutulur (bkz. freeSlot)
+        if (SLOTS > Long.SIZE) {
+            throw new IllegalStateException("At most " + Long.SIZE + " slots per day are supported, got " + SLOTS);
+        }
+        int sum = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            int hour = i * ClinicServiceImpl.APPOINTMENT_MINUTES / 60;
+            SLOT_WEIGHTS[i] = HOUR_WEIGHTS[Math.min(hour, HOUR_WEIGHTS.length - 1)];
+            sum += SLOT_WEIGHTS[i];
+        }
+        MEAN_SLOT_WEIGHT = (double) sum / SLOTS;
+    }
+
+    private static final String[] FIRST_NAMES = {
+            "Ahmet", "Mehmet", "Mustafa", "Ali", "Hüseyin", "Hasan", "İbrahim", "Murat", "Emre", "Burak",
+            "Ayşe", "Fatma", "Emine", "Hatice", "Zeynep", "Elif", "Merve", "Şeyma", "Özge", "Büşra"
+    };
+    private static final String[] LAST_NAMES = {
+            "Yılmaz", "Kaya", "Demir", "Şahin", "Çelik", "Yıldız", "Yıldırım", "Öztürk", "Aydın", "Özdemir",
+            "Arslan", "Doğan", "Kılıç", "Aslan", "Çetin", "Kara", "Koç", "Kurt", "Özkan", "Şimşek"
+    };
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "0+", "0-"};
+    // Sık geçenler başta (üreteç başa yakın olanları daha sık seçer)
+    private static final String[] COMPLAINTS = {
+            "kontrol", "baş ağrısı", "ateş", "öksürük", "bel ağrısı", "tansiyon takibi", "ilaç yenileme",
+            "karın ağrısı", "halsizlik", "boğaz ağrısı", "eklem ağrısı", "göz kuruluğu", "cilt döküntüsü",
+            "çarpıntı", "uykusuzluk", "baş dönmesi", "nefes darlığı", "kulak ağrısı", "alerji", "tahlil sonucu"
+    };
+    // Not aramalarında kullanılan kelimeler
+    private static final String[] NOTE_TERMS = {
+            "kontrol", "ağrısı", "ateş", "öksürük", "tansiyon", "ilaç", "karın", "halsizlik", "\"baş ağrısı\"",
+            "eklem", "çarpıntı", "alerji", "tahlil", "nefes darlığı"
+    };
+
+    // Doldurmada kullanılan paket boyu (BulkImporter ile aynı)
+    static final int BATCH = BulkImporter.INSERT_BATCH;
+    // Yeni randevular doldurulan günlerden sonraki bu kadar güne alınır
+    static final int BOOKING_DAYS = 60;
+
+    final long seed;
+    final int patients;
+    final int doctors;
+    final int days;
+    final double fill;
+    final LocalDate start;
+
+    // Doldurma sonrası: servisin verdiği ID'ler
+    int[] patientIds;
+    int[] doctorIds;
+    int[] doctorBranch;
+    int[] appointmentIds = new int[0];
+    int appointmentCount;
+    // Üretilen verinin özeti: aynı tohum ve boyutlar aynı değeri verir
+    long fingerprint = 1125899906842597L;
+
+    WorkloadGenerator(long seed, int patients, int doctors, int days, double fill) {
+        if (patients < 1 || doctors < 1 || days < 0 || fill < 0 || fill > 1) {
+            throw new IllegalArgumentException("Invalid workload size");
+        }
+        this.seed = seed;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.days = days;
+        this.fill = fill;
+        // Sabit pazartesi: aynı tohum her gün aynı takvimi üretsin
+        this.start = LocalDate.of(2025, 1, 6);
+    }
+
+    // === DOLDURMA ===
+
+    void populate(ClinicService service) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+
+        patientIds = new int[patients];
+        List<NewPatient> patientBatch = new ArrayList<>(BATCH);
+        for (int i = 0; i < patients; i++) {
+            String name = FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[rnd.nextInt(LAST_NAMES.length)];
+            String phone = "05" + (300_000_000 + rnd.nextInt(600_000_000));
+            NewPatient p = new NewPatient(name, phone, nationalId(i), BLOOD_TYPES[rnd.nextInt(BLOOD_TYPES.length)]);
+            mix(p.name, p.phone, p.nationalId, p.bloodType);
+            patientBatch.add(p);
+            if (patientBatch.size() == BATCH || i == patients - 1) {
+                int first = i + 1 - patientBatch.size();
+                List<Patient> saved = service.registerPatients(patientBatch);
+                for (int k = 0; k < saved.size(); k++) {
+                    patientIds[first + k] = saved.get(k).getId();
+                }
+                patientBatch.clear();
+            }
+        }
+
+        doctorIds = new int[doctors];
+        doctorBranch = new int[doctors];
+        List<NewDoctor> doctorBatch = new ArrayList<>();
+        for (int i = 0; i < doctors; i++) {
+            // İlk doktorlar her branşa birer tane: her branşın en az bir doktoru olsun
+            doctorBranch[i] = i < BRANCHES.length ? i : weighted(rnd, BRANCH_WEIGHTS);
+            String name = "Dr. " + FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[rnd.nextInt(LAST_NAMES.length)];
+            NewDoctor d = new NewDoctor(name, "0212" + (1_000_000 + rnd.nextInt(9_000_000)), BRANCHES[doctorBranch[i]]);
+            mix(d.name, d.phone, d.branch);
+            doctorBatch.add(d);
+        }
+        List<Doctor> savedDoctors = service.registerDoctors(doctorBatch);
+        for (int i = 0; i < doctors; i++) {
+            doctorIds[i] = savedDoctors.get(i).getId();
+        }
+
+        appointmentIds = new int[Math.max(16, (int) Math.min(Integer.MAX_VALUE - 8, (long) doctors * days * SLOTS * fill))];
+        List<NewAppointment> batch = new ArrayList<>(BATCH);
+        // Gün içinde hasta × dilim doluluğu (hastanın aynı saatte iki randevusu olmasın)
+        BitSet patientSlots = new BitSet();
+        for (int d = 0; d < days; d++) {
+            LocalDate day = start.plusDays(d);
+            if (day.getDayOfWeek().getValue() > DayOfWeek.FRIDAY.getValue()) {
+                continue;
+            }
+            double dayLoad = WEEKDAY_LOAD[day.getDayOfWeek().getValue() - 1];
+            patientSlots.clear();
+            for (int doc = 0; doc < doctors; doc++) {
+                int target = Math.min(SLOTS, (int) Math.round(SLOTS * fill * dayLoad * (0.8 + 0.4 * rnd.nextDouble())));
+                long used = 0;
+                for (int k = 0; k < target; k++) {
+                    int slot = freeSlot(rnd, used);
+                    int patient = -1;
+                    for (int attempt = 0; attempt < 4 && patient < 0; attempt++) {
+                        int p = skewed(rnd, patients);
+                        if (!patientSlots.get(p * SLOTS + slot)) {
+                            patient = p;
+                        }
+                    }
+                    if (patient < 0) {
+                        continue;
+                    }
+                    used |= 1L << slot;
+                    patientSlots.set(patient * SLOTS + slot);
+                    String note = note(rnd);
+                    mix(String.valueOf(d), String.valueOf(doc), String.valueOf(patient), String.valueOf(slot), note);
+                    batch.add(new NewAppointment(patientIds[patient], doctorIds[doc], slotTime(day, slot), note));
+                    if (batch.size() == BATCH) {
+                        flush(service, batch);
+                    }
+                }
+            }
+        }
+        flush(service, batch);
+    }
+
+    private void flush(ClinicService service, List<NewAppointment> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Appointment a : service.createAppointments(batch)) {
+            if (appointmentCount == appointmentIds.length) {
+                appointmentIds = Arrays.copyOf(appointmentIds, appointmentIds.length * 2);
+            }
+            appointmentIds[appointmentCount++] = a.getId();
+        }
+        batch.clear();
+    }
+
+    private void mix(String... values) {
+        for (String v : values) {
+            fingerprint = fingerprint * 31 + (v == null ? 0 : v.hashCode());
+        }
+    }
+
+    // === İSTEKLER ===
+
+    /**
+     * Tek bir isteği çalıştırır; dönen değer JIT ölü kod atmasın diye kullanılır.
+     * İş kuralı reddi (dolu saat gibi) IllegalStateException / IllegalArgumentException olarak yükselir.
+     */
+    long execute(ClinicLoadTest.Op op, ClinicService service, SplittableRandom rnd) {
+        switch (op) {
+            case BOOK: {
+                LocalDate day = bookingDay(rnd);
+                Appointment a = service.createAppointment(patientIds[skewed(rnd, patients)],
+                        doctorIds[rnd.nextInt(doctors)], slotTime(day, freeSlot(rnd, 0)), note(rnd));
+                return a.getId();
+            }
+            case FIND_PATIENT:
+                return service.findPatientByNationalId(nationalId(skewed(rnd, patients))).map(Patient::getId).orElse(0);
+            case PATIENT_HISTORY:
+                return service.listPatientAppointments(patientIds[skewed(rnd, patients)]).size();
+            case NEXT_FREE: {
+                LocalDateTime slot = service.findNextFreeSlot(doctorIds[rnd.nextInt(doctors)],
+                        bookingDay(rnd).atTime(ClinicServiceImpl.WORK_START));
+                return slot == null ? 0 : slot.getMinute();
+            }
+            case FREE_SLOTS: {
+                LocalDateTime from = bookingDay(rnd).atTime(ClinicServiceImpl.WORK_START);
+                return service.findFreeSlots(BRANCHES[weighted(rnd, BRANCH_WEIGHTS)], from, from.plusDays(1), 10).size();
+            }
+            case MARK: {
+                if (appointmentCount == 0) {
+                    return 0;
+                }
+                AppointmentStatus status = rnd.nextInt(5) == 0 ? AppointmentStatus.NO_SHOW : AppointmentStatus.COMPLETED;
+                return service.markAppointment(appointmentIds[rnd.nextInt(appointmentCount)], status).getId();
+            }
+            case SEARCH_NAME: {
+                String first = FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)];
+                return service.searchPatientsByName(first.substring(0, 3), 10).size();
+            }
+            case SEARCH_NOTES: {
+                // Üçte biri tek hastanın notlarında arar
+                int patientId = rnd.nextInt(3) == 0 ? patientIds[skewed(rnd, patients)] : 0;
+                return service.searchNotes(NOTE_TERMS[skewed(rnd, NOTE_TERMS.length)], patientId, 0, 20).size();
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + op);
+        }
+    }
+
+    // Açık döngüde hız çarpanı: çalıştırma süresi bir çalışma günü gibi dilimlere bölünür (ortalama 1)
+    static double profileAt(double fraction) {
+        int slot = Math.min(SLOTS - 1, Math.max(0, (int) (fraction * SLOTS)));
+        return SLOT_WEIGHTS[slot] / MEAN_SLOT_WEIGHT;
+    }
+
+    // === YARDIMCILAR ===
+
+    // 11 haneli, indeksten türetilen T.C. numarası (aramalar aynı numarayı yeniden üretebilsin)
+    static String nationalId(int index) {
+        return String.valueOf(10_000_000_000L + index);
+    }
+
+    private LocalDate bookingDay(SplittableRandom rnd) {
+        LocalDate day = start.plusDays(days + rnd.nextInt(BOOKING_DAYS));
+        DayOfWeek dow = day.getDayOfWeek();
+        // Hafta sonu isteği pazartesiye kayar
+        return dow == DayOfWeek.SATURDAY ? day.plusDays(2) : dow == DayOfWeek.SUNDAY ? day.plusDays(1) : day;
+    }
+
+    private static LocalDateTime slotTime(LocalDate day, int slot) {
+        return day.atTime(ClinicServiceImpl.WORK_START).plusMinutes((long) slot * ClinicServiceImpl.APPOINTMENT_MINUTES);
+    }
+
+    // Dolu olmayan (used bit'i 0) dilimlerden saat ağırlığına göre biri
+    private static int freeSlot(SplittableRandom rnd, long used) {
+        int total = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if ((used & (1L << i)) == 0) {
+                total += SLOT_WEIGHTS[i];
+            }
+        }
+        int r = rnd.nextInt(total);
+        for (int i = 0; i < SLOTS; i++) {
+            if ((used & (1L << i)) == 0 && (r -= SLOT_WEIGHTS[i]) < 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No free slot");
+    }
+
+    private static int weighted(SplittableRandom rnd, int[] weights) {
+        int total = 0;
+        for (int w : weights) {
+            total += w;
+        }
+        int r = rnd.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            if ((r -= weights[i]) < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    // Başa yakın indeksler daha sık: ilk %1 seçimlerin ~%10'unu alır
+    private static int skewed(SplittableRandom rnd, int n) {
+        double u = rnd.nextDouble();
+        return Math.min(n - 1, (int) (n * u * u));
+    }
+
+    private static String note(SplittableRandom rnd) {
+        String first = COMPLAINTS[skewed(rnd, COMPLAINTS.length)];
+        if (rnd.nextInt(3) != 0) {
+            return first;
+        }
+        String second = COMPLAINTS[skewed(rnd, COMPLAINTS.length)];
+        return second.equals(first) ? first : first + ", " + second;
+    }
+}
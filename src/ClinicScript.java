@@ -0,0 +1,532 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * ClinicApp için etkileşimsiz komut modu (gece işleri, test verisi, tekrar oynatma).
+ * Her satır bir komuttur; sonuçlar tek bir büyük tamponlu Writer'a yazılır ve tampon
+ * dolunca parça parça boşaltılır (satır başına konsol yazması yok).
+ *
+ * Arka arkaya gelen add-patient / add-doctor / book komutları BulkImporter.INSERT_BATCH'lik
+ * paketler halinde servisin toplu API'lerine verilir (kalıcı modda paket başına tek fsync).
+ * Paket reddedilirse satır satır denenir, böylece hatalar yine kendi satır numarasıyla raporlanır.
+ * Başka bir komut gelmeden önce bekleyen paket yazılır: komutlar her zaman dosya sırasıyla
+ * etkili olur.
+ *
+ * Sözdizimi: boşlukla ayrılmış alanlar, boşluk içeren alanlar çift tırnakla ("Ayşe Yılmaz");
+ * tırnak içinde \" ve \\ kaçışları. Boş satırlar ve # ile başlayan satırlar atlanır.
+ *
+ *   add-patient <name> <phone> [nationalId] [bloodType]
+ *   add-doctor <name> <phone> <branch>
+ *   book <patientId> <doctorId> <dateTime> [note...]
+ *   mark <appointmentId> <scheduled|completed|no-show>
+ *   list <patients|doctors|appointments> [--after N] [--limit N]
+ *   list appointments --date <YYYY-MM-DD|today> | --doctor <id> | --patient <id>
+ *   find-patient <nid|phone|name> <text>
+ *   search-notes <query> [--patient id] [--doctor id] [--limit N]   (ifade: 'search-notes "\"baş ağrısı\" ateş"')
+ *   next-free <doctorId> <dateTime>
+ *   free-slots <branch> <fromDate> <toDate> [limit]
+ *   branches | counts | metrics
+ *   branch-load [YYYY-MM-DD|today]
+ *   report [fromDate] [toDate]
+ *   import <patients|doctors|appointments> <file.csv>
+ *
+ * dateTime: 2025-01-01T10:00 ya da "2025-01-01 10:00"; tarih aralıkları her iki uç dahil.
+ *
+ * Çalıştırma:
+ *   java -cp out ClinicApp --script gece.txt [--out sonuc.txt] [--fail-fast]
+ *   cat komutlar.txt | java -cp out ClinicApp --script -
+ */
+class ClinicScript {
+
+    static final int OUTPUT_BUFFER = 1 << 20;
+
+    private final ClinicService service;
+    private final Writer out;
+    private final boolean failFast;
+
+    private long commands;
+    private long failed;
+
+    // Bekleyen toplu yazma paketi (tek türde)
+    private String pendingCommand;
+    private final List<Long> pendingLines = new ArrayList<>();
+    private final List<Object> pendingRequests = new ArrayList<>();
+
+    ClinicScript(ClinicService service, Writer out, boolean failFast) {
+        this.service = service;
+        this.out = out;
+        this.failFast = failFast;
+    }
+
+    // Komut satırı girişi; çıkış kodu döner (0 = tüm komutlar başarılı)
+    static int main(ClinicService service, Map<String, String> opts) throws IOException {
+        String script = opts.get("script");
+        String outFile = opts.get("out");
+        boolean failFast = opts.containsKey("fail-fast");
+
+        Reader in = "-".equals(script) || "true".equals(script)
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+        // System.out her println'de boşaltılabilir; doğrudan stdout'a büyük tamponla yazılır
+        Writer writer = outFile != null
+                ? Files.newBufferedWriter(Paths.get(outFile), StandardCharsets.UTF_8)
+                : new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset());
+
+        long start = System.nanoTime();
+        ClinicScript runner;
+        try (BufferedReader reader = new BufferedReader(in, 1 << 16);
+             Writer buffered = new BufferedWriter(writer, OUTPUT_BUFFER)) {
+            runner = new ClinicScript(service, buffered, failFast);
+            runner.run(reader);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf(Locale.ROOT, "%d commands, %d failed in %.2f s (%.0f commands/s)%n",
+                runner.commands, runner.failed, seconds, seconds == 0 ? 0 : runner.commands / seconds);
+        return runner.failed == 0 ? 0 : 1;
+    }
+
+    void run(BufferedReader in) throws IOException {
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            List<String> args;
+            try {
+                args = tokenize(line);
+            } catch (IllegalArgumentException e) {
+                commands++;
+                if (!fail(lineNo, e.getMessage())) {
+                    return;
+                }
+                continue;
+            }
+            if (args.isEmpty()) {
+                continue;
+            }
+            commands++;
+            try {
+                execute(lineNo, args);
+            } catch (RuntimeException e) {
+                if (!fail(lineNo, e.getMessage())) {
+                    return;
+                }
+            }
+            // Paket yazılırken bir satır hata verdiyse sonraki satırlar (kuyruğa yeni girmiş olsa da) çalıştırılmaz
+            if (failFast && failed > 0) {
+                return;
+            }
+        }
+        flushBatch();
+    }
+
+    long commands() {
+        return commands;
+    }
+
+    long failed() {
+        return failed;
+    }
+
+    // Hatalı satırdan önce kuyruktaki (önceki satırların) paketi yazılır, sonra hata; devam edilecekse true.
+    // Paketteki bir satır fail-fast'te zaten durdurduysa bu satırın hatası yazılmaz.
+    private boolean fail(long lineNo, String message) throws IOException {
+        flushBatch();
+        if (failFast && failed > 0) {
+            return false;
+        }
+        return error(lineNo, message);
+    }
+
+    // Hatayı yazar; devam edilecekse true
+    private boolean error(long lineNo, String message) throws IOException {
+        failed++;
+        out.write("ERROR line " + lineNo + ": " + message + "\n");
+        return !failFast;
+    }
+
+    private void println(Object value) throws IOException {
+        out.write(String.valueOf(value));
+        out.write('\n');
+    }
+
+    // === KOMUTLAR ===
+
+    private void execute(long lineNo, List<String> args) throws IOException {
+        String command = args.get(0).toLowerCase(Locale.ROOT);
+        // Toplu yazılabilen komutlar pakete eklenir; başka bir komuttan önce paket yazılır
+        if (!command.equals(pendingCommand)) {
+            flushBatch();
+        }
+        switch (command) {
+            case "add-patient":
+                arity(args, 3, 5);
+                queue(command, lineNo, new NewPatient(args.get(1), args.get(2), arg(args, 3), arg(args, 4)));
+                break;
+            case "add-doctor":
+                arity(args, 4, 4);
+                queue(command, lineNo, new NewDoctor(args.get(1), args.get(2), args.get(3)));
+                break;
+            case "book":
+                arity(args, 4, Integer.MAX_VALUE);
+                queue(command, lineNo, new NewAppointment(id(args.get(1)), id(args.get(2)),
+                        dateTime(args.get(3)), args.size() > 4 ? String.join(" ", args.subList(4, args.size())) : ""));
+                break;
+            case "mark":
+                arity(args, 3, 3);
+                println("Updated appointment: "
+                        + service.markAppointment(id(args.get(1)), AppointmentStatus.parse(args.get(2))));
+                break;
+            case "list":
+                list(args);
+                break;
+            case "find-patient":
+                arity(args, 3, 3);
+                findPatient(args.get(1), args.get(2));
+                break;
+            case "search-notes": {
+                if (args.size() < 2) {
+                    throw new IllegalArgumentException("Usage: search-notes <query> [--patient id] [--doctor id] [--limit N]");
+                }
+                Map<String, String> opts = options(args.subList(2, args.size()));
+                List<Appointment> found = service.searchNotes(args.get(1),
+                        opts.containsKey("patient") ? id(opts.get("patient")) : 0,
+                        opts.containsKey("doctor") ? id(opts.get("doctor")) : 0,
+                        opts.containsKey("limit") ? id(opts.get("limit")) : 50);
+                if (found.isEmpty()) {
+                    println("No notes match " + args.get(1));
+                }
+                printAll(found);
+                break;
+            }
+            case "next-free":
+                arity(args, 3, 3);
+                println("Next free slot: " + service.findNextFreeSlot(id(args.get(1)), dateTime(args.get(2))));
+                break;
+            case "free-slots": {
+                arity(args, 4, 5);
+                List<FreeSlot> slots = service.findFreeSlots(args.get(1), date(args.get(2)).atStartOfDay(),
+                        date(args.get(3)).plusDays(1).atStartOfDay(), args.size() > 4 ? id(args.get(4)) : 10);
+                if (slots.isEmpty()) {
+                    println("No free slots in " + args.get(1));
+                }
+                printAll(slots);
+                break;
+            }
+            case "branches":
+                arity(args, 1, 1);
+                printAll(service.listDoctorBranches());
+                break;
+            case "counts":
+                arity(args, 1, 1);
+                println("patients=" + service.countPatients() + " doctors=" + service.countDoctors()
+                        + " appointments=" + service.countAppointments());
+                break;
+            case "branch-load": {
+                arity(args, 1, 2);
+                LocalDate day = args.size() > 1 ? date(args.get(1)) : LocalDate.now();
+                Map<String, AppointmentReport.Counts> load = service.branchLoad(day);
+                if (load.isEmpty()) {
+                    println("No appointments on " + day);
+                }
+                for (Map.Entry<String, AppointmentReport.Counts> e : new TreeMap<>(load).entrySet()) {
+                    println(e.getKey() + ": " + e.getValue());
+                }
+                break;
+            }
+            case "report":
+                arity(args, 1, 3);
+                println(service.report(
+                        args.size() > 1 ? date(args.get(1)).atStartOfDay() : null,
+                        args.size() > 2 ? date(args.get(2)).plusDays(1).atStartOfDay() : null));
+                break;
+            case "import":
+                arity(args, 3, 3);
+                println(new BulkImporter(service).importFile(BulkImporter.EntityType.parse(args.get(1)),
+                        Paths.get(args.get(2))));
+                break;
+            case "metrics":
+                arity(args, 1, 1);
+                if (!(service instanceof MetricsClinicService)) {
+                    throw new IllegalArgumentException("Metrics are not enabled");
+                }
+                out.write(((MetricsClinicService) service).metrics().toText());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+    }
+
+    private void list(List<String> args) throws IOException {
+        if (args.size() < 2) {
+            throw new IllegalArgumentException("Usage: list <patients|doctors|appointments> [options]");
+        }
+        String what = args.get(1).toLowerCase(Locale.ROOT);
+        Map<String, String> opts = options(args.subList(2, args.size()));
+        if (what.equals("appointments")) {
+            if (opts.containsKey("date")) {
+                printAll(service.listAppointmentsOn(date(opts.get("date"))));
+                return;
+            }
+            if (opts.containsKey("doctor")) {
+                printAll(service.listDoctorAppointments(id(opts.get("doctor"))));
+                return;
+            }
+            if (opts.containsKey("patient")) {
+                printAll(service.listPatientAppointments(id(opts.get("patient"))));
+                return;
+            }
+        }
+        int after = opts.containsKey("after") ? id(opts.get("after")) : 0;
+        boolean paged = opts.containsKey("after") || opts.containsKey("limit");
+        int limit = opts.containsKey("limit") ? id(opts.get("limit")) : Integer.MAX_VALUE;
+        switch (what) {
+            case "patients":
+                if (paged) {
+                    printAll(service.listPatients(after, limit));
+                } else {
+                    printAll(service.streamPatients().iterator());
+                }
+                break;
+            case "doctors":
+                if (paged) {
+                    printAll(service.listDoctors(after, limit));
+                } else {
+                    printAll(service.streamDoctors().iterator());
+                }
+                break;
+            case "appointments":
+                if (paged) {
+                    printAll(service.listAppointments(after, limit));
+                } else {
+                    printAll(service.streamAppointments().iterator());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown list: " + args.get(1));
+        }
+    }
+
+    private void findPatient(String by, String text) throws IOException {
+        switch (by.toLowerCase(Locale.ROOT)) {
+            case "nid":
+                println(service.findPatientByNationalId(text).map(Patient::toString)
+                        .orElse("No patient with national ID " + text));
+                break;
+            case "phone":
+                printAll(service.findPatientsByPhone(text));
+                break;
+            case "name":
+                printAll(service.searchPatientsByName(text, 50));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown search: " + by + " (expected nid, phone or name)");
+        }
+    }
+
+    private void printAll(Iterable<?> items) throws IOException {
+        printAll(items.iterator());
+    }
+
+    // Akışlar liste kopyası oluşturulmadan yazılır
+    private void printAll(Iterator<?> items) throws IOException {
+        while (items.hasNext()) {
+            println(items.next());
+        }
+    }
+
+    // === TOPLU YAZMA ===
+
+    private void queue(String command, long lineNo, Object request) throws IOException {
+        pendingCommand = command;
+        pendingLines.add(lineNo);
+        pendingRequests.add(request);
+        if (pendingRequests.size() >= BulkImporter.INSERT_BATCH) {
+            flushBatch();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flushBatch() throws IOException {
+        if (pendingRequests.isEmpty()) {
+            pendingCommand = null;
+            return;
+        }
+        String command = pendingCommand;
+        List<?> results;
+        try {
+            switch (command) {
+                case "add-patient":
+                    results = service.registerPatients((List<NewPatient>) (List<?>) pendingRequests);
+                    break;
+                case "add-doctor":
+                    results = service.registerDoctors((List<NewDoctor>) (List<?>) pendingRequests);
+                    break;
+                default:
+                    results = service.createAppointments((List<NewAppointment>) (List<?>) pendingRequests);
+                    break;
+            }
+        } catch (RuntimeException batchError) {
+            results = null;
+        }
+
+        if (results != null) {
+            for (Object result : results) {
+                println(prefix(command) + result);
+            }
+        } else {
+            // Paket bütün olarak reddedildi; hatalı satırları bulmak için tek tek dene
+            for (int i = 0; i < pendingRequests.size(); i++) {
+                try {
+                    println(prefix(command) + insertOne(pendingRequests.get(i)));
+                } catch (RuntimeException e) {
+                    if (!error(pendingLines.get(i), e.getMessage())) {
+                        break;
+                    }
+                }
+            }
+        }
+        pendingCommand = null;
+        pendingLines.clear();
+        pendingRequests.clear();
+    }
+
+    private Object insertOne(Object request) {
+        if (request instanceof NewPatient) {
+            NewPatient p = (NewPatient) request;
+            return service.registerPatient(p.name, p.phone, p.nationalId, p.bloodType);
+        }
+        if (request instanceof NewDoctor) {
+            NewDoctor d = (NewDoctor) request;
+            return service.registerDoctor(d.name, d.phone, d.branch);
+        }
+        NewAppointment a = (NewAppointment) request;
+        return service.createAppointment(a.patientId, a.doctorId, a.dateTime, a.note);
+    }
+
+    // Etkileşimli menüdeki mesajlarla aynı
+    private static String prefix(String command) {
+        switch (command) {
+            case "add-patient":
+                return "Added patient: ";
+            case "add-doctor":
+                return "Added doctor: ";
+            default:
+                return "Created appointment: ";
+        }
+    }
+
+    // === AYRIŞTIRMA ===
+
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>(8);
+        int i = 0;
+        int n = line.length();
+        while (true) {
+            while (i < n && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == n || (tokens.isEmpty() && line.charAt(i) == '#')) {
+                return tokens;
+            }
+            if (line.charAt(i) == '"') {
+                StringBuilder sb = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i == n) {
+                        throw new IllegalArgumentException("Unterminated quoted argument");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        break;
+                    }
+                    if (c == '\\' && i < n) {
+                        c = line.charAt(i++);
+                    }
+                    sb.append(c);
+                }
+                tokens.add(sb.toString());
+            } else {
+                int start = i;
+                while (i < n && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                tokens.add(line.substring(start, i));
+            }
+        }
+    }
+
+    private static Map<String, String> options(List<String> args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.size(); i++) {
+            String key = args.get(i);
+            if (!key.startsWith("--") || i + 1 == args.size()) {
+                throw new IllegalArgumentException("Expected --option value, got: " + key);
+            }
+            opts.put(key.substring(2), args.get(++i));
+        }
+        return opts;
+    }
+
+    private static void arity(List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            throw new IllegalArgumentException("Wrong number of arguments for " + args.get(0));
+        }
+    }
+
+    private static String arg(List<String> args, int index) {
+        return index < args.size() ? args.get(index) : null;
+    }
+
+    private static int id(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    // Sık kullanılan yyyy-MM-ddTHH:mm biçimi formatter'sız çözülür (LocalDateTime.parse pahalı)
+    static LocalDateTime dateTime(String value) {
+        String v = value.trim();
+        if (v.length() == 16 && v.charAt(4) == '-' && v.charAt(7) == '-'
+                && (v.charAt(10) == 'T' || v.charAt(10) == ' ') && v.charAt(13) == ':') {
+            int year = digits(v, 0, 4);
+            int month = digits(v, 5, 7);
+            int day = digits(v, 8, 10);
+            int hour = digits(v, 11, 13);
+            int minute = digits(v, 14, 16);
+            if ((year | month | day | hour | minute) >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute);
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("Invalid date/time: " + value);
+                }
+            }
+        }
+        return LocalDateTime.parse(v.replace(' ', 'T'));
+    }
+
+    // Yalnızca rakamsa değeri, değilse -1
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static LocalDate date(String value) {
+        return "today".equalsIgnoreCase(value) ? LocalDate.now() : LocalDate.parse(value);
+    }
+}
@@ -0,0 +1,219 @@
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Randevuları nesne olarak değil sütunlar halinde tutan repository (struct-of-arrays).
+ * Randevu başına: hasta ID (int), doktor ID (int), dakika cinsinden zaman (int),
+ * not referansı (sıkıştırılmış referans, 4 byte) ve durum (byte) = 17 byte.
+ * Sık tekrarlanan notlar (örn. "Kontrol") sınırlı bir tablo üzerinden tek nesneye indirilir.
+ * Appointment nesnesi sadece okunurken oluşturulur; hasta ve doktor nesneleri
+ * randevular tarafından tutulmadığı için bellekte kalmak zorunda değildir.
+ *
+ * Zaman dakika hassasiyetindedir (saniyeler tutulmaz).
+ * Yazma/okuma düzeni MappedRecordRepository ile aynıdır: önce sütunlar yazılır,
+ * durum byte'ı en son ve release fence sonrası yazılır; okuyucu durum byte'ını görünce
+ * sütunların tamamını görür.
+ */
+class ColumnarAppointmentRepository implements IntRepository<Appointment> {
+
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    // IntArrayRepository ile aynı sınır: segment dizini en fazla bu kadar uzar (~134M ID)
+    private static final int MAX_SEGMENTS = 1 << 13;
+    static final int MAX_ID = (MAX_SEGMENTS << SEGMENT_SHIFT) - 1;
+
+    // Dakikalar int sütunda tutulur; aralık dışındaki zamanlar kayıttan önce reddedilir
+    static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(5999, 12, 31, 23, 59);
+
+    // Durum byte'ı: 0 = boş, aksi halde AppointmentStatus.ordinal() + 1
+    private static final byte EMPTY = 0;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private static final class Segment {
+        final int[] patientIds = new int[SEGMENT_SIZE];
+        final int[] doctorIds = new int[SEGMENT_SIZE];
+        final int[] minutes = new int[SEGMENT_SIZE];
+        final String[] notes = new String[SEGMENT_SIZE];
+        final byte[] states = new byte[SEGMENT_SIZE];
+    }
+
+    private final IntFunction<Patient> patients;
+    private final IntFunction<Doctor> doctors;
+    private final StringDeduplicator noteDedup = new StringDeduplicator();
+
+    private volatile Segment[] segments = new Segment[0];
+    private final AtomicInteger size = new AtomicInteger();
+
+    ColumnarAppointmentRepository(IntFunction<Patient> patients, IntFunction<Doctor> doctors) {
+        this.patients = patients;
+        this.doctors = doctors;
+    }
+
+    static int toEpochMinute(LocalDateTime dateTime) {
+        if (dateTime.isBefore(MIN_DATE_TIME) || dateTime.isAfter(MAX_DATE_TIME)) {
+            throw new IllegalArgumentException("Date/time out of supported range (" + MIN_DATE_TIME
+                    + " .. " + MAX_DATE_TIME + "): " + dateTime);
+        }
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public void save(int id, Appointment a) {
+        if (a == null) {
+            throw new IllegalArgumentException("Entity must not be null");
+        }
+        Segment seg = segmentFor(id, true);
+        int i = id & (SEGMENT_SIZE - 1);
+        boolean isNew = seg.states[i] == EMPTY;
+        seg.patientIds[i] = a.getPatient().getId();
+        seg.doctorIds[i] = a.getDoctor().getId();
+        seg.minutes[i] = toEpochMinute(a.getDateTime());
+        seg.notes[i] = noteDedup.intern(a.getNote());
+        // Sütunlar, durum byte'ı görünür olmadan önce yazılmış olmalı
+        VarHandle.releaseFence();
+        seg.states[i] = (byte) (a.getStatus().ordinal() + 1);
+        if (isNew) {
+            size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public Appointment get(int id) {
+        Segment seg = segmentFor(id, false);
+        if (seg == null) {
+            return null;
+        }
+        return materialize(id, seg, id & (SEGMENT_SIZE - 1));
+    }
+
+    private Appointment materialize(int id, Segment seg, int i) {
+        byte state = seg.states[i];
+        if (state == EMPTY) {
+            return null;
+        }
+        VarHandle.acquireFence();
+        Patient p = patients.apply(seg.patientIds[i]);
+        Doctor d = doctors.apply(seg.doctorIds[i]);
+        if (p == null || d == null) {
+            throw new IllegalStateException("Appointment " + id + " refers to a missing patient or doctor");
+        }
+        return new Appointment(id, p, d, fromEpochMinute(seg.minutes[i]), seg.notes[i], STATUSES[state - 1]);
+    }
+
+    @Override
+    public void delete(int id) {
+        Segment seg = segmentFor(id, false);
+        int i = id & (SEGMENT_SIZE - 1);
+        if (seg != null && seg.states[i] != EMPTY) {
+            seg.states[i] = EMPTY;
+            seg.notes[i] = null;
+            size.decrementAndGet();
+        }
+    }
+
+    @Override
+    public List<Appointment> findAll() {
+        List<Appointment> result = new ArrayList<>(size.get());
+        forEach((id, a) -> result.add(a));
+        return result;
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super Appointment> action) {
+        Segment[] segs = segments;
+        for (int s = 0; s < segs.length; s++) {
+            if (segs[s] == null) {
+                continue;
+            }
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                int id = (s << SEGMENT_SHIFT) | i;
+                Appointment a = materialize(id, segs[s], i);
+                if (a != null) {
+                    action.accept(id, a);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        return size.get();
+    }
+
+    @Override
+    public int idLimit() {
+        return segments.length << SEGMENT_SHIFT;
+    }
+
+    // Sadece ID'nin düştüğü segment ayrılır; aradaki segmentler ilk kayıtlarına kadar null kalır
+    private Segment segmentFor(int id, boolean create) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int index = id >>> SEGMENT_SHIFT;
+        Segment[] segs = segments;
+        if (index < segs.length && segs[index] != null) {
+            return segs[index];
+        }
+        if (!create) {
+            return null;
+        }
+        if (id > MAX_ID) {
+            throw new IllegalArgumentException("ID out of range (max " + MAX_ID + "): " + id);
+        }
+        synchronized (this) {
+            segs = segments;
+            if (index >= segs.length) {
+                segs = Arrays.copyOf(segs, Math.min(MAX_SEGMENTS, Math.max(index + 1, segs.length * 2)));
+            } else if (segs[index] != null) {
+                return segs[index];
+            } else {
+                // Yeni segment, kopya dizin üzerinden yayınlanır (volatile yazma)
+                segs = segs.clone();
+            }
+            segs[index] = new Segment();
+            segments = segs;
+            return segs[index];
+        }
+    }
+
+    /**
+     * Notlar için sınırlı tekilleştirme tablosu: metin, hash'ine göre tek bir yuvaya düşer; yuvadaki
+     * eşit metin varsa o nesne kullanılır, yoksa yuvaya yeni metin yazılır. Sık tekrarlanan notlar
+     * tek nesnede birleşir; tekil serbest metin sadece randevunun sütununda durur (ikinci bir
+     * harita girdisi yok) ve randevu silinince bırakılır. Tablonun boyutu sabittir.
+     * Yuvalara kilitsiz yazılır: yarış en fazla bir tekrarın kaçmasına yol açar.
+     */
+    static final class StringDeduplicator {
+        private static final int SLOTS = 4096;
+
+        private final String[] slots = new String[SLOTS];
+
+        String intern(String s) {
+            if (s == null || s.isEmpty()) {
+                return s == null ? null : "";
+            }
+            int slot = mix(s.hashCode()) & (SLOTS - 1);
+            String existing = slots[slot];
+            if (s.equals(existing)) {
+                return existing;
+            }
+            slots[slot] = s;
+            return s;
+        }
+
+        // Benzer metinlerin hash'leri alt bitlerde çakışmasın
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
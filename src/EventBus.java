@@ -0,0 +1,349 @@
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ClinicService değişiklik olayları için süreç içi olay yolu (Disruptor tarzı halka tampon).
+ *
+ * Yayınlama kilitsizdir: üretici sıradaki numarayı tek bir atomik artırmayla alır, olayı
+ * halkadaki yerine yazar ve yerin "tur" numarasını release ile işaretler. Yazma yolunda
+ * kilit, kuyruk düğümü ya da thread uyandırma (sistem çağrısı) yoktur.
+ *
+ * Her abone kendi thread'inde, kendi sırasıyla okur ve hazır olan olayların hepsini tek
+ * seferde işler (endOfBatch ile toplu güncelleme yapılabilir). Halka dolduğunda üretici en
+ * yavaş abonenin ilerlemesini bekler (backpressure): kuyruk hiçbir zaman büyümez.
+ * Boşta kalan abone giderek uzayan aralıklarla (en fazla MAX_IDLE_PARK) uyur; bu yüzden boş
+ * bir yoldan sonra gelen ilk olay en fazla ~1 ms gecikmeyle işlenir.
+ *
+ * Abone yokken yayınlanan olaylar atılır. Aboneler başlangıçta eklenmek üzere tasarlanmıştır.
+ *
+ * Sıranın kilit altında belirlenmesi gereken yerlerde (örn. aynı doktorun olayları) numara
+ * claim ile kilit içinde ayrılır, olay publish(seq, ...) ile kilit bırakıldıktan sonra yazılır:
+ * halka doluysa bekleyen üretici başka bir yazmayı kilitte tutmaz.
+ */
+class EventBus implements AutoCloseable {
+
+    static final String CAPACITY_PROPERTY = "clinic.events.capacity";
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final long MAX_IDLE_PARK = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int SPINS = 100;
+
+    private final int mask;
+    private final int shift;
+    private final AtomicReferenceArray<ClinicEvent> slots;
+    // Yerdeki olayın tur numarası (sequence >>> shift); -1 = hiç yazılmadı
+    private final AtomicIntegerArray published;
+
+    // Son alınan sıra numarası
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // Aboneler arasındaki en küçük sıra numarasının son bilinen değeri (her yayında taramamak için)
+    private volatile long gatingCache = -1;
+
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+    private volatile boolean closed;
+
+    private final LongAdder stalls = new LongAdder();
+
+    EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        shift = Integer.numberOfTrailingZeros(capacity);
+        slots = new AtomicReferenceArray<>(capacity);
+        published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    // clinic.events.capacity ayarına göre (varsayılan DEFAULT_CAPACITY)
+    static EventBus configured() {
+        return new EventBus(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    // === YAYINLAMA ===
+
+    boolean hasSubscribers() {
+        return subscribers.length > 0;
+    }
+
+    void publish(ClinicEvent event) {
+        publish(claim(1), event);
+    }
+
+    /**
+     * count ardışık sıra numarası ayırır ve ilkini döner (abone yoksa -1). Beklemez; kilit altında
+     * çağrılabilir. Ayrılan her numara publish(seq, event) ile yazılmalıdır, yoksa aboneler orada durur.
+     */
+    long claim(int count) {
+        if (subscribers.length == 0 || closed) {
+            return -1;
+        }
+        return cursor.getAndAdd(count) + 1;
+    }
+
+    // claim ile ayrılmış numaraya yazar; halka doluysa en yavaş abonenin ilerlemesini bekler
+    void publish(long seq, ClinicEvent event) {
+        if (seq < 0) {
+            return;
+        }
+        long wrap = seq - slots.length();
+        if (wrap > gatingCache) {
+            awaitCapacity(wrap);
+        }
+        int index = (int) seq & mask;
+        slots.lazySet(index, event);
+        // Tur numarası release ile yazılır: aboneler onu gördüğünde olay da görünürdür
+        published.lazySet(index, (int) (seq >>> shift));
+    }
+
+    // Halka dolu: en yavaş abone wrap'i geçene kadar bekle
+    private void awaitCapacity(long wrap) {
+        boolean stalled = false;
+        int idle = 0;
+        while (true) {
+            long min = minimumSequence(subscribers);
+            if (wrap <= min) {
+                gatingCache = min;
+                return;
+            }
+            if (!stalled) {
+                stalls.increment();
+                stalled = true;
+            }
+            if (idle < SPINS) {
+                Thread.onSpinWait();
+            } else if (idle < 2 * SPINS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(10_000);
+            }
+            idle++;
+        }
+    }
+
+    private long minimumSequence(Subscriber[] subs) {
+        long min = cursor.get();
+        for (Subscriber s : subs) {
+            min = Math.min(min, s.sequence.get());
+        }
+        return min;
+    }
+
+    // === ABONELİK ===
+
+    /**
+     * Dinleyici kendi thread'inde, abone olduğu andan sonraki olayları alır.
+     * Dönen abonelik kapatılınca bekleyen olaylar işlenir ve thread durur.
+     */
+    Subscriber subscribe(String name, ClinicEventListener listener) {
+        Subscriber s = new Subscriber(name, listener);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Event bus is closed");
+            }
+            s.sequence.set(cursor.get());
+            Subscriber[] subs = Arrays.copyOf(subscribers, subscribers.length + 1);
+            subs[subs.length - 1] = s;
+            subscribers = subs;
+        }
+        s.thread.start();
+        return s;
+    }
+
+    private synchronized void remove(Subscriber s) {
+        List<Subscriber> subs = new ArrayList<>(Arrays.asList(subscribers));
+        subs.remove(s);
+        subscribers = subs.toArray(new Subscriber[0]);
+    }
+
+    // Bekleyen olaylar işlenir, sonra abone thread'leri durur
+    @Override
+    public void close() {
+        Subscriber[] subs;
+        synchronized (this) {
+            closed = true;
+            subs = subscribers;
+        }
+        for (Subscriber s : subs) {
+            s.close();
+        }
+    }
+
+    // === İSTATİSTİK ===
+
+    long published() {
+        return cursor.get() + 1;
+    }
+
+    // Halka dolu olduğu için bekleyen yayın sayısı
+    long stalls() {
+        return stalls.sum();
+    }
+
+    // En yavaş abonenin geride kaldığı olay sayısı
+    int lag() {
+        Subscriber[] subs = subscribers;
+        return subs.length == 0 ? 0 : (int) (cursor.get() - minimumSequence(subs));
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Tek bir abone: son işlediği sıra numarası üreticilerin bekleme sınırıdır.
+     */
+    final class Subscriber implements AutoCloseable {
+        private final String name;
+        private final ClinicEventListener listener;
+        private final Thread thread;
+        final AtomicLong sequence = new AtomicLong(-1);
+        private volatile boolean stopping;
+
+        private Subscriber(String name, ClinicEventListener listener) {
+            this.name = name;
+            this.listener = listener;
+            thread = new Thread(this::run, "events-" + name);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            long next = sequence.get() + 1;
+            long park = 0;
+            int idle = 0;
+            while (true) {
+                long available = highestPublished(next, cursor.get());
+                if (available >= next) {
+                    for (long s = next; s <= available; s++) {
+                        ClinicEvent event = slots.get((int) s & mask);
+                        try {
+                            listener.onEvent(event, s, s == available);
+                        } catch (Throwable e) {
+                            // Error da yakalanır: abone durursa sırası ilerlemez ve üreticiler halkada takılır
+                            System.err.println("Event listener " + name + " failed on " + event + ": " + e);
+                        }
+                    }
+                    // Yerler ancak işlendikten sonra üreticilere bırakılır
+                    sequence.lazySet(available);
+                    next = available + 1;
+                    idle = 0;
+                    park = 0;
+                    continue;
+                }
+                if (stopping && next > cursor.get()) {
+                    return;
+                }
+                if (idle < SPINS) {
+                    idle++;
+                    Thread.onSpinWait();
+                } else if (idle < 2 * SPINS) {
+                    idle++;
+                    Thread.yield();
+                } else {
+                    park = Math.min(MAX_IDLE_PARK, park == 0 ? 50_000 : park * 2);
+                    LockSupport.parkNanos(park);
+                }
+            }
+        }
+
+        // next'ten itibaren arka arkaya yayınlanmış son sıra numarası
+        private long highestPublished(long next, long claimed) {
+            for (long s = next; s <= claimed; s++) {
+                if (published.get((int) s & mask) != (int) (s >>> shift)) {
+                    return s - 1;
+                }
+            }
+            return claimed;
+        }
+
+        // Bekleyen olaylar işlenir (en fazla 1 sn), sonra abonelik kaldırılır
+        @Override
+        public void close() {
+            stopping = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            remove(this);
+        }
+
+        @Override
+        public String toString() {
+            return name + " at " + sequence.get();
+        }
+    }
+}
+
+interface ClinicEventListener {
+    // endOfBatch: hazır olan olayların sonuncusu (örn. arayüzü bir kez yenilemek için)
+    void onEvent(ClinicEvent event, long sequence, boolean endOfBatch);
+}
+
+// === OLAYLAR ===
+// Değişmez nesneler; yayınlandıktan sonra birden çok abone tarafından okunur
+
+abstract class ClinicEvent {
+}
+
+class PatientRegistered extends ClinicEvent {
+    final Patient patient;
+
+    PatientRegistered(Patient patient) {
+        this.patient = patient;
+    }
+
+    @Override
+    public String toString() {
+        return "PatientRegistered{" + patient + "}";
+    }
+}
+
+class DoctorRegistered extends ClinicEvent {
+    final Doctor doctor;
+
+    DoctorRegistered(Doctor doctor) {
+        this.doctor = doctor;
+    }
+
+    @Override
+    public String toString() {
+        return "DoctorRegistered{" + doctor + "}";
+    }
+}
+
+class AppointmentCreated extends ClinicEvent {
+    final Appointment appointment;
+
+    AppointmentCreated(Appointment appointment) {
+        this.appointment = appointment;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentCreated{" + appointment + "}";
+    }
+}
+
+class AppointmentStatusChanged extends ClinicEvent {
+    final Appointment appointment;
+    final AppointmentStatus previous;
+
+    AppointmentStatusChanged(Appointment appointment, AppointmentStatus previous) {
+        this.appointment = appointment;
+        this.previous = previous;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentStatusChanged{" + previous + " -> " + appointment + "}";
+    }
+}
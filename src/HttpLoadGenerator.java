@@ -0,0 +1,206 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClinicHttpServer için kapalı döngü yük üreticisi.
+ * Her thread tek bir keep-alive bağlantı açar ve bir yanıt gelmeden sonraki isteği göndermez;
+ * istek/saniye ve gecikme yüzdelikleri (p50/p99/p999) LatencyHistogram ile raporlanır.
+ * HTTP istemcisi ham soket üzerinde elle yazılmıştır (istemci tarafı maliyeti ölçümü bozmasın diye).
+ *
+ * Çalıştırma:
+ *   java -cp out HttpLoadGenerator [--host localhost] [--port 8080] [--threads 8] [--duration 10]
+ *                                  [--warmup 2] [--setup 1000] [--paths /patients/{id},/branches]
+ *
+ * --setup N: ölçümden önce N hasta ve N/10 doktor POST edilir.
+ * Yollardaki {id}, 1..N arasında rastgele bir ID ile değiştirilir (N verilmezse 1).
+ */
+public class HttpLoadGenerator {
+
+    private static final String DEFAULT_PATHS = "/patients/{id},/doctors/1,/branches";
+    private static final String[] BRANCHES = {"Kardiyoloji", "Dahiliye", "Nöroloji", "Ortopedi", "Göz"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = CommandLine.parseArgs(args);
+        String host = opts.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(opts.getOrDefault("port", String.valueOf(ClinicHttpServer.DEFAULT_PORT)));
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "8"));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(opts.getOrDefault("duration", "10")));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(opts.getOrDefault("warmup", "2")));
+        int setup = Integer.parseInt(opts.getOrDefault("setup", "0"));
+        String[] paths = opts.getOrDefault("paths", DEFAULT_PATHS).split(",");
+
+        if (setup > 0) {
+            long start = System.nanoTime();
+            try (Connection c = new Connection(host, port)) {
+                for (int i = 1; i <= setup; i++) {
+                    c.post("/patients", "{\"name\":\"Hasta " + i + "\",\"phone\":\"555" + i
+                            + "\",\"nationalId\":\"" + (10_000_000_000L + i) + "\"}");
+                }
+                for (int i = 1; i <= Math.max(1, setup / 10); i++) {
+                    c.post("/doctors", "{\"name\":\"Doktor " + i + "\",\"phone\":\"444" + i
+                            + "\",\"branch\":\"" + BRANCHES[i % BRANCHES.length] + "\"}");
+                }
+            }
+            System.out.printf(Locale.ROOT, "Setup: %d patients, %d doctors in %.1f s%n",
+                    setup, Math.max(1, setup / 10), (System.nanoTime() - start) / 1e9);
+        }
+        int maxId = Math.max(1, setup);
+
+        if (warmupNanos > 0) {
+            run(host, port, threads, paths, maxId, warmupNanos);
+        }
+        Result r = run(host, port, threads, paths, maxId, durationNanos);
+
+        LatencyHistogram.Snapshot s = r.latencies.snapshot();
+        System.out.printf(Locale.ROOT, "%d threads, %.1f s: %d requests, %.0f req/s, %d errors%n",
+                threads, r.elapsedNanos / 1e9, s.count, s.count / (r.elapsedNanos / 1e9), r.errors);
+        System.out.printf(Locale.ROOT, "latency (us): mean %.1f  p50 %.1f  p99 %.1f  p999 %.1f  max %.1f%n",
+                s.mean() / 1e3, s.percentile(50) / 1e3, s.percentile(99) / 1e3,
+                s.percentile(99.9) / 1e3, s.max / 1e3);
+    }
+
+    private static class Result {
+        final LatencyHistogram latencies;
+        final long errors;
+        final long elapsedNanos;
+
+        Result(LatencyHistogram latencies, long errors, long elapsedNanos) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    private static Result run(String host, int port, int threads, String[] paths, int maxId, long durationNanos)
+            throws Exception {
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try (Connection c = new Connection(host, port)) {
+                    ready.countDown();
+                    go.await();
+                    int i = random.nextInt(paths.length);
+                    while (System.nanoTime() < deadline[0]) {
+                        String path = paths[i++ % paths.length].replace("{id}",
+                                String.valueOf(1 + random.nextInt(maxId)));
+                        long start = System.nanoTime();
+                        int status = c.get(path);
+                        latencies.record(System.nanoTime() - start);
+                        if (status >= 400) {
+                            errors.increment();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        ready.await();
+        long start = System.nanoTime();
+        deadline[0] = start + durationNanos;
+        go.countDown();
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(latencies, errors.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Tek bir keep-alive HTTP/1.1 bağlantısı. Yanıt gövdesi Content-Length'e göre okunup atılır
+     * (sunucu her yanıtta Content-Length gönderir).
+     */
+    static class Connection implements Closeable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final String hostHeader;
+        private final byte[] discard = new byte[8192];
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            out = new BufferedOutputStream(socket.getOutputStream(), 4 * 1024);
+            hostHeader = host + ":" + port;
+        }
+
+        int get(String path) throws IOException {
+            out.write(("GET " + path + " HTTP/1.1\r\nHost: " + hostHeader + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return readResponse();
+        }
+
+        int post(String path, String json) throws IOException {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            out.write(("POST " + path + " HTTP/1.1\r\nHost: " + hostHeader
+                    + "\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+            int status = readResponse();
+            if (status >= 400) {
+                throw new IOException("POST " + path + " failed with HTTP " + status);
+            }
+            return status;
+        }
+
+        private int readResponse() throws IOException {
+            String statusLine = readLine();
+            if (statusLine == null) {
+                throw new EOFException("Connection closed by server");
+            }
+            // "HTTP/1.1 200 OK"
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long contentLength = 0;
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Long.parseLong(line.substring(15).trim());
+                }
+            }
+            while (contentLength > 0) {
+                int n = in.read(discard, 0, (int) Math.min(discard.length, contentLength));
+                if (n < 0) {
+                    throw new EOFException("Truncated response body");
+                }
+                contentLength -= n;
+            }
+            return status;
+        }
+
+        // CRLF ile biten ASCII satır (başlıklar ASCII'dir)
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder(64);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    int len = sb.length();
+                    return len > 0 && sb.charAt(len - 1) == '\r' ? sb.substring(0, len - 1) : sb.toString();
+                }
+                sb.append((char) b);
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
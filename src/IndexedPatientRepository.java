@@ -0,0 +1,305 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hasta repository'sinin önüne konan ikincil indeksler:
+ *   - T.C. kimlik no -> hasta (benzersiz, aynı numara ikinci kez kaydedilemez)
+ *   - telefon -> hastalar (aynı numarayı birden fazla hasta paylaşabilir)
+ *   - isim (Türkçe küçük harf) -> önek araması için sıralı indeks
+ * İndeksler save/delete sırasında güncellenir; aynı ID için yapılan güncellemeler
+ * kilit şeridiyle sıraya sokulur, benzersizlik kontrolü putIfAbsent ile atomiktir.
+ * Toplu kayıtta (saveAll) benzersizlik ihlali olursa paketin hiçbir kaydı yazılmaz.
+ */
+class IndexedPatientRepository implements IntRepository<Patient>, Closeable {
+
+    static final Locale TURKISH = Locale.forLanguageTag("tr");
+
+    private static final int LOCK_STRIPES = 64;
+    // İsim anahtarı: "ayşe yılmaz\0<id>" -> aynı isimli hastalar ayrı anahtar alır
+    private static final char NAME_SEPARATOR = '\0';
+
+    private final IntRepository<Patient> delegate;
+
+    private final Map<String, Integer> byNationalId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> byPhone = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Integer> byName = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    IndexedPatientRepository(IntRepository<Patient> delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // Memory-mapped depoda alanlar Patient nesnesi oluşturmadan okunur
+        PatientView view = new PatientView();
+        if (!delegate.forEachView(view, (id, v) -> indexAll(id, v.getNationalId(), v.getPhone(), v.getName()))) {
+            delegate.forEach((id, p) -> indexAll(id, p.getNationalId(), p.getPhone(), p.getName()));
+        }
+    }
+
+    private void indexAll(int id, String nationalId, String phone, String name) {
+        String nid = nationalIdKey(nationalId);
+        if (nid != null) {
+            byNationalId.putIfAbsent(nid, id);
+        }
+        indexNonUnique(id, phone, name);
+    }
+
+    @Override
+    public void save(int id, Patient p) {
+        saveAll(Collections.singletonMap(id, p));
+    }
+
+    /**
+     * Ya hepsi ya hiçbiri: önce bütün T.C. numaraları ayrılır, biri bile çakışırsa
+     * ayrılanlar geri bırakılır ve hiçbir kayıt yazılmaz.
+     */
+    @Override
+    public void saveAll(Map<Integer, Patient> entities) {
+        List<ReentrantLock> held = lockStripes(entities.keySet());
+        try {
+            Map<Integer, Patient> olds = new HashMap<>();
+            Map<String, Integer> reserved = new HashMap<>();
+            try {
+                for (Map.Entry<Integer, Patient> e : entities.entrySet()) {
+                    int id = e.getKey();
+                    Patient old = delegate.get(id);
+                    if (old != null) {
+                        olds.put(id, old);
+                    }
+                    String nid = nationalIdKey(e.getValue().getNationalId());
+                    String oldNid = old == null ? null : nationalIdKey(old.getNationalId());
+                    if (nid == null || nid.equals(oldNid)) {
+                        continue;
+                    }
+                    Integer owner = byNationalId.putIfAbsent(nid, id);
+                    if (owner != null && owner != id) {
+                        throw new IllegalStateException("National ID already registered: " + nid
+                                + " (patient " + owner + ")");
+                    }
+                    if (owner == null) {
+                        reserved.put(nid, id);
+                    }
+                }
+
+                if (entities.size() == 1) {
+                    Map.Entry<Integer, Patient> only = entities.entrySet().iterator().next();
+                    delegate.save(only.getKey().intValue(), only.getValue());
+                } else {
+                    delegate.saveAll(entities);
+                }
+            } catch (RuntimeException e) {
+                reserved.forEach(byNationalId::remove);
+                throw e;
+            }
+
+            for (Map.Entry<Integer, Patient> e : entities.entrySet()) {
+                int id = e.getKey();
+                Patient p = e.getValue();
+                Patient old = olds.get(id);
+                if (old != null) {
+                    String oldNid = nationalIdKey(old.getNationalId());
+                    if (oldNid != null && !oldNid.equals(nationalIdKey(p.getNationalId()))) {
+                        byNationalId.remove(oldNid, id);
+                    }
+                    unindexNonUnique(id, old);
+                }
+                indexNonUnique(id, p);
+            }
+        } finally {
+            unlock(held);
+        }
+    }
+
+    // Şeritler artan sırada kilitlenir (iki toplu işlem birbirini beklemez)
+    private List<ReentrantLock> lockStripes(Collection<Integer> ids) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int id : ids) {
+            stripes.add(id & (LOCK_STRIPES - 1));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+            held.add(locks[stripe]);
+        }
+        return held;
+    }
+
+    private static void unlock(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    @Override
+    public Patient get(int id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public void delete(int id) {
+        ReentrantLock lock = locks[id & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            Patient old = delegate.get(id);
+            delegate.delete(id);
+            if (old != null) {
+                String oldNid = nationalIdKey(old.getNationalId());
+                if (oldNid != null) {
+                    byNationalId.remove(oldNid, id);
+                }
+                unindexNonUnique(id, old);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Patient> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super Patient> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public <V extends RecordView> boolean forEachView(V view, IntEntryConsumer<? super V> action) {
+        return delegate.forEachView(view, action);
+    }
+
+    @Override
+    public int idLimit() {
+        return delegate.idLimit();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IntRepository.closeDelegate(delegate);
+    }
+
+    // === SORGULAR ===
+
+    // O(1)
+    Patient findByNationalId(String nationalId) {
+        String key = nationalIdKey(nationalId);
+        if (key == null) {
+            return null;
+        }
+        Integer id = byNationalId.get(key);
+        return id == null ? null : delegate.get(id);
+    }
+
+    // O(1) + eşleşen hasta sayısı
+    List<Patient> findByPhone(String phone) {
+        String key = phoneKey(phone);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        List<Patient> result = new ArrayList<>();
+        for (int id : new TreeSet<>(byPhone.getOrDefault(key, Collections.emptySet()))) {
+            Patient p = delegate.get(id);
+            if (p != null) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    // O(log n + limit), isme göre sıralı
+    List<Patient> searchByNamePrefix(String prefix, int limit) {
+        String key = nameKey(prefix);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        List<Patient> result = new ArrayList<>();
+        for (Integer id : byName.subMap(key, true, key + Character.MAX_VALUE, true).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Patient p = delegate.get(id);
+            if (p != null) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    // === INDEKS ANAHTARLARI ===
+
+    private void indexNonUnique(int id, Patient p) {
+        indexNonUnique(id, p.getPhone(), p.getName());
+    }
+
+    private void indexNonUnique(int id, String phoneNumber, String fullName) {
+        String phone = phoneKey(phoneNumber);
+        if (phone != null) {
+            // compute atomik: boşalan küme silinirken araya ekleme giremez
+            byPhone.compute(phone, (k, ids) -> {
+                Set<Integer> set = ids != null ? ids : ConcurrentHashMap.<Integer>newKeySet();
+                set.add(id);
+                return set;
+            });
+        }
+        String name = nameKey(fullName);
+        if (name != null) {
+            byName.put(name + NAME_SEPARATOR + id, id);
+        }
+    }
+
+    private void unindexNonUnique(int id, Patient p) {
+        String phone = phoneKey(p.getPhone());
+        if (phone != null) {
+            byPhone.computeIfPresent(phone, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        String name = nameKey(p.getName());
+        if (name != null) {
+            byName.remove(name + NAME_SEPARATOR + id);
+        }
+    }
+
+    static String nationalIdKey(String nationalId) {
+        if (nationalId == null || nationalId.isBlank()) {
+            return null;
+        }
+        return nationalId.trim();
+    }
+
+    // "0 (532) 111-22-33" ile "05321112233" aynı anahtara düşer
+    static String phoneKey(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '+') {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    // Türkçe kurallarıyla küçük harf: "IŞIK" -> "ışık", "İpek" -> "ipek"
+    static String nameKey(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().toLowerCase(TURKISH);
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Memory-mapped dosya üzerinde sabit genişlikli kayıtlar tutan repository.
+ * ID doğrudan kayıt numarasıdır: kayıt konumu = id * recordSize, yani findById
+ * hiçbir arama yapmadan dosyadaki yerine gider. Veriler Java heap'inde değil,
+ * işletim sisteminin sayfa önbelleğinde durur; heap boyutu kayıt sayısından bağımsızdır.
+ *
+ * Kayıt düzeni: [1 byte durum][alanlar...]; durum 0 = boş, 1 = dolu.
+ * Kayıtlar yerinde güncellendiği için her ID şeridinin bellekte bir seqlock sayacı vardır:
+ * yazan (şerit kilidiyle) sayacı tek yapar, kaydı yazar, sonra tekrar çift yapar; okuyan sayacı
+ * alanlardan önce ve sonra okur, değiştiyse tekrar okur. Okumalar kilit almaz.
+ * Yazılanlar işletim sistemi tarafından diske aktarılır, close() ile zorla yazılır.
+ */
+class MappedRecordRepository<T> implements IntRepository<T>, Closeable {
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Her segment ayrı map edilir (tek bir MappedByteBuffer 2 GB ile sınırlı)
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final FixedWidthCodec<T> codec;
+    private final int recordSize;
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final AtomicInteger size = new AtomicInteger();
+    // Aynı ID'ye yazanlar (ve ilk kayıtta size sayacı) şerit kilidiyle sıraya girer
+    private final Object[] writeLocks = new Object[LOCK_STRIPES];
+    // Şerit başına seqlock sayacı: tek = yazma sürüyor. 64 bit olduğu için sarma (ABA) olmaz
+    private final AtomicLongArray writeSeqs = new AtomicLongArray(LOCK_STRIPES);
+
+    MappedRecordRepository(Path file, FixedWidthCodec<T> codec) throws IOException {
+        this.codec = codec;
+        this.recordSize = codec.recordSize();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new Object();
+        }
+
+        long records = channel.size() / recordSize;
+        if (records > 0) {
+            segmentFor((int) Math.min(Integer.MAX_VALUE, records - 1), true);
+            forEachLiveSlot((id, seg, offset) -> size.incrementAndGet());
+        }
+    }
+
+    @Override
+    public void save(int id, T entity) {
+        ByteBuffer buf = segmentFor(id, true);
+        int offset = offsetOf(id);
+        // Önce ayrı bir tampona: kodlama hatası (örn. çok uzun alan) dosyadaki kayda dokunmaz
+        ByteBuffer record = ByteBuffer.allocate(recordSize);
+        codec.write(record, 0, entity);
+        int stripe = id & (LOCK_STRIPES - 1);
+        synchronized (writeLocks[stripe]) {
+            boolean wasEmpty = buf.get(offset) == EMPTY;
+            writeSeqs.incrementAndGet(stripe);
+            // Tek sayaç, alanlardan önce görünür olmalı
+            VarHandle.fullFence();
+            buf.put(offset + 1, record, 0, recordSize - 1);
+            buf.put(offset, LIVE);
+            writeSeqs.incrementAndGet(stripe);
+            if (wasEmpty) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public T get(int id) {
+        ByteBuffer buf = segmentFor(id, false);
+        return buf == null ? null : readStable(id, buf, offsetOf(id));
+    }
+
+    // Seqlock okuması: alanlar okunurken sürüm değiştiyse tekrar okunur; kayıt yoksa null
+    private T readStable(int id, ByteBuffer buf, int offset) {
+        int stripe = id & (LOCK_STRIPES - 1);
+        while (true) {
+            long before = writeSeqs.get(stripe);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            T entity = null;
+            RuntimeException failure = null;
+            if (buf.get(offset) != EMPTY) {
+                try {
+                    entity = codec.read(id, buf, offset + 1);
+                } catch (RuntimeException e) {
+                    // Yarım yazılmış alanlar çözülemeyebilir; kayıt değişmediyse hata gerçektir
+                    failure = e;
+                }
+            }
+            // Alan okumaları sayacın ikinci okumasından sonraya kaymamalı
+            VarHandle.acquireFence();
+            if (writeSeqs.get(stripe) == before) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return entity;
+            }
+        }
+    }
+
+    @Override
+    public List<T> findAll() {
+        List<T> result = new ArrayList<>();
+        forEach((id, entity) -> result.add(entity));
+        return result;
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super T> action) {
+        forEachLiveSlot((id, seg, offset) -> {
+            T entity = readStable(id, seg, offset);
+            if (entity != null) {
+                action.accept(id, entity);
+            }
+        });
+    }
+
+    /**
+     * Kopyasız tarama: view her dolu kayda konumlanır, alanlar sadece istendiğinde okunur
+     * (kayıt başına nesne oluşmaz). View okumaları seqlock ile doğrulanmaz; yazma olmayan
+     * anlarda (açılıştaki indeks kurulumu gibi) kullanılır. view, codec'in kayıt düzenine uygun olmalıdır.
+     */
+    @Override
+    public <V extends RecordView> boolean forEachView(V view, IntEntryConsumer<? super V> action) {
+        forEachLiveSlot((id, seg, offset) -> {
+            view.wrap(id, seg, offset + 1);
+            action.accept(id, view);
+        });
+        return true;
+    }
+
+    @Override
+    public int idLimit() {
+        return segments.length << SEGMENT_SHIFT;
+    }
+
+    @Override
+    public int count() {
+        return size.get();
+    }
+
+    private interface SlotVisitor {
+        void visit(int id, ByteBuffer segment, int offset);
+    }
+
+    private void forEachLiveSlot(SlotVisitor visitor) {
+        MappedByteBuffer[] segs = segments;
+        for (int s = 0; s < segs.length; s++) {
+            for (int i = 0; i < SEGMENT_RECORDS; i++) {
+                int offset = i * recordSize;
+                if (segs[s].get(offset) != EMPTY) {
+                    VarHandle.acquireFence();
+                    visitor.visit((s << SEGMENT_SHIFT) | i, segs[s], offset);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        ByteBuffer buf = segmentFor(id, false);
+        if (buf == null) {
+            return;
+        }
+        int offset = offsetOf(id);
+        synchronized (writeLocks[id & (LOCK_STRIPES - 1)]) {
+            if (buf.get(offset) != EMPTY) {
+                buf.put(offset, EMPTY);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer seg : segments) {
+            seg.force();
+        }
+        channel.close();
+    }
+
+    private int offsetOf(int id) {
+        return (id & (SEGMENT_RECORDS - 1)) * recordSize;
+    }
+
+    private ByteBuffer segmentFor(int id, boolean create) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int index = id >>> SEGMENT_SHIFT;
+        MappedByteBuffer[] segs = segments;
+        if (index < segs.length) {
+            return segs[index];
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (this) {
+            segs = segments;
+            if (index >= segs.length) {
+                MappedByteBuffer[] grown = Arrays.copyOf(segs, index + 1);
+                try {
+                    for (int s = segs.length; s <= index; s++) {
+                        long position = (long) s * SEGMENT_RECORDS * recordSize;
+                        grown[s] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                position, (long) SEGMENT_RECORDS * recordSize);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                segments = grown;
+                segs = grown;
+            }
+            return segs[index];
+        }
+    }
+}
+
+// === SABİT GENİŞLİKLİ KAYIT FORMATI ===
+interface FixedWidthCodec<T> {
+    // Durum byte'ı dahil toplam kayıt boyutu
+    int recordSize();
+
+    void write(ByteBuffer buf, int offset, T entity);
+
+    T read(int id, ByteBuffer buf, int offset);
+}
+
+// Her string alan [1 byte uzunluk][width byte UTF-8] olarak tutulur
+class FixedWidth {
+
+    static void putString(ByteBuffer buf, int offset, int width, String field, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > width) {
+            throw new IllegalArgumentException(field + " is too long (max " + width + " bytes): " + value);
+        }
+        buf.put(offset, (byte) bytes.length);
+        buf.put(offset + 1, bytes);
+    }
+
+    static String getString(ByteBuffer buf, int offset) {
+        int length = buf.get(offset) & 0xFF;
+        byte[] bytes = new byte[length];
+        buf.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+class PatientRecordCodec implements FixedWidthCodec<Patient> {
+
+    static final int NAME = 0;
+    static final int PHONE = NAME + 1 + 64;
+    static final int NATIONAL_ID = PHONE + 1 + 24;
+    static final int BLOOD_TYPE = NATIONAL_ID + 1 + 16;
+    static final int END = BLOOD_TYPE + 1 + 8;
+
+    @Override
+    public int recordSize() {
+        return 128;
+    }
+
+    @Override
+    public void write(ByteBuffer buf, int offset, Patient p) {
+        FixedWidth.putString(buf, offset + NAME, PHONE - NAME - 1, "Name", p.getName());
+        FixedWidth.putString(buf, offset + PHONE, NATIONAL_ID - PHONE - 1, "Phone", p.getPhone());
+        FixedWidth.putString(buf, offset + NATIONAL_ID, BLOOD_TYPE - NATIONAL_ID - 1, "National ID", p.getNationalId());
+        FixedWidth.putString(buf, offset + BLOOD_TYPE, END - BLOOD_TYPE - 1, "Blood type", p.getBloodType());
+    }
+
+    @Override
+    public Patient read(int id, ByteBuffer buf, int offset) {
+        return new Patient(id,
+                FixedWidth.getString(buf, offset + NAME),
+                FixedWidth.getString(buf, offset + PHONE),
+                FixedWidth.getString(buf, offset + NATIONAL_ID),
+                FixedWidth.getString(buf, offset + BLOOD_TYPE));
+    }
+}
+
+class DoctorRecordCodec implements FixedWidthCodec<Doctor> {
+
+    static final int NAME = 0;
+    static final int PHONE = NAME + 1 + 64;
+    static final int BRANCH = PHONE + 1 + 24;
+    static final int END = BRANCH + 1 + 32;
+
+    @Override
+    public int recordSize() {
+        return 128;
+    }
+
+    @Override
+    public void write(ByteBuffer buf, int offset, Doctor d) {
+        FixedWidth.putString(buf, offset + NAME, PHONE - NAME - 1, "Name", d.getName());
+        FixedWidth.putString(buf, offset + PHONE, BRANCH - PHONE - 1, "Phone", d.getPhone());
+        FixedWidth.putString(buf, offset + BRANCH, END - BRANCH - 1, "Branch", d.getBranch());
+    }
+
+    @Override
+    public Doctor read(int id, ByteBuffer buf, int offset) {
+        return new Doctor(id,
+                FixedWidth.getString(buf, offset + NAME),
+                FixedWidth.getString(buf, offset + PHONE),
+                FixedWidth.getString(buf, offset + BRANCH));
+    }
+}
+
+// === FLYWEIGHT GÖRÜNÜMLER ===
+// Dosyadaki bir kaydın üzerine yerleşir; alanlar sadece istendiğinde okunur (bkz. forEachView)
+class RecordView {
+    protected int id;
+    protected ByteBuffer buf;
+    protected int offset;
+
+    void wrap(int id, ByteBuffer buf, int offset) {
+        this.id = id;
+        this.buf = buf;
+        this.offset = offset;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
+
+class PatientView extends RecordView {
+
+    public String getName() {
+        return FixedWidth.getString(buf, offset + PatientRecordCodec.NAME);
+    }
+
+    public String getPhone() {
+        return FixedWidth.getString(buf, offset + PatientRecordCodec.PHONE);
+    }
+
+    public String getNationalId() {
+        return FixedWidth.getString(buf, offset + PatientRecordCodec.NATIONAL_ID);
+    }
+
+    public String getBloodType() {
+        return FixedWidth.getString(buf, offset + PatientRecordCodec.BLOOD_TYPE);
+    }
+
+    public Patient toPatient() {
+        return new Patient(id, getName(), getPhone(), getNationalId(), getBloodType());
+    }
+}
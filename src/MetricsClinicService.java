@@ -0,0 +1,663 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * ClinicService'in önüne konan ölçüm katmanı.
+ * Her işlem için çağrı sayısı, hata sayısı ve gecikme histogramı tutulur; ölçüm yolu
+ * nesne ayırmaz (sadece System.nanoTime + birkaç atomik artırma).
+ * Akış döndüren metotlar ölçülmez: asıl iş akış tüketilirken yapılır.
+ *
+ * Periyodik döküm: -Dclinic.metrics.file=metrics.json [-Dclinic.metrics.interval=60]
+ */
+class MetricsClinicService implements ClinicService {
+
+    static final String FILE_PROPERTY = "clinic.metrics.file";
+    static final String INTERVAL_PROPERTY = "clinic.metrics.interval";
+
+    private final ClinicService delegate;
+    private final ClinicMetrics metrics = new ClinicMetrics();
+    private ScheduledExecutorService dumper;
+
+    private final OperationMetrics registerPatient = metrics.operation("registerPatient");
+    private final OperationMetrics registerDoctor = metrics.operation("registerDoctor");
+    private final OperationMetrics createAppointment = metrics.operation("createAppointment");
+    private final OperationMetrics registerPatients = metrics.operation("registerPatients");
+    private final OperationMetrics registerDoctors = metrics.operation("registerDoctors");
+    private final OperationMetrics createAppointments = metrics.operation("createAppointments");
+    private final OperationMetrics markAppointment = metrics.operation("markAppointment");
+    private final OperationMetrics listAll = metrics.operation("listAll");
+    private final OperationMetrics listPage = metrics.operation("listPage");
+    private final OperationMetrics listCalendar = metrics.operation("listCalendar");
+    private final OperationMetrics listDay = metrics.operation("listDay");
+    private final OperationMetrics findNextFreeSlot = metrics.operation("findNextFreeSlot");
+    private final OperationMetrics findFreeSlots = metrics.operation("findFreeSlots");
+    private final OperationMetrics findPatient = metrics.operation("findPatient");
+    private final OperationMetrics searchNotes = metrics.operation("searchNotes");
+    private final OperationMetrics branchLoad = metrics.operation("branchLoad");
+    private final OperationMetrics report = metrics.operation("report");
+
+    MetricsClinicService(ClinicService delegate) {
+        this.delegate = delegate;
+        metrics.gauge("patients", delegate::countPatients);
+        metrics.gauge("doctors", delegate::countDoctors);
+        metrics.gauge("appointments", delegate::countAppointments);
+        metrics.gauge("eventLag", () -> delegate.events().lag());
+        metrics.gauge("eventStalls", () -> (int) Math.min(Integer.MAX_VALUE, delegate.events().stalls()));
+    }
+
+    // Sistem ayarı verilmişse ölçümler dosyaya periyodik olarak yazılır
+    static MetricsClinicService wrap(ClinicService service) {
+        MetricsClinicService metered = new MetricsClinicService(service);
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null && !file.isEmpty()) {
+            long seconds = Long.parseLong(System.getProperty(INTERVAL_PROPERTY, "60"));
+            metered.startPeriodicDump(Path.of(file), seconds);
+        }
+        return metered;
+    }
+
+    ClinicMetrics metrics() {
+        return metrics;
+    }
+
+    synchronized void startPeriodicDump(Path file, long periodSeconds) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                metrics.writeJson(file);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Cannot write metrics to " + file + ": " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (dumper != null) {
+                dumper.shutdownNow();
+                dumper = null;
+            }
+        }
+        delegate.close();
+    }
+
+    // === YAZMA İŞLEMLERİ ===
+
+    @Override
+    public Patient registerPatient(String name, String phone, String nationalId, String bloodType) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerPatient(name, phone, nationalId, bloodType);
+        } catch (RuntimeException e) {
+            registerPatient.error();
+            throw e;
+        } finally {
+            registerPatient.record(start);
+        }
+    }
+
+    @Override
+    public Doctor registerDoctor(String name, String phone, String branch) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerDoctor(name, phone, branch);
+        } catch (RuntimeException e) {
+            registerDoctor.error();
+            throw e;
+        } finally {
+            registerDoctor.record(start);
+        }
+    }
+
+    @Override
+    public Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createAppointment(patientId, doctorId, dateTime, note);
+        } catch (RuntimeException e) {
+            createAppointment.error();
+            throw e;
+        } finally {
+            createAppointment.record(start);
+        }
+    }
+
+    @Override
+    public List<Patient> registerPatients(List<NewPatient> patients) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerPatients(patients);
+        } catch (RuntimeException e) {
+            registerPatients.error();
+            throw e;
+        } finally {
+            registerPatients.record(start);
+        }
+    }
+
+    @Override
+    public List<Doctor> registerDoctors(List<NewDoctor> doctors) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerDoctors(doctors);
+        } catch (RuntimeException e) {
+            registerDoctors.error();
+            throw e;
+        } finally {
+            registerDoctors.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> createAppointments(List<NewAppointment> appointments) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createAppointments(appointments);
+        } catch (RuntimeException e) {
+            createAppointments.error();
+            throw e;
+        } finally {
+            createAppointments.record(start);
+        }
+    }
+
+    @Override
+    public Appointment markAppointment(int appointmentId, AppointmentStatus status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.markAppointment(appointmentId, status);
+        } catch (RuntimeException e) {
+            markAppointment.error();
+            throw e;
+        } finally {
+            markAppointment.record(start);
+        }
+    }
+
+    // === LİSTELEME ===
+
+    @Override
+    public List<Patient> listPatients() {
+        long start = System.nanoTime();
+        try {
+            return delegate.listPatients();
+        } catch (RuntimeException e) {
+            listAll.error();
+            throw e;
+        } finally {
+            listAll.record(start);
+        }
+    }
+
+    @Override
+    public List<Doctor> listDoctors() {
+        long start = System.nanoTime();
+        try {
+            return delegate.listDoctors();
+        } catch (RuntimeException e) {
+            listAll.error();
+            throw e;
+        } finally {
+            listAll.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> listAppointments() {
+        long start = System.nanoTime();
+        try {
+            return delegate.listAppointments();
+        } catch (RuntimeException e) {
+            listAll.error();
+            throw e;
+        } finally {
+            listAll.record(start);
+        }
+    }
+
+    @Override
+    public List<Patient> listPatients(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listPatients(afterId, limit);
+        } catch (RuntimeException e) {
+            listPage.error();
+            throw e;
+        } finally {
+            listPage.record(start);
+        }
+    }
+
+    @Override
+    public List<Doctor> listDoctors(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listDoctors(afterId, limit);
+        } catch (RuntimeException e) {
+            listPage.error();
+            throw e;
+        } finally {
+            listPage.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> listAppointments(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listAppointments(afterId, limit);
+        } catch (RuntimeException e) {
+            listPage.error();
+            throw e;
+        } finally {
+            listPage.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> listDoctorAppointments(int doctorId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listDoctorAppointments(doctorId);
+        } catch (RuntimeException e) {
+            listCalendar.error();
+            throw e;
+        } finally {
+            listCalendar.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> listPatientAppointments(int patientId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listPatientAppointments(patientId);
+        } catch (RuntimeException e) {
+            listCalendar.error();
+            throw e;
+        } finally {
+            listCalendar.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> listAppointmentsOn(LocalDate day) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listAppointmentsOn(day);
+        } catch (RuntimeException e) {
+            listDay.error();
+            throw e;
+        } finally {
+            listDay.record(start);
+        }
+    }
+
+    @Override
+    public Set<String> listDoctorBranches() {
+        return delegate.listDoctorBranches();
+    }
+
+    @Override
+    public Stream<Patient> streamPatients() {
+        return delegate.streamPatients();
+    }
+
+    @Override
+    public Stream<Doctor> streamDoctors() {
+        return delegate.streamDoctors();
+    }
+
+    @Override
+    public Stream<Appointment> streamAppointments() {
+        return delegate.streamAppointments();
+    }
+
+    @Override
+    public List<CacheStats> cacheStats() {
+        return delegate.cacheStats();
+    }
+
+    @Override
+    public EventBus events() {
+        return delegate.events();
+    }
+
+    @Override
+    public int countPatients() {
+        return delegate.countPatients();
+    }
+
+    @Override
+    public int countDoctors() {
+        return delegate.countDoctors();
+    }
+
+    @Override
+    public int countAppointments() {
+        return delegate.countAppointments();
+    }
+
+    // === SORGULAR ===
+
+    @Override
+    public LocalDateTime findNextFreeSlot(int doctorId, LocalDateTime from) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findNextFreeSlot(doctorId, from);
+        } catch (RuntimeException e) {
+            findNextFreeSlot.error();
+            throw e;
+        } finally {
+            findNextFreeSlot.record(start);
+        }
+    }
+
+    @Override
+    public List<FreeSlot> findFreeSlots(String branch, LocalDateTime from, LocalDateTime to, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFreeSlots(branch, from, to, limit);
+        } catch (RuntimeException e) {
+            findFreeSlots.error();
+            throw e;
+        } finally {
+            findFreeSlots.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, AppointmentReport.Counts> branchLoad(LocalDate day) {
+        long start = System.nanoTime();
+        try {
+            return delegate.branchLoad(day);
+        } catch (RuntimeException e) {
+            branchLoad.error();
+            throw e;
+        } finally {
+            branchLoad.record(start);
+        }
+    }
+
+    @Override
+    public AppointmentReport report(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.report(from, to);
+        } catch (RuntimeException e) {
+            report.error();
+            throw e;
+        } finally {
+            report.record(start);
+        }
+    }
+
+    @Override
+    public Optional<Patient> findPatientByNationalId(String nationalId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPatientByNationalId(nationalId);
+        } catch (RuntimeException e) {
+            findPatient.error();
+            throw e;
+        } finally {
+            findPatient.record(start);
+        }
+    }
+
+    @Override
+    public List<Patient> findPatientsByPhone(String phone) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPatientsByPhone(phone);
+        } catch (RuntimeException e) {
+            findPatient.error();
+            throw e;
+        } finally {
+            findPatient.record(start);
+        }
+    }
+
+    @Override
+    public List<Patient> searchPatientsByName(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchPatientsByName(prefix, limit);
+        } catch (RuntimeException e) {
+            findPatient.error();
+            throw e;
+        } finally {
+            findPatient.record(start);
+        }
+    }
+
+    @Override
+    public List<Appointment> searchNotes(String query, int patientId, int doctorId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchNotes(query, patientId, doctorId, limit);
+        } catch (RuntimeException e) {
+            searchNotes.error();
+            throw e;
+        } finally {
+            searchNotes.record(start);
+        }
+    }
+}
+
+// Ölçüm kayıt defteri: işlemler (sayaç + histogram) ve anlık değerler (repository boyutları)
+class ClinicMetrics {
+
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final Map<String, IntSupplier> gauges = new LinkedHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    synchronized OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    synchronized void gauge(String name, IntSupplier value) {
+        gauges.put(name, value);
+    }
+
+    synchronized String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Uptime: %d s%n", (System.currentTimeMillis() - startedAt) / 1000));
+        gauges.forEach((name, value) -> sb.append(String.format(Locale.ROOT, "%-14s %d%n", name, value.getAsInt())));
+        sb.append(String.format(Locale.ROOT, "%n%-20s %10s %7s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Errors", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (OperationMetrics op : operations.values()) {
+            LatencyHistogram.Snapshot h = op.latency.snapshot();
+            if (h.count == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%-20s %10d %7d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    op.name, h.count, op.errors.sum(), h.mean() / 1e3, h.percentile(50) / 1e3,
+                    h.percentile(99) / 1e3, h.percentile(99.9) / 1e3, h.max / 1e3));
+        }
+        return sb.toString();
+    }
+
+    synchronized String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"timestamp\":").append(System.currentTimeMillis());
+        sb.append(",\"uptimeMillis\":").append(System.currentTimeMillis() - startedAt);
+        sb.append(",\"gauges\":{");
+        boolean first = true;
+        for (Map.Entry<String, IntSupplier> g : gauges.entrySet()) {
+            sb.append(first ? "" : ",").append('"').append(g.getKey()).append("\":").append(g.getValue().getAsInt());
+            first = false;
+        }
+        sb.append("},\"operations\":{");
+        first = true;
+        for (OperationMetrics op : operations.values()) {
+            LatencyHistogram.Snapshot h = op.latency.snapshot();
+            sb.append(first ? "" : ",").append('"').append(op.name).append("\":{");
+            sb.append("\"count\":").append(h.count);
+            sb.append(",\"errors\":").append(op.errors.sum());
+            sb.append(String.format(Locale.ROOT, ",\"meanNanos\":%.1f", h.mean()));
+            sb.append(",\"p50Nanos\":").append(h.percentile(50));
+            sb.append(",\"p90Nanos\":").append(h.percentile(90));
+            sb.append(",\"p99Nanos\":").append(h.percentile(99));
+            sb.append(",\"p999Nanos\":").append(h.percentile(99.9));
+            sb.append(",\"maxNanos\":").append(h.max);
+            sb.append('}');
+            first = false;
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    // Okuyucular yarım dosya görmesin diye önce geçici dosyaya yazılır
+    void writeJson(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, toJson().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
+
+class OperationMetrics {
+    final String name;
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    void error() {
+        errors.increment();
+    }
+}
+
+/**
+ * HdrHistogram tarzı log-lineer histogram (nanosaniye).
+ * Her ikinin kuvveti aralığı 32 alt kovaya bölünür: göreli hata en fazla ~%3,
+ * 1 ns'den Long.MAX_VALUE'ya kadar sabit 1888 sayaçla. Kayıt nesne ayırmaz ve kilitsizdir.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // İlk 2 * SUB_BUCKETS değer birebir, sonrası her üs için SUB_BUCKETS kova
+    private static final int BUCKETS = 2 * SUB_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        sum.add(nanos);
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) {
+            m = max.get();
+        }
+    }
+
+    // Başka bir histogramın anlık görüntüsünü ekler (kova sınırları aynı)
+    void add(Snapshot other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (other.counts[i] != 0) {
+                counts.addAndGet(i, other.counts[i]);
+            }
+        }
+        sum.add(other.sum);
+        long m = max.get();
+        while (other.max > m && !max.compareAndSet(m, other.max)) {
+            m = max.get();
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Kovadaki en büyük değer (raporlanan değer gerçek değerden küçük olmaz)
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long sub = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    static class Snapshot {
+        final long[] counts;
+        final long count;
+        final long sum;
+        final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Randevu notları için bellek içi ters indeks (tam metin arama).
+ *
+ * Not, harf/rakam dizilerine bölünür ve Türkçe kurallarıyla küçük harfe çevrilir
+ * ("İlaç" -> "ilaç", "AĞRI" -> "ağrı"). Her kelime için, kelimenin geçtiği randevu ID'leri artan
+ * sırada sıkıştırılmış olarak tutulur (postings). Sorgu kelimelerin postings listelerinin
+ * kesişimidir; en kısa liste sürer, diğerleri blok atlama ile ilerler. Hasta/doktor filtresi
+ * de kesişime bir liste olarak katılır, böylece not sayısı değil eşleşme sayısı kadar iş yapılır.
+ * En yeni sonuçlar istendiği için kesişim en büyük ID'lerden başlayıp geriye doğru, her seferinde
+ * iki katı genişleyen ID pencerelerinde yapılır; yaygın bir kelimede ilk pencere yeterli olur.
+ *
+ * Kelime pozisyonları saklanmaz: "tırnak içindeki ifadeler" önce kelimeleriyle aranır, sonra
+ * eşleşen randevuların notu okunarak doğrulanır (ifade aramaları genelde az sonuç döndürür).
+ *
+ * Randevular değişmediği için sadece ekleme vardır; silme ve not güncelleme desteklenmez.
+ */
+class NoteIndex {
+
+    static final Locale TURKISH = Locale.forLanguageTag("tr");
+
+    // Sonuç yok / liste sonu
+    static final int NO_MORE = Integer.MAX_VALUE;
+
+    // İlk arama penceresinin genişliği (ID sayısı)
+    private static final int FIRST_WINDOW = 4096;
+    // En kısa liste bundan kısaysa pencere kullanılmaz: tek geçişte bütün liste (maliyeti zaten küçük)
+    private static final int SINGLE_PASS_LEAD = 1 << 16;
+
+    private final Map<String, Postings> terms = new ConcurrentHashMap<>();
+
+    // === KELİMELERE AYIRMA ===
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(TURKISH));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // === İNDEKSLEME ===
+
+    void add(int appointmentId, String note) {
+        for (String term : new HashSet<>(tokenize(note))) {
+            terms.computeIfAbsent(term, k -> new Postings()).add(appointmentId);
+        }
+    }
+
+    // Kelimesi önceden bilinen randevu (örn. arşivin kelime dosyasından okunurken)
+    void addTerm(String term, int appointmentId) {
+        terms.computeIfAbsent(term, k -> new Postings()).add(appointmentId);
+    }
+
+    // === ARAMA ===
+
+    /**
+     * Sorgudaki bütün kelimeleri (ve "tırnak içindeki" ifadeleri) içeren randevular, en yeni (büyük ID) önce.
+     * filter: sadece bu ID'ler arasında ara (artan sırada, null = filtre yok).
+     * load: ID -> randevu (yoksa null), noteOf: ifade doğrulaması için notu.
+     */
+    <T> List<T> search(String query, int[] filter, IntFunction<T> load, Function<T, String> noteOf, int limit) {
+        Query q = Query.parse(query);
+        List<T> result = new ArrayList<>();
+        if (q.terms.isEmpty() || limit <= 0) {
+            return result;
+        }
+        List<IdCursor> cursors = new ArrayList<>();
+        for (String term : q.terms) {
+            Postings p = terms.get(term);
+            if (p == null) {
+                return result;
+            }
+            cursors.add(p.cursor());
+        }
+        if (filter != null) {
+            cursors.add(new ArrayCursor(filter, filter.length));
+        }
+        cursors.sort(Comparator.comparingInt(IdCursor::size));
+
+        // Pencereler sondan başa: [lo, hi) içindeki eşleşmeler artan sırada bulunur, geriye doğru yüklenir
+        long hi = Long.MAX_VALUE;
+        for (IdCursor c : cursors) {
+            hi = Math.min(hi, (long) c.last() + 1);
+        }
+        long window = cursors.get(0).size() <= SINGLE_PASS_LEAD ? hi : Math.max(FIRST_WINDOW, 64L * limit);
+        while (hi > 1 && result.size() < limit) {
+            int lo = (int) Math.max(1, hi - window);
+            int[] matches = intersect(cursors, lo, (int) hi);
+            for (int i = matches.length - 1; i >= 0 && result.size() < limit; i--) {
+                T item = load.apply(matches[i]);
+                if (item != null && (q.phrases.isEmpty() || q.phrasesMatch(noteOf.apply(item)))) {
+                    result.add(item);
+                }
+            }
+            hi = lo;
+            window *= 2;
+        }
+        return result;
+    }
+
+    // Sıralı listelerin [lo, hi) aralığındaki kesişimi (ilk liste en kısası)
+    private static int[] intersect(List<IdCursor> cursors, int lo, int hi) {
+        for (IdCursor c : cursors) {
+            c.reset();
+        }
+        int[] out = new int[16];
+        int n = 0;
+        IdCursor lead = cursors.get(0);
+        int target = lead.advance(lo);
+        while (target < hi) {
+            int candidate = target;
+            for (int i = 1; i < cursors.size(); i++) {
+                int id = cursors.get(i).advance(candidate);
+                if (id != candidate) {
+                    candidate = id;
+                    break;
+                }
+            }
+            if (candidate == target) {
+                if (n == out.length) {
+                    out = Arrays.copyOf(out, Math.max(16, out.length * 2));
+                }
+                out[n++] = target;
+                target = lead.advance(target + 1);
+            } else {
+                target = candidate == NO_MORE ? NO_MORE : lead.advance(candidate);
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // === SORGU ===
+
+    static final class Query {
+        // Aranacak bütün kelimeler (ifadelerdekiler dahil), tekrarsız
+        final List<String> terms = new ArrayList<>();
+        final List<List<String>> phrases = new ArrayList<>();
+
+        // Kelimeler boşlukla, ifadeler çift tırnakla: baş "göğüs ağrısı"
+        static Query parse(String query) {
+            Query q = new Query();
+            if (query == null) {
+                return q;
+            }
+            Set<String> seen = new LinkedHashSet<>();
+            String[] parts = query.split("\"", -1);
+            for (int i = 0; i < parts.length; i++) {
+                List<String> tokens = tokenize(parts[i]);
+                seen.addAll(tokens);
+                // Tek indeksli parçalar tırnak içinde (kapanmamış tırnak da ifade sayılır)
+                if (i % 2 == 1 && tokens.size() > 1) {
+                    q.phrases.add(tokens);
+                }
+            }
+            q.terms.addAll(seen);
+            return q;
+        }
+
+        // İndeks kullanılmadan tek bir notu dener (örn. arşiv indeksinden gelen aday doğrulanırken)
+        boolean matches(String note) {
+            return !terms.isEmpty() && new HashSet<>(tokenize(note)).containsAll(terms) && phrasesMatch(note);
+        }
+
+        boolean phrasesMatch(String note) {
+            List<String> tokens = tokenize(note);
+            for (List<String> phrase : phrases) {
+                if (Collections.indexOfSubList(tokens, phrase) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // === SIRALI ID LİSTELERİ ===
+
+    interface IdCursor {
+        // target'a eşit ya da büyük ilk ID (yoksa NO_MORE); hedefler reset'ten sonra artan sırada verilmeli
+        int advance(int target);
+
+        // Başa döner (sonraki advance blok atlamayla hedefe gider)
+        void reset();
+
+        int size();
+
+        // En büyük ID (liste boşsa 0)
+        int last();
+    }
+
+    static final class ArrayCursor implements IdCursor {
+        private final int[] ids;
+        private final int size;
+        private int pos;
+
+        ArrayCursor(int[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (pos < size && ids[pos] < target) {
+                int found = Arrays.binarySearch(ids, pos, size, target);
+                pos = found >= 0 ? found : -found - 1;
+            }
+            return pos < size ? ids[pos] : NO_MORE;
+        }
+
+        @Override
+        public void reset() {
+            pos = 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int last() {
+            return size == 0 ? 0 : ids[size - 1];
+        }
+    }
+
+    /**
+     * Bir kelimenin randevu ID'leri, artan sırada.
+     *
+     * ID'ler BLOCK'luk bloklar halinde varint kodlanır: bloğun ilk ID'si tam, sonrakiler bir
+     * öncekinden farkı olarak (ardışık randevularda genelde 1-2 byte). Her bloğun ilk ID'si ve
+     * başlangıç ofseti ayrı dizilerde tutulur; advance bu dizide ikili arama ile blok atlar.
+     *
+     * Eşzamanlı randevular ID sırasıyla gelmeyebilir; son ID'ler bu yüzden sıralı, kodlanmamış bir
+     * kuyrukta bekler ve kuyruk dolunca en eski blok kodlanır. Kodlanmış verinin yazılmış kısmı hiç
+     * değişmez (sadece sona eklenir), okuyucu kilit altında sınırları alıp kilitsiz okur. Kodlanmış
+     * aralığa düşen çok gecikmiş bir ID gelirse yeni diziler oluşturulur (nadir).
+     *
+     * Kelimelerin çoğu birkaç notta geçer: diziler boş başlar, kuyruk ihtiyaç oldukça büyür.
+     */
+    static final class Postings {
+        static final int BLOCK = 128;
+
+        private static final byte[] NO_BYTES = new byte[0];
+        private static final int[] NO_IDS = new int[0];
+
+        private byte[] data = NO_BYTES;
+        private int length;
+        private int[] blockFirst = NO_IDS;
+        private int[] blockOffset = NO_IDS;
+        private int blocks;
+        private int lastEncoded;
+
+        // En fazla 2 * BLOCK - 1 ID (gecikmiş ID'ler geri döndüğünde bir blok daha)
+        private int[] tail = new int[2];
+        private int tailSize;
+
+        synchronized void add(int id) {
+            if (blocks > 0 && id <= lastEncoded) {
+                addLate(id);
+                return;
+            }
+            int pos = tailSize;
+            while (pos > 0 && tail[pos - 1] > id) {
+                pos--;
+            }
+            if (pos > 0 && tail[pos - 1] == id) {
+                return;
+            }
+            ensureTail(tailSize + 1);
+            System.arraycopy(tail, pos, tail, pos + 1, tailSize - pos);
+            tail[pos] = id;
+            tailSize++;
+            flushTail();
+        }
+
+        // Kuyrukta iki blok biriktiyse eskisi kodlanır (yeni ID'ler için bir blokluk pay kalır)
+        private void flushTail() {
+            while (tailSize >= 2 * BLOCK) {
+                encodeBlock(tail, 0);
+                System.arraycopy(tail, BLOCK, tail, 0, tailSize - BLOCK);
+                tailSize -= BLOCK;
+            }
+        }
+
+        private void ensureTail(int capacity) {
+            if (capacity > tail.length) {
+                tail = Arrays.copyOf(tail, Math.min(3 * BLOCK, Math.max(capacity, tail.length * 2)));
+            }
+        }
+
+        synchronized int size() {
+            return blocks * BLOCK + tailSize;
+        }
+
+        // ids[from, from + BLOCK) sona yeni blok olarak eklenir
+        private void encodeBlock(int[] ids, int from) {
+            if (blocks == blockFirst.length) {
+                blockFirst = Arrays.copyOf(blockFirst, Math.max(1, blocks * 2));
+                blockOffset = Arrays.copyOf(blockOffset, Math.max(1, blocks * 2));
+            }
+            blockFirst[blocks] = ids[from];
+            blockOffset[blocks] = length;
+            blocks++;
+            int previous = 0;
+            for (int i = from; i < from + BLOCK; i++) {
+                writeVarint(ids[i] - previous);
+                previous = ids[i];
+            }
+            lastEncoded = previous;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5 * BLOCK));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        // Kodlanmış bir bloğa düşen ID: o bloktan sonrası yeni dizilere yeniden kodlanır
+        private void addLate(int id) {
+            int block = Math.max(0, floorBlock(blockFirst, blocks, id));
+            Cursor c = new Cursor(this.data, length, blockFirst, blockOffset, blocks, lastEncoded, NO_IDS, 0);
+            int[] rest = new int[(blocks - block) * BLOCK + 1];
+            int n = 0;
+            for (int x = c.advance(blockFirst[block]); x != NO_MORE; x = c.advance(x + 1)) {
+                if (x == id) {
+                    return;
+                }
+                if (x > id && (n == 0 || rest[n - 1] < id)) {
+                    rest[n++] = id;
+                }
+                rest[n++] = x;
+            }
+            data = Arrays.copyOf(data, Math.max(data.length, length + 5 * BLOCK));
+            length = blockOffset[block];
+            blockFirst = blockFirst.clone();
+            blockOffset = blockOffset.clone();
+            blocks = block;
+            int full = n - n % BLOCK;
+            for (int i = 0; i < full; i += BLOCK) {
+                encodeBlock(rest, i);
+            }
+            // Bloğa sığmayan fazlalık kuyruğun başına döner (hepsi kuyruktakilerden küçük)
+            int extra = n - full;
+            ensureTail(tailSize + extra);
+            System.arraycopy(tail, 0, tail, extra, tailSize);
+            System.arraycopy(rest, full, tail, 0, extra);
+            tailSize += extra;
+            flushTail();
+        }
+
+        synchronized Cursor cursor() {
+            return new Cursor(data, length, blockFirst, blockOffset, blocks, lastEncoded,
+                    Arrays.copyOf(tail, tailSize), tailSize);
+        }
+    }
+
+    // blockFirst[0, blocks) içinde ilk ID'si id'ye eşit ya da küçük son blok (yoksa -1)
+    private static int floorBlock(int[] blockFirst, int blocks, int id) {
+        int found = Arrays.binarySearch(blockFirst, 0, blocks, id);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    // Postings'in bir andaki hali üzerinde ileri okuma
+    static final class Cursor implements IdCursor {
+        private final byte[] data;
+        private final int length;
+        private final int[] blockFirst;
+        private final int[] blockOffset;
+        private final int blocks;
+        private final int lastEncoded;
+        private final int[] tail;
+        private final int tailSize;
+
+        private int block = -1;
+        private int inBlock;
+        private int offset;
+        private int current;
+        private int tailPos = -1;
+
+        Cursor(byte[] data, int length, int[] blockFirst, int[] blockOffset, int blocks, int lastEncoded,
+               int[] tail, int tailSize) {
+            this.data = data;
+            this.length = length;
+            this.blockFirst = blockFirst;
+            this.blockOffset = blockOffset;
+            this.blocks = blocks;
+            this.lastEncoded = lastEncoded;
+            this.tail = tail;
+            this.tailSize = tailSize;
+        }
+
+        @Override
+        public void reset() {
+            block = -1;
+            tailPos = -1;
+        }
+
+        @Override
+        public int size() {
+            return blocks * Postings.BLOCK + tailSize;
+        }
+
+        @Override
+        public int last() {
+            return tailSize > 0 ? tail[tailSize - 1] : blocks > 0 ? lastEncoded : 0;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (tailPos < 0) {
+                if (block >= 0 && current >= target) {
+                    return current;
+                }
+                // Hedef sonraki bloklardaysa doğrudan o bloğa atlanır
+                int skip = floorBlock(blockFirst, blocks, target);
+                if (skip > block) {
+                    startBlock(skip);
+                } else if (block < 0) {
+                    startBlock(0);
+                }
+                while (block < blocks) {
+                    while (inBlock < Postings.BLOCK && offset < length) {
+                        current = inBlock == 0 ? readVarint() : current + readVarint();
+                        inBlock++;
+                        if (current >= target) {
+                            return current;
+                        }
+                    }
+                    startBlock(block + 1);
+                }
+                tailPos = 0;
+            }
+            if (tailPos < tailSize && tail[tailPos] < target) {
+                int found = Arrays.binarySearch(tail, tailPos, tailSize, target);
+                tailPos = found >= 0 ? found : -found - 1;
+            }
+            return tailPos < tailSize ? tail[tailPos] : NO_MORE;
+        }
+
+        private void startBlock(int b) {
+            block = b;
+            inBlock = 0;
+            offset = b < blocks ? blockOffset[b] : length;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
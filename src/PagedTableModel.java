@@ -0,0 +1,459 @@
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * JTable için tembel (lazy) tablo modeli.
+ * Satırlar servisten sayfa sayfa (blok) istenir ve küçük bir LRU önbellekte tutulur;
+ * JTable sadece görünen satırlar için getValueAt çağırdığı için
+ * çizim maliyeti toplam kayıt sayısından bağımsızdır.
+ *
+ * ID'lerde boşluk olabilir (başarısız kayıtlar da ID tüketir), bu yüzden n. satırın ID'si
+ * hesaplanamaz. Model her bloğun başlangıç anahtarını tutar (anchors[b] = bloktan önceki
+ * son satırın ID'si, blok = page(anchors[b], BLOCK_SIZE)); blok başına bir int.
+ * Yükleme sonrası tek istekle boşluk olup olmadığı denenir: yoksa anahtarlar b * BLOCK_SIZE'dır.
+ * Varsa anahtarlar arka planda sayfalar sırayla okunarak çıkarılır; o sırada istenen bloklar
+ * anahtarları bulununca gelir.
+ *
+ * Sıralama: ID'ye göre artan/azalan (tembel kalabilmek için sadece bu desteklenir).
+ * Filtre: indeks sorgusundan dönen küçük bir liste modele verilir.
+ * Yeni kayıtlar olay akışından rowsAvailable ile bildirilir; bilinen son ID'den sonraki kayıtlar
+ * okunup sona eklenir, önbellekteki bloklar geçerli kalır.
+ *
+ * Servis çağrıları (count ve sayfa okuma) EDT dışında SwingWorker ile yapılır;
+ * henüz gelmemiş satırlar "..." olarak çizilir ve blok gelince güncellenir.
+ * Tüm alanlar sadece EDT'den okunur/yazılır.
+ */
+class PagedTableModel<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int BLOCK_SIZE = 200;
+    private static final int MAX_CACHED_BLOCKS = 64;
+    private static final String LOADING = "...";
+
+    // Satırları sağlayan kaynak (örn. service::countPatients + service::listPatients + Patient::getId)
+    interface PageSource<T> {
+        int count();
+
+        List<T> page(int afterId, int limit);
+
+        int idOf(T row);
+
+        static <T> PageSource<T> of(IntSupplier count, Pager<T> pager, ToIntFunction<T> id) {
+            return new PageSource<T>() {
+                @Override
+                public int count() {
+                    return count.getAsInt();
+                }
+
+                @Override
+                public List<T> page(int afterId, int limit) {
+                    return pager.page(afterId, limit);
+                }
+
+                @Override
+                public int idOf(T row) {
+                    return id.applyAsInt(row);
+                }
+            };
+        }
+    }
+
+    interface Pager<T> {
+        List<T> page(int afterId, int limit);
+    }
+
+    static class Column<T> {
+        final String name;
+        final Function<T, Object> value;
+
+        Column(String name, Function<T, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    // Anahtar taramasında okunan blok
+    private static class Block<T> {
+        final int index;
+        final int afterId;
+        final List<T> rows;
+
+        Block(int index, int afterId, List<T> rows) {
+            this.index = index;
+            this.afterId = afterId;
+            this.rows = rows;
+        }
+    }
+
+    private final PageSource<T> source;
+    private final List<Column<T>> columns;
+
+    private int rowCount;
+    private boolean descending;
+    private List<T> filtered; // null ise filtre yok
+
+    // Blok başlangıç anahtarları; ilk anchorCount blok için bilinir
+    private int[] anchors = new int[0];
+    private int anchorCount;
+    // Anahtarlar tamamlandı: maxId son satırın ID'si, sonrası rowsAvailable ile eklenir
+    private boolean indexed;
+    private int maxId;
+    // Olaylardan bilinen en büyük ID ve sona ekleme isteğinin durumu
+    private int highestSeen;
+    private boolean tailLoading;
+
+    // refresh sonrası eski isteklerden gelen cevapları ayırt etmek için
+    private int generation;
+    private final Set<Integer> loading = new HashSet<>();
+    // Yüklenirken yeni satır eklenen bloklar: gelen cevap eksiktir, blok tekrar istenir
+    private final Set<Integer> stale = new HashSet<>();
+    // Anahtarı henüz bilinmeyen, çizim için istenmiş bloklar
+    private final Set<Integer> wanted = new HashSet<>();
+
+    private final Map<Integer, List<T>> blocks = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    PagedTableModel(PageSource<T> source, List<Column<T>> columns) {
+        this.source = source;
+        this.columns = columns;
+    }
+
+    // Kaynağı yeniden okur (yeni kayıtlar eklendiğinde)
+    void refresh() {
+        refresh(null);
+    }
+
+    // onLoaded: satır sayısı belli olunca EDT'de çağrılır
+    void refresh(IntConsumer onLoaded) {
+        int gen = ++generation;
+        blocks.clear();
+        loading.clear();
+        stale.clear();
+        wanted.clear();
+        anchors = new int[0];
+        anchorCount = 0;
+        indexed = false;
+        maxId = 0;
+        tailLoading = false;
+        if (filtered != null) {
+            rowCount = filtered.size();
+            fireTableDataChanged();
+            if (onLoaded != null) {
+                onLoaded.accept(rowCount);
+            }
+            return;
+        }
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return source.count();
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                try {
+                    rowCount = get();
+                } catch (Exception e) {
+                    return;
+                }
+                fireTableDataChanged();
+                if (onLoaded != null) {
+                    onLoaded.accept(rowCount);
+                }
+                buildIndex(gen, rowCount);
+            }
+        }.execute();
+    }
+
+    /**
+     * Blok anahtarlarını çıkarır. n kayıt varken en büyük ID n ise ID'ler tam olarak 1..n'dir
+     * (boşluk yok) ve tek bir istek yeterlidir; değilse sayfalar baştan sona okunur.
+     */
+    private void buildIndex(int gen, int count) {
+        new SwingWorker<Integer, Block<T>>() {
+            @Override
+            protected Integer doInBackground() {
+                if (count == 0) {
+                    return 0;
+                }
+                List<T> probe = source.page(count - 1, 2);
+                if (probe.size() == 1 && source.idOf(probe.get(0)) == count) {
+                    return -1;
+                }
+                int after = 0;
+                int rows = 0;
+                for (int b = 0; ; b++) {
+                    List<T> page = source.page(after, BLOCK_SIZE);
+                    publish(new Block<>(b, after, page));
+                    rows += page.size();
+                    if (page.size() < BLOCK_SIZE) {
+                        return rows;
+                    }
+                    after = source.idOf(page.get(page.size() - 1));
+                }
+            }
+
+            @Override
+            protected void process(List<Block<T>> chunks) {
+                if (gen != generation) {
+                    return;
+                }
+                for (Block<T> block : chunks) {
+                    if (!block.rows.isEmpty()) {
+                        addAnchor(block.index, block.afterId);
+                        maxId = source.idOf(block.rows.get(block.rows.size() - 1));
+                    }
+                    if (wanted.remove(block.index)) {
+                        blocks.put(block.index, block.rows);
+                        fireBlockUpdated(block.index);
+                    }
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                int rows;
+                try {
+                    rows = get();
+                } catch (Exception e) {
+                    return;
+                }
+                if (rows < 0) {
+                    // Boşluk yok: b. blok b * BLOCK_SIZE'dan sonra başlar
+                    for (int b = 0; b * BLOCK_SIZE < count; b++) {
+                        addAnchor(b, b * BLOCK_SIZE);
+                    }
+                    maxId = count;
+                } else if (rows != rowCount) {
+                    // Sayımdan sonra eklenen kayıtlar tarama sırasında görüldü
+                    rowCount = rows;
+                    fireTableDataChanged();
+                }
+                indexed = true;
+                for (Integer b : new ArrayList<>(wanted)) {
+                    wanted.remove(b);
+                    requestBlock(b);
+                }
+                loadTail();
+            }
+        }.execute();
+    }
+
+    private void addAnchor(int blockIndex, int afterId) {
+        if (blockIndex >= anchors.length) {
+            anchors = Arrays.copyOf(anchors, Math.max(blockIndex + 1, anchors.length * 2));
+        }
+        anchors[blockIndex] = afterId;
+        anchorCount = Math.max(anchorCount, blockIndex + 1);
+    }
+
+    /**
+     * highestId'ye kadar kayıtlar oluştu. Bilinen son ID'den sonraki kayıtlar okunup sona eklenir
+     * (arada boşluk olabileceği için satır sayısı ID'den çıkarılmaz).
+     */
+    void rowsAvailable(int highestId) {
+        highestSeen = Math.max(highestSeen, highestId);
+        loadTail();
+    }
+
+    private void loadTail() {
+        if (filtered != null || !indexed || tailLoading || highestSeen <= maxId) {
+            return;
+        }
+        tailLoading = true;
+        int gen = generation;
+        int after = maxId;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                List<T> rows = new ArrayList<>();
+                int last = after;
+                while (true) {
+                    List<T> page = source.page(last, BLOCK_SIZE);
+                    rows.addAll(page);
+                    if (page.size() < BLOCK_SIZE) {
+                        return rows;
+                    }
+                    last = source.idOf(page.get(page.size() - 1));
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                tailLoading = false;
+                List<T> rows;
+                try {
+                    rows = get();
+                } catch (Exception e) {
+                    return;
+                }
+                if (!rows.isEmpty()) {
+                    appendRows(rows);
+                }
+                loadTail();
+            }
+        }.execute();
+    }
+
+    private void appendRows(List<T> rows) {
+        int old = rowCount;
+        for (int i = 0; i < rows.size(); i++) {
+            int row = old + i;
+            if (row % BLOCK_SIZE == 0) {
+                addAnchor(row / BLOCK_SIZE, i == 0 ? maxId : source.idOf(rows.get(i - 1)));
+            }
+        }
+        maxId = source.idOf(rows.get(rows.size() - 1));
+        rowCount = old + rows.size();
+        // Eski son blok artık eksik: önbellekten atılır, yükleniyorsa tekrar istenir
+        for (int b = old / BLOCK_SIZE; b <= (rowCount - 1) / BLOCK_SIZE; b++) {
+            blocks.remove(b);
+            if (loading.contains(b)) {
+                stale.add(b);
+            }
+        }
+        if (descending) {
+            fireTableRowsInserted(0, rowCount - old - 1);
+        } else {
+            fireTableRowsInserted(old, rowCount - 1);
+        }
+    }
+
+    void setFilter(List<T> rows) {
+        filtered = rows;
+        refresh();
+    }
+
+    void clearFilter() {
+        setFilter(null);
+    }
+
+    boolean isFiltered() {
+        return filtered != null;
+    }
+
+    void toggleSortOrder() {
+        descending = !descending;
+        refresh();
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    // Satır henüz yüklenmediyse null döner ve yükleme başlatılır
+    T getRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int index = descending ? rowCount - 1 - row : row;
+        if (filtered != null) {
+            return filtered.get(index);
+        }
+        List<T> block = blocks.get(index / BLOCK_SIZE);
+        if (block == null) {
+            requestBlock(index / BLOCK_SIZE);
+            return null;
+        }
+        int offset = index % BLOCK_SIZE;
+        return offset < block.size() ? block.get(offset) : null;
+    }
+
+    private void requestBlock(int blockIndex) {
+        if (blockIndex >= anchorCount) {
+            // Anahtar taraması bu bloğa gelince teslim edilir
+            if (!indexed) {
+                wanted.add(blockIndex);
+            }
+            return;
+        }
+        if (!loading.add(blockIndex)) {
+            return;
+        }
+        int gen = generation;
+        int afterId = anchors[blockIndex];
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return source.page(afterId, BLOCK_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) {
+                    return;
+                }
+                loading.remove(blockIndex);
+                if (stale.remove(blockIndex)) {
+                    requestBlock(blockIndex);
+                    return;
+                }
+                try {
+                    blocks.put(blockIndex, get());
+                } catch (Exception e) {
+                    return;
+                }
+                fireBlockUpdated(blockIndex);
+            }
+        }.execute();
+    }
+
+    private void fireBlockUpdated(int blockIndex) {
+        int first = blockIndex * BLOCK_SIZE;
+        int last = Math.min(rowCount, first + BLOCK_SIZE) - 1;
+        if (last < first) {
+            return;
+        }
+        if (descending) {
+            fireTableRowsUpdated(rowCount - 1 - last, rowCount - 1 - first);
+        } else {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String name = columns.get(column).name;
+        if (column == 0 && filtered == null) {
+            return name + (descending ? " ▼" : " ▲");
+        }
+        return name;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T entity = getRow(row);
+        return entity == null ? LOADING : columns.get(column).value.apply(entity);
+    }
+}
@@ -0,0 +1,889 @@
+import java.io.*;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Randevuları güne göre bölümleyen depo (WalRepository'nin bellek içi store'u olarak kullanılır).
+ * Her gün kendi sütunlu bölümündedir, satırlar ID'ye göre sıralı; ID -> gün dizini sayesinde
+ * get(id) tek bir bölümde ikili arama yapar.
+ *
+ * Bugünden hotDays günden eski bölümler WAL snapshot'ı alınırken arşiv dosyasına
+ * (archive/day-YYYY-MM-DD.bin) yazılır ve bellekten atılır. Arşivlenmiş bir güne erişilince dosya
+ * tembel olarak yüklenir; son kullanılan birkaç arşiv bölümü bellekte tutulur. Taramalar
+ * (forEach, stream) arşivi okur ama bu önbelleğe koymaz.
+ * Arşivlenmiş bir gün değişirse (örn. geçmiş bir randevunun durumu) bölüm tekrar sıcak olur
+ * ve bir sonraki snapshot'ta yeniden arşivlenir.
+ *
+ * Kalıcılık: arşivlenmiş günler snapshot'a yazılmaz. Arşiv dosyaları snapshot'tan önce fsync
+ * edildiği için eski loglar silindiğinde o günlerin kaynağı arşiv dosyalarıdır.
+ *
+ * archivedBefore()'dan önceki günler servis tarafında bellekte indekslenmez: takvimler, sayaçlar
+ * ve not indeksi bu günler için gerektiğinde calendarOn ile buradan kurulur. Hasta ve doktor geçmişi
+ * için bu günlerin satırları ayrıca kişi bazında (sadece dakika + ID) bellekte tutulur, arşiv okunmaz.
+ * Notları da ayrı bir NoteIndex'tedir; her arşiv dosyasının yanına günün kelime dosyası
+ * (day-YYYY-MM-DD.terms) yazılır, açılışta indeks notlar okunmadan bu dosyalardan kurulur.
+ * Sınır her arşivlemede ilerler ve dinleyiciye (onArchived) bildirilir.
+ */
+class PartitionedAppointmentRepository implements ArchivingRepository<Appointment> {
+
+    static final String HOT_DAYS_PROPERTY = "clinic.archive.hotDays";
+    static final int DEFAULT_HOT_DAYS = 7;
+
+    // Tembel yüklenip bellekte tutulan en fazla arşiv bölümü
+    private static final int LOADED_ARCHIVES = 8;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAGIC = 0x41505431; // "APT1"
+    private static final int TERMS_MAGIC = 0x54524d31; // "TRM1"
+
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private final Path dir;
+    private final IntFunction<Patient> patients;
+    private final IntFunction<Doctor> doctors;
+    private final int hotDays;
+
+    private final ConcurrentSkipListMap<Integer, Partition> partitions = new ConcurrentSkipListMap<>();
+
+    // ID -> gün (epoch day); boş yerler NO_DAY
+    private volatile int[][] directory = new int[0][];
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Bu günden önceki günlerin hepsi arşive taşınmış (bazıları sonradan yazılıp tekrar sıcak olmuş olabilir)
+    private volatile int archivedBefore = Integer.MIN_VALUE;
+    // Sınır ilerleyince yeni değeriyle çağrılır (arşivleyen thread'de)
+    private volatile IntConsumer archiveListener;
+
+    // Arşivlenmiş bölümlerin (sonradan tekrar sıcak olanlar dahil) randevuları hasta ve doktor bazında.
+    // Bölüm kilidi altında güncellenir; boşalan takvimler kaldırılmaz (eşzamanlı eklemeyi kaybetmemek için)
+    private final Map<Integer, AppointmentCalendar> archivedByPatient = new ConcurrentHashMap<>();
+    private final Map<Integer, AppointmentCalendar> archivedByDoctor = new ConcurrentHashMap<>();
+    // Aynı bölümlerin notları; notlar değişmediği için sadece eklenir (silinen/taşınan randevu aramada elenir)
+    private final NoteIndex archivedNotes = new NoteIndex();
+
+    // Tembel yüklenmiş arşiv bölümleri, erişim sırasıyla (en eski atılır)
+    private final LinkedHashMap<Integer, Partition> loadedArchives = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Bölümün tüm alanları bölüm nesnesi üzerinde senkronize erişilir
+    private static final class Partition {
+        final int day;
+        // null = satırlar sadece arşiv dosyasında
+        Rows rows;
+        // Arşiv dosyası güncel mi (false = sıcak bölüm, kaynağı WAL)
+        volatile boolean archived;
+        // Satırlar archivedByPatient/archivedByDoctor'da mı (arşivlenmiş bölümler için hep true)
+        boolean indexed;
+
+        Partition(int day, Rows rows, boolean archived, boolean indexed) {
+            this.day = day;
+            this.rows = rows;
+            this.archived = archived;
+            this.indexed = indexed;
+        }
+    }
+
+    // Bir günün randevuları, sütunlar halinde ve ID'ye göre sıralı
+    private static final class Rows {
+        int[] ids;
+        int[] patientIds;
+        int[] doctorIds;
+        int[] minutes;
+        byte[] statuses;
+        String[] notes;
+        int size;
+
+        Rows(int capacity) {
+            capacity = Math.max(capacity, 4);
+            ids = new int[capacity];
+            patientIds = new int[capacity];
+            doctorIds = new int[capacity];
+            minutes = new int[capacity];
+            statuses = new byte[capacity];
+            notes = new String[capacity];
+        }
+
+        int indexOf(int id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        // Yeni satırsa true; ID'ler artan sırayla geldiği için ekleme genelde sona yapılır
+        boolean put(int id, int patientId, int doctorId, int minute, AppointmentStatus status, String note) {
+            int pos = indexOf(id);
+            boolean added = pos < 0;
+            if (added) {
+                pos = -pos - 1;
+                if (size == ids.length) {
+                    grow();
+                }
+                int tail = size - pos;
+                System.arraycopy(ids, pos, ids, pos + 1, tail);
+                System.arraycopy(patientIds, pos, patientIds, pos + 1, tail);
+                System.arraycopy(doctorIds, pos, doctorIds, pos + 1, tail);
+                System.arraycopy(minutes, pos, minutes, pos + 1, tail);
+                System.arraycopy(statuses, pos, statuses, pos + 1, tail);
+                System.arraycopy(notes, pos, notes, pos + 1, tail);
+                size++;
+            }
+            ids[pos] = id;
+            patientIds[pos] = patientId;
+            doctorIds[pos] = doctorId;
+            minutes[pos] = minute;
+            statuses[pos] = (byte) status.ordinal();
+            // Arka arkaya aynı not sık görülür (örn. "kontrol"); aynı String paylaşılır
+            notes[pos] = pos > 0 && Objects.equals(notes[pos - 1], note) ? notes[pos - 1] : note;
+            return added;
+        }
+
+        void remove(int id) {
+            int pos = indexOf(id);
+            if (pos < 0) {
+                return;
+            }
+            int tail = size - pos - 1;
+            System.arraycopy(ids, pos + 1, ids, pos, tail);
+            System.arraycopy(patientIds, pos + 1, patientIds, pos, tail);
+            System.arraycopy(doctorIds, pos + 1, doctorIds, pos, tail);
+            System.arraycopy(minutes, pos + 1, minutes, pos, tail);
+            System.arraycopy(statuses, pos + 1, statuses, pos, tail);
+            System.arraycopy(notes, pos + 1, notes, pos, tail);
+            size--;
+            notes[size] = null;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            doctorIds = Arrays.copyOf(doctorIds, capacity);
+            minutes = Arrays.copyOf(minutes, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            notes = Arrays.copyOf(notes, capacity);
+        }
+
+        Rows copy() {
+            Rows c = new Rows(size);
+            System.arraycopy(ids, 0, c.ids, 0, size);
+            System.arraycopy(patientIds, 0, c.patientIds, 0, size);
+            System.arraycopy(doctorIds, 0, c.doctorIds, 0, size);
+            System.arraycopy(minutes, 0, c.minutes, 0, size);
+            System.arraycopy(statuses, 0, c.statuses, 0, size);
+            System.arraycopy(notes, 0, c.notes, 0, size);
+            c.size = size;
+            return c;
+        }
+    }
+
+    /**
+     * Arşiv klasöründeki günleri açar: sadece tamsayı sütunları okunur (ID -> gün dizini ve kişi
+     * indeksi için), satırların kendisi ilk erişimde yüklenir.
+     */
+    PartitionedAppointmentRepository(Path dir, IntFunction<Patient> patients, IntFunction<Doctor> doctors,
+                                     int hotDays) throws IOException {
+        if (hotDays < 0) {
+            throw new IllegalArgumentException("hotDays must not be negative: " + hotDays);
+        }
+        this.dir = dir;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.hotDays = hotDays;
+
+        Files.createDirectories(dir);
+        // Günler sırayla açılır: not indeksine ID'ler büyük ölçüde artan sırada gelir
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "day-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // Yarım kalmış arşiv yazımı; gün hâlâ WAL'da
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(".bin")) {
+                    archives.add(file);
+                }
+            }
+        }
+        Collections.sort(archives);
+        for (Path file : archives) {
+            openArchive(file, file.getFileName().toString());
+        }
+    }
+
+    // clinic.archive.hotDays ayarı (varsayılan DEFAULT_HOT_DAYS)
+    static int configuredHotDays() {
+        return Integer.getInteger(HOT_DAYS_PROPERTY, DEFAULT_HOT_DAYS);
+    }
+
+    private static int dayOf(int epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    private int cutoffDay() {
+        return (int) (LocalDate.now().toEpochDay() - hotDays);
+    }
+
+    // === OKUMA / YAZMA ===
+
+    @Override
+    public void save(int id, Appointment a) {
+        if (a == null) {
+            throw new IllegalArgumentException("Entity must not be null");
+        }
+        int minute = ColumnarAppointmentRepository.toEpochMinute(a.getDateTime());
+        int day = dayOf(minute);
+        int previous = dayFor(id);
+        if (previous != NO_DAY && previous != day) {
+            // Randevu başka bir güne taşınmış
+            Partition old = partitions.get(previous);
+            synchronized (old) {
+                removeRow(old, id);
+            }
+        }
+
+        while (true) {
+            // Arşivlenmiş sınırın gerisinde açılan gün baştan kişi indeksine yazılır
+            Partition p = partitions.computeIfAbsent(day,
+                    d -> new Partition(d, new Rows(16), false, d < archivedBefore));
+            synchronized (p) {
+                if (partitions.get(day) != p) {
+                    continue; // boşaldığı için arşivlenirken kaldırıldı, yenisi oluşturulur
+                }
+                Rows rows = rowsForWrite(p);
+                if (p.indexed) {
+                    unindexRow(rows, id);
+                    indexRow(a.getPatient().getId(), a.getDoctor().getId(), minute, id);
+                    archivedNotes.add(id, a.getNote());
+                }
+                rows.put(id, a.getPatient().getId(), a.getDoctor().getId(), minute, a.getStatus(), a.getNote());
+            }
+            break;
+        }
+        if (previous != day) {
+            // Satır yazılmış olmalı, dizin onu gösterdiğinde okuyucu satırı bulsun
+            VarHandle.releaseFence();
+            setDay(id, day);
+            if (previous == NO_DAY) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public Appointment get(int id) {
+        int day = dayFor(id);
+        if (day == NO_DAY) {
+            return null;
+        }
+        Partition p = partitions.get(day);
+        int patientId;
+        int doctorId;
+        int minute;
+        byte status;
+        String note;
+        boolean archived;
+        synchronized (p) {
+            Rows rows = rowsForRead(p);
+            int i = rows.indexOf(id);
+            if (i < 0) {
+                return null;
+            }
+            patientId = rows.patientIds[i];
+            doctorId = rows.doctorIds[i];
+            minute = rows.minutes[i];
+            status = rows.statuses[i];
+            note = rows.notes[i];
+            archived = p.archived;
+        }
+        if (archived) {
+            touchArchive(p);
+        }
+        return materialize(id, patientId, doctorId, minute, status, note);
+    }
+
+    @Override
+    public void delete(int id) {
+        int day = dayFor(id);
+        if (day == NO_DAY) {
+            return;
+        }
+        Partition p = partitions.get(day);
+        synchronized (p) {
+            removeRow(p, id);
+        }
+        setDay(id, NO_DAY);
+        size.decrementAndGet();
+    }
+
+    private Appointment materialize(int id, int patientId, int doctorId, int minute, byte status, String note) {
+        Patient p = patients.apply(patientId);
+        Doctor d = doctors.apply(doctorId);
+        if (p == null || d == null) {
+            throw new IllegalStateException("Appointment " + id + " refers to a missing patient or doctor");
+        }
+        return new Appointment(id, p, d, ColumnarAppointmentRepository.fromEpochMinute(minute), note,
+                STATUSES[status]);
+    }
+
+    // Bölüm kilidi tutulurken çağrılır
+    private Rows rowsForRead(Partition p) {
+        if (p.rows == null) {
+            p.rows = readArchive(p.day);
+        }
+        return p.rows;
+    }
+
+    // Bölüm kilidi tutulurken çağrılır; arşivlenmiş bölüm tekrar sıcak olur
+    private Rows rowsForWrite(Partition p) {
+        Rows rows = rowsForRead(p);
+        p.archived = false;
+        return rows;
+    }
+
+    // Bölüm kilidi tutulurken çağrılır
+    private void removeRow(Partition p, int id) {
+        Rows rows = rowsForWrite(p);
+        if (p.indexed) {
+            unindexRow(rows, id);
+        }
+        rows.remove(id);
+    }
+
+    private void indexRow(int patientId, int doctorId, int minute, int id) {
+        archivedByPatient.computeIfAbsent(patientId, k -> new AppointmentCalendar()).add(minute, id);
+        archivedByDoctor.computeIfAbsent(doctorId, k -> new AppointmentCalendar()).add(minute, id);
+    }
+
+    // Satırın (varsa) eski hali kişi indeksinden çıkarılır
+    private void unindexRow(Rows rows, int id) {
+        int i = rows.indexOf(id);
+        if (i < 0) {
+            return;
+        }
+        AppointmentCalendar patient = archivedByPatient.get(rows.patientIds[i]);
+        if (patient != null) {
+            patient.remove(rows.minutes[i], id);
+        }
+        AppointmentCalendar doctor = archivedByDoctor.get(rows.doctorIds[i]);
+        if (doctor != null) {
+            doctor.remove(rows.minutes[i], id);
+        }
+    }
+
+    // Arşiv bölümünü LRU'da öne alır; sınır aşıldıysa en eskisinin satırlarını bırakır
+    private void touchArchive(Partition p) {
+        Partition evicted = null;
+        synchronized (loadedArchives) {
+            loadedArchives.put(p.day, p);
+            if (loadedArchives.size() > LOADED_ARCHIVES) {
+                Iterator<Partition> it = loadedArchives.values().iterator();
+                evicted = it.next();
+                it.remove();
+            }
+        }
+        if (evicted != null) {
+            synchronized (evicted) {
+                // Bu arada yazılmışsa bölüm sıcaktır, satırlar bellekte kalmalı
+                if (evicted.archived) {
+                    evicted.rows = null;
+                }
+            }
+        }
+    }
+
+    // === TARAMALAR ===
+
+    @Override
+    public List<Appointment> findAll() {
+        List<Appointment> result = new ArrayList<>(size.get());
+        forEach((id, a) -> result.add(a));
+        return result;
+    }
+
+    // Günlere göre sıralı (gün içinde ID sırası)
+    @Override
+    public void forEach(IntEntryConsumer<? super Appointment> action) {
+        for (Partition p : partitions.values()) {
+            forEachIn(p, action);
+        }
+    }
+
+    @Override
+    public void forEachUnarchived(IntEntryConsumer<? super Appointment> action) {
+        for (Partition p : partitions.values()) {
+            if (!p.archived) {
+                forEachIn(p, action);
+            }
+        }
+    }
+
+    // Satırlar kilit altında kopyalanır, eylem kilitsiz çalışır (örn. snapshot dosyaya yazarken)
+    private void forEachIn(Partition p, IntEntryConsumer<? super Appointment> action) {
+        Rows rows = scanRows(p);
+        for (int i = 0; i < rows.size; i++) {
+            action.accept(rows.ids[i], materialize(rows.ids[i], rows.patientIds[i], rows.doctorIds[i],
+                    rows.minutes[i], rows.statuses[i], rows.notes[i]));
+        }
+    }
+
+    // Arşivdeki gün tarama için okunur ama bellekte bırakılmaz
+    private Rows scanRows(Partition p) {
+        synchronized (p) {
+            return p.rows != null ? p.rows.copy() : readArchive(p.day);
+        }
+    }
+
+    // Paralel akışta her gün ayrı bir iş parçası olur
+    @Override
+    public Stream<Appointment> stream() {
+        return new ArrayList<>(partitions.values()).stream().flatMap(p -> {
+            List<Appointment> day = new ArrayList<>();
+            forEachIn(p, (id, a) -> day.add(a));
+            return day.stream();
+        });
+    }
+
+    // Açılışta servis indekslerini kurmak için: from gününden itibaren (sıcak günler)
+    void forEachFrom(int from, IntEntryConsumer<? super Appointment> action) {
+        for (Partition p : partitions.tailMap(from).values()) {
+            forEachIn(p, action);
+        }
+    }
+
+    // Dolu ID'ler dizinden okunur, arşiv dosyalarına dokunulmaz
+    @Override
+    public void forEachId(IntConsumer action) {
+        int[][] segs = directory;
+        for (int s = 0; s < segs.length; s++) {
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                if (segs[s][i] != NO_DAY) {
+                    action.accept((s << SEGMENT_SHIFT) | i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        return size.get();
+    }
+
+    // === GÜN BAZLI ERİŞİM ===
+
+    int archivedBefore() {
+        return archivedBefore;
+    }
+
+    void onArchived(IntConsumer listener) {
+        archiveListener = listener;
+    }
+
+    // Randevusu olan ve before'dan önceki günler, artan sırada
+    NavigableSet<Integer> daysBefore(int before) {
+        return partitions.headMap(before).navigableKeySet();
+    }
+
+    /**
+     * Bir günün randevuları takvim olarak (patientId / doctorId 0 değilse sadece onunkiler).
+     * Arşivdeki gün yüklenir ve son kullanılan arşiv bölümleri arasında tutulur.
+     */
+    AppointmentCalendar calendarOn(int day, int patientId, int doctorId) {
+        AppointmentCalendar calendar = new AppointmentCalendar();
+        Partition p = partitions.get(day);
+        if (p == null) {
+            return calendar;
+        }
+        boolean archived;
+        synchronized (p) {
+            addRows(calendar, rowsForRead(p), patientId, doctorId);
+            archived = p.archived;
+        }
+        if (archived) {
+            touchArchive(p);
+        }
+        return calendar;
+    }
+
+    /**
+     * Arşivlenmiş günlerde (archivedBefore'dan önce) bir hastanın ya da doktorun randevuları; kişi
+     * indeksinden kopyalanır, arşiv dosyası okunmaz. Sınır ilerlerken servisin sıcak takvimiyle kısa süre
+     * örtüşebilir (aynı kayıtlar birleştirilirken tekilleşir).
+     */
+    AppointmentCalendar archivedOfPatient(int patientId) {
+        return copyOf(archivedByPatient.get(patientId));
+    }
+
+    AppointmentCalendar archivedOfDoctor(int doctorId) {
+        return copyOf(archivedByDoctor.get(doctorId));
+    }
+
+    private static AppointmentCalendar copyOf(AppointmentCalendar calendar) {
+        AppointmentCalendar copy = new AppointmentCalendar();
+        if (calendar != null) {
+            copy.addAll(calendar);
+        }
+        return copy;
+    }
+
+    /**
+     * Arşivlenmiş günlerin notlarında arama, en yeni (büyük ID) önce; patientId / doctorId 0 değilse
+     * sadece onların randevuları. Sadece eşleşen randevuların günleri yüklenir.
+     */
+    List<Appointment> searchArchivedNotes(String query, int patientId, int doctorId, int limit) {
+        AppointmentCalendar person = patientId != 0 ? archivedByPatient.get(patientId)
+                : doctorId != 0 ? archivedByDoctor.get(doctorId) : null;
+        int[] filter = null;
+        if (patientId != 0 || doctorId != 0) {
+            filter = person != null ? person.appointmentIds() : new int[0];
+            Arrays.sort(filter);
+        }
+        NoteIndex.Query q = NoteIndex.Query.parse(query);
+        return archivedNotes.search(query, filter, id -> {
+            // İndekslendikten sonra silinmiş, başka kişiye ya da notu değişmiş randevular elenir
+            Appointment a = get(id);
+            return a != null && (patientId == 0 || a.getPatient().getId() == patientId)
+                    && (doctorId == 0 || a.getDoctor().getId() == doctorId) && q.matches(a.getNote()) ? a : null;
+        }, Appointment::getNote, limit);
+    }
+
+    // Bir günün (patientId / doctorId 0 değilse sadece onların) randevuları ID sırasıyla, önbelleğe alınmadan
+    List<Appointment> scanDay(int day, int patientId, int doctorId) {
+        List<Appointment> result = new ArrayList<>();
+        Partition p = partitions.get(day);
+        if (p == null) {
+            return result;
+        }
+        Rows rows = scanRows(p);
+        for (int i = 0; i < rows.size; i++) {
+            if ((patientId == 0 || rows.patientIds[i] == patientId) && (doctorId == 0 || rows.doctorIds[i] == doctorId)) {
+                result.add(materialize(rows.ids[i], rows.patientIds[i], rows.doctorIds[i], rows.minutes[i],
+                        rows.statuses[i], rows.notes[i]));
+            }
+        }
+        return result;
+    }
+
+    private static void addRows(AppointmentCalendar calendar, Rows rows, int patientId, int doctorId) {
+        int[] minutes = new int[rows.size];
+        int[] ids = new int[rows.size];
+        int n = 0;
+        for (int i = 0; i < rows.size; i++) {
+            if ((patientId == 0 || rows.patientIds[i] == patientId) && (doctorId == 0 || rows.doctorIds[i] == doctorId)) {
+                minutes[n] = rows.minutes[i];
+                ids[n++] = rows.ids[i];
+            }
+        }
+        calendar.addAll(minutes, ids, n);
+    }
+
+    @Override
+    public int idLimit() {
+        return directory.length << SEGMENT_SHIFT;
+    }
+
+    // === ARŞİV ===
+
+    @Override
+    public boolean archiveDue() {
+        for (Partition p : partitions.headMap(cutoffDay()).values()) {
+            if (!p.archived) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void archive() throws IOException {
+        int cutoff = cutoffDay();
+        for (Partition p : partitions.headMap(cutoff).values()) {
+            synchronized (p) {
+                if (p.archived) {
+                    continue;
+                }
+                if (!p.indexed) {
+                    for (int i = 0; i < p.rows.size; i++) {
+                        indexRow(p.rows.patientIds[i], p.rows.doctorIds[i], p.rows.minutes[i], p.rows.ids[i]);
+                        archivedNotes.add(p.rows.ids[i], p.rows.notes[i]);
+                    }
+                    p.indexed = true;
+                }
+                Path file = archiveFile(p.day);
+                if (p.rows.size == 0) {
+                    // Bütün randevuları silinmiş gün
+                    Files.deleteIfExists(file);
+                    Files.deleteIfExists(termsFile(p.day));
+                    partitions.remove(p.day);
+                    continue;
+                }
+                // Kelime dosyası önce: arşiv dosyası varsa yanındaki kelimeler en az onun kadar yenidir
+                writeTerms(termsFile(p.day), p.day, p.rows);
+                writeArchive(file, p.day, p.rows);
+                p.archived = true;
+                p.rows = null;
+            }
+            synchronized (loadedArchives) {
+                loadedArchives.remove(p.day);
+            }
+        }
+        if (cutoff > archivedBefore) {
+            archivedBefore = cutoff;
+            IntConsumer listener = archiveListener;
+            if (listener != null) {
+                listener.accept(cutoff);
+            }
+        }
+    }
+
+    // Bellekteki (sıcak) ve arşivdeki gün sayıları
+    int hotPartitions() {
+        int hot = 0;
+        for (Partition p : partitions.values()) {
+            if (!p.archived) {
+                hot++;
+            }
+        }
+        return hot;
+    }
+
+    int archivedPartitions() {
+        return partitions.size() - hotPartitions();
+    }
+
+    private Path archiveFile(int day) {
+        return dir.resolve("day-" + LocalDate.ofEpochDay(day) + ".bin");
+    }
+
+    private Path termsFile(int day) {
+        return dir.resolve("day-" + LocalDate.ofEpochDay(day) + ".terms");
+    }
+
+    /**
+     * Dosya düzeni: magic, gün, satır sayısı, sütunlar (ID'ler, hastalar, doktorlar, dakikalar,
+     * durumlar, notlar) ve sonda CRC32. Tamsayı sütunları başta olduğu için açılışta notlar
+     * okunmaz. Önce .tmp dosyasına yazılıp fsync edilir, sonra atomik olarak taşınır.
+     */
+    private static void writeArchive(Path file, int day, Rows rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size * 24 + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(day);
+        out.writeInt(rows.size);
+        for (int[] column : new int[][]{rows.ids, rows.patientIds, rows.doctorIds, rows.minutes}) {
+            for (int i = 0; i < rows.size; i++) {
+                out.writeInt(column[i]);
+            }
+        }
+        out.write(rows.statuses, 0, rows.size);
+        for (int i = 0; i < rows.size; i++) {
+            Codecs.writeString(out, rows.notes[i]);
+        }
+        writeFile(file, bytes, out);
+    }
+
+    /**
+     * Günün notlarındaki kelimeler: magic, gün, kelime sayısı, her kelime için metni, ID sayısı ve
+     * artan sırada ID'ler; sonda CRC32. Randevunun notu değişmediği için eski bir kelime dosyası
+     * en fazla fazladan ID içerir (aramada elenir).
+     */
+    private static void writeTerms(Path file, int day, Rows rows) throws IOException {
+        Map<String, List<Integer>> terms = new TreeMap<>();
+        for (int i = 0; i < rows.size; i++) {
+            for (String term : new HashSet<>(NoteIndex.tokenize(rows.notes[i]))) {
+                terms.computeIfAbsent(term, k -> new ArrayList<>()).add(rows.ids[i]);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size * 16 + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TERMS_MAGIC);
+        out.writeInt(day);
+        out.writeInt(terms.size());
+        for (Map.Entry<String, List<Integer>> e : terms.entrySet()) {
+            Codecs.writeString(out, e.getKey());
+            out.writeInt(e.getValue().size());
+            for (int id : e.getValue()) {
+                out.writeInt(id);
+            }
+        }
+        writeFile(file, bytes, out);
+    }
+
+    // Sona CRC32 eklenir; önce .tmp dosyasına yazılıp fsync edilir, sonra atomik olarak taşınır
+    private static void writeFile(Path file, ByteArrayOutputStream bytes, DataOutputStream out) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeInt((int) crc.getValue());
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Rows readArchive(int day) {
+        Path file = archiveFile(day);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 4);
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if (bytes.length < 16 || buf.getInt(bytes.length - 4) != (int) crc.getValue()
+                    || buf.getInt(0) != MAGIC) {
+                throw new IOException("Corrupt archive file: " + file);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 8, bytes.length - 12));
+            int count = in.readInt();
+            Rows rows = new Rows(count);
+            for (int[] column : new int[][]{rows.ids, rows.patientIds, rows.doctorIds, rows.minutes}) {
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readInt();
+                }
+            }
+            in.readFully(rows.statuses, 0, count);
+            // Aynı metin bölüm içinde tek bir String olarak tutulur
+            Map<String, String> notes = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String note = Codecs.readString(in);
+                rows.notes[i] = note == null ? null : notes.computeIfAbsent(note, n -> n);
+            }
+            rows.size = count;
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read appointment archive " + file, e);
+        }
+    }
+
+    // Açılışta: başlık ve ilk dört sütun (ID -> gün dizini ve kişi indeksi için); durumlar ve notlar okunmaz
+    private void openArchive(Path file, String name) throws IOException {
+        int day;
+        try {
+            day = (int) LocalDate.parse(name.substring("day-".length(), name.length() - ".bin".length()))
+                    .toEpochDay();
+        } catch (DateTimeParseException e) {
+            return; // başka bir dosya
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != day) {
+                throw new IOException("Corrupt archive file: " + file);
+            }
+            int count = in.readInt();
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readInt();
+                // Başka bir günde de görünüyorsa (taşınmış randevu) WAL'ın tekrar oynatılması düzeltir
+                if (dayFor(ids[i]) == NO_DAY) {
+                    size.incrementAndGet();
+                }
+                setDay(ids[i], day);
+            }
+            int[] patientIds = new int[count];
+            int[] doctorIds = new int[count];
+            for (int[] column : new int[][]{patientIds, doctorIds}) {
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readInt();
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                indexRow(patientIds[i], doctorIds[i], in.readInt(), ids[i]);
+            }
+        }
+        if (!readTerms(day)) {
+            // Kelime dosyası yok (eski arşiv) ya da bozuk: notlar bir kez okunup yeniden yazılır
+            Rows rows = readArchive(day);
+            for (int i = 0; i < rows.size; i++) {
+                archivedNotes.add(rows.ids[i], rows.notes[i]);
+            }
+            writeTerms(termsFile(day), day, rows);
+        }
+        partitions.put(day, new Partition(day, null, true, true));
+        archivedBefore = Math.max(archivedBefore, day + 1);
+    }
+
+    // Günün kelime dosyası not indeksine eklenir; dosya yoksa ya da bozuksa false
+    private boolean readTerms(int day) throws IOException {
+        Path file = termsFile(day);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (bytes.length < 16) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (buf.getInt(bytes.length - 4) != (int) crc.getValue() || buf.getInt(0) != TERMS_MAGIC
+                || buf.getInt(4) != day) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 8, bytes.length - 12));
+        int terms = in.readInt();
+        for (int t = 0; t < terms; t++) {
+            String term = Codecs.readString(in);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                archivedNotes.addTerm(term, in.readInt());
+            }
+        }
+        return true;
+    }
+
+    // === ID -> GÜN DİZİNİ ===
+
+    private int dayFor(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int[][] segs = directory;
+        int index = id >>> SEGMENT_SHIFT;
+        if (index >= segs.length) {
+            return NO_DAY;
+        }
+        int day = segs[index][id & (SEGMENT_SIZE - 1)];
+        VarHandle.acquireFence();
+        return day;
+    }
+
+    private void setDay(int id, int day) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int index = id >>> SEGMENT_SHIFT;
+        int[][] segs = directory;
+        if (index >= segs.length) {
+            synchronized (this) {
+                segs = directory;
+                if (index >= segs.length) {
+                    int[][] grown = Arrays.copyOf(segs, Math.max(index + 1, segs.length * 2));
+                    for (int s = segs.length; s < grown.length; s++) {
+                        grown[s] = new int[SEGMENT_SIZE];
+                        Arrays.fill(grown[s], NO_DAY);
+                    }
+                    directory = grown;
+                    segs = grown;
+                }
+            }
+        }
+        segs[index][id & (SEGMENT_SIZE - 1)] = day;
+    }
+}
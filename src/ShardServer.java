@@ -0,0 +1,827 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tek bir parça (shard): kendi ClinicServiceImpl'ini ShardProtocol üzerinden sunan süreç.
+ * Önündeki ShardedClinicService doktorları (ve randevularını) branşa, hastaları T.C. numarasına
+ * göre parçalara dağıtır.
+ *
+ * Parça içinde ID'ler yoğun (1, 2, 3, ...) tutulur; dışarıya global ID olarak çevrilir:
+ *   global = (yerel - 1) * count + index + 1   ->   parça = (global - 1) % count
+ * Böylece her parça sadece kendi kayıtları kadar yer kaplar ve herhangi bir ID'nin parçası
+ * ID'den hesaplanır (yönlendirme tablosu yok).
+ *
+ * Başka parçadaki bir hastaya randevu verilirken hastanın bir kopyası (replika) bu parçaya
+ * yazılır. Replikalar hasta listesine/sayısına/indekslerine girmez ve yerel hastalarla
+ * çakışmasın diye negatif ID ile tutulur (yerel ID = -global).
+ *
+ * Hata mesajları global ID'lerle, istemci tarafında aynı exception türüyle oluşturulur.
+ *
+ * Çalıştırma (her parça ayrı süreç):
+ *   java -cp out ShardServer --index 0 --count 2 [--port 9100] [--data clinic-data/shard-0 | --memory]
+ */
+public class ShardServer implements Closeable {
+
+    static final int DEFAULT_PORT = 9100;
+
+    private final int index;
+    private final int count;
+    private final ClinicServiceImpl service;
+    // Varlık kontrolleri ve replikalar için servisin altındaki repository'ler
+    private final ReplicatedPatientRepository patients;
+    private final IntRepository<Doctor> doctors;
+    private final IntRepository<Appointment> appointments;
+
+    private final ServerSocket server;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = CommandLine.parseArgs(args);
+        if (!opts.containsKey("index") || !opts.containsKey("count")) {
+            System.err.println("Usage: java ShardServer --index <i> --count <n> [--port p] [--data dir | --memory]");
+            System.exit(2);
+        }
+        int index = Integer.parseInt(opts.get("index"));
+        int count = Integer.parseInt(opts.get("count"));
+        int port = Integer.parseInt(opts.getOrDefault("port", String.valueOf(DEFAULT_PORT + index)));
+        Path dir = opts.containsKey("memory") ? null
+                : Paths.get(opts.getOrDefault("data", ClinicServiceImpl.DEFAULT_DATA_DIR + "/shard-" + index));
+
+        ShardServer shard = new ShardServer(index, count, port, dir);
+        Runtime.getRuntime().addShutdownHook(new Thread(shard::close));
+        System.out.println("Shard " + index + "/" + count + " listening on port " + port
+                + (dir == null ? " (in memory)" : " (data in " + dir + ")"));
+        shard.serve();
+    }
+
+    // dir null ise her şey bellekte tutulur
+    ShardServer(int index, int count, int port, Path dir) throws IOException {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+        if (dir == null) {
+            patients = new ReplicatedPatientRepository(new IntArrayRepository<>(), new IntArrayRepository<>());
+            doctors = new IntArrayRepository<>();
+            appointments = new ColumnarAppointmentRepository(patients::get, doctors::get);
+        } else {
+            patients = new ReplicatedPatientRepository(
+                    new WalRepository<>(dir.resolve("patients"), new PatientCodec()),
+                    new WalRepository<>(dir.resolve("patient-replicas"), new ReplicaPatientCodec()));
+            doctors = new WalRepository<>(dir.resolve("doctors"), new DoctorCodec());
+            appointments = ClinicServiceImpl.openAppointments(dir, patients, doctors);
+        }
+        service = new ClinicServiceImpl(patients, doctors, appointments);
+        server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    // Bağlantı başına bir thread; istekler bağlantı içinde sırayla yanıtlanır
+    void serve() throws IOException {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketException e) {
+                if (closed) {
+                    return;
+                }
+                throw e;
+            }
+            socket.setTcpNoDelay(true);
+            clients.add(socket);
+            Thread t = new Thread(() -> handle(socket), "shard-" + index + "-" + socket.getPort());
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // Arka planda dinler (aynı JVM içinde test ve benchmark için)
+    ShardServer start() {
+        Thread t = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("Shard " + index + " stopped: " + e.getMessage());
+            }
+        }, "shard-" + index + "-accept");
+        t.setDaemon(true);
+        t.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (Socket s : clients) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+        }
+        service.close();
+    }
+
+    private void handle(Socket socket) {
+        // Yanıt önce tampona yazılır: işlem yarıda hata verirse akış bozulmaz, hata yanıtı gönderilir
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        DataOutputStream response = new DataOutputStream(buffer);
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 16 * 1024));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 16 * 1024))) {
+            while (true) {
+                int op;
+                try {
+                    op = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                buffer.reset();
+                byte status = ShardProtocol.OK;
+                String message = null;
+                try {
+                    dispatch(op, in, response);
+                } catch (NotFoundException e) {
+                    status = ShardProtocol.NOT_FOUND;
+                    message = e.getMessage();
+                } catch (IllegalArgumentException | java.time.DateTimeException e) {
+                    status = ShardProtocol.ILLEGAL_ARGUMENT;
+                    message = e.getMessage();
+                } catch (IllegalStateException e) {
+                    status = ShardProtocol.ILLEGAL_STATE;
+                    message = e.getMessage();
+                } catch (UnsupportedOperationException e) {
+                    status = ShardProtocol.UNSUPPORTED;
+                    message = e.getMessage();
+                } catch (RuntimeException e) {
+                    status = ShardProtocol.FAILED;
+                    message = e.toString();
+                }
+                out.writeByte(status);
+                if (status == ShardProtocol.OK) {
+                    buffer.writeTo(out);
+                } else {
+                    out.writeUTF(message != null ? message : "");
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Shard " + index + ": connection closed: " + e.getMessage());
+            }
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    // === ID ÇEVİRİSİ ===
+
+    private int global(int local) {
+        return (local - 1) * count + index + 1;
+    }
+
+    // Replikalar negatif yerel ID taşır
+    private int patientGlobal(int local) {
+        return local < 0 ? -local : global(local);
+    }
+
+    private boolean isLocal(int globalId) {
+        return globalId >= 1 && (globalId - 1) % count == index;
+    }
+
+    private int local(int globalId) {
+        return (globalId - 1) / count + 1;
+    }
+
+    private int patientLocal(int globalId) {
+        return isLocal(globalId) ? local(globalId) : -globalId;
+    }
+
+    // Global ID'si afterId'den büyük ilk yerel ID'den bir önceki
+    private int localAfter(int afterGlobalId) {
+        // long: afterGlobalId = Integer.MIN_VALUE iken çıkarma taşmasın
+        return (int) Math.max(0, Math.floorDiv((long) afterGlobalId - index - 1, count) + 1);
+    }
+
+    // === İSTEKLER ===
+
+    private void dispatch(int op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ShardProtocol.HELLO:
+                out.writeInt(index);
+                out.writeInt(count);
+                break;
+            case ShardProtocol.REGISTER_PATIENTS:
+                registerPatients(in, out);
+                break;
+            case ShardProtocol.REGISTER_DOCTORS: {
+                int n = in.readInt();
+                List<NewDoctor> requests = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    requests.add(new NewDoctor(Codecs.readString(in), Codecs.readString(in), Codecs.readString(in)));
+                }
+                writeDoctors(out, service.registerDoctors(requests));
+                break;
+            }
+            case ShardProtocol.CREATE_APPOINTMENTS:
+                createAppointments(in, out);
+                break;
+            case ShardProtocol.MARK: {
+                int id = in.readInt();
+                AppointmentStatus status = AppointmentStatus.values()[in.readUnsignedByte()];
+                if (!isLocal(id) || appointments.get(local(id)) == null) {
+                    throw new NotFoundException("Appointment not found: " + id);
+                }
+                // Önceki durum servisin kilitleri altında okunur: eşzamanlı iki işaretleme aynı
+                // önceki durumu bildirmez
+                AppointmentStatusChanged changed = service.mark(local(id), status);
+                out.writeByte(changed.previous.ordinal());
+                writeAppointment(out, changed.appointment);
+                break;
+            }
+            case ShardProtocol.GET_PATIENTS: {
+                int n = in.readInt();
+                out.writeInt(n);
+                for (int i = 0; i < n; i++) {
+                    int id = in.readInt();
+                    writeOptionalPatient(out, isLocal(id) ? patients.get(local(id)) : null);
+                }
+                break;
+            }
+            case ShardProtocol.LIST_PATIENTS: {
+                int after = localAfter(in.readInt());
+                writePatients(out, service.listPatients(after, in.readInt()));
+                break;
+            }
+            case ShardProtocol.LIST_DOCTORS: {
+                int after = localAfter(in.readInt());
+                writeDoctors(out, service.listDoctors(after, in.readInt()));
+                break;
+            }
+            case ShardProtocol.LIST_APPOINTMENTS: {
+                int after = localAfter(in.readInt());
+                writeAppointments(out, service.listAppointments(after, in.readInt()));
+                break;
+            }
+            case ShardProtocol.BOOKINGS: {
+                int after = localAfter(in.readInt());
+                List<Appointment> page = service.listAppointments(after, in.readInt());
+                out.writeInt(page.size());
+                for (Appointment a : page) {
+                    out.writeInt(global(a.getId()));
+                    out.writeInt(patientGlobal(a.getPatient().getId()));
+                    out.writeInt(ColumnarAppointmentRepository.toEpochMinute(a.getDateTime()));
+                }
+                break;
+            }
+            case ShardProtocol.COUNTS:
+                out.writeInt(service.countPatients());
+                out.writeInt(service.countDoctors());
+                out.writeInt(service.countAppointments());
+                break;
+            case ShardProtocol.DOCTOR_APPOINTMENTS: {
+                int id = in.readInt();
+                writeAppointments(out, isLocal(id) ? service.listDoctorAppointments(local(id)) : List.of());
+                break;
+            }
+            case ShardProtocol.PATIENT_APPOINTMENTS: {
+                int id = in.readInt();
+                writeAppointments(out, id >= 1 ? service.listPatientAppointments(patientLocal(id)) : List.of());
+                break;
+            }
+            case ShardProtocol.APPOINTMENTS_ON:
+                writeAppointments(out, service.listAppointmentsOn(LocalDate.ofEpochDay(in.readInt())));
+                break;
+            case ShardProtocol.NEXT_FREE: {
+                int id = in.readInt();
+                LocalDateTime from = ShardProtocol.readDateTime(in);
+                ShardProtocol.writeDateTime(out, service.findNextFreeSlot(requireDoctor(id), from));
+                break;
+            }
+            case ShardProtocol.FREE_SLOTS: {
+                String branch = Codecs.readString(in);
+                LocalDateTime from = ShardProtocol.readDateTime(in);
+                LocalDateTime to = ShardProtocol.readDateTime(in);
+                List<FreeSlot> slots = service.findFreeSlots(branch, from, to, in.readInt());
+                out.writeInt(slots.size());
+                for (FreeSlot s : slots) {
+                    writeDoctor(out, s.getDoctor());
+                    ShardProtocol.writeDateTime(out, s.getStart());
+                }
+                break;
+            }
+            case ShardProtocol.BRANCHES: {
+                Set<String> branches = service.listDoctorBranches();
+                out.writeInt(branches.size());
+                for (String b : branches) {
+                    Codecs.writeString(out, b);
+                }
+                break;
+            }
+            case ShardProtocol.BRANCH_LOAD: {
+                Map<String, AppointmentReport.Counts> load = service.branchLoad(LocalDate.ofEpochDay(in.readInt()));
+                out.writeInt(load.size());
+                for (Map.Entry<String, AppointmentReport.Counts> e : load.entrySet()) {
+                    Codecs.writeString(out, e.getKey());
+                    ShardProtocol.writeCounts(out, e.getValue());
+                }
+                break;
+            }
+            case ShardProtocol.REPORT: {
+                LocalDateTime from = in.readBoolean() ? ShardProtocol.readDateTime(in) : null;
+                LocalDateTime to = in.readBoolean() ? ShardProtocol.readDateTime(in) : null;
+                writeReport(out, service.report(from, to));
+                break;
+            }
+            case ShardProtocol.FIND_NATIONAL_ID:
+                writeOptionalPatient(out, service.findPatientByNationalId(Codecs.readString(in)).orElse(null));
+                break;
+            case ShardProtocol.FIND_PHONE:
+                writePatients(out, service.findPatientsByPhone(Codecs.readString(in)));
+                break;
+            case ShardProtocol.SEARCH_NAME: {
+                String prefix = Codecs.readString(in);
+                writePatients(out, service.searchPatientsByName(prefix, in.readInt()));
+                break;
+            }
+            case ShardProtocol.SEARCH_NOTES: {
+                String query = Codecs.readString(in);
+                int patient = in.readInt();
+                int doctor = in.readInt();
+                int limit = in.readInt();
+                // Başka parçanın doktoru için burada randevu yoktur
+                if (doctor != 0 && !isLocal(doctor)) {
+                    writeAppointments(out, List.of());
+                    break;
+                }
+                writeAppointments(out, service.searchNotes(query, patient != 0 ? patientLocal(patient) : 0,
+                        doctor != 0 ? local(doctor) : 0, limit));
+                break;
+            }
+            default:
+                throw new IOException("Unknown shard operation: " + op);
+        }
+    }
+
+    // Ya hepsi ya hiçbiri; dryRun sadece T.C. numaralarını kontrol eder (birden çok parçaya yayılan paketler için)
+    private void registerPatients(DataInputStream in, DataOutputStream out) throws IOException {
+        boolean dryRun = in.readBoolean();
+        int n = in.readInt();
+        List<NewPatient> requests = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            requests.add(new NewPatient(Codecs.readString(in), Codecs.readString(in),
+                    Codecs.readString(in), Codecs.readString(in)));
+        }
+        // Yerel ID'li mesaj yerine global ID'li mesaj için önceden kontrol edilir
+        for (NewPatient r : requests) {
+            Optional<Patient> owner = service.findPatientByNationalId(r.nationalId);
+            if (owner.isPresent()) {
+                throw new IllegalStateException("National ID already registered: "
+                        + IndexedPatientRepository.nationalIdKey(r.nationalId)
+                        + " (patient " + global(owner.get().getId()) + ")");
+            }
+        }
+        if (!dryRun) {
+            writePatients(out, service.registerPatients(requests));
+        }
+    }
+
+    /**
+     * Satırlar ön uçtaki sıra numaralarıyla gelir (mesajlarda "row N" için).
+     * Doktor varlığı ve çakışmaları burada global ID'lerle kontrol edilir; hastanın diğer
+     * parçalardaki randevularıyla çakışması ön uçta kontrol edilmiştir.
+     */
+    private void createAppointments(DataInputStream in, DataOutputStream out) throws IOException {
+        boolean dryRun = in.readBoolean();
+        boolean batch = in.readBoolean();
+        int n = in.readInt();
+        int[] rows = new int[n];
+        int[] patientIds = new int[n];
+        // Başka parçanın hastası için kopyalanacak kayıt (kopya zaten varsa null)
+        Patient[] patientRecords = new Patient[n];
+        int[] doctorIds = new int[n];
+        LocalDateTime[] times = new LocalDateTime[n];
+        String[] notes = new String[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = in.readInt();
+            if (in.readBoolean()) {
+                patientRecords[i] = ShardProtocol.readPatient(in);
+                patientIds[i] = patientRecords[i].getId();
+            } else {
+                patientIds[i] = in.readInt();
+            }
+            doctorIds[i] = in.readInt();
+            times[i] = ShardProtocol.readDateTime(in);
+            notes[i] = Codecs.readString(in);
+        }
+
+        Map<Integer, AppointmentCalendar> requested = new HashMap<>();
+        List<NewAppointment> requests = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String row = batch ? " (row " + rows[i] + ")" : "";
+            int doctor = requireDoctor(doctorIds[i], row);
+            LocalDateTime start = times[i];
+            long minute = ColumnarAppointmentRepository.toEpochMinute(start);
+            AppointmentCalendar same = requested.computeIfAbsent(doctor, k -> new AppointmentCalendar());
+            if (!service.findNextFreeSlot(doctor, start).equals(start)
+                    || same.overlaps(minute, ClinicServiceImpl.APPOINTMENT_MINUTES)) {
+                throw new IllegalStateException("Doctor " + doctorIds[i] + " is already booked around " + start + row);
+            }
+            same.add(minute, i);
+            int patientId = patientIds[i];
+            if (patientRecords[i] == null && patients.get(patientLocal(patientId)) == null) {
+                throw new NotFoundException("Patient not found: " + patientId + row);
+            }
+            requests.add(new NewAppointment(patientLocal(patientId), doctor, start, notes[i]));
+        }
+        if (dryRun) {
+            return;
+        }
+        for (Patient p : patientRecords) {
+            if (p != null && !isLocal(p.getId())) {
+                patients.replicate(new Patient(-p.getId(), p.getName(), p.getPhone(),
+                        p.getNationalId(), p.getBloodType()));
+            }
+        }
+        if (!batch) {
+            NewAppointment r = requests.get(0);
+            writeAppointments(out, List.of(service.createAppointment(r.patientId, r.doctorId, r.dateTime, r.note)));
+        } else {
+            writeAppointments(out, service.createAppointments(requests));
+        }
+    }
+
+    private int requireDoctor(int globalId) {
+        return requireDoctor(globalId, "");
+    }
+
+    private int requireDoctor(int globalId, String row) {
+        if (!isLocal(globalId) || doctors.get(local(globalId)) == null) {
+            throw new NotFoundException("Doctor not found: " + globalId + row);
+        }
+        return local(globalId);
+    }
+
+    // === YANIT KODLAMA (yerel -> global ID) ===
+
+    private void writePatient(DataOutput out, Patient p) throws IOException {
+        ShardProtocol.writePatient(out, patientGlobal(p.getId()), p);
+    }
+
+    private void writeOptionalPatient(DataOutput out, Patient p) throws IOException {
+        out.writeBoolean(p != null);
+        if (p != null) {
+            writePatient(out, p);
+        }
+    }
+
+    private void writePatients(DataOutput out, List<Patient> list) throws IOException {
+        out.writeInt(list.size());
+        for (Patient p : list) {
+            writePatient(out, p);
+        }
+    }
+
+    private void writeDoctor(DataOutput out, Doctor d) throws IOException {
+        ShardProtocol.writeDoctor(out, global(d.getId()), d);
+    }
+
+    private void writeDoctors(DataOutput out, List<Doctor> list) throws IOException {
+        out.writeInt(list.size());
+        for (Doctor d : list) {
+            writeDoctor(out, d);
+        }
+    }
+
+    private void writeAppointment(DataOutput out, Appointment a) throws IOException {
+        out.writeInt(global(a.getId()));
+        writePatient(out, a.getPatient());
+        writeDoctor(out, a.getDoctor());
+        ShardProtocol.writeDateTime(out, a.getDateTime());
+        Codecs.writeString(out, a.getNote());
+        out.writeByte(a.getStatus().ordinal());
+    }
+
+    private void writeAppointments(DataOutput out, List<Appointment> list) throws IOException {
+        out.writeInt(list.size());
+        for (Appointment a : list) {
+            writeAppointment(out, a);
+        }
+    }
+
+    private void writeReport(DataOutput out, AppointmentReport r) throws IOException {
+        ShardProtocol.writeCounts(out, r.total);
+        out.writeInt(r.byDoctor.size());
+        for (Map.Entry<Integer, AppointmentReport.Counts> e : r.byDoctor.entrySet()) {
+            writeDoctor(out, r.doctors.get(e.getKey()));
+            ShardProtocol.writeCounts(out, e.getValue());
+        }
+        out.writeInt(r.byBranch.size());
+        for (Map.Entry<String, AppointmentReport.Counts> e : r.byBranch.entrySet()) {
+            Codecs.writeString(out, e.getKey());
+            ShardProtocol.writeCounts(out, e.getValue());
+        }
+        out.writeInt(r.byDay.size());
+        for (Map.Entry<LocalDate, AppointmentReport.Counts> e : r.byDay.entrySet()) {
+            out.writeInt(Math.toIntExact(e.getKey().toEpochDay()));
+            ShardProtocol.writeCounts(out, e.getValue());
+        }
+    }
+}
+
+/**
+ * ShardServer ile ShardedClinicService arasındaki ikili protokol.
+ * İstek: işlem kodu (byte) + alanlar. Yanıt: durum (byte); OK ise alanlar, değilse hata mesajı (UTF).
+ * Hata durumları istemcide aynı exception türüne çevrilir. Bağlantı istekten sonra açık kalır.
+ * Bu sınıftaki kodlayıcılar ID'leri olduğu gibi yazar (çeviri sunucu tarafında yapılır).
+ */
+class ShardProtocol {
+
+    // === İŞLEMLER ===
+    static final byte HELLO = 1;
+    static final byte REGISTER_PATIENTS = 2;
+    static final byte REGISTER_DOCTORS = 3;
+    static final byte CREATE_APPOINTMENTS = 4;
+    static final byte MARK = 5;
+    static final byte GET_PATIENTS = 6;
+    static final byte LIST_PATIENTS = 7;
+    static final byte LIST_DOCTORS = 8;
+    static final byte LIST_APPOINTMENTS = 9;
+    static final byte BOOKINGS = 10;
+    static final byte COUNTS = 11;
+    static final byte DOCTOR_APPOINTMENTS = 12;
+    static final byte PATIENT_APPOINTMENTS = 13;
+    static final byte APPOINTMENTS_ON = 14;
+    static final byte NEXT_FREE = 15;
+    static final byte FREE_SLOTS = 16;
+    static final byte BRANCHES = 17;
+    static final byte BRANCH_LOAD = 18;
+    static final byte REPORT = 19;
+    static final byte FIND_NATIONAL_ID = 20;
+    static final byte FIND_PHONE = 21;
+    static final byte SEARCH_NAME = 22;
+    static final byte SEARCH_NOTES = 23;
+
+    // === YANIT DURUMLARI ===
+    static final byte OK = 0;
+    static final byte ILLEGAL_ARGUMENT = 1;
+    static final byte ILLEGAL_STATE = 2;
+    static final byte UNSUPPORTED = 3;
+    static final byte FAILED = 4;
+    static final byte NOT_FOUND = 5;
+
+    interface Request {
+        void write(DataOutput out) throws IOException;
+    }
+
+    interface Response<R> {
+        R read(DataInput in) throws IOException;
+    }
+
+    static void writeDateTime(DataOutput out, LocalDateTime t) throws IOException {
+        out.writeLong(t.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(t.getNano());
+    }
+
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    static void writePatient(DataOutput out, int id, Patient p) throws IOException {
+        out.writeInt(id);
+        Codecs.writeString(out, p.getName());
+        Codecs.writeString(out, p.getPhone());
+        Codecs.writeString(out, p.getNationalId());
+        Codecs.writeString(out, p.getBloodType());
+    }
+
+    static Patient readPatient(DataInput in) throws IOException {
+        return new Patient(in.readInt(), Codecs.readString(in), Codecs.readString(in),
+                Codecs.readString(in), Codecs.readString(in));
+    }
+
+    static Patient readOptionalPatient(DataInput in) throws IOException {
+        return in.readBoolean() ? readPatient(in) : null;
+    }
+
+    static List<Patient> readPatients(DataInput in) throws IOException {
+        int n = in.readInt();
+        List<Patient> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(readPatient(in));
+        }
+        return list;
+    }
+
+    static void writeDoctor(DataOutput out, int id, Doctor d) throws IOException {
+        out.writeInt(id);
+        Codecs.writeString(out, d.getName());
+        Codecs.writeString(out, d.getPhone());
+        Codecs.writeString(out, d.getBranch());
+    }
+
+    static Doctor readDoctor(DataInput in) throws IOException {
+        return new Doctor(in.readInt(), Codecs.readString(in), Codecs.readString(in), Codecs.readString(in));
+    }
+
+    static List<Doctor> readDoctors(DataInput in) throws IOException {
+        int n = in.readInt();
+        List<Doctor> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(readDoctor(in));
+        }
+        return list;
+    }
+
+    static Appointment readAppointment(DataInput in) throws IOException {
+        int id = in.readInt();
+        Patient p = readPatient(in);
+        Doctor d = readDoctor(in);
+        LocalDateTime dateTime = readDateTime(in);
+        String note = Codecs.readString(in);
+        return new Appointment(id, p, d, dateTime, note, AppointmentStatus.values()[in.readUnsignedByte()]);
+    }
+
+    static List<Appointment> readAppointments(DataInput in) throws IOException {
+        int n = in.readInt();
+        List<Appointment> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(readAppointment(in));
+        }
+        return list;
+    }
+
+    static void writeCounts(DataOutput out, AppointmentReport.Counts c) throws IOException {
+        out.writeLong(c.total);
+        out.writeLong(c.completed);
+        out.writeLong(c.noShow);
+    }
+
+    static AppointmentReport.Counts readCounts(DataInput in) throws IOException {
+        AppointmentReport.Counts c = new AppointmentReport.Counts();
+        c.total = in.readLong();
+        c.completed = in.readLong();
+        c.noShow = in.readLong();
+        return c;
+    }
+
+    static AppointmentReport readReport(DataInput in) throws IOException {
+        AppointmentReport r = new AppointmentReport();
+        r.total.merge(readCounts(in));
+        for (int i = in.readInt(); i > 0; i--) {
+            Doctor d = readDoctor(in);
+            r.doctors.put(d.getId(), d);
+            r.byDoctor.put(d.getId(), readCounts(in));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            r.byBranch.put(Codecs.readString(in), readCounts(in));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            r.byDay.put(LocalDate.ofEpochDay(in.readInt()), readCounts(in));
+        }
+        return r;
+    }
+
+    // Sunucudan gelen hata yanıtı, yerel servisle aynı exception türüne çevrilir
+    static RuntimeException error(byte status, String message) {
+        switch (status) {
+            case NOT_FOUND:
+                return new NotFoundException(message);
+            case ILLEGAL_ARGUMENT:
+                return new IllegalArgumentException(message);
+            case ILLEGAL_STATE:
+                return new IllegalStateException(message);
+            case UNSUPPORTED:
+                return new UnsupportedOperationException(message);
+            default:
+                return new IllegalStateException("Shard failure: " + message);
+        }
+    }
+}
+
+/**
+ * Parçanın hasta repository'si: yerel hastalar (pozitif ID) + başka parçaların randevu verilen
+ * hastalarının kopyaları (negatif ID). Listeleme, sayma ve indeksler sadece yerel hastaları görür;
+ * get ikisini de bulur (randevu okurken hasta nesnesi için).
+ */
+class ReplicatedPatientRepository implements IntRepository<Patient>, Closeable {
+
+    private final IntRepository<Patient> local;
+    // Anahtar: global ID (pozitif); nesnelerin ID'si -global
+    private final IntRepository<Patient> replicas;
+
+    ReplicatedPatientRepository(IntRepository<Patient> local, IntRepository<Patient> replicas) {
+        this.local = local;
+        this.replicas = replicas;
+    }
+
+    // Hastalar değişmediği için replika bir kez yazılır
+    void replicate(Patient replica) {
+        int key = -replica.getId();
+        if (replicas.get(key) == null) {
+            replicas.save(key, replica);
+        }
+    }
+
+    @Override
+    public Patient get(int id) {
+        if (id < 0) {
+            return replicas.get(-id);
+        }
+        return local.get(id);
+    }
+
+    @Override
+    public void save(int id, Patient p) {
+        if (id < 0) {
+            replicas.save(-id, p);
+        } else {
+            local.save(id, p);
+        }
+    }
+
+    @Override
+    public void saveAll(Map<Integer, Patient> entities) {
+        local.saveAll(entities);
+    }
+
+    @Override
+    public void delete(int id) {
+        if (id < 0) {
+            replicas.delete(-id);
+        } else {
+            local.delete(id);
+        }
+    }
+
+    @Override
+    public List<Patient> findAll() {
+        return local.findAll();
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super Patient> action) {
+        local.forEach(action);
+    }
+
+    @Override
+    public List<Patient> findPage(int afterId, int limit) {
+        return local.findPage(afterId, limit);
+    }
+
+    @Override
+    public java.util.stream.Stream<Patient> stream() {
+        return local.stream();
+    }
+
+    @Override
+    public int count() {
+        return local.count();
+    }
+
+    @Override
+    public int idLimit() {
+        return local.idLimit();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            IntRepository.closeDelegate(local);
+        } finally {
+            IntRepository.closeDelegate(replicas);
+        }
+    }
+}
+
+// Replika kayıtları global ID ile saklanır, negatif ID'li hasta olarak okunur
+class ReplicaPatientCodec extends PatientCodec {
+
+    @Override
+    public Patient read(int id, DataInput in) throws IOException {
+        Patient p = super.read(id, in);
+        return new Patient(-id, p.getName(), p.getPhone(), p.getNationalId(), p.getBloodType());
+    }
+}
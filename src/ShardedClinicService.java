@@ -0,0 +1,929 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Birden çok ShardServer sürecine dağıtılmış ClinicService (yönlendirici / ön uç).
+ *
+ * Yerleşim:
+ *  - Doktorlar branşa göre (branş hash'i) parçalanır; bir branşın bütün doktorları ve onların
+ *    randevuları aynı parçadadır. Boş dilim arama ve doktor takvimi tek parçaya gider.
+ *  - Hastalar T.C. numarasına göre (yoksa sırayla) parçalanır; T.C. tekillik kontrolü tek parçada kalır.
+ *  - Randevu doktorun parçasına yazılır; hasta başka parçadaysa oraya bir kopyası gönderilir.
+ *  - Global ID'den parça hesaplanır: (id - 1) % parça sayısı (bkz. ShardServer).
+ *
+ * Hasta çakışma kontrolü birden çok parçaya yayıldığı için burada, hasta kilitleri altında
+ * yapılır (hasta takvimleri açılışta parçalardan yeniden kurulur). Bu yüzden aynı parçalara
+ * tek bir ön uç bağlanmalıdır.
+ *
+ * Listeler, sayılar, raporlar ve branşlar parçalara paralel sorulup (scatter-gather) birleştirilir.
+ * Birden çok parçaya giden toplu yazmalar önce kuru çalıştırmayla (dryRun) doğrulanır; yine de
+ * parçalar arası bir işlem (2PC) yoktur: doğrulama ile yazma arasında bir parça düşerse paketin
+ * bir kısmı yazılmış olabilir.
+ *
+ * Anlık görüntü (snapshot) parçalar arasında desteklenmez (servis arayüzünde de yoktur).
+ */
+class ShardedClinicService implements ClinicService {
+
+    // Virgülle ayrılmış host:port listesi; sıra parça numarasıdır
+    static final String SHARDS_PROPERTY = "clinic.shards";
+
+    private static final int PAGE = 10_000;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ShardClient[] shards;
+    private final int count;
+    private final ExecutorService scatter = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "shard-scatter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Hasta (global ID) -> randevuları; hastanın parçalar arası çakışma kontrolü için
+    private final Map<Integer, AppointmentCalendar> patientCalendars = new ConcurrentHashMap<>();
+    private final ReentrantLock[] patientLocks = new ReentrantLock[LOCK_STRIPES];
+    private static final AppointmentCalendar NO_APPOINTMENTS = new AppointmentCalendar();
+    // T.C. numarası olmayan hastalar parçalara sırayla dağıtılır
+    private final AtomicInteger nextPatientShard = new AtomicInteger();
+
+    // Olaylar bu ön uçta yapılan yazmalar için yayınlanır
+    private final EventBus events = EventBus.configured();
+
+    private ShardedClinicService(List<ShardClient> shards) {
+        this.shards = shards.toArray(new ShardClient[0]);
+        this.count = this.shards.length;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            patientLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // "localhost:9100,localhost:9101" gibi bir listeye bağlanır; parça numaraları ve sayısı doğrulanır
+    static ShardedClinicService connect(String addresses) {
+        List<ShardClient> clients = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            String a = address.trim();
+            int colon = a.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Shard address must be host:port: " + a);
+            }
+            clients.add(new ShardClient(a.substring(0, colon), Integer.parseInt(a.substring(colon + 1))));
+        }
+        ShardedClinicService service = new ShardedClinicService(clients);
+        try {
+            service.handshake();
+            service.loadPatientCalendars();
+        } catch (RuntimeException e) {
+            service.close();
+            throw e;
+        }
+        return service;
+    }
+
+    private void handshake() {
+        for (int i = 0; i < count; i++) {
+            int[] hello = shards[i].call(ShardProtocol.HELLO, out -> { },
+                    in -> new int[]{in.readInt(), in.readInt()});
+            if (hello[0] != i || hello[1] != count) {
+                throw new IllegalStateException("Shard " + shards[i] + " is " + hello[0] + " of " + hello[1]
+                        + ", expected " + i + " of " + count);
+            }
+        }
+    }
+
+    private void loadPatientCalendars() {
+        onAll(shard -> {
+            int after = 0;
+            while (true) {
+                int from = after;
+                int[][] page = shards[shard].call(ShardProtocol.BOOKINGS, out -> {
+                    out.writeInt(from);
+                    out.writeInt(PAGE);
+                }, in -> {
+                    int n = in.readInt();
+                    int[][] rows = new int[n][];
+                    for (int i = 0; i < n; i++) {
+                        rows[i] = new int[]{in.readInt(), in.readInt(), in.readInt()};
+                    }
+                    return rows;
+                });
+                for (int[] b : page) {
+                    patientCalendars.computeIfAbsent(b[1], k -> new AppointmentCalendar()).add(b[2], b[0]);
+                }
+                if (page.length < PAGE) {
+                    return null;
+                }
+                after = page[page.length - 1][0];
+            }
+        });
+    }
+
+    // === YÖNLENDİRME ===
+
+    private int shardOf(int globalId) {
+        return (globalId - 1) % count;
+    }
+
+    private int doctorShard(String branch) {
+        return Math.floorMod(Objects.hashCode(branch), count);
+    }
+
+    private int patientShard(String nationalId) {
+        String key = IndexedPatientRepository.nationalIdKey(nationalId);
+        if (key == null) {
+            return Math.floorMod(nextPatientShard.getAndIncrement(), count);
+        }
+        return Math.floorMod(key.hashCode(), count);
+    }
+
+    // Her parçada task çalıştırılır (biri çağıran thread'de); sonuçlar parça sırasıyla döner
+    private <R> List<R> onAll(IntFunction<R> task) {
+        int[] all = new int[count];
+        for (int i = 0; i < count; i++) {
+            all[i] = i;
+        }
+        return on(all, task);
+    }
+
+    private <R> List<R> on(int[] targets, IntFunction<R> task) {
+        List<Future<R>> futures = new ArrayList<>(targets.length);
+        for (int i = 1; i < targets.length; i++) {
+            int shard = targets[i];
+            futures.add(scatter.submit(() -> task.apply(shard)));
+        }
+        List<R> results = new ArrayList<>(targets.length);
+        RuntimeException failure = null;
+        try {
+            if (targets.length > 0) {
+                results.add(task.apply(targets[0]));
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // Hata olsa da bütün parçalar beklenir (bağlantılar yarım yanıtla kalmasın)
+        for (Future<R> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shards", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private static int[] targets(Collection<Integer> shards) {
+        return shards.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // === KAYIT ===
+
+    @Override
+    public Patient registerPatient(String name, String phone, String nationalId, String bloodType) {
+        return registerPatients(List.of(new NewPatient(name, phone, nationalId, bloodType))).get(0);
+    }
+
+    @Override
+    public Doctor registerDoctor(String name, String phone, String branch) {
+        return registerDoctors(List.of(new NewDoctor(name, phone, branch))).get(0);
+    }
+
+    @Override
+    public List<Patient> registerPatients(List<NewPatient> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Aynı T.C. numarası hep aynı parçaya düşer: kayıtlı numaralarla tekillik kontrolü parçada yapılır.
+        // Paket içindeki tekrarlar kuru çalıştırmada görünmediği için burada, hiçbir parçaya yazmadan reddedilir.
+        Map<String, Integer> nationalIds = new HashMap<>();
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String key = IndexedPatientRepository.nationalIdKey(requests.get(i).nationalId);
+            Integer first = key == null ? null : nationalIds.putIfAbsent(key, i + 1);
+            if (first != null) {
+                throw new IllegalStateException("National ID already registered: " + key
+                        + " (row " + first + ")");
+            }
+            rowsByShard.computeIfAbsent(patientShard(key), k -> new ArrayList<>()).add(i);
+        }
+        int[] targets = targets(rowsByShard.keySet());
+        if (targets.length > 1) {
+            on(targets, shard -> sendPatients(shard, requests, rowsByShard.get(shard), true));
+        }
+        List<List<Patient>> results = on(targets, shard -> sendPatients(shard, requests, rowsByShard.get(shard), false));
+        Patient[] registered = new Patient[requests.size()];
+        for (int t = 0; t < targets.length; t++) {
+            List<Integer> rows = rowsByShard.get(targets[t]);
+            for (int i = 0; i < rows.size(); i++) {
+                registered[rows.get(i)] = results.get(t).get(i);
+            }
+        }
+        if (events.hasSubscribers()) {
+            for (Patient p : registered) {
+                events.publish(new PatientRegistered(p));
+            }
+        }
+        return Arrays.asList(registered);
+    }
+
+    private List<Patient> sendPatients(int shard, List<NewPatient> requests, List<Integer> rows, boolean dryRun) {
+        return shards[shard].call(ShardProtocol.REGISTER_PATIENTS, out -> {
+            out.writeBoolean(dryRun);
+            out.writeInt(rows.size());
+            for (int row : rows) {
+                NewPatient r = requests.get(row);
+                Codecs.writeString(out, r.name);
+                Codecs.writeString(out, r.phone);
+                Codecs.writeString(out, r.nationalId);
+                Codecs.writeString(out, r.bloodType);
+            }
+        }, in -> dryRun ? null : ShardProtocol.readPatients(in));
+    }
+
+    @Override
+    public List<Doctor> registerDoctors(List<NewDoctor> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Parçalar ayrı ayrı yazdığı için eksik branş hiçbir parçaya gönderilmeden reddedilir
+        ClinicServiceImpl.checkNewDoctors(requests);
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            rowsByShard.computeIfAbsent(doctorShard(requests.get(i).branch), k -> new ArrayList<>()).add(i);
+        }
+        int[] targets = targets(rowsByShard.keySet());
+        List<List<Doctor>> results = on(targets, shard -> {
+            List<Integer> rows = rowsByShard.get(shard);
+            return shards[shard].call(ShardProtocol.REGISTER_DOCTORS, out -> {
+                out.writeInt(rows.size());
+                for (int row : rows) {
+                    NewDoctor r = requests.get(row);
+                    Codecs.writeString(out, r.name);
+                    Codecs.writeString(out, r.phone);
+                    Codecs.writeString(out, r.branch);
+                }
+            }, ShardProtocol::readDoctors);
+        });
+        Doctor[] registered = new Doctor[requests.size()];
+        for (int t = 0; t < targets.length; t++) {
+            List<Integer> rows = rowsByShard.get(targets[t]);
+            for (int i = 0; i < rows.size(); i++) {
+                registered[rows.get(i)] = results.get(t).get(i);
+            }
+        }
+        for (Doctor d : registered) {
+            events.publish(new DoctorRegistered(d));
+        }
+        return Arrays.asList(registered);
+    }
+
+    // === RANDEVU ===
+
+    @Override
+    public Appointment createAppointment(int patientId, int doctorId, LocalDateTime dateTime, String note) {
+        return book(List.of(new NewAppointment(patientId, doctorId, dateTime, note)), false).get(0);
+    }
+
+    @Override
+    public List<Appointment> createAppointments(List<NewAppointment> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return book(requests, true);
+    }
+
+    /**
+     * Hasta kilitleri altında: hasta varlığı ve çakışması burada, doktor varlığı ve çakışması
+     * doktorun parçasında kontrol edilir. batch = hata mesajlarına satır numarası eklenir.
+     */
+    private List<Appointment> book(List<NewAppointment> requests, boolean batch) {
+        int n = requests.size();
+        LocalDateTime[] times = new LocalDateTime[n];
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        Set<Integer> patientIds = new HashSet<>();
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            NewAppointment r = requests.get(i);
+            String row = batch ? " (row " + (i + 1) + ")" : "";
+            if (r.patientId < 1) {
+                throw new NotFoundException("Patient not found: " + r.patientId + row);
+            }
+            if (r.doctorId < 1) {
+                throw new NotFoundException("Doctor not found: " + r.doctorId + row);
+            }
+            times[i] = r.dateTime.truncatedTo(ChronoUnit.MINUTES);
+            rowsByShard.computeIfAbsent(shardOf(r.doctorId), k -> new ArrayList<>()).add(i);
+            patientIds.add(r.patientId);
+            stripes.add(r.patientId & (LOCK_STRIPES - 1));
+        }
+
+        // Başka parçaya randevu alan hastaların kayıtları kopya olarak gönderilir
+        Map<Integer, Patient> remotePatients = fetchRemotePatients(requests, batch);
+
+        Appointment[] created = new Appointment[n];
+        long seq;
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int stripe : stripes) {
+                patientLocks[stripe].lock();
+                held.add(patientLocks[stripe]);
+            }
+
+            Map<Integer, AppointmentCalendar> batchCalendars = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                NewAppointment r = requests.get(i);
+                String row = batch ? " (row " + (i + 1) + ")" : "";
+                long minute = ColumnarAppointmentRepository.toEpochMinute(times[i]);
+                AppointmentCalendar same = batchCalendars.computeIfAbsent(r.patientId, k -> new AppointmentCalendar());
+                if (patientCalendars.getOrDefault(r.patientId, NO_APPOINTMENTS)
+                        .overlaps(minute, ClinicServiceImpl.APPOINTMENT_MINUTES)
+                        || same.overlaps(minute, ClinicServiceImpl.APPOINTMENT_MINUTES)) {
+                    throw new IllegalStateException("Patient " + r.patientId + " is already booked around "
+                            + times[i] + row);
+                }
+                same.add(minute, i);
+            }
+
+            int[] targets = targets(rowsByShard.keySet());
+            if (targets.length > 1) {
+                on(targets, shard -> sendAppointments(shard, requests, rowsByShard.get(shard), times,
+                        remotePatients, batch, true));
+            }
+            List<List<Appointment>> results = on(targets, shard -> sendAppointments(shard, requests,
+                    rowsByShard.get(shard), times, remotePatients, batch, false));
+
+            for (int t = 0; t < targets.length; t++) {
+                List<Integer> rows = rowsByShard.get(targets[t]);
+                for (int i = 0; i < rows.size(); i++) {
+                    created[rows.get(i)] = results.get(t).get(i);
+                }
+            }
+            for (Appointment a : created) {
+                patientCalendars.computeIfAbsent(a.getPatient().getId(), k -> new AppointmentCalendar())
+                        .add(ColumnarAppointmentRepository.toEpochMinute(a.getDateTime()), a.getId());
+            }
+            // Sıra kilit altında ayrılır, olaylar kilit bırakıldıktan sonra yazılır (dolu halka kilidi tutmaz)
+            seq = events.claim(n);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+        if (seq >= 0) {
+            for (Appointment a : created) {
+                events.publish(seq++, new AppointmentCreated(a));
+            }
+        }
+        return Arrays.asList(created);
+    }
+
+    /**
+     * Hasta ile doktoru farklı parçalarda olan satırların hastaları, hastanın parçasından okunur.
+     * Hastanın o parçada daha önce randevusu varsa kopyası zaten oradadır; sadece ID gönderilir.
+     */
+    private Map<Integer, Patient> fetchRemotePatients(List<NewAppointment> requests, boolean batch) {
+        Map<Integer, Set<Integer>> idsByShard = new TreeMap<>();
+        for (NewAppointment r : requests) {
+            int home = shardOf(r.patientId);
+            if (home != shardOf(r.doctorId) && !hasReplica(r.patientId, shardOf(r.doctorId))) {
+                idsByShard.computeIfAbsent(home, k -> new LinkedHashSet<>()).add(r.patientId);
+            }
+        }
+        Map<Integer, Patient> found = new HashMap<>();
+        if (idsByShard.isEmpty()) {
+            return found;
+        }
+        for (List<Patient> list : on(targets(idsByShard.keySet()), shard -> getPatients(shard, idsByShard.get(shard)))) {
+            for (Patient p : list) {
+                if (p != null) {
+                    found.put(p.getId(), p);
+                }
+            }
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            NewAppointment r = requests.get(i);
+            if (idsByShard.getOrDefault(shardOf(r.patientId), Set.of()).contains(r.patientId)
+                    && !found.containsKey(r.patientId)) {
+                throw new NotFoundException("Patient not found: " + r.patientId
+                        + (batch ? " (row " + (i + 1) + ")" : ""));
+            }
+        }
+        return found;
+    }
+
+    // Randevular silinmediği için hastanın takvimindeki parçalar kopyayı tutmaya devam eder
+    private boolean hasReplica(int patientId, int shard) {
+        AppointmentCalendar calendar = patientCalendars.get(patientId);
+        if (calendar == null) {
+            return false;
+        }
+        for (int id : calendar.appointmentIds()) {
+            if (shardOf(id) == shard) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Patient> getPatients(int shard, Collection<Integer> ids) {
+        return shards[shard].call(ShardProtocol.GET_PATIENTS, out -> {
+            out.writeInt(ids.size());
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        }, in -> {
+            int n = in.readInt();
+            List<Patient> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(ShardProtocol.readOptionalPatient(in));
+            }
+            return list;
+        });
+    }
+
+    private List<Appointment> sendAppointments(int shard, List<NewAppointment> requests, List<Integer> rows,
+                                               LocalDateTime[] times, Map<Integer, Patient> remotePatients,
+                                               boolean batch, boolean dryRun) {
+        return shards[shard].call(ShardProtocol.CREATE_APPOINTMENTS, out -> {
+            out.writeBoolean(dryRun);
+            out.writeBoolean(batch);
+            out.writeInt(rows.size());
+            for (int row : rows) {
+                NewAppointment r = requests.get(row);
+                out.writeInt(row + 1);
+                // Hasta kaydı sadece parçada kopyası yoksa gönderilir (varlığını parça kontrol eder)
+                Patient p = remotePatients.get(r.patientId);
+                out.writeBoolean(p != null);
+                if (p != null) {
+                    ShardProtocol.writePatient(out, r.patientId, p);
+                } else {
+                    out.writeInt(r.patientId);
+                }
+                out.writeInt(r.doctorId);
+                ShardProtocol.writeDateTime(out, times[row]);
+                Codecs.writeString(out, r.note);
+            }
+        }, in -> dryRun ? null : ShardProtocol.readAppointments(in));
+    }
+
+    @Override
+    public Appointment markAppointment(int appointmentId, AppointmentStatus status) {
+        if (appointmentId < 1) {
+            throw new NotFoundException("Appointment not found: " + appointmentId);
+        }
+        Object[] result = shards[shardOf(appointmentId)].call(ShardProtocol.MARK, out -> {
+            out.writeInt(appointmentId);
+            out.writeByte(status.ordinal());
+        }, in -> new Object[]{AppointmentStatus.values()[in.readUnsignedByte()], ShardProtocol.readAppointment(in)});
+        AppointmentStatus previous = (AppointmentStatus) result[0];
+        Appointment updated = (Appointment) result[1];
+        if (previous != status) {
+            events.publish(new AppointmentStatusChanged(updated, previous));
+        }
+        return updated;
+    }
+
+    // === LİSTELEME ===
+
+    @Override
+    public List<Patient> listPatients() {
+        return collect(streamPatients());
+    }
+
+    @Override
+    public List<Doctor> listDoctors() {
+        return collect(streamDoctors());
+    }
+
+    @Override
+    public List<Appointment> listAppointments() {
+        return collect(streamAppointments());
+    }
+
+    private static <T> List<T> collect(Stream<T> stream) {
+        List<T> list = new ArrayList<>();
+        stream.forEach(list::add);
+        return list;
+    }
+
+    // Sayfa sayfa okunur: bütün parçaların verisi tek seferde belleğe alınmaz
+    @Override
+    public Stream<Patient> streamPatients() {
+        return paged(this::listPatients, Patient::getId);
+    }
+
+    @Override
+    public Stream<Doctor> streamDoctors() {
+        return paged(this::listDoctors, Doctor::getId);
+    }
+
+    @Override
+    public Stream<Appointment> streamAppointments() {
+        return paged(this::listAppointments, Appointment::getId);
+    }
+
+    interface PageSource<T> {
+        List<T> page(int afterId, int limit);
+    }
+
+    private static <T> Stream<T> paged(PageSource<T> source, java.util.function.ToIntFunction<T> id) {
+        Iterator<T> it = new Iterator<>() {
+            private List<T> page = source.page(0, PAGE);
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                if (pos < page.size()) {
+                    return true;
+                }
+                if (page.size() < PAGE) {
+                    return false;
+                }
+                page = source.page(id.applyAsInt(page.get(page.size() - 1)), PAGE);
+                pos = 0;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(pos++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+    }
+
+    // Her parçadan ilk limit kayıt istenir, ID'ye göre birleştirilip ilk limit kayıt alınır
+    @Override
+    public List<Patient> listPatients(int afterId, int limit) {
+        return mergePages(ShardProtocol.LIST_PATIENTS, afterId, limit, ShardProtocol::readPatients,
+                Comparator.comparingInt(Patient::getId));
+    }
+
+    @Override
+    public List<Doctor> listDoctors(int afterId, int limit) {
+        return mergePages(ShardProtocol.LIST_DOCTORS, afterId, limit, ShardProtocol::readDoctors,
+                Comparator.comparingInt(Doctor::getId));
+    }
+
+    @Override
+    public List<Appointment> listAppointments(int afterId, int limit) {
+        return mergePages(ShardProtocol.LIST_APPOINTMENTS, afterId, limit, ShardProtocol::readAppointments,
+                Comparator.comparingInt(Appointment::getId));
+    }
+
+    private <T> List<T> mergePages(byte op, int afterId, int limit, ShardProtocol.Response<List<T>> reader,
+                                   Comparator<T> order) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<T> merged = gather(op, out -> {
+            out.writeInt(afterId);
+            out.writeInt(limit);
+        }, reader, order);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    // Bütün parçalara aynı istek; sonuçlar birleştirilip sıralanır
+    private <T> List<T> gather(byte op, ShardProtocol.Request request, ShardProtocol.Response<List<T>> reader,
+                               Comparator<T> order) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> part : onAll(shard -> shards[shard].call(op, request, reader))) {
+            merged.addAll(part);
+        }
+        merged.sort(order);
+        return merged;
+    }
+
+    private static final Comparator<Appointment> BY_TIME =
+            Comparator.comparing(Appointment::getDateTime).thenComparingInt(Appointment::getId);
+
+    @Override
+    public List<Appointment> listDoctorAppointments(int doctorId) {
+        if (doctorId < 1) {
+            return new ArrayList<>();
+        }
+        return shards[shardOf(doctorId)].call(ShardProtocol.DOCTOR_APPOINTMENTS,
+                out -> out.writeInt(doctorId), ShardProtocol::readAppointments);
+    }
+
+    // Hastanın randevuları sadece takvimindeki randevuların parçalarından istenir
+    @Override
+    public List<Appointment> listPatientAppointments(int patientId) {
+        AppointmentCalendar calendar = patientCalendars.get(patientId);
+        if (calendar == null) {
+            return new ArrayList<>();
+        }
+        Set<Integer> holders = new TreeSet<>();
+        for (int id : calendar.appointmentIds()) {
+            holders.add(shardOf(id));
+        }
+        List<Appointment> merged = new ArrayList<>();
+        for (List<Appointment> part : on(targets(holders), shard -> shards[shard].call(
+                ShardProtocol.PATIENT_APPOINTMENTS, out -> out.writeInt(patientId), ShardProtocol::readAppointments))) {
+            merged.addAll(part);
+        }
+        merged.sort(BY_TIME);
+        return merged;
+    }
+
+    @Override
+    public List<Appointment> listAppointmentsOn(LocalDate day) {
+        return gather(ShardProtocol.APPOINTMENTS_ON, out -> out.writeInt(Math.toIntExact(day.toEpochDay())),
+                ShardProtocol::readAppointments, BY_TIME);
+    }
+
+    @Override
+    public int countPatients() {
+        return counts()[0];
+    }
+
+    @Override
+    public int countDoctors() {
+        return counts()[1];
+    }
+
+    @Override
+    public int countAppointments() {
+        return counts()[2];
+    }
+
+    private int[] counts() {
+        int[] total = new int[3];
+        for (int[] c : onAll(shard -> shards[shard].call(ShardProtocol.COUNTS, out -> { },
+                in -> new int[]{in.readInt(), in.readInt(), in.readInt()}))) {
+            for (int i = 0; i < 3; i++) {
+                total[i] += c[i];
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Set<String> listDoctorBranches() {
+        Set<String> branches = new TreeSet<>();
+        for (List<String> part : onAll(shard -> shards[shard].call(ShardProtocol.BRANCHES, out -> { }, in -> {
+            int n = in.readInt();
+            List<String> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(Codecs.readString(in));
+            }
+            return list;
+        }))) {
+            branches.addAll(part);
+        }
+        return Collections.unmodifiableSet(branches);
+    }
+
+    // === ARAMA ===
+
+    @Override
+    public LocalDateTime findNextFreeSlot(int doctorId, LocalDateTime from) {
+        if (doctorId < 1) {
+            throw new NotFoundException("Doctor not found: " + doctorId);
+        }
+        return shards[shardOf(doctorId)].call(ShardProtocol.NEXT_FREE, out -> {
+            out.writeInt(doctorId);
+            ShardProtocol.writeDateTime(out, from);
+        }, ShardProtocol::readDateTime);
+    }
+
+    // Branşın bütün doktorları tek parçada
+    @Override
+    public List<FreeSlot> findFreeSlots(String branch, LocalDateTime from, LocalDateTime to, int limit) {
+        return shards[doctorShard(branch)].call(ShardProtocol.FREE_SLOTS, out -> {
+            Codecs.writeString(out, branch);
+            ShardProtocol.writeDateTime(out, from);
+            ShardProtocol.writeDateTime(out, to);
+            out.writeInt(limit);
+        }, in -> {
+            int n = in.readInt();
+            List<FreeSlot> slots = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                slots.add(new FreeSlot(ShardProtocol.readDoctor(in), ShardProtocol.readDateTime(in)));
+            }
+            return slots;
+        });
+    }
+
+    @Override
+    public Map<String, AppointmentReport.Counts> branchLoad(LocalDate day) {
+        Map<String, AppointmentReport.Counts> load = new TreeMap<>();
+        for (Map<String, AppointmentReport.Counts> part : onAll(shard -> shards[shard].call(ShardProtocol.BRANCH_LOAD,
+                out -> out.writeInt(Math.toIntExact(day.toEpochDay())), in -> {
+                    Map<String, AppointmentReport.Counts> map = new HashMap<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        map.put(Codecs.readString(in), ShardProtocol.readCounts(in));
+                    }
+                    return map;
+                }))) {
+            part.forEach((branch, c) -> load.computeIfAbsent(branch, k -> new AppointmentReport.Counts()).merge(c));
+        }
+        return load;
+    }
+
+    // Her parça kendi raporunu hesaplar; burada sadece sayaçlar toplanır
+    @Override
+    public AppointmentReport report(LocalDateTime from, LocalDateTime to) {
+        AppointmentReport report = new AppointmentReport();
+        for (AppointmentReport part : onAll(shard -> shards[shard].call(ShardProtocol.REPORT, out -> {
+            out.writeBoolean(from != null);
+            if (from != null) {
+                ShardProtocol.writeDateTime(out, from);
+            }
+            out.writeBoolean(to != null);
+            if (to != null) {
+                ShardProtocol.writeDateTime(out, to);
+            }
+        }, ShardProtocol::readReport))) {
+            report.merge(part);
+        }
+        return report;
+    }
+
+    @Override
+    public Optional<Patient> findPatientByNationalId(String nationalId) {
+        String key = IndexedPatientRepository.nationalIdKey(nationalId);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shards[patientShard(key)].call(ShardProtocol.FIND_NATIONAL_ID,
+                out -> Codecs.writeString(out, key), ShardProtocol::readOptionalPatient));
+    }
+
+    @Override
+    public List<Patient> findPatientsByPhone(String phone) {
+        return gather(ShardProtocol.FIND_PHONE, out -> Codecs.writeString(out, phone),
+                ShardProtocol::readPatients, Comparator.comparingInt(Patient::getId));
+    }
+
+    // Her parçanın ilk limit sonucu isme göre birleştirilir
+    @Override
+    public List<Patient> searchPatientsByName(String prefix, int limit) {
+        List<Patient> merged = gather(ShardProtocol.SEARCH_NAME, out -> {
+            Codecs.writeString(out, prefix);
+            out.writeInt(limit);
+        }, ShardProtocol::readPatients, Comparator.comparing((Patient p) -> IndexedPatientRepository.nameKey(p.getName()))
+                .thenComparingInt(Patient::getId));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    // Doktor filtresi tek parçaya, hasta filtresi hastanın randevusu olan parçalara gider
+    @Override
+    public List<Appointment> searchNotes(String query, int patientId, int doctorId, int limit) {
+        int[] targets;
+        if (doctorId > 0) {
+            targets = new int[]{shardOf(doctorId)};
+        } else if (doctorId < 0 || patientId < 0) {
+            return new ArrayList<>();
+        } else if (patientId > 0) {
+            AppointmentCalendar calendar = patientCalendars.get(patientId);
+            if (calendar == null) {
+                return new ArrayList<>();
+            }
+            Set<Integer> holders = new TreeSet<>();
+            for (int id : calendar.appointmentIds()) {
+                holders.add(shardOf(id));
+            }
+            targets = targets(holders);
+        } else {
+            targets = new int[count];
+            for (int i = 0; i < count; i++) {
+                targets[i] = i;
+            }
+        }
+        List<Appointment> merged = new ArrayList<>();
+        for (List<Appointment> part : on(targets, shard -> shards[shard].call(ShardProtocol.SEARCH_NOTES, out -> {
+            Codecs.writeString(out, query);
+            out.writeInt(patientId);
+            out.writeInt(doctorId);
+            out.writeInt(limit);
+        }, ShardProtocol::readAppointments))) {
+            merged.addAll(part);
+        }
+        merged.sort(Comparator.comparingInt(Appointment::getId).reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    @Override
+    public EventBus events() {
+        return events;
+    }
+
+    @Override
+    public void close() {
+        events.close();
+        scatter.shutdownNow();
+        for (ShardClient shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Tek bir parçaya bağlantılar. Boşta kalan bağlantılar yeniden kullanılır; her çağrı bir
+     * bağlantıyı istek + yanıt boyunca tek başına kullanır. G/Ç hatasında bağlantı atılır.
+     */
+    static final class ShardClient implements Closeable {
+        private final String host;
+        private final int port;
+        private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private volatile boolean closed;
+
+        ShardClient(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        private static final class Connection implements Closeable {
+            final Socket socket;
+            final DataInputStream in;
+            final DataOutputStream out;
+
+            Connection(Socket socket) throws IOException {
+                this.socket = socket;
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 16 * 1024));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 16 * 1024));
+            }
+
+            @Override
+            public void close() {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        <R> R call(byte op, ShardProtocol.Request request, ShardProtocol.Response<R> response) {
+            if (closed) {
+                throw new IllegalStateException("Shard client is closed: " + this);
+            }
+            Connection c = idle.pollFirst();
+            boolean reusable = false;
+            try {
+                if (c == null) {
+                    Socket socket = new Socket();
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(host, port), 5000);
+                    c = new Connection(socket);
+                }
+                c.out.writeByte(op);
+                request.write(c.out);
+                c.out.flush();
+                byte status = c.in.readByte();
+                if (status != ShardProtocol.OK) {
+                    String message = c.in.readUTF();
+                    reusable = true;
+                    throw ShardProtocol.error(status, message);
+                }
+                R result = response.read(c.in);
+                reusable = true;
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Shard " + this + " failed: " + e.getMessage(), e);
+            } finally {
+                if (c != null) {
+                    if (reusable && !closed) {
+                        idle.offerFirst(c);
+                    } else {
+                        c.close();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            Connection c;
+            while ((c = idle.pollFirst()) != null) {
+                c.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+}
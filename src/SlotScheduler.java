@@ -0,0 +1,244 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+/**
+ * Branş bazlı boş randevu arama.
+ *   - branş -> doktor ID'leri (kayıt sırasıyla, kopyala-yaz int dizisi; okuma kilitsiz)
+ *   - doktor -> gün -> doluluk bitmap'i (çalışma saatleri içindeki her dilim bir bit)
+ * Bir gün için "bu branşta boş olan dilimler" birkaç yüz long üzerinde AND/OR ile bulunur;
+ * takvim ağaçları hiç gezilmez.
+ *
+ * Bitmap'ler sadece hızlı aday bulmak içindir: randevu oluşturma yine takvim üzerinden
+ * çakışma kontrolü yapar, dolayısıyla eşzamanlı bir rezervasyonla yarışan aday reddedilir.
+ * 1970 öncesi günler indekslenmez.
+ */
+class SlotScheduler {
+
+    // Günlük bitmap bir long'a sığmalı
+    private static final int MAX_SLOTS_PER_DAY = 64;
+    // Doktor başına günler 64'lük bloklar halinde tutulur
+    private static final int DAYS_PER_BLOCK = 64;
+
+    private final int startMinute;
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final long workMask;
+
+    private final Map<String, int[]> doctorsByBranch = new ConcurrentHashMap<>();
+    private final Map<Integer, DoctorDays> schedules = new ConcurrentHashMap<>();
+
+    SlotScheduler(LocalTime workStart, LocalTime workEnd, int slotMinutes) {
+        int minutes = (workEnd.toSecondOfDay() - workStart.toSecondOfDay()) / 60;
+        if (slotMinutes <= 0 || minutes < slotMinutes) {
+            throw new IllegalArgumentException("Working hours must contain at least one slot");
+        }
+        this.startMinute = workStart.toSecondOfDay() / 60;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = minutes / slotMinutes;
+        if (slotsPerDay > MAX_SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("At most " + MAX_SLOTS_PER_DAY + " slots per day are supported");
+        }
+        this.workMask = slotsPerDay == 64 ? -1L : (1L << slotsPerDay) - 1;
+    }
+
+    // Bir doktorun günlük doluluk bitmap'leri; bloklar ilk yazmada oluşturulur
+    private static final class DoctorDays {
+        private volatile AtomicLongArray[] blocks = new AtomicLongArray[0];
+
+        long get(long epochDay) {
+            AtomicLongArray[] b = blocks;
+            long index = epochDay / DAYS_PER_BLOCK;
+            if (epochDay < 0 || index >= b.length || b[(int) index] == null) {
+                return 0L;
+            }
+            return b[(int) index].get((int) (epochDay % DAYS_PER_BLOCK));
+        }
+
+        void set(long epochDay, long bits) {
+            if (epochDay < 0) {
+                return;
+            }
+            block((int) (epochDay / DAYS_PER_BLOCK)).accumulateAndGet((int) (epochDay % DAYS_PER_BLOCK), bits,
+                    (a, b) -> a | b);
+        }
+
+        // Tamamen epochDay'den önceye düşen bloklar bırakılır
+        synchronized void dropBefore(long epochDay) {
+            AtomicLongArray[] b = blocks;
+            int end = (int) Math.min(b.length, Math.max(0, epochDay / DAYS_PER_BLOCK));
+            boolean any = false;
+            for (int i = 0; i < end && !any; i++) {
+                any = b[i] != null;
+            }
+            if (any) {
+                b = b.clone();
+                Arrays.fill(b, 0, end, null);
+                blocks = b;
+            }
+        }
+
+        private AtomicLongArray block(int index) {
+            AtomicLongArray[] b = blocks;
+            if (index < b.length && b[index] != null) {
+                return b[index];
+            }
+            synchronized (this) {
+                b = blocks;
+                if (index >= b.length) {
+                    b = Arrays.copyOf(b, Math.max(index + 1, b.length * 2));
+                }
+                if (b[index] == null) {
+                    b[index] = new AtomicLongArray(DAYS_PER_BLOCK);
+                }
+                blocks = b;
+                return b[index];
+            }
+        }
+    }
+
+    // === GÜNCELLEME ===
+
+    void addDoctor(int doctorId, String branch) {
+        doctorsByBranch.merge(branch, new int[]{doctorId}, (ids, one) -> {
+            int[] copy = Arrays.copyOf(ids, ids.length + 1);
+            copy[ids.length] = doctorId;
+            return copy;
+        });
+    }
+
+    // Randevunun [start, start + süre) aralığına değen bütün çalışma dilimleri dolu işaretlenir
+    void book(int doctorId, LocalDateTime start, int durationMinutes) {
+        long bits = slotBits(start.toLocalTime().toSecondOfDay() / 60, durationMinutes);
+        if (bits != 0) {
+            schedules.computeIfAbsent(doctorId, k -> new DoctorDays()).set(start.toLocalDate().toEpochDay(), bits);
+        }
+    }
+
+    // Arşive taşınan geçmiş günlerin bitmap'leri (boş dilim aramaları bu günlere bakmaz)
+    void dropBefore(long epochDay) {
+        for (DoctorDays days : schedules.values()) {
+            days.dropBefore(epochDay);
+        }
+    }
+
+    private long slotBits(int minuteOfDay, int durationMinutes) {
+        int from = minuteOfDay - startMinute;
+        int to = from + durationMinutes;
+        int first = Math.max(0, Math.floorDiv(from, slotMinutes));
+        int last = Math.min(slotsPerDay - 1, Math.floorDiv(to - 1, slotMinutes));
+        if (first > last) {
+            return 0L;
+        }
+        long upTo = last == 63 ? -1L : (1L << (last + 1)) - 1;
+        return upTo & ~((1L << first) - 1);
+    }
+
+    // === SORGU ===
+
+    Set<String> branches() {
+        return Collections.unmodifiableSet(doctorsByBranch.keySet());
+    }
+
+    /**
+     * [from, to) aralığında başlayan en erken limit adet boş dilim, zamana göre sıralı;
+     * aynı saatteki dilimler doktor kayıt sırasıyla gelir.
+     */
+    List<FreeSlot> findFree(String branch, LocalDateTime from, LocalDateTime to, int limit,
+                            IntFunction<Doctor> doctors) {
+        int[] ids = doctorsByBranch.get(branch);
+        List<FreeSlot> result = new ArrayList<>(Math.min(limit, 64));
+        if (ids == null || limit <= 0 || !from.isBefore(to)) {
+            return result;
+        }
+        DoctorDays[] days = new DoctorDays[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            days[i] = schedules.get(ids[i]);
+        }
+
+        long[] free = new long[ids.length];
+        long firstDay = from.toLocalDate().toEpochDay();
+        long lastDay = to.toLocalDate().toEpochDay();
+        for (long day = firstDay; day <= lastDay; day++) {
+            long mask = workMask;
+            if (day == firstDay) {
+                mask &= ~firstSlotsBefore(from.toLocalTime());
+            }
+            if (day == lastDay) {
+                mask &= firstSlotsBefore(to.toLocalTime());
+            }
+            if (mask == 0) {
+                continue;
+            }
+            long any = 0;
+            for (int i = 0; i < ids.length; i++) {
+                free[i] = ~(days[i] == null ? 0L : days[i].get(day)) & mask;
+                any |= free[i];
+            }
+            while (any != 0) {
+                int slot = Long.numberOfTrailingZeros(any);
+                any &= any - 1;
+                LocalDateTime start = null;
+                for (int i = 0; i < ids.length; i++) {
+                    if ((free[i] >>> slot & 1L) == 0) {
+                        continue;
+                    }
+                    Doctor d = doctors.apply(ids[i]);
+                    if (d == null) {
+                        continue;
+                    }
+                    if (start == null) {
+                        start = LocalDate.ofEpochDay(day).atStartOfDay()
+                                .plusMinutes(startMinute + (long) slot * slotMinutes);
+                    }
+                    result.add(new FreeSlot(d, start));
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Verilen saatten önce başlayan dilimlerin maskesi
+    private long firstSlotsBefore(LocalTime time) {
+        int minutes = time.toSecondOfDay() / 60 - startMinute;
+        if (time.toSecondOfDay() % 60 != 0) {
+            minutes++;
+        }
+        if (minutes <= 0) {
+            return 0L;
+        }
+        int count = Math.min(slotsPerDay, (minutes + slotMinutes - 1) / slotMinutes);
+        return count == 64 ? -1L : (1L << count) - 1;
+    }
+}
+
+// Boş randevu dilimi (sorgu sonucu)
+class FreeSlot {
+    private final Doctor doctor;
+    private final LocalDateTime start;
+
+    FreeSlot(Doctor doctor, LocalDateTime start) {
+        this.doctor = doctor;
+        this.start = start;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    @Override
+    public String toString() {
+        return start + " - " + doctor.getName() + " (Doctor ID=" + doctor.getId() + ", " + doctor.getBranch() + ")";
+    }
+}
@@ -0,0 +1,487 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Sürüm numaralı anlık görüntü (MVCC) desteği için repository dekoratörü.
+ *
+ * Açık bir anlık görüntü varken her yazma, kaydı değiştirmeden önce eski değeri henüz sürümsüz
+ * (bekleyen) bir geri alma (undo) kaydına yazar; sürümünü ortak VersionClock'tan ancak delegate'e
+ * yazma (WAL'de fsync) bittikten sonra alır. Okuyucu yokken yazma doğrudan delegate'e gider.
+ * Canlı veri yerinde güncellenir; yazarlar okuyucuları hiç beklemez. Bir anlık görüntü (sürüm S)
+ * bir kaydı okurken önce canlı değeri okur, sonra S'den yeni (ya da hâlâ bekleyen) geri alma
+ * kayıtlarının en eskisindeki değere döner. Böylece S'den sonra yapılan kayıt/güncelleme/silmeler
+ * görünmez.
+ *
+ * Aynı ID'ye yapılan yazmalar servis kilitleriyle sıraya sokulduğu için bir ID'nin geri alma
+ * zinciri sürüme göre azalan sıradadır (en yeni başta).
+ * Toplu yazma (saveAll) tek sürüm kullanır: anlık görüntü paketin ya hepsini ya hiçbirini görür.
+ *
+ * Açık anlık görüntülerin hiçbirinin ihtiyaç duymadığı geri alma kayıtları yazmaların
+ * sonunda temizlenir; uzun süren bir rapor açıkken bellekte sadece o süredeki değişiklikler kalır.
+ */
+class SnapshotRepository<T> implements IntRepository<T>, Closeable {
+
+    private static final int PURGE_BATCH = 64;
+
+    private final IntRepository<T> delegate;
+    private final VersionClock clock;
+
+    // ID -> en yeni geri alma kaydı (zincir eskiye doğru)
+    private final Map<Integer, Undo<T>> undo = new ConcurrentHashMap<>();
+    // Temizlik sırası: kayıtlar yazma başında eklenir; sürümünü henüz almamış (I/O'su süren) bir
+    // kayıt, kuyrukta arkasındakilerin temizliğini o yazma bitene kadar erteler
+    private final Queue<Undo<T>> purgeQueue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock purgeLock = new ReentrantLock();
+
+    SnapshotRepository(IntRepository<T> delegate, VersionClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+    }
+
+    private static final class Undo<T> {
+        final int id;
+        // Yazmanın sürümü (toplu yazmada paketin bütün kayıtları aynı nesneyi paylaşır)
+        final VersionClock.Commit commit;
+        // Bu sürümden önceki değer; null = kayıt yoktu
+        final T before;
+        volatile Undo<T> older;
+        // Zincirden kesildi (temizlik kuyruğunda kalmış olabilir)
+        boolean purged;
+
+        Undo(int id, VersionClock.Commit commit, T before, Undo<T> older) {
+            this.id = id;
+            this.commit = commit;
+            this.before = before;
+            this.older = older;
+        }
+    }
+
+    // === YAZMA ===
+    // Açık anlık görüntü yokken geri alma kaydı tutulmaz (commit null)
+
+    @Override
+    public void save(int id, T entity) {
+        VersionClock.Commit commit = clock.begin();
+        try {
+            logUndo(id, commit);
+            delegate.save(id, entity);
+        } finally {
+            clock.end(commit);
+            purge();
+        }
+    }
+
+    @Override
+    public void saveAll(Map<Integer, T> entities) {
+        VersionClock.Commit commit = clock.begin();
+        try {
+            for (Integer id : commit != null ? entities.keySet() : Collections.<Integer>emptySet()) {
+                logUndo(id, commit);
+            }
+            delegate.saveAll(entities);
+        } finally {
+            clock.end(commit);
+            purge();
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        VersionClock.Commit commit = clock.begin();
+        try {
+            logUndo(id, commit);
+            delegate.delete(id);
+        } finally {
+            clock.end(commit);
+            purge();
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        VersionClock.Commit commit = clock.begin();
+        try {
+            for (Integer id : commit != null ? ids : Collections.<Integer>emptySet()) {
+                logUndo(id, commit);
+            }
+            delegate.deleteAllById(ids);
+        } finally {
+            clock.end(commit);
+            purge();
+        }
+    }
+
+    // Canlı veri değişmeden önce yazılır: yeni değeri gören okuyucu geri alma kaydını da görür
+    private void logUndo(int id, VersionClock.Commit commit) {
+        if (commit == null) {
+            return;
+        }
+        T before = delegate.get(id);
+        undo.compute(id, (k, head) -> {
+            Undo<T> entry = new Undo<>(id, commit, before, head);
+            purgeQueue.add(entry);
+            return entry;
+        });
+    }
+
+    // Yazma sonunda: uzun bir rapor açıkken birikmiş kayıtlar tek bir yazmayı bekletmesin diye
+    // en fazla PURGE_BATCH kayıt temizlenir (birikimin kalanını anlık görüntüyü kapatan okuyucu temizler)
+    private void purge() {
+        purge(PURGE_BATCH);
+    }
+
+    // Anlık görüntü kapanınca okuyucu thread'inde çağrılır
+    void purgeAll() {
+        purge(Integer.MAX_VALUE);
+    }
+
+    // Hiçbir açık anlık görüntünün göremeyeceği kayıtlar atılır (aynı anda tek temizleyici)
+    private void purge(int max) {
+        if (purgeQueue.isEmpty() || !purgeLock.tryLock()) {
+            return;
+        }
+        try {
+            long horizon = clock.horizon();
+            Undo<T> entry;
+            for (int n = 0; n < max && (entry = purgeQueue.peek()) != null && entry.commit.version() <= horizon; n++) {
+                purgeQueue.poll();
+                unlink(entry, horizon);
+            }
+        } finally {
+            purgeLock.unlock();
+        }
+    }
+
+    // Zincir sürüme göre azalan sırada: horizon'u geçmeyen ilk kayıttan itibaren kuyruğun tamamı
+    // gereksizdir ve tek seferde kesilir. Kuyruktaki eski kayıtlar daha sonra tek adımda atlanır;
+    // böylece uzun bir rapordan sonra birikmiş zincir ikinci dereceden değil doğrusal sürede temizlenir.
+    private void unlink(Undo<T> entry, long horizon) {
+        if (entry.purged) {
+            return;
+        }
+        undo.computeIfPresent(entry.id, (k, head) -> {
+            Undo<T> newer = null;
+            Undo<T> e = head;
+            while (e != null && e.commit.version() > horizon) {
+                newer = e;
+                e = e.older;
+            }
+            for (Undo<T> cut = e; cut != null; cut = cut.older) {
+                cut.purged = true;
+            }
+            if (newer == null) {
+                return null;
+            }
+            newer.older = null;
+            return head;
+        });
+    }
+
+    // === CANLI OKUMA ===
+
+    @Override
+    public T get(int id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super T> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public <V extends RecordView> boolean forEachView(V view, IntEntryConsumer<? super V> action) {
+        return delegate.forEachView(view, action);
+    }
+
+    @Override
+    public List<T> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public int idLimit() {
+        return delegate.idLimit();
+    }
+
+    // Test ve metrikler için: bekleyen geri alma kaydı sayısı
+    int undoSize() {
+        return purgeQueue.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IntRepository.closeDelegate(delegate);
+    }
+
+    // === ANLIK GÖRÜNTÜ ===
+
+    /**
+     * Verilen anlık görüntünün sürümündeki salt okunur görünüm.
+     * Görünüm ancak anlık görüntü açıkken kullanılabilir (kapandıktan sonra geri alma kayıtları silinebilir).
+     */
+    IntRepository<T> at(VersionClock.Snapshot snapshot) {
+        return new View(snapshot.version);
+    }
+
+    // S sürümündeki değer: canlı değer, S'den sonra değiştiyse en eski geri alma kaydındaki değer
+    private T resolve(int id, T current, long version) {
+        if (undo.isEmpty()) {
+            return current;
+        }
+        T value = current;
+        for (Undo<T> e = undo.get(id); e != null && e.commit.version() > version; e = e.older) {
+            value = e.before;
+        }
+        return value;
+    }
+
+    private final class View implements IntRepository<T> {
+        private final long version;
+        private int count = -1;
+
+        View(long version) {
+            this.version = version;
+        }
+
+        @Override
+        public T get(int id) {
+            return resolve(id, delegate.get(id), version);
+        }
+
+        @Override
+        public void forEach(IntEntryConsumer<? super T> action) {
+            BitSet seen = new BitSet();
+            delegate.forEach((id, current) -> {
+                seen.set(id);
+                T value = resolve(id, current, version);
+                if (value != null) {
+                    action.accept(id, value);
+                }
+            });
+            // Anlık görüntüden sonra silinmiş kayıtlar canlı taramada yoktur
+            for (Undo<T> head : undo.values()) {
+                if (!seen.get(head.id) && delegate.get(head.id) == null) {
+                    T value = resolve(head.id, null, version);
+                    if (value != null) {
+                        action.accept(head.id, value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public List<T> findAll() {
+            List<T> result = new ArrayList<>();
+            forEach((id, entity) -> result.add(entity));
+            return result;
+        }
+
+        // İlk çağrıda bir kez sayılır (canlı sayaç anlık görüntü sürümüne geri alınamaz)
+        @Override
+        public synchronized int count() {
+            if (count < 0) {
+                int[] n = new int[1];
+                forEach((id, entity) -> n[0]++);
+                count = n[0];
+            }
+            return count;
+        }
+
+        @Override
+        public int idLimit() {
+            return delegate.idLimit();
+        }
+
+        @Override
+        public void save(int id, T entity) {
+            throw new UnsupportedOperationException("Snapshot views are read-only");
+        }
+
+        @Override
+        public void delete(int id) {
+            throw new UnsupportedOperationException("Snapshot views are read-only");
+        }
+    }
+}
+
+/**
+ * Repository'lerin paylaştığı sürüm sayacı; yazarlar hiçbir yerde beklemez ya da dönmez.
+ *
+ * Okuyucu varken yazma bir Commit alır: geri alma kayıtları bu nesneyle (sürümü henüz BEKLİYOR)
+ * yazılır, sürüm ise canlı veri değiştikten (ve kalıcı yazma bittikten) sonra end()'de verilir.
+ * Anlık görüntü S = o ana kadar verilmiş en büyük sürümdür; sürümü S'yi geçmeyen her yazmanın
+ * canlı değişikliği tamamlanmıştır, bekleyen ya da sonradan sürüm alan yazmalar S'den yenidir
+ * ve geri alınır. Böylece süren yazmaları izlemek gerekmez, yazarlar sürümü I/O boyunca tutmaz.
+ *
+ * Okuyucu yokken yazma Commit almaz, sadece kendi şeridindeki kayıtsız yazma sayacını artırır.
+ * Anlık görüntü açan okuyucu önce readers'ı artırır, sonra bu sayaçlar sıfırlanana kadar bekler
+ * (park; son biten yazar uyandırır). Yazar sayacı artırdıktan sonra readers'a baktığı için
+ * ikisinden biri diğerini mutlaka görür: okuyucu varken başlayan yazma geri alma kaydı tutar.
+ */
+class VersionClock {
+
+    // Şerit sayısı (ikinin kuvveti); her şerit ayrı önbellek satırında (STRIDE int arayla)
+    private static final int STRIPES = 16;
+    private static final int STRIDE = 16;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicInteger readers = new AtomicInteger();
+    // Şerit başına süren kayıtsız yazma sayısı; bir yazma aynı thread'de aynı şeridi artırıp azaltır
+    private final AtomicIntegerArray unlogged = new AtomicIntegerArray(STRIPES * STRIDE);
+    // Kayıtsız yazmaların bitmesini bekleyen okuyucular burada uyur
+    private final Object drained = new Object();
+    // Açık anlık görüntü sürümü -> adet; sadece açma/kapama ve temizlikte kilitlenir
+    private final TreeMap<Long, Integer> open = new TreeMap<>();
+
+    /**
+     * Bir yazmanın sürümü. Bekliyor: canlı veri değişiyor olabilir, her anlık görüntü için yeni
+     * sayılır. Veriliyor: end() sayaçtan sürüm alıyor (birkaç komutluk an).
+     */
+    static final class Commit {
+        private static final long PENDING = Long.MAX_VALUE;
+        private static final long ASSIGNING = Long.MAX_VALUE - 1;
+
+        private volatile long version = PENDING;
+
+        // Bekleyen yazma için PENDING; sürüm verilirken kısa süre beklenir (araya I/O girmez)
+        long version() {
+            long v = version;
+            while (v == ASSIGNING) {
+                Thread.yield();
+                v = version;
+            }
+            return v;
+        }
+    }
+
+    // Okuyucu yoksa null (geri alma kaydı gerekmez); dönen değer end()'e verilir
+    Commit begin() {
+        if (readers.get() == 0) {
+            int stripe = stripe();
+            unlogged.incrementAndGet(stripe);
+            if (readers.get() == 0) {
+                return null;
+            }
+            leaveUnlogged(stripe);
+        }
+        return new Commit();
+    }
+
+    void end(Commit commit) {
+        if (commit == null) {
+            leaveUnlogged(stripe());
+            return;
+        }
+        // ASSIGNING önce yazılır: sayaç artışını kaçıran okuyucu sürümü görene kadar bekler
+        commit.version = Commit.ASSIGNING;
+        commit.version = issued.incrementAndGet();
+    }
+
+    private static int stripe() {
+        return (System.identityHashCode(Thread.currentThread()) & (STRIPES - 1)) * STRIDE;
+    }
+
+    private void leaveUnlogged(int stripe) {
+        if (unlogged.decrementAndGet(stripe) == 0 && readers.get() > 0) {
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+    }
+
+    private boolean unloggedWrites() {
+        for (int i = 0; i < STRIPES * STRIDE; i += STRIDE) {
+            if (unlogged.get(i) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Bu sürüme kadarki geri alma kayıtlarına hiçbir açık ya da açılacak anlık görüntü ihtiyaç duymaz
+    long horizon() {
+        synchronized (open) {
+            long issuedNow = issued.get();
+            return open.isEmpty() ? issuedNow : Math.min(open.firstKey(), issuedNow);
+        }
+    }
+
+    // Kayıtsız yazmaların bitmesi beklenir (kesintiye uğrarsa yine beklenir, bayrak korunur)
+    Snapshot open() {
+        readers.incrementAndGet();
+        boolean interrupted = false;
+        synchronized (drained) {
+            while (unloggedWrites()) {
+                try {
+                    drained.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        // Sürüm ile kaydı aynı kilit altında: arada hesaplanan horizon bu görüntünün kayıtlarını silemez
+        synchronized (open) {
+            long version = issued.get();
+            open.merge(version, 1, Integer::sum);
+            return new Snapshot(version);
+        }
+    }
+
+    int openSnapshots() {
+        return readers.get();
+    }
+
+    private void release(long version) {
+        synchronized (open) {
+            open.computeIfPresent(version, (k, c) -> c == 1 ? null : c - 1);
+        }
+        readers.decrementAndGet();
+    }
+
+    final class Snapshot implements AutoCloseable {
+        final long version;
+        private boolean closed;
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(version);
+        }
+    }
+}
@@ -0,0 +1,800 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Kalıcı (disk tabanlı) repository.
+ * Her save/deleteById çağrısı ikili bir log dosyasına (write-ahead log) eklenir.
+ * Yazmalar gruplanarak tek bir fsync ile diske indirilir (group commit); değişiklikler
+ * bellekteki store'a ancak fsync'ten sonra, log sırasıyla uygulanır (okuyucular diske
+ * inmemiş veriyi görmez). Belirli sayıda kayıttan sonra log yeni bir dosyaya geçer ve tüm durum
+ * ayrı bir thread'de snapshot dosyasına yazılır; group commit bu sırada çalışmaya devam eder.
+ * Açılışta son snapshot + sonraki log dosyaları okunarak durum geri yüklenir.
+ *
+ * Dosyalar:
+ *   snapshot-N.bin : wal-N.log başladığı andaki durum
+ *   wal-N.log      : snapshot-N'den sonraki değişiklikler
+ *
+ * Store bir ArchivingRepository ise eskiyen kayıtlar her snapshot'tan önce (ve açılışta)
+ * store'un kendi arşivine taşınır; snapshot sadece arşivde olmayan kayıtları içerir.
+ * Gün dönünce, kayıt sayısı dolmasa da snapshot alınır (yazma yoksa commit thread'i gece yarısı uyanır).
+ */
+class WalRepository<T> implements IntRepository<T>, Closeable {
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    // Birden çok alt kayıt tek CRC altında: kurtarmada ya hepsi uygulanır ya hiçbiri
+    private static final byte OP_BATCH = 3;
+
+    // length + crc
+    private static final int HEADER_BYTES = 8;
+
+    static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+
+    private final Path dir;
+    private final EntityCodec<T> codec;
+    private final int snapshotEvery;
+
+    // Bellekteki güncel durum (randevular için sütunlu depo verilebilir)
+    private final IntRepository<T> store;
+
+    private final FileChannel lockChannel;
+    private final FileLock dirLock;
+
+    // Aşağıdaki alanlar "lock" ile korunur
+    private final Object lock = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(64 * 1024);
+    private long appendedSeq;
+    private long durableSeq;
+    // Log'a eklenmiş ama henüz diske inmemiş değişiklikler (pending ile aynı sırada)
+    private List<Runnable> pendingChanges = new ArrayList<>();
+    private List<Runnable> spareChanges = new ArrayList<>();
+    private long generation;
+    private FileChannel log;
+    private IOException commitError;
+    private boolean closed;
+
+    private int recordsSinceSnapshot;
+    // Gün dönümü kontrolünün en son yapıldığı gün (arşivleyen store için)
+    private long archiveCheckedDay;
+    // Çalışan snapshot thread'i (yoksa null); aynı anda tek snapshot yazılır
+    private Thread snapshotter;
+    private final Thread committer;
+
+    WalRepository(Path dir, EntityCodec<T> codec) throws IOException {
+        this(dir, codec, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    WalRepository(Path dir, EntityCodec<T> codec, IntRepository<T> store) throws IOException {
+        this(dir, codec, DEFAULT_SNAPSHOT_EVERY, store);
+    }
+
+    WalRepository(Path dir, EntityCodec<T> codec, int snapshotEvery) throws IOException {
+        this(dir, codec, snapshotEvery, new IntArrayRepository<>());
+    }
+
+    WalRepository(Path dir, EntityCodec<T> codec, int snapshotEvery, IntRepository<T> store) throws IOException {
+        this.dir = dir;
+        this.codec = codec;
+        this.snapshotEvery = snapshotEvery;
+        this.store = store;
+
+        Files.createDirectories(dir);
+        lockChannel = FileChannel.open(dir.resolve("wal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        dirLock = lockChannel.tryLock();
+        if (dirLock == null) {
+            lockChannel.close();
+            throw new IOException("Data directory is already in use: " + dir);
+        }
+
+        recover();
+        // Kapalıyken gün dönmüş olabilir: eskiyen kayıtlar hemen arşive taşınır
+        if (store instanceof ArchivingRepository && ((ArchivingRepository<T>) store).archiveDue()) {
+            writeSnapshot(rotate());
+        }
+        archiveCheckedDay = LocalDate.now().toEpochDay();
+
+        committer = new Thread(this::commitLoop, "wal-committer-" + dir.getFileName());
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @Override
+    public void save(int id, T entity) {
+        byte[] payload = encode(entity);
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            seq = append(OP_SAVE, id, payload, 1, () -> store.save(id, entity));
+        }
+        awaitDurable(seq);
+    }
+
+    // Tüm paket tek log kaydı ve tek fsync
+    @Override
+    public void saveAll(Map<Integer, T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entities.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (Map.Entry<Integer, T> e : entities.entrySet()) {
+                byte[] payload = encode(e.getValue());
+                out.writeByte(OP_SAVE);
+                out.writeInt(e.getKey());
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            seq = append(OP_BATCH, entities.size(), bytes.toByteArray(), entities.size(),
+                    () -> entities.forEach(store::save));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(ids.size() * 9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (int id : ids) {
+                out.writeByte(OP_DELETE);
+                out.writeInt(id);
+                out.writeInt(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            seq = append(OP_BATCH, ids.size(), bytes.toByteArray(), ids.size(), () -> {
+                for (int id : ids) {
+                    store.delete(id);
+                }
+            });
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public T get(int id) {
+        return store.get(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return store.findAll();
+    }
+
+    @Override
+    public void forEach(IntEntryConsumer<? super T> action) {
+        store.forEach(action);
+    }
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        store.forEachId(action);
+    }
+
+    @Override
+    public int idLimit() {
+        return store.idLimit();
+    }
+
+    // Bellekteki durum (örn. servisin arşivlenmiş günlere doğrudan erişmesi için)
+    IntRepository<T> store() {
+        return store;
+    }
+
+    @Override
+    public int count() {
+        return store.count();
+    }
+
+    @Override
+    public void delete(int id) {
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            seq = append(OP_DELETE, id, null, 1, () -> store.delete(id));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            committer.join();
+            Thread running;
+            synchronized (lock) {
+                running = snapshotter;
+            }
+            if (running != null) {
+                running.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            log.close();
+        }
+        dirLock.release();
+        lockChannel.close();
+    }
+
+    // === LOG YAZMA (GROUP COMMIT) ===
+
+    private byte[] encode(T entity) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            codec.write(new DataOutputStream(bytes), entity);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // lock tutulurken çağrılır; change kayıt diske indikten sonra commit thread'inde çalışır
+    private long append(byte op, int id, byte[] payload, int records, Runnable change) {
+        writeRecord(pending, op, id, payload);
+        pendingChanges.add(change);
+        recordsSinceSnapshot += records;
+        appendedSeq++;
+        lock.notifyAll();
+        return appendedSeq;
+    }
+
+    private static void writeRecord(OutputStream out, byte op, int id, byte[] payload) {
+        int length = 5 + (payload == null ? 0 : payload.length);
+        ByteBuffer body = ByteBuffer.allocate(HEADER_BYTES + length);
+        body.putInt(length);
+        body.putInt(0); // crc sonradan yazılır
+        body.put(op);
+        body.putInt(id);
+        if (payload != null) {
+            body.put(payload);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), HEADER_BYTES, length);
+        body.putInt(4, (int) crc.getValue());
+        try {
+            out.write(body.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void awaitDurable(long seq) {
+        synchronized (lock) {
+            while (durableSeq < seq && commitError == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for commit", e);
+                }
+            }
+            if (durableSeq < seq) {
+                throw new UncheckedIOException("Write-ahead log commit failed", commitError);
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Repository is closed: " + dir);
+        }
+        if (commitError != null) {
+            throw new UncheckedIOException("Write-ahead log is unusable", commitError);
+        }
+    }
+
+    // Tek bir thread bekleyen tüm kayıtları tek seferde yazar, fsync yapar ve store'a uygular
+    private void commitLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            List<Runnable> changes;
+            long target;
+            FileChannel channel;
+            Thread rollover = null;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    if (snapshotter == null && dayRolledOver()) {
+                        rollover = snapshotNow();
+                        break;
+                    }
+                    try {
+                        lock.wait(millisUntilTomorrow());
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (rollover != null) {
+                    // Yazma yokken gün döndü: bekleyen kayıt olmadığı için doğrudan arşivlenir
+                    rollover.start();
+                    continue;
+                }
+                if (pending.size() == 0) {
+                    return; // kapatıldı ve bekleyen kayıt yok
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                changes = pendingChanges;
+                pendingChanges = spareChanges;
+                spareChanges = changes;
+                target = appendedSeq;
+                channel = log;
+            }
+
+            try {
+                writeFully(channel, batch);
+                channel.force(false);
+            } catch (IOException e) {
+                // Diske inmeyen değişiklikler store'a hiç uygulanmaz
+                synchronized (lock) {
+                    commitError = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            // Tek thread log sırasıyla uygular: store'daki son değer logdaki son kayıtla aynıdır
+            try {
+                for (Runnable change : changes) {
+                    change.run();
+                }
+            } catch (RuntimeException e) {
+                // Log ile bellek ayrıştı: yeni yazma kabul edilmez (yeniden açılış logdan kurar)
+                synchronized (lock) {
+                    commitError = new IOException("Cannot apply committed change in " + dir, e);
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            Thread snapshot = null;
+            synchronized (lock) {
+                batch.reset();
+                changes.clear();
+                durableSeq = target;
+                if (!closed && snapshotter == null && (recordsSinceSnapshot >= snapshotEvery || dayRolledOver())) {
+                    snapshot = snapshotNow();
+                }
+                lock.notifyAll();
+            }
+            if (snapshot != null) {
+                snapshot.start();
+            }
+        }
+    }
+
+    // lock tutulurken, commit thread'inde çağrılır; thread'i çağıran lock dışında başlatır (hata olursa null)
+    private Thread snapshotNow() {
+        try {
+            return startSnapshot(rotate());
+        } catch (IOException e) {
+            // Log geçişi olmadıysa eski log geçerli; bir sonraki sefer tekrar denenir
+            System.err.println("Snapshot failed for " + dir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // lock tutulurken çağrılır: son kontrolden beri gün döndüyse ve arşive taşınacak kayıt varsa true
+    private boolean dayRolledOver() {
+        if (!(store instanceof ArchivingRepository)) {
+            return false;
+        }
+        long today = LocalDate.now().toEpochDay();
+        if (today == archiveCheckedDay) {
+            return false;
+        }
+        archiveCheckedDay = today;
+        return ((ArchivingRepository<T>) store).archiveDue();
+    }
+
+    // Arşivleyen store için bir sonraki gün dönümüne kadar (diğerleri sadece yazma ile uyanır)
+    private long millisUntilTomorrow() {
+        if (!(store instanceof ArchivingRepository)) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime tomorrow = LocalDateTime.of(now.toLocalDate().plusDays(1), LocalTime.MIDNIGHT);
+        return Math.max(1, Duration.between(now, tomorrow).toMillis() + 1);
+    }
+
+    // lock tutulurken çağrılır; thread'i çağıran lock dışında başlatır
+    private Thread startSnapshot(long gen) {
+        snapshotter = new Thread(() -> {
+            try {
+                writeSnapshot(gen);
+            } catch (IOException | UncheckedIOException e) {
+                // Snapshot başarısız olsa da eski snapshot + loglar hâlâ geçerli; bir sonraki sefer tekrar denenir
+                System.err.println("Snapshot failed for " + dir + ": " + e.getMessage());
+            } finally {
+                synchronized (lock) {
+                    snapshotter = null;
+                }
+            }
+        }, "wal-snapshot-" + dir.getFileName());
+        snapshotter.setDaemon(true);
+        return snapshotter;
+    }
+
+    private static void writeFully(FileChannel channel, ByteArrayOutputStream batch) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    // === SNAPSHOT ===
+
+    /**
+     * Yeni bir log dosyasına geçer. Sadece commit thread'inde iki commit arasında (ya da açılışta)
+     * çağrılır: eski logun tüm kayıtları diske inmiş ve store'a uygulanmıştır, henüz yazılmamış
+     * kayıtlar yeni loga düşer. Dönen nesil için writeSnapshot çağrılmalıdır.
+     */
+    private long rotate() throws IOException {
+        synchronized (lock) {
+            long newGen = generation + 1;
+            FileChannel newLog = openLog(newGen);
+            log.close();
+            log = newLog;
+            generation = newGen;
+            recordsSinceSnapshot = 0;
+            return newGen;
+        }
+    }
+
+    /**
+     * Tüm durumu newGen snapshot'ı olarak yazar (commit thread'i bu sırada çalışmaya devam eder).
+     * Snapshot yazılırken gelen değişiklikler yeni loga düştüğü için, snapshot'ın
+     * bazı kayıtları geçiş anından daha yeni olsa bile yeni logun tekrar oynatılması
+     * doğru sonucu verir (save/delete idempotent).
+     */
+    private void writeSnapshot(long newGen) throws IOException {
+        // Arşiv, log geçişinden sonra alınır: geçişten önceki kayıtların hepsi arşive girer,
+        // sonrakiler yeni logda olduğu için tekrar oynatılınca arşivin üstüne uygulanır
+        boolean archiving = store instanceof ArchivingRepository;
+        if (archiving) {
+            ((ArchivingRepository<T>) store).archive();
+        }
+
+        Path tmp = dir.resolve("snapshot-" + newGen + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream data = new DataOutputStream(bytes);
+            IntEntryConsumer<T> writer = (id, entity) -> {
+                bytes.reset();
+                try {
+                    codec.write(data, entity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writeRecord(out, OP_SAVE, id, bytes.toByteArray());
+            };
+            if (archiving) {
+                ((ArchivingRepository<T>) store).forEachUnarchived(writer);
+            } else {
+                store.forEach(writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve("snapshot-" + newGen + ".bin"),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // Artık gerekmeyen eski dosyaları sil
+        for (long g : generations("snapshot-", ".bin")) {
+            if (g < newGen) {
+                Files.deleteIfExists(dir.resolve("snapshot-" + g + ".bin"));
+            }
+        }
+        for (long g : generations("wal-", ".log")) {
+            if (g < newGen) {
+                Files.deleteIfExists(dir.resolve("wal-" + g + ".log"));
+            }
+        }
+    }
+
+    // === RECOVERY ===
+
+    private void recover() throws IOException {
+        long snapshotGen = 0;
+        List<Long> snapshots = generations("snapshot-", ".bin");
+        if (!snapshots.isEmpty()) {
+            snapshotGen = snapshots.get(snapshots.size() - 1);
+            replay(dir.resolve("snapshot-" + snapshotGen + ".bin"), false);
+        }
+
+        generation = snapshotGen;
+        List<Long> logs = generations("wal-", ".log");
+        for (int i = 0; i < logs.size(); i++) {
+            long g = logs.get(i);
+            if (g < snapshotGen) {
+                continue;
+            }
+            // Yarım kalmış son kayıt sadece en son log dosyasında olabilir
+            replay(dir.resolve("wal-" + g + ".log"), i == logs.size() - 1);
+            generation = g;
+        }
+        log = openLog(generation);
+
+        for (Path tmp : listFiles("snapshot-", ".tmp")) {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void replay(Path file, boolean truncateTornTail) throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            byte[] body = new byte[256];
+            while (true) {
+                int length;
+                int crc;
+                try {
+                    length = in.readInt();
+                    crc = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 5) {
+                    break;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                try {
+                    in.readFully(body, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 check = new CRC32();
+                check.update(body, 0, length);
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+
+                ByteBuffer rec = ByteBuffer.wrap(body, 0, length);
+                byte op = rec.get();
+                int id = rec.getInt();
+                if (op == OP_BATCH) {
+                    // id alanı burada alt kayıt sayısıdır
+                    for (int i = 0; i < id; i++) {
+                        byte subOp = rec.get();
+                        int subId = rec.getInt();
+                        int subLength = rec.getInt();
+                        apply(subOp, subId, body, rec.position(), subLength);
+                        rec.position(rec.position() + subLength);
+                    }
+                } else {
+                    apply(op, id, body, 5, length - 5);
+                }
+                validLength += HEADER_BYTES + length;
+            }
+        }
+        if (truncateTornTail && validLength < Files.size(file)) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(validLength);
+            }
+        }
+    }
+
+    private void apply(byte op, int id, byte[] body, int offset, int length) throws IOException {
+        if (op == OP_SAVE) {
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(body, offset, length));
+            store.save(id, codec.read(id, payload));
+        } else if (op == OP_DELETE) {
+            store.delete(id);
+        }
+    }
+
+    private FileChannel openLog(long gen) throws IOException {
+        return FileChannel.open(dir.resolve("wal-" + gen + ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        for (Path p : listFiles(prefix, suffix)) {
+            String name = p.getFileName().toString();
+            try {
+                result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+            } catch (NumberFormatException ignored) {
+                // başka bir dosya
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private List<Path> listFiles(String prefix, String suffix) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+            files.forEach(result::add);
+        }
+        return result;
+    }
+}
+
+/**
+ * Kayıtlarının bir kısmını kendi dosyalarında kalıcı tutan store (örn. eski günlerin randevuları).
+ * WalRepository arşivlenmiş kayıtları snapshot'a yazmaz; arşiv dosyaları archive() dönmeden
+ * önce diske indirilmiş olmalıdır.
+ */
+interface ArchivingRepository<T> extends IntRepository<T> {
+
+    // Arşive taşınması gereken kayıt var mı
+    boolean archiveDue();
+
+    void archive() throws IOException;
+
+    // Snapshot için: sadece arşivde olmayan (kaynağı WAL olan) kayıtlar
+    void forEachUnarchived(IntEntryConsumer<? super T> action);
+}
+
+// === ENTITY <-> BINARY ===
+interface EntityCodec<T> {
+    void write(DataOutput out, T entity) throws IOException;
+
+    // ID kaydın başlığında tutulur, payload'a tekrar yazılmaz
+    T read(int id, DataInput in) throws IOException;
+}
+
+class PatientCodec implements EntityCodec<Patient> {
+
+    @Override
+    public void write(DataOutput out, Patient p) throws IOException {
+        Codecs.writeString(out, p.getName());
+        Codecs.writeString(out, p.getPhone());
+        Codecs.writeString(out, p.getNationalId());
+        Codecs.writeString(out, p.getBloodType());
+    }
+
+    @Override
+    public Patient read(int id, DataInput in) throws IOException {
+        return new Patient(id, Codecs.readString(in), Codecs.readString(in),
+                Codecs.readString(in), Codecs.readString(in));
+    }
+}
+
+class DoctorCodec implements EntityCodec<Doctor> {
+
+    @Override
+    public void write(DataOutput out, Doctor d) throws IOException {
+        Codecs.writeString(out, d.getName());
+        Codecs.writeString(out, d.getPhone());
+        Codecs.writeString(out, d.getBranch());
+    }
+
+    @Override
+    public Doctor read(int id, DataInput in) throws IOException {
+        return new Doctor(id, Codecs.readString(in), Codecs.readString(in), Codecs.readString(in));
+    }
+}
+
+// Hasta ve doktor sadece ID olarak yazılır; okurken ilgili repository'den bulunur
+class AppointmentCodec implements EntityCodec<Appointment> {
+
+    private final IntFunction<Patient> patients;
+    private final IntFunction<Doctor> doctors;
+
+    AppointmentCodec(IntFunction<Patient> patients, IntFunction<Doctor> doctors) {
+        this.patients = patients;
+        this.doctors = doctors;
+    }
+
+    @Override
+    public void write(DataOutput out, Appointment a) throws IOException {
+        out.writeInt(a.getPatient().getId());
+        out.writeInt(a.getDoctor().getId());
+        out.writeLong(a.getDateTime().toEpochSecond(ZoneOffset.UTC));
+        Codecs.writeString(out, a.getNote());
+        out.writeByte(a.getStatus().ordinal());
+    }
+
+    @Override
+    public Appointment read(int id, DataInput in) throws IOException {
+        int patientId = in.readInt();
+        int doctorId = in.readInt();
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+        String note = Codecs.readString(in);
+        // Durum alanından önce yazılmış kayıtlar planlanmış sayılır
+        AppointmentStatus status = Codecs.hasMore(in)
+                ? AppointmentStatus.values()[in.readUnsignedByte()] : AppointmentStatus.SCHEDULED;
+
+        Patient p = patients.apply(patientId);
+        Doctor d = doctors.apply(doctorId);
+        if (p == null || d == null) {
+            throw new IOException("Appointment " + id + " refers to a missing patient or doctor");
+        }
+        return new Appointment(id, p, d, dateTime, note, status);
+    }
+}
+
+class Codecs {
+
+    private static final int NULL = 0;
+    // writeUTF: 2 byte uzunluk, en fazla 65535 byte
+    private static final int SHORT_UTF = 1;
+    // int uzunluk + UTF-8 byte'lar (uzun notlar için)
+    private static final int LONG_UTF8 = 2;
+    // Her karakter en fazla 3 byte: bu uzunluğa kadar writeUTF sınırı aşılamaz
+    private static final int SHORT_MAX_CHARS = 65535 / 3;
+
+    // Kısa metinler eski biçimde yazılır: mevcut dosyalar ve eski sürümler aynen okunur
+    static void writeString(DataOutput out, String s) throws IOException {
+        if (s == null) {
+            out.writeByte(NULL);
+        } else if (s.length() <= SHORT_MAX_CHARS) {
+            out.writeByte(SHORT_UTF);
+            out.writeUTF(s);
+        } else {
+            byte[] bytes = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            out.writeByte(LONG_UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int kind = in.readUnsignedByte();
+        switch (kind) {
+            case NULL:
+                return null;
+            case SHORT_UTF:
+                return in.readUTF();
+            case LONG_UTF8: {
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Invalid string length: " + length);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+            }
+            default:
+                throw new IOException("Invalid string marker: " + kind);
+        }
+    }
+
+    // Payload'lar her zaman sınırlı bir byte dizisinden okunur; sonradan eklenen alanlar için
+    static boolean hasMore(DataInput in) throws IOException {
+        return in instanceof InputStream && ((InputStream) in).available() > 0;
+    }
+}
@@ -0,0 +1,183 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Arşivlenmiş günler: servis açılışta sadece sıcak günleri indeksler, eski günlerin randevuları
+ * listeleme, çakışma kontrolü, sayaçlar ve not aramasında arşivden okunur.
+ */
+public class ArchivedAppointmentsTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(ArchivedAppointmentsTest.class);
+    }
+
+    private static final class Opened implements AutoCloseable {
+        final ClinicServiceImpl service;
+        final PartitionedAppointmentRepository store;
+
+        Opened(Path dir) throws Exception {
+            WalRepository<Patient> patients = new WalRepository<>(dir.resolve("patients"), new PatientCodec());
+            WalRepository<Doctor> doctors = new WalRepository<>(dir.resolve("doctors"), new DoctorCodec());
+            Path appointmentDir = dir.resolve("appointments");
+            store = new PartitionedAppointmentRepository(appointmentDir.resolve("archive"),
+                    patients::get, doctors::get, 1);
+            service = new ClinicServiceImpl(patients, doctors, new WalRepository<>(appointmentDir,
+                    new AppointmentCodec(patients::get, doctors::get), store));
+        }
+
+        @Override
+        public void close() {
+            service.close();
+        }
+    }
+
+    private static List<Integer> ids(List<Appointment> appointments) {
+        return appointments.stream().map(Appointment::getId).collect(Collectors.toList());
+    }
+
+    static void testArchivedDaysAreReadOnDemand() throws Exception {
+        Path dir = TestSupport.tempDir("archive-test");
+        LocalDate today = LocalDate.now();
+        LocalDateTime old = today.minusDays(30).atTime(10, 0);
+        LocalDateTime older = today.minusDays(40).atTime(11, 0);
+        LocalDateTime future = today.plusDays(1).atTime(10, 0);
+        try {
+            int patient;
+            int doctor;
+            try (Opened o = new Opened(dir)) {
+                patient = o.service.registerPatient("P", "555", "TC1", "A+").getId();
+                doctor = o.service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+                o.service.createAppointment(patient, doctor, older, "eski kontrol");
+                o.service.createAppointment(patient, doctor, old, "göğüs ağrısı");
+                o.service.createAppointment(patient, doctor, future, "yeni kontrol");
+            }
+
+            // Açılışta geçmiş günler arşive taşınır
+            try (Opened o = new Opened(dir)) {
+                ClinicServiceImpl service = o.service;
+                TestSupport.assertEquals(2, o.store.archivedPartitions(), "archived days");
+                TestSupport.assertEquals(1, o.store.hotPartitions(), "hot days");
+
+                TestSupport.assertEquals(List.of(1, 2, 3), ids(service.listPatientAppointments(patient)), "patient history");
+                TestSupport.assertEquals(List.of(1, 2, 3), ids(service.listDoctorAppointments(doctor)), "doctor history");
+                TestSupport.assertEquals(List.of(2), ids(service.listAppointmentsOn(old.toLocalDate())), "archived day");
+                TestSupport.assertEquals(1L, service.branchLoad(old.toLocalDate()).get("Dahiliye").total, "archived day load");
+                TestSupport.assertEquals(2L, service.report(older.minusDays(1), old.plusDays(1)).total.total, "report over archived days");
+                TestSupport.assertEquals(3L, service.report(older.minusDays(1), null).total.total, "report from an archived day on");
+                TestSupport.assertEquals(List.of(2), ids(service.searchNotes("ağrısı", 0, 0, 10)), "archived note search");
+                TestSupport.assertEquals(List.of(3, 1), ids(service.searchNotes("kontrol", patient, 0, 10)), "hot then archived");
+
+                TestSupport.assertThrows(IllegalStateException.class,
+                        () -> service.createAppointment(patient, doctor, old.plusMinutes(10), "x"), "conflict on an archived day");
+                TestSupport.assertEquals(old.plusMinutes(ClinicServiceImpl.APPOINTMENT_MINUTES),
+                        service.findNextFreeSlot(doctor, old), "next free slot on an archived day");
+
+                // Arşivlenmiş güne yeni randevu ve durum değişikliği
+                int late = service.createAppointment(patient, doctor, old.plusHours(2), "geç kayıt").getId();
+                service.markAppointment(2, AppointmentStatus.COMPLETED);
+                AppointmentReport.Counts counts = service.branchLoad(old.toLocalDate()).get("Dahiliye");
+                TestSupport.assertEquals(2L, counts.total, "archived day load after booking");
+                TestSupport.assertEquals(1L, counts.completed, "completed on the archived day");
+                TestSupport.assertEquals(List.of(2, late), ids(service.listAppointmentsOn(old.toLocalDate())), "archived day after booking");
+                TestSupport.assertEquals(List.of(1, 2, late, 3), ids(service.listPatientAppointments(patient)), "history after booking");
+            }
+            try (Opened o = new Opened(dir)) {
+                TestSupport.assertEquals(4, o.service.listPatientAppointments(patient).size(), "history after reopen");
+                TestSupport.assertEquals(AppointmentStatus.COMPLETED,
+                        o.service.listAppointmentsOn(old.toLocalDate()).get(0).getStatus(), "status after reopen");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Arşivlenmiş günlerin kişi indeksi taşıma ve silmeyi izler, yeniden açılışta dosyalardan kurulur
+    static void testArchivedHistoryFollowsMovesAndDeletes() throws Exception {
+        Path dir = TestSupport.tempDir("archive-index-test");
+        Patient patient = new Patient(1, "P", "555", "TC1", "A+");
+        Doctor doctor = new Doctor(1, "Dr. A", "1", "Dahiliye");
+        Doctor other = new Doctor(2, "Dr. B", "2", "Dahiliye");
+        List<Doctor> doctors = List.of(doctor, other);
+        LocalDateTime old = LocalDate.now().minusDays(30).atTime(10, 0);
+        try {
+            PartitionedAppointmentRepository store = new PartitionedAppointmentRepository(dir,
+                    id -> patient, id -> doctors.get(id - 1), 1);
+            store.save(1, new Appointment(1, patient, doctor, old, "a"));
+            store.save(2, new Appointment(2, patient, doctor, old.plusDays(1), "b"));
+            store.save(3, new Appointment(3, patient, other, old.plusDays(2), "c"));
+            TestSupport.assertEquals(0, store.archivedOfPatient(1).size(), "hot days are not indexed");
+            store.archive();
+            TestSupport.assertEquals(List.of(1, 2, 3), idsOf(store.archivedOfPatient(1)), "patient after archive");
+            TestSupport.assertEquals(List.of(1, 2), idsOf(store.archivedOfDoctor(1)), "doctor after archive");
+
+            // Başka doktora ve başka güne taşıma, silme
+            store.save(1, new Appointment(1, patient, other, old.plusDays(3), "a"));
+            store.delete(2);
+            TestSupport.assertEquals(List.of(3, 1), idsOf(store.archivedOfPatient(1)), "patient after move");
+            TestSupport.assertEquals(List.of(), idsOf(store.archivedOfDoctor(1)), "old doctor after move");
+            TestSupport.assertEquals(List.of(3, 1), idsOf(store.archivedOfDoctor(2)), "new doctor after move");
+            store.archive();
+
+            PartitionedAppointmentRepository reopened = new PartitionedAppointmentRepository(dir,
+                    id -> patient, id -> doctors.get(id - 1), 1);
+            TestSupport.assertEquals(List.of(3, 1), idsOf(reopened.archivedOfPatient(1)), "patient after reopen");
+            TestSupport.assertEquals(List.of(3, 1), idsOf(reopened.archivedOfDoctor(2)), "doctor after reopen");
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static List<Integer> idsOf(AppointmentCalendar calendar) {
+        return Arrays.stream(calendar.appointmentIds()).boxed().collect(Collectors.toList());
+    }
+
+    // Arşivlenmiş günlerin notları kelime dosyalarından indekslenir; dosya yoksa arşivden yeniden yazılır
+    static void testArchivedNotesAreSearchedThroughTheTermIndex() throws Exception {
+        Path dir = TestSupport.tempDir("archive-notes-test");
+        LocalDate today = LocalDate.now();
+        Path archiveDir = dir.resolve("appointments").resolve("archive");
+        try {
+            int patient;
+            int doctor;
+            try (Opened o = new Opened(dir)) {
+                patient = o.service.registerPatient("P", "555", "TC1", "A+").getId();
+                int other = o.service.registerPatient("R", "556", "TC2", "0+").getId();
+                doctor = o.service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+                for (int day = 40; day >= 20; day--) {
+                    LocalDateTime at = today.minusDays(day).atTime(10, 0);
+                    o.service.createAppointment(patient, doctor, at, day % 10 == 0 ? "Baş ağrısı" : "kontrol");
+                    o.service.createAppointment(other, doctor, at.plusHours(1), "baş dönmesi");
+                }
+            }
+            try (Opened o = new Opened(dir)) {
+                TestSupport.assertEquals(21, o.store.archivedPartitions(), "archived days");
+                TestSupport.check(Files.exists(archiveDir.resolve("day-" + today.minusDays(30) + ".terms")),
+                        "terms file next to the archive");
+                TestSupport.assertEquals(List.of(41, 21, 1), ids(o.service.searchNotes("ağrısı", 0, 0, 10)), "newest first");
+                TestSupport.assertEquals(List.of(41, 21), ids(o.service.searchNotes("baş", patient, 0, 2)), "limit");
+                TestSupport.assertEquals(List.of(), ids(o.service.searchNotes("dönmesi", patient, 0, 10)), "patient filter");
+                TestSupport.assertEquals(List.of(42), ids(o.service.searchNotes("\"baş dönmesi\"", 0, doctor, 1)), "phrase");
+            }
+
+            // Eski arşiv: kelime dosyaları yok
+            try (Stream<Path> files = Files.list(archiveDir)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".terms")).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            try (Opened o = new Opened(dir)) {
+                TestSupport.assertEquals(List.of(41, 21, 1), ids(o.service.searchNotes("ağrısı", 0, 0, 10)), "rebuilt from the archive");
+                TestSupport.check(Files.exists(archiveDir.resolve("day-" + today.minusDays(30) + ".terms")),
+                        "terms file rewritten");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+}
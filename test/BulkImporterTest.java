@@ -0,0 +1,70 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * BulkImporter: başlık, tırnaklı alanlar, hatalı satırlar, reddedilen paketin satır satır denenmesi
+ * ve hata raporu dosyası.
+ */
+public class BulkImporterTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(BulkImporterTest.class);
+    }
+
+    static void testImportsValidRowsAndReportsBadOnes() throws Exception {
+        Path dir = TestSupport.tempDir("import-test");
+        try {
+            Path csv = dir.resolve("patients.csv");
+            Files.write(csv, List.of(
+                    "name,phone,nationalId,bloodType",
+                    "Ali Veli,5551,TC1,A+",
+                    "\"Yılmaz, Ayşe\",5552,TC2,0-",
+                    ",5553,TC3,B+",                      // isim eksik
+                    "Mehmet,5554,TC1,AB+",               // tekrarlanan T.C. no: paket reddedilir
+                    "Zeynep,5555,TC5,A-",
+                    "Fazla,1,2,3,4"), StandardCharsets.UTF_8);
+            ClinicServiceImpl service = new ClinicServiceImpl();
+
+            BulkImporter.ImportReport report = new BulkImporter(service, 2).importFile(BulkImporter.EntityType.PATIENTS, csv);
+
+            TestSupport.assertEquals(6L, report.rowsRead, "rows read (header excluded)");
+            TestSupport.assertEquals(3L, report.imported, "rows imported");
+            TestSupport.assertEquals(3L, report.failed, "rows failed");
+            TestSupport.assertEquals(3, service.countPatients(), "patients in the service");
+            TestSupport.assertEquals("Yılmaz, Ayşe", service.findPatientByNationalId("TC2").orElseThrow().getName(), "quoted field");
+            TestSupport.check(service.findPatientByNationalId("TC5").isPresent(), "rows after the rejected one are imported");
+
+            List<String> errors = Files.readAllLines(report.errorFile, StandardCharsets.UTF_8);
+            TestSupport.assertEquals(3, errors.size(), "error report lines");
+            TestSupport.check(errors.stream().anyMatch(e -> e.startsWith("line 4:")), "missing name reported with its line");
+            TestSupport.check(errors.stream().anyMatch(e -> e.startsWith("line 5:")), "duplicate reported with its line");
+            TestSupport.check(errors.stream().anyMatch(e -> e.startsWith("line 7:")), "extra column reported with its line");
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Hatasız aktarımda boş hata raporu bırakılmaz
+    static void testCleanImportLeavesNoErrorFile() throws Exception {
+        Path dir = TestSupport.tempDir("import-test");
+        try {
+            Path csv = dir.resolve("doctors.csv");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 2500; i++) {
+                sb.append("Dr. ").append(i).append(",444").append(i).append(",Branch ").append(i % 5).append('\n');
+            }
+            Files.writeString(csv, sb, StandardCharsets.UTF_8);
+            ClinicServiceImpl service = new ClinicServiceImpl();
+
+            BulkImporter.ImportReport report = new BulkImporter(service, 2).importFile(BulkImporter.EntityType.DOCTORS, csv);
+
+            TestSupport.assertEquals(2500L, report.imported, "rows imported");
+            TestSupport.assertEquals(2500, service.countDoctors(), "doctors in the service");
+            TestSupport.check(!Files.exists(report.errorFile), "error report must be deleted");
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * CachingRepository: küçük kapasitelerde her şerit en az bir kayıt tutar, kapasite aşılmaz,
+ * yazmalar önbelleği güncel tutar.
+ */
+public class CachingRepositoryTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(CachingRepositoryTest.class);
+    }
+
+    private static IntArrayRepository<String> backing(int records) {
+        IntArrayRepository<String> repo = new IntArrayRepository<>();
+        for (int id = 1; id <= records; id++) {
+            repo.save(id, "v" + id);
+        }
+        return repo;
+    }
+
+    // Şerit sayısından küçük kapasitede ardışık ID'lerin ikinci okuması önbellekten gelir
+    static void testSmallCapacitiesHaveNoEmptyStripes() {
+        for (int capacity : new int[]{1, 3, 10, 63, 64, 100}) {
+            CachingRepository<String> cache = new CachingRepository<>("test", backing(1000), capacity);
+            int distinct = Integer.highestOneBit(Math.min(capacity, 64));
+            for (int pass = 0; pass < 2; pass++) {
+                for (int id = 1; id <= distinct; id++) {
+                    cache.get(id);
+                }
+            }
+            CacheStats stats = cache.stats();
+            TestSupport.assertEquals((long) distinct, stats.hits, "hits with capacity " + capacity);
+
+            for (int id = 1; id <= 1000; id++) {
+                cache.get(id);
+            }
+            TestSupport.check(cache.stats().size <= capacity, "capacity " + capacity + " exceeded: " + cache.stats());
+            TestSupport.check(cache.stats().size >= Math.min(capacity, 64), "cache too small: " + cache.stats());
+        }
+    }
+
+    static void testWritesGoThroughTheCache() {
+        IntArrayRepository<String> backing = backing(10);
+        CachingRepository<String> cache = new CachingRepository<>("test", backing, 4);
+        TestSupport.assertEquals("v3", cache.get(3), "read-through");
+        cache.save(3, "three");
+        TestSupport.assertEquals("three", backing.get(3), "write-through");
+        TestSupport.assertEquals("three", cache.get(3), "cached value after save");
+        cache.delete(3);
+        TestSupport.assertEquals(null, cache.get(3), "cached value after delete");
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ClinicHttpServer hata yanıtları: bulunamayan kayıt 404, geçersiz istek 400, beklenmeyen hata
+ * ayrıntı sızdırmadan 500.
+ */
+public class ClinicHttpServerTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(ClinicHttpServerTest.class);
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static Response request(ClinicHttpServer server, String method, String path, String body) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + server.port() + path).openConnection();
+        c.setRequestMethod(method);
+        if (body != null) {
+            c.setDoOutput(true);
+            try (OutputStream os = c.getOutputStream()) {
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = c.getResponseCode();
+        try (InputStream in = status < 400 ? c.getInputStream() : c.getErrorStream()) {
+            return new Response(status, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    static void testNotFoundAndBadRequest() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int patient = service.registerPatient("P", "555", "TC1", "A+").getId();
+        int doctor = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+        ClinicHttpServer server = new ClinicHttpServer(service, 0, 2);
+        server.start();
+        try {
+            TestSupport.assertEquals(404, request(server, "GET", "/patients/999", null).status, "unknown patient");
+            TestSupport.assertEquals(404, request(server, "POST", "/appointments",
+                    "{\"patientId\":" + patient + ",\"doctorId\":999,\"dateTime\":\"2025-03-03T09:00\"}").status,
+                    "booking an unknown doctor");
+            TestSupport.assertEquals(400, request(server, "POST", "/appointments",
+                    "{\"patientId\":" + patient + ",\"doctorId\":" + doctor + ",\"dateTime\":\"not a date\"}").status,
+                    "invalid date");
+            TestSupport.assertEquals(400, request(server, "GET", "/patients/abc", null).status, "invalid id");
+        } finally {
+            server.stop();
+        }
+    }
+
+    // Beklenmeyen hatanın sınıf adı ve mesajı istemciye gönderilmez
+    static void testInternalErrorsAreNotLeaked() throws Exception {
+        ClinicService failing = (ClinicService) Proxy.newProxyInstance(ClinicService.class.getClassLoader(),
+                new Class<?>[]{ClinicService.class}, (proxy, method, args) -> {
+                    throw new NullPointerException("secret internal state");
+                });
+        ClinicHttpServer server = new ClinicHttpServer(failing, 0, 2);
+        server.start();
+        try {
+            Response r = request(server, "GET", "/branches", null);
+            TestSupport.assertEquals(500, r.status, "status");
+            TestSupport.check(!r.body.contains("secret") && !r.body.contains("NullPointerException"),
+                    "internal details leaked: " + r.body);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * ClinicScript: fail-fast modunda hatalı satırdan önceki paket kaybolmaz, çıktı satır sırasındadır.
+ */
+public class ClinicScriptTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(ClinicScriptTest.class);
+    }
+
+    private static List<String> run(ClinicService service, boolean failFast, String... lines) throws Exception {
+        StringWriter out = new StringWriter();
+        new ClinicScript(service, out, failFast).run(new BufferedReader(new StringReader(String.join("\n", lines))));
+        return Arrays.stream(out.toString().split("\n")).filter(l -> !l.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static List<String> prefixes(List<String> output) {
+        return output.stream().map(l -> l.startsWith("ERROR") ? l : l.substring(0, l.indexOf(':')))
+                .collect(Collectors.toList());
+    }
+
+    static void testFailFastFlushesQueuedRowsBeforeAParseError() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        List<String> output = run(service, true,
+                "add-patient A 5551 TC1 A+",
+                "add-patient B 5552 TC2 B+",
+                "add-patient \"C 5553",
+                "add-patient D 5554 TC4 0+");
+        TestSupport.assertEquals(2, service.countPatients(), "patients before the bad line");
+        TestSupport.assertEquals(List.of("Added patient", "Added patient", "ERROR line 3: Unterminated quoted argument"),
+                prefixes(output), "output");
+    }
+
+    static void testFailFastFlushesQueuedRowsBeforeABadCommand() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        List<String> output = run(service, true,
+                "add-patient A 5551 TC1 A+",
+                "add-patient B",
+                "add-patient D 5554 TC4 0+");
+        TestSupport.assertEquals(1, service.countPatients(), "patients before the bad line");
+        TestSupport.assertEquals(2, output.size(), "output lines");
+        TestSupport.check(output.get(1).startsWith("ERROR line 2:"), "error after the flushed row: " + output);
+    }
+
+    // Paketteki bir satır durdurduysa sonraki hatalı satır ayrıca raporlanmaz
+    static void testFailFastStopsAtTheFirstFailedRow() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        List<String> output = run(service, true,
+                "add-patient A 5551 TC1 A+",
+                "add-patient B 5552 TC1 B+",
+                "add-patient \"C 5553");
+        TestSupport.assertEquals(1, service.countPatients(), "patients");
+        TestSupport.assertEquals(List.of("Added patient", "ERROR line 2"),
+                prefixes(output).stream().map(l -> l.startsWith("ERROR") ? l.substring(0, 12) : l)
+                        .collect(Collectors.toList()), "output");
+    }
+
+    static void testWithoutFailFastEveryLineRuns() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        List<String> output = run(service, false,
+                "add-patient A 5551 TC1 A+",
+                "add-patient \"C 5553",
+                "add-patient D 5554 TC4 0+");
+        TestSupport.assertEquals(2, service.countPatients(), "patients");
+        TestSupport.assertEquals(List.of("Added patient", "ERROR line 2: Unterminated quoted argument", "Added patient"),
+                prefixes(output), "output");
+    }
+}
@@ -0,0 +1,217 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * ClinicServiceImpl eşzamanlılık testleri: çok sayıda thread aynı doktor/saat için randevu alırken
+ * çift rezervasyon olmamalı, ID'ler tekil olmalı.
+ */
+public class ClinicServiceConcurrencyTest {
+
+    private static final int THREADS = 48;
+    private static final LocalDateTime SLOT = LocalDateTime.of(2025, 3, 3, 10, 0);
+
+    public static void main(String[] args) {
+        TestSupport.run(ClinicServiceConcurrencyTest.class);
+    }
+
+    // Aynı doktor, aynı saat: sadece bir rezervasyon başarılı olur
+    static void testSameDoctorSameSlot() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int doctorId = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+        int[] patients = new int[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            patients[i] = service.registerPatient("P" + i, "555" + i, "TC" + i, "A+").getId();
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(THREADS, t -> {
+            try {
+                // Yarısı aynı saate, yarısı çakışan 15 dakika sonrasına
+                service.createAppointment(patients[t], doctorId, SLOT.plusMinutes(t % 2 == 0 ? 0 : 15), "x");
+                booked.incrementAndGet();
+            } catch (IllegalStateException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        TestSupport.assertEquals(1, booked.get(), "successful bookings");
+        TestSupport.assertEquals(THREADS - 1, rejected.get(), "rejected bookings");
+        TestSupport.assertEquals(1, service.listDoctorAppointments(doctorId).size(), "doctor appointments");
+    }
+
+    // Aynı hasta, farklı doktorlar, aynı saat: hasta da iki yerde olamaz
+    static void testSamePatientSameSlot() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int patientId = service.registerPatient("P", "555", "TC1", "A+").getId();
+        int[] doctors = new int[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            doctors[i] = service.registerDoctor("Dr. " + i, "1", "Dahiliye").getId();
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(THREADS, t -> {
+            try {
+                service.createAppointment(patientId, doctors[t], SLOT, "x");
+                booked.incrementAndGet();
+            } catch (IllegalStateException e) {
+                // beklenen
+            }
+        });
+
+        TestSupport.assertEquals(1, booked.get(), "successful bookings");
+        TestSupport.assertEquals(1, service.listPatientAppointments(patientId).size(), "patient appointments");
+    }
+
+    // Rastgele tekil ve toplu rezervasyonlar: sonunda hiçbir doktorun ya da hastanın çakışan randevusu yok
+    static void testRandomBookingsNeverOverlap() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int doctors = 8;
+        int patients = 40;
+        int[] doctorIds = new int[doctors];
+        int[] patientIds = new int[patients];
+        for (int i = 0; i < doctors; i++) {
+            doctorIds[i] = service.registerDoctor("Dr. " + i, "1", "Branch " + (i % 3)).getId();
+        }
+        for (int i = 0; i < patients; i++) {
+            patientIds[i] = service.registerPatient("P" + i, "555" + i, "TC" + i, "A+").getId();
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(THREADS, t -> {
+            Random rnd = new Random(t);
+            for (int n = 0; n < 500; n++) {
+                // 15 dakikalık adımlar: 30 dakikalık randevular kısmen çakışabilir
+                LocalDateTime time = SLOT.plusMinutes(15L * rnd.nextInt(32));
+                try {
+                    if (t % 4 == 0) {
+                        List<NewAppointment> batch = List.of(
+                                new NewAppointment(patientIds[rnd.nextInt(patients)], doctorIds[rnd.nextInt(doctors)], time, "b"),
+                                new NewAppointment(patientIds[rnd.nextInt(patients)], doctorIds[rnd.nextInt(doctors)],
+                                        time.plusHours(2), "b"));
+                        booked.addAndGet(service.createAppointments(batch).size());
+                    } else {
+                        service.createAppointment(patientIds[rnd.nextInt(patients)], doctorIds[rnd.nextInt(doctors)], time, "s");
+                        booked.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // çakışma
+                }
+            }
+        });
+
+        List<Appointment> all = service.listAppointments();
+        TestSupport.assertEquals(booked.get(), all.size(), "stored appointments");
+        TestSupport.check(booked.get() > 0, "some bookings must succeed");
+        Set<Integer> ids = new HashSet<>();
+        Map<Integer, List<LocalDateTime>> byDoctor = new HashMap<>();
+        Map<Integer, List<LocalDateTime>> byPatient = new HashMap<>();
+        for (Appointment a : all) {
+            TestSupport.check(ids.add(a.getId()), "duplicate appointment ID " + a.getId());
+            byDoctor.computeIfAbsent(a.getDoctor().getId(), k -> new ArrayList<>()).add(a.getDateTime());
+            byPatient.computeIfAbsent(a.getPatient().getId(), k -> new ArrayList<>()).add(a.getDateTime());
+        }
+        assertNoOverlap(byDoctor, "doctor");
+        assertNoOverlap(byPatient, "patient");
+    }
+
+    // Kayıt ve rezervasyon aynı anda: ID'ler tekil, sayılar başarılı çağrı sayısına eşit (kayıp yazma yok)
+    static void testConcurrentRegistrationsAndBookings() throws Exception {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int perThread = 50;
+        Set<Integer> patientIds = ConcurrentHashMap.newKeySet();
+        Set<Integer> doctorIds = ConcurrentHashMap.newKeySet();
+        Set<Integer> appointmentIds = ConcurrentHashMap.newKeySet();
+        List<Integer> sharedDoctors = new CopyOnWriteArrayList<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(THREADS, t -> {
+            Random rnd = new Random(t);
+            for (int n = 0; n < perThread; n++) {
+                int patient = service.registerPatient("P" + t + "-" + n, "5" + t, "TC" + t + "-" + n, "A+").getId();
+                int doctor = service.registerDoctor("Dr. " + t + "-" + n, "4" + t, "Branch " + (t % 3)).getId();
+                if (!patientIds.add(patient) | !doctorIds.add(doctor)) {
+                    duplicates.incrementAndGet();
+                }
+                sharedDoctors.add(doctor);
+                // Kendi doktoru ve hastası: çakışma olamaz, her rezervasyon başarılı olmalı
+                if (!appointmentIds.add(service.createAppointment(patient, doctor, SLOT.plusDays(n), "own").getId())) {
+                    duplicates.incrementAndGet();
+                }
+                // Başka bir thread'in doktoru: aynı saat için yarışır
+                int other = sharedDoctors.get(rnd.nextInt(sharedDoctors.size()));
+                try {
+                    int id = service.createAppointment(patient, other, SLOT.plusHours(1 + rnd.nextInt(4)), "shared").getId();
+                    if (!appointmentIds.add(id)) {
+                        duplicates.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        int expected = THREADS * perThread;
+        TestSupport.assertEquals(0, duplicates.get(), "duplicate IDs");
+        TestSupport.assertEquals(expected, patientIds.size(), "registered patients");
+        TestSupport.assertEquals(expected, doctorIds.size(), "registered doctors");
+        TestSupport.assertEquals(expected, service.countPatients(), "patient count");
+        TestSupport.assertEquals(expected, service.countDoctors(), "doctor count");
+        TestSupport.assertEquals(2 * expected - rejected.get(), appointmentIds.size(), "successful bookings");
+        TestSupport.assertEquals(appointmentIds.size(), service.countAppointments(), "appointment count");
+        TestSupport.assertEquals(patientIds, ids(service.listPatients(), Patient::getId), "stored patient IDs");
+        TestSupport.assertEquals(doctorIds, ids(service.listDoctors(), Doctor::getId), "stored doctor IDs");
+        TestSupport.assertEquals(appointmentIds, ids(service.listAppointments(), Appointment::getId), "stored appointment IDs");
+    }
+
+    private static <T> Set<Integer> ids(List<T> entities, Function<T, Integer> id) {
+        Set<Integer> result = new HashSet<>();
+        for (T e : entities) {
+            result.add(id.apply(e));
+        }
+        return result;
+    }
+
+    private static void assertNoOverlap(Map<Integer, List<LocalDateTime>> times, String who) {
+        for (Map.Entry<Integer, List<LocalDateTime>> e : times.entrySet()) {
+            List<LocalDateTime> list = e.getValue();
+            Collections.sort(list);
+            for (int i = 1; i < list.size(); i++) {
+                long gap = ChronoUnit.MINUTES.between(list.get(i - 1), list.get(i));
+                TestSupport.check(gap >= ClinicServiceImpl.APPOINTMENT_MINUTES,
+                        who + " " + e.getKey() + " double booked at " + list.get(i - 1) + " and " + list.get(i));
+            }
+        }
+    }
+
+    interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    // Tüm thread'ler aynı anda başlar; herhangi birindeki beklenmeyen hata testi düşürür
+    static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ClinicServiceImpl giriş doğrulaması: geçersiz istek hiçbir durumu değiştirmeden reddedilir.
+ */
+public class ClinicServiceValidationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 3);
+
+    public static void main(String[] args) {
+        TestSupport.run(ClinicServiceValidationTest.class);
+    }
+
+    static void testDoctorWithoutBranchIsRejectedBeforeAnyChange() {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int first = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> service.registerDoctor("Dr. B", "2", null), "single registration");
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> service.registerDoctors(List.of(new NewDoctor("Dr. C", "3", "KBB"),
+                        new NewDoctor("Dr. D", "4", null))), "batch registration");
+
+        TestSupport.assertEquals(1, service.countDoctors(), "doctors after rejected registrations");
+        TestSupport.assertEquals(first + 1, service.registerDoctor("Dr. E", "5", "KBB").getId(),
+                "rejected registrations must not use up IDs");
+        TestSupport.assertEquals(List.of("Dr. A", "Dr. E"),
+                service.listDoctors(0, 10).stream().map(Doctor::getName).collect(Collectors.toList()), "registered doctors");
+    }
+
+    // Branş kontrolünden önce diske yazılmış branşsız doktor ve randevusu: servis açılır,
+    // branş sayaçları bozulmaz, bu doktora yeni randevu verilmez
+    static void testLegacyDoctorWithoutBranch() {
+        IntArrayRepository<Patient> patients = new IntArrayRepository<>();
+        IntArrayRepository<Doctor> doctors = new IntArrayRepository<>();
+        IntArrayRepository<Appointment> appointments = new IntArrayRepository<>();
+        Patient p = new Patient(1, "P", "555", "TC1", "A+");
+        Doctor legacy = new Doctor(1, "Dr. Old", "1", null);
+        patients.save(1, p);
+        doctors.save(1, legacy);
+        doctors.save(2, new Doctor(2, "Dr. New", "2", "KBB"));
+        appointments.save(1, new Appointment(1, p, legacy, DAY.atTime(9, 0), "old"));
+
+        ClinicServiceImpl service = new ClinicServiceImpl(patients, doctors, appointments);
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> service.createAppointment(1, 1, DAY.atTime(11, 0), "x"), "booking a branchless doctor");
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> service.createAppointments(List.of(new NewAppointment(1, 2, DAY.atTime(12, 0), "ok"),
+                        new NewAppointment(1, 1, DAY.atTime(13, 0), "x"))), "batch with a branchless doctor");
+        TestSupport.assertEquals(1, service.countAppointments(), "appointments after rejected bookings");
+
+        service.createAppointment(1, 2, DAY.atTime(10, 0), "ok");
+        service.markAppointment(1, AppointmentStatus.COMPLETED);
+        Map<String, AppointmentReport.Counts> load = service.branchLoad(DAY);
+        TestSupport.assertEquals(Set.of("KBB"), load.keySet(), "branches in the daily load");
+        TestSupport.assertEquals(1L, load.get("KBB").total, "KBB appointments");
+    }
+
+    // Dakika sütununa sığmayan zamanlar doğrulama hatasıdır (ArithmeticException değil), hiçbir şey yazılmaz
+    static void testDatesOutsideTheSupportedRangeAreRejected() {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        int patient = service.registerPatient("P", "555", "TC1", "A+").getId();
+        int doctor = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+        for (LocalDateTime time : List.of(LocalDateTime.of(7000, 1, 1, 9, 0), LocalDateTime.of(-3000, 1, 1, 9, 0),
+                ColumnarAppointmentRepository.MAX_DATE_TIME.plusMinutes(1))) {
+            TestSupport.assertThrows(IllegalArgumentException.class,
+                    () -> service.createAppointment(patient, doctor, time, "x"), "single booking at " + time);
+            TestSupport.assertThrows(IllegalArgumentException.class,
+                    () -> service.createAppointments(List.of(new NewAppointment(patient, doctor, DAY.atTime(9, 0), "ok"),
+                            new NewAppointment(patient, doctor, time, "x"))), "batch booking at " + time);
+            TestSupport.assertThrows(IllegalArgumentException.class,
+                    () -> service.findNextFreeSlot(doctor, time), "free slot search from " + time);
+        }
+        TestSupport.assertEquals(0, service.countAppointments(), "appointments after rejected bookings");
+        service.createAppointment(patient, doctor, ColumnarAppointmentRepository.MAX_DATE_TIME.minusMinutes(59), "late");
+        TestSupport.assertEquals(1, service.countAppointments(), "booking inside the range");
+    }
+}
@@ -0,0 +1,83 @@
+import java.time.LocalDateTime;
+
+/**
+ * ColumnarAppointmentRepository: sütunlardan geri okunan randevular, not tekilleştirme.
+ */
+public class ColumnarAppointmentRepositoryTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 3, 9, 30);
+
+    public static void main(String[] args) {
+        TestSupport.run(ColumnarAppointmentRepositoryTest.class);
+    }
+
+    private static ColumnarAppointmentRepository repo() {
+        Patient p = new Patient(1, "P", "555", "TC1", "A+");
+        Doctor d = new Doctor(1, "Dr. A", "1", "Dahiliye");
+        return new ColumnarAppointmentRepository(id -> id == 1 ? p : null, id -> id == 1 ? d : null);
+    }
+
+    private static Appointment appointment(ColumnarAppointmentRepository repo, int id, String note) {
+        Appointment a = new Appointment(id, new Patient(1, "P", "555", "TC1", "A+"),
+                new Doctor(1, "Dr. A", "1", "Dahiliye"), TIME.plusMinutes(30L * id), note);
+        repo.save(id, a);
+        return a;
+    }
+
+    private static Appointment at(int id, String note) {
+        return new Appointment(id, new Patient(1, "P", "555", "TC1", "A+"), new Doctor(1, "Dr. A", "1", "Dahiliye"), TIME, note);
+    }
+
+    static void testRoundTrip() {
+        ColumnarAppointmentRepository repo = repo();
+        appointment(repo, 1, "Baş ağrısı");
+        appointment(repo, 2, null);
+        appointment(repo, 3, "");
+        Appointment a = repo.get(1);
+        TestSupport.assertEquals("Baş ağrısı", a.getNote(), "note");
+        TestSupport.assertEquals(TIME.plusMinutes(30), a.getDateTime(), "date/time");
+        TestSupport.assertEquals(AppointmentStatus.SCHEDULED, a.getStatus(), "status");
+        TestSupport.assertEquals(null, repo.get(2).getNote(), "null note");
+        TestSupport.assertEquals("", repo.get(3).getNote(), "empty note");
+        repo.delete(1);
+        TestSupport.assertEquals(null, repo.get(1), "deleted appointment");
+        TestSupport.assertEquals(2, repo.count(), "count after delete");
+    }
+
+    // Aynı metin farklı String nesneleriyle gelse de tek nesnede saklanır
+    static void testRepeatedNotesShareOneInstance() {
+        ColumnarAppointmentRepository repo = repo();
+        for (int id = 1; id <= 100; id++) {
+            appointment(repo, id, new String("Kontrol muayenesi"));
+        }
+        String first = repo.get(1).getNote();
+        for (int id = 2; id <= 100; id++) {
+            TestSupport.check(repo.get(id).getNote() == first, "repeated note must be deduplicated (id " + id + ")");
+        }
+    }
+
+    // Tekil notlar tablo dolsa da doğru kalır (tablo sadece paylaşım içindir)
+    static void testUniqueNotesBeyondTheTableSize() {
+        ColumnarAppointmentRepository repo = repo();
+        for (int id = 1; id <= 20_000; id++) {
+            appointment(repo, id, "Not " + id);
+        }
+        for (int id = 1; id <= 20_000; id += 997) {
+            TestSupport.assertEquals("Not " + id, repo.get(id).getNote(), "unique note " + id);
+        }
+    }
+
+    // Büyük bir ID sadece kendi segmentini ayırır; sınırın üstü reddedilir
+    static void testLargeIdsAllocateOneSegment() {
+        ColumnarAppointmentRepository repo = repo();
+        appointment(repo, 1, "first");
+        repo.save(ColumnarAppointmentRepository.MAX_ID, at(ColumnarAppointmentRepository.MAX_ID, "last"));
+        TestSupport.assertEquals("last", repo.get(ColumnarAppointmentRepository.MAX_ID).getNote(), "appointment at MAX_ID");
+        TestSupport.assertEquals(null, repo.get(ColumnarAppointmentRepository.MAX_ID - 1), "empty neighbour");
+        TestSupport.assertEquals(null, repo.get(1 << 20), "unallocated segment");
+        TestSupport.assertEquals(2, repo.findAll().size(), "listed appointments");
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> repo.save(ColumnarAppointmentRepository.MAX_ID + 1, at(1, "x")), "ID above MAX_ID");
+        TestSupport.assertEquals(2, repo.count(), "count");
+    }
+}
@@ -0,0 +1,93 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * EventBus: hata fırlatan dinleyici aboneliği durdurmaz, dolu halka randevu kilitlerini tutmaz.
+ */
+public class EventBusTest {
+
+    private static final LocalDateTime DAY = LocalDate.of(2025, 3, 3).atTime(9, 0);
+
+    public static void main(String[] args) {
+        TestSupport.run(EventBusTest.class);
+    }
+
+    // Error (RuntimeException değil) fırlatan dinleyici de sırasını ilerletir; yoksa üretici halkada takılır
+    static void testListenerErrorDoesNotStopTheSubscriber() throws Exception {
+        EventBus bus = new EventBus(4);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        bus.subscribe("failing", (event, sequence, endOfBatch) -> {
+            if (sequence == 0) {
+                throw new AssertionError("listener bug");
+            }
+            received.add(sequence);
+        });
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                bus.publish(new ClinicEvent() {
+                });
+            }
+        });
+        producer.start();
+        producer.join(5000);
+        TestSupport.check(!producer.isAlive(), "producer is stuck behind a failed listener");
+        bus.close();
+        TestSupport.assertEquals(19, received.size(), "events after the failure");
+    }
+
+    // Halka dolu ve abone takılıyken yayınlayan rezervasyon, aynı doktorun kilidini bırakmış olmalı
+    static void testFullRingDoesNotHoldBookingLocks() throws Exception {
+        System.setProperty(EventBus.CAPACITY_PROPERTY, "4");
+        ClinicServiceImpl service;
+        try {
+            service = new ClinicServiceImpl();
+        } finally {
+            System.clearProperty(EventBus.CAPACITY_PROPERTY);
+        }
+        int doctor = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+        int patient = service.registerPatient("P", "555", "TC1", "A+").getId();
+        int other = service.registerPatient("Q", "556", "TC2", "0+").getId();
+
+        CountDownLatch release = new CountDownLatch(1);
+        service.events().subscribe("slow", (event, sequence, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // Dört olay halkayı doldurur; beşinci rezervasyon kaydedilir ve yayınlarken bekler
+        Thread filler = new Thread(() -> {
+            for (int i = 0; i < 8; i++) {
+                service.createAppointment(patient, doctor, DAY.plusHours(i), "x");
+            }
+        });
+        filler.setDaemon(true);
+        filler.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.countAppointments() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        TestSupport.check(service.countAppointments() >= 5, "filler did not reach a full ring");
+
+        // Aynı doktora yeni rezervasyon: kaydedilir (olay yayını beklese de)
+        Thread booking = new Thread(() -> service.createAppointment(other, doctor, DAY.plusDays(1), "y"));
+        booking.setDaemon(true);
+        booking.start();
+        deadline = System.currentTimeMillis() + 5000;
+        while (service.listDoctorAppointments(doctor).stream().noneMatch(a -> a.getPatient().getId() == other)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        boolean booked = service.listDoctorAppointments(doctor).stream().anyMatch(a -> a.getPatient().getId() == other);
+        release.countDown();
+        filler.join(5000);
+        booking.join(5000);
+        service.close();
+        TestSupport.check(booked, "booking was blocked by a full event ring");
+        TestSupport.assertEquals(9, service.countAppointments(), "appointments");
+    }
+}
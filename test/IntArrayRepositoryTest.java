@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IntArrayRepository: seyrek ID'ler sadece gerekli segmenti ayırır, sınır dışı ID'ler reddedilir.
+ */
+public class IntArrayRepositoryTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(IntArrayRepositoryTest.class);
+    }
+
+    // Aradaki segmentler ayrılsaydı MAX_ID civarı bir kayıt ~1 GB referans dizisi isterdi
+    static void testSparseIdsAllocateOnlyTheirSegment() {
+        IntArrayRepository<String> repo = new IntArrayRepository<>();
+        repo.save(3, "low");
+        repo.save(IntArrayRepository.MAX_ID, "high");
+        repo.save(IntArrayRepository.MAX_ID / 2, "middle");
+
+        TestSupport.assertEquals(3, repo.count(), "record count");
+        TestSupport.assertEquals("high", repo.get(IntArrayRepository.MAX_ID), "highest ID");
+        TestSupport.assertEquals(null, repo.get(IntArrayRepository.MAX_ID / 4), "ID in an unallocated segment");
+        List<Integer> ids = new ArrayList<>();
+        repo.forEach((id, v) -> ids.add(id));
+        TestSupport.assertEquals(List.of(3, IntArrayRepository.MAX_ID / 2, IntArrayRepository.MAX_ID), ids, "forEach order");
+        repo.delete(IntArrayRepository.MAX_ID / 4);
+        repo.delete(IntArrayRepository.MAX_ID);
+        TestSupport.assertEquals(2, repo.count(), "record count after delete");
+    }
+
+    static void testIdsOutOfRangeAreRejected() {
+        IntArrayRepository<String> repo = new IntArrayRepository<>();
+        TestSupport.assertThrows(IllegalArgumentException.class,
+                () -> repo.save(IntArrayRepository.MAX_ID + 1, "x"), "ID above the limit");
+        TestSupport.assertThrows(IllegalArgumentException.class, () -> repo.save(-1, "x"), "negative ID");
+        TestSupport.assertEquals(null, repo.get(Integer.MAX_VALUE), "lookup above the limit");
+        TestSupport.assertEquals(0, repo.count(), "record count");
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IntRepository.findPage (keyset sayfalama): boşluklar, sınırlar ve afterId taşması.
+ */
+public class IntRepositoryPagingTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(IntRepositoryPagingTest.class);
+    }
+
+    private static IntArrayRepository<String> repoWithGaps() {
+        IntArrayRepository<String> repo = new IntArrayRepository<>();
+        for (int id = 1; id <= 50; id++) {
+            if (id % 7 != 0) {
+                repo.save(id, "v" + id);
+            }
+        }
+        return repo;
+    }
+
+    // Sayfalar art arda istendiğinde her kayıt bir kez ve sırayla gelir
+    static void testPagesCoverAllRecordsOnce() {
+        IntArrayRepository<String> repo = repoWithGaps();
+        List<String> all = new ArrayList<>();
+        int after = 0;
+        while (true) {
+            List<String> page = repo.findPage(after, 10);
+            all.addAll(page);
+            if (page.size() < 10) {
+                break;
+            }
+            after = Integer.parseInt(page.get(page.size() - 1).substring(1));
+        }
+        TestSupport.assertEquals(repo.count(), all.size(), "records over all pages");
+        TestSupport.assertEquals(repo.findAll(), all, "page order");
+    }
+
+    static void testAfterIdBounds() {
+        IntArrayRepository<String> repo = repoWithGaps();
+        TestSupport.assertEquals(List.of(), repo.findPage(Integer.MAX_VALUE, 10), "afterId = Integer.MAX_VALUE");
+        TestSupport.assertEquals(List.of(), repo.findPage(Integer.MAX_VALUE - 1, 10), "afterId past the last ID");
+        TestSupport.assertEquals(List.of(), repo.findPage(50, 10), "afterId = last ID");
+        TestSupport.assertEquals(List.of("v1", "v2"), repo.findPage(Integer.MIN_VALUE, 2), "negative afterId");
+        TestSupport.assertEquals(List.of(), repo.findPage(0, 0), "zero limit");
+    }
+
+    // GET /patients?afterId=2147483647 servis üzerinden aynı yola gelir
+    static void testServiceListingPastTheEnd() {
+        ClinicServiceImpl service = new ClinicServiceImpl();
+        for (int i = 0; i < 5; i++) {
+            service.registerPatient("P" + i, "555" + i, "TC" + i, "A+");
+        }
+        TestSupport.assertEquals(5, service.listPatients(0, 100).size(), "first page");
+        TestSupport.assertEquals(0, service.listPatients(Integer.MAX_VALUE, 100).size(), "page after Integer.MAX_VALUE");
+    }
+}
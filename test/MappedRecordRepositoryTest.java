@@ -0,0 +1,121 @@
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MappedRecordRepository: eşzamanlı yazma sırasında yarım kayıt okunmaması, sayaç, kopyasız tarama.
+ */
+public class MappedRecordRepositoryTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(MappedRecordRepositoryTest.class);
+    }
+
+    // Tüm alanları aynı k değerinden türetilmiş hasta: okunan kayıt karışıksa alanlar uyuşmaz
+    private static Patient patient(int id, int k) {
+        return new Patient(id, "Name " + k, "555" + k, "TC" + k, k % 2 == 0 ? "A+" : "0-");
+    }
+
+    static void testReadersNeverSeeHalfWrittenRecords() throws Exception {
+        Path dir = TestSupport.tempDir("mapped-test");
+        try (MappedRecordRepository<Patient> repo =
+                     new MappedRecordRepository<>(dir.resolve("patients.dat"), new PatientRecordCodec())) {
+            int ids = 16;
+            for (int id = 1; id <= ids; id++) {
+                repo.save(id, patient(id, 0));
+            }
+            AtomicBoolean stop = new AtomicBoolean();
+            ExecutorService pool = Executors.newFixedThreadPool(6);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 2; w++) {
+                int seed = w;
+                futures.add(pool.submit(() -> {
+                    Random rnd = new Random(seed);
+                    for (int k = 1; !stop.get(); k++) {
+                        int id = 1 + rnd.nextInt(ids);
+                        // Uzunlukları değişen alanlar: yarım yazım kolayca görünür olur
+                        repo.save(id, patient(id, k * (1 + rnd.nextInt(1000))));
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < 4; r++) {
+                futures.add(pool.submit(() -> {
+                    Random rnd = new Random();
+                    while (!stop.get()) {
+                        Patient p = repo.get(1 + rnd.nextInt(ids));
+                        String k = p.getName().substring("Name ".length());
+                        if (!p.getPhone().equals("555" + k) || !p.getNationalId().equals("TC" + k)) {
+                            throw new AssertionError("torn read: " + p);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(1000);
+            stop.set(true);
+            try {
+                for (Future<?> f : futures) {
+                    f.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            TestSupport.assertEquals(ids, repo.count(), "record count");
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Aynı ID'lerin ilk kaydı birden fazla thread'den: sayaç her ID'yi bir kez sayar
+    static void testConcurrentFirstSavesCountOnce() throws Exception {
+        Path dir = TestSupport.tempDir("mapped-test");
+        try (MappedRecordRepository<Patient> repo =
+                     new MappedRecordRepository<>(dir.resolve("patients.dat"), new PatientRecordCodec())) {
+            ClinicServiceConcurrencyTest.runConcurrently(16, t -> {
+                for (int id = 1; id <= 2000; id++) {
+                    repo.save(id, patient(id, t));
+                }
+            });
+            TestSupport.assertEquals(2000, repo.count(), "record count");
+            for (int id = 1; id <= 2000; id += 100) {
+                repo.delete(id);
+            }
+            TestSupport.assertEquals(1980, repo.count(), "record count after deletes");
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    static void testViewScanAndReopen() throws Exception {
+        Path dir = TestSupport.tempDir("mapped-test");
+        Path file = dir.resolve("patients.dat");
+        try {
+            try (MappedRecordRepository<Patient> repo = new MappedRecordRepository<>(file, new PatientRecordCodec())) {
+                for (int id = 1; id <= 100; id++) {
+                    repo.save(id, patient(id, id));
+                }
+                repo.delete(50);
+                // Çok uzun alan reddedilir ve mevcut kayda dokunulmaz
+                TestSupport.assertThrows(IllegalArgumentException.class,
+                        () -> repo.save(7, new Patient(7, "x".repeat(500), "1", "2", "A+")), "too long name");
+                TestSupport.assertEquals("Name 7", repo.get(7).getName(), "record after rejected save");
+            }
+            try (MappedRecordRepository<Patient> repo = new MappedRecordRepository<>(file, new PatientRecordCodec())) {
+                TestSupport.assertEquals(99, repo.count(), "record count after reopen");
+                Map<Integer, String> seen = new HashMap<>();
+                TestSupport.check(repo.forEachView(new PatientView(), (id, v) -> seen.put(id, v.getNationalId())),
+                        "mapped repository supports views");
+                TestSupport.assertEquals(99, seen.size(), "records visited by view scan");
+                TestSupport.assertEquals("TC42", seen.get(42), "view field");
+                List<Integer> ids = new ArrayList<>();
+                repo.forEachId(ids::add);
+                TestSupport.assertEquals(99, ids.size(), "forEachId");
+                TestSupport.check(!ids.contains(50), "deleted ID must not be visited");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * NoteIndex: sırasız gelen ID'lerle postings doğru kalır; az geçen kelimeler küçük yer tutar.
+ */
+public class NoteIndexTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(NoteIndexTest.class);
+    }
+
+    private static List<Integer> read(NoteIndex.Postings postings) {
+        List<Integer> ids = new ArrayList<>();
+        NoteIndex.Cursor c = postings.cursor();
+        for (int x = c.advance(0); x != NoteIndex.NO_MORE; x = c.advance(x + 1)) {
+            ids.add(x);
+        }
+        return ids;
+    }
+
+    // Kuyruk büyürken, bloklar kodlanırken ve kodlanmış aralığa gecikmiş ID düşerken sıra korunur
+    static void testPostingsStaySortedWithLateIds() {
+        Random rnd = new Random(42);
+        for (int size : new int[]{1, 3, 200, 5000}) {
+            NoteIndex.Postings postings = new NoteIndex.Postings();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 1; i <= size; i++) {
+                int id = rnd.nextInt(10) == 0 ? 1 + rnd.nextInt(i * 3) : i * 3;
+                postings.add(id);
+                expected.add(id);
+            }
+            TestSupport.assertEquals(new ArrayList<>(expected), read(postings), "ids of a list of " + size);
+            TestSupport.assertEquals(expected.size(), postings.size(), "size of a list of " + size);
+        }
+    }
+
+    // Büyük sözlük: kelimelerin çoğu bir iki notta geçer, her biri için ayrılan bellek küçük kalmalı
+    static void testRareTermsAllocateLittle() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return;
+        }
+        int terms = 200_000;
+        NoteIndex.Postings[] vocabulary = new NoteIndex.Postings[terms];
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int t = 0; t < terms; t++) {
+            NoteIndex.Postings postings = new NoteIndex.Postings();
+            postings.add(t + 1);
+            if (t % 2 == 0) {
+                postings.add(t + 2);
+            }
+            vocabulary[t] = postings;
+        }
+        long perTerm = (threads.getCurrentThreadAllocatedBytes() - before) / terms;
+        TestSupport.check(perTerm <= 128, "bytes allocated per rare term: " + perTerm);
+        TestSupport.assertEquals(2, vocabulary[0].size(), "first term");
+    }
+}
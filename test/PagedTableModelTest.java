@@ -0,0 +1,101 @@
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * PagedTableModel: ID'lerde boşluk varken satırlar doğru sırada ve eksiksiz gösterilir.
+ * Model EDT'den kullanılır; testler başsız (headless) ortamda da çalışır.
+ */
+public class PagedTableModelTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(PagedTableModelTest.class);
+    }
+
+    // ID -> değer; page/count servis gibi davranır
+    private static PagedTableModel.PageSource<Integer> source(ConcurrentSkipListMap<Integer, Integer> rows) {
+        return PagedTableModel.PageSource.of(rows::size,
+                (afterId, limit) -> rows.tailMap(afterId, false).values().stream().limit(limit).collect(Collectors.toList()),
+                id -> id);
+    }
+
+    private static PagedTableModel<Integer> model(ConcurrentSkipListMap<Integer, Integer> rows) {
+        return new PagedTableModel<>(source(rows), List.of(new PagedTableModel.Column<>("ID", id -> id)));
+    }
+
+    // Tüm satırlar yüklenene kadar getRow çağırır (yükleme SwingWorker'larla EDT'de tamamlanır)
+    private static List<Integer> visibleRows(PagedTableModel<Integer> model, int expectedRows) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            AtomicReference<List<Integer>> result = new AtomicReference<>();
+            SwingUtilities.invokeAndWait(() -> {
+                if (model.getRowCount() != expectedRows) {
+                    return;
+                }
+                List<Integer> rows = new ArrayList<>();
+                for (int r = 0; r < model.getRowCount(); r++) {
+                    Integer row = model.getRow(r);
+                    if (row == null) {
+                        return;
+                    }
+                    rows.add(row);
+                }
+                result.set(rows);
+            });
+            if (result.get() != null) {
+                return result.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("rows were not loaded in time");
+    }
+
+    private static ConcurrentSkipListMap<Integer, Integer> gappedRows(int maxId) {
+        ConcurrentSkipListMap<Integer, Integer> rows = new ConcurrentSkipListMap<>();
+        for (int id = 1; id <= maxId; id++) {
+            // Başarısız kayıtların bıraktığı boşluklar
+            if (id % 7 != 0 && id != 2) {
+                rows.put(id, id);
+            }
+        }
+        return rows;
+    }
+
+    static void testGappedIdsShowEveryRowOnce() throws Exception {
+        ConcurrentSkipListMap<Integer, Integer> rows = gappedRows(1000);
+        PagedTableModel<Integer> model = model(rows);
+        SwingUtilities.invokeAndWait(model::refresh);
+        TestSupport.assertEquals(new ArrayList<>(rows.keySet()), visibleRows(model, rows.size()), "ascending rows");
+
+        SwingUtilities.invokeAndWait(model::toggleSortOrder);
+        List<Integer> expected = new ArrayList<>(rows.descendingKeySet());
+        TestSupport.assertEquals(expected, visibleRows(model, rows.size()), "descending rows");
+    }
+
+    static void testGaplessIdsUseTheFastPath() throws Exception {
+        ConcurrentSkipListMap<Integer, Integer> rows = new ConcurrentSkipListMap<>();
+        for (int id = 1; id <= 450; id++) {
+            rows.put(id, id);
+        }
+        PagedTableModel<Integer> model = model(rows);
+        SwingUtilities.invokeAndWait(model::refresh);
+        TestSupport.assertEquals(new ArrayList<>(rows.keySet()), visibleRows(model, rows.size()), "rows");
+    }
+
+    // Yeni kayıtlar (araya boşluk girmiş olsa da) sona eklenir
+    static void testRowsAvailableAppendsAcrossGaps() throws Exception {
+        ConcurrentSkipListMap<Integer, Integer> rows = gappedRows(390);
+        PagedTableModel<Integer> model = model(rows);
+        SwingUtilities.invokeAndWait(model::refresh);
+        visibleRows(model, rows.size());
+
+        for (int id = 395; id <= 700; id += 3) {
+            rows.put(id, id);
+        }
+        SwingUtilities.invokeAndWait(() -> model.rowsAvailable(700));
+        TestSupport.assertEquals(new ArrayList<>(rows.keySet()), visibleRows(model, rows.size()), "rows after append");
+    }
+}
@@ -0,0 +1,108 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * ShardedClinicService: aynı JVM'deki bellek içi parçalarla parçalar arası randevu ve eşzamanlı
+ * durum işaretlemede tek olay.
+ */
+public class ShardedClinicServiceTest {
+
+    private static final LocalDateTime DAY = LocalDate.of(2025, 3, 3).atTime(9, 0);
+
+    public static void main(String[] args) {
+        TestSupport.run(ShardedClinicServiceTest.class);
+    }
+
+    private interface ShardedTest {
+        void run(ShardedClinicService service) throws Exception;
+    }
+
+    private static void withShards(int count, ShardedTest test) throws Exception {
+        List<ShardServer> servers = new ArrayList<>();
+        try {
+            StringBuilder addresses = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                ShardServer server = new ShardServer(i, count, 0, null).start();
+                servers.add(server);
+                addresses.append(i == 0 ? "" : ",").append("localhost:").append(server.port());
+            }
+            ShardedClinicService service = ShardedClinicService.connect(addresses.toString());
+            try {
+                test.run(service);
+            } finally {
+                service.close();
+            }
+        } finally {
+            servers.forEach(ShardServer::close);
+        }
+    }
+
+    // Hastalar ve doktor farklı parçalara düşer; randevular hasta tarafından da listelenir
+    static void testAppointmentsAcrossShards() throws Exception {
+        withShards(2, service -> {
+            int doctor = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+            List<Integer> patients = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                patients.add(service.registerPatient("P" + i, "55" + i, "TC" + i, "A+").getId());
+            }
+            for (int i = 0; i < patients.size(); i++) {
+                service.createAppointment(patients.get(i), doctor, DAY.plusHours(i), "visit " + i);
+            }
+            TestSupport.assertEquals(4, service.countAppointments(), "appointments");
+            TestSupport.assertEquals(4, service.listDoctorAppointments(doctor).size(), "doctor's appointments");
+            for (int i = 0; i < patients.size(); i++) {
+                List<Appointment> own = service.listPatientAppointments(patients.get(i));
+                TestSupport.assertEquals(1, own.size(), "appointments of patient " + i);
+                TestSupport.assertEquals("P" + i, own.get(0).getPatient().getName(), "replicated patient");
+            }
+            TestSupport.assertThrows(IllegalStateException.class,
+                    () -> service.createAppointment(patients.get(0), doctor, DAY, "double booking"), "conflict");
+            TestSupport.assertThrows(NotFoundException.class,
+                    () -> service.markAppointment(9999, AppointmentStatus.COMPLETED), "unknown appointment");
+        });
+    }
+
+    // Önceki durum parçanın kilitleri altında okunur: aynı işaretlemeyi yarışan çağrılardan sadece biri olay yayınlar
+    static void testConcurrentMarksPublishOneEvent() throws Exception {
+        withShards(2, service -> {
+            int doctor = service.registerDoctor("Dr. A", "1", "Dahiliye").getId();
+            int patient = service.registerPatient("P", "555", "TC1", "A+").getId();
+            List<AppointmentStatusChanged> changes = new CopyOnWriteArrayList<>();
+            service.events().subscribe("marks", (event, sequence, endOfBatch) -> {
+                if (event instanceof AppointmentStatusChanged) {
+                    changes.add((AppointmentStatusChanged) event);
+                }
+            });
+            for (int round = 0; round < 20; round++) {
+                int id = service.createAppointment(patient, doctor, DAY.plusDays(round), "r" + round).getId();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Thread> threads = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    Thread thread = new Thread(() -> {
+                        try {
+                            start.await();
+                            service.markAppointment(id, AppointmentStatus.COMPLETED);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                    thread.start();
+                    threads.add(thread);
+                }
+                start.countDown();
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            service.events().close();
+            TestSupport.assertEquals(20, changes.size(), "status change events");
+            for (AppointmentStatusChanged c : changes) {
+                TestSupport.assertEquals(AppointmentStatus.SCHEDULED, c.previous, "previous status");
+            }
+        });
+    }
+}
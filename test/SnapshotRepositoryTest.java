@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SnapshotRepository (MVCC): anlık görüntü açıldıktan sonraki yazmaları görmez, okuyucu yokken
+ * geri alma kaydı tutulmaz, eşzamanlı toplu yazmalar yarım görünmez, yavaş yazmalar birbirini
+ * ve okuyucuları tutmaz.
+ */
+public class SnapshotRepositoryTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(SnapshotRepositoryTest.class);
+    }
+
+    static void testWritesWithoutReadersKeepNoUndo() {
+        VersionClock clock = new VersionClock();
+        SnapshotRepository<String> repo = new SnapshotRepository<>(new IntArrayRepository<>(), clock);
+        repo.save(1, "a");
+        repo.saveAll(Map.of(2, "b", 3, "c"));
+        repo.delete(3);
+        TestSupport.assertEquals(0, repo.undoSize(), "undo entries without snapshots");
+        TestSupport.assertEquals(0, clock.openSnapshots(), "open snapshots");
+    }
+
+    static void testSnapshotIgnoresLaterWrites() {
+        VersionClock clock = new VersionClock();
+        SnapshotRepository<String> repo = new SnapshotRepository<>(new IntArrayRepository<>(), clock);
+        repo.save(1, "a");
+        repo.save(2, "b");
+
+        VersionClock.Snapshot snapshot = clock.open();
+        IntRepository<String> view = repo.at(snapshot);
+        repo.save(1, "a2");
+        repo.delete(2);
+        repo.saveAll(Map.of(3, "c"));
+
+        TestSupport.assertEquals("a", view.get(1), "updated record");
+        TestSupport.assertEquals("b", view.get(2), "deleted record");
+        TestSupport.assertEquals(null, view.get(3), "added record");
+        TestSupport.assertEquals(List.of("a", "b"), view.findAll(), "snapshot listing");
+        TestSupport.assertEquals(2, view.count(), "snapshot count");
+        TestSupport.assertEquals(List.of("a2", "c"), repo.findAll(), "live listing");
+
+        snapshot.close();
+        repo.purgeAll();
+        TestSupport.assertEquals(0, repo.undoSize(), "undo entries after the snapshot closed");
+        TestSupport.assertEquals(0, clock.openSnapshots(), "open snapshots");
+    }
+
+    // İki kayıt her zaman aynı değerle birlikte yazılır; hiçbir anlık görüntü ikisini farklı görmemeli
+    static void testConcurrentBatchesAreAllOrNothing() throws Exception {
+        VersionClock clock = new VersionClock();
+        SnapshotRepository<Integer> repo = new SnapshotRepository<>(new IntArrayRepository<>(), clock);
+        repo.saveAll(Map.of(1, 0, 2, 0));
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (int v = 1; !stop.get(); v++) {
+                repo.saveAll(Map.of(1, v, 2, v));
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 500 && failure.get() == null; i++) {
+                try (VersionClock.Snapshot snapshot = clock.open()) {
+                    IntRepository<Integer> view = repo.at(snapshot);
+                    Integer first = view.get(1);
+                    Thread.yield();
+                    Integer second = view.get(2);
+                    Integer again = view.get(1);
+                    if (!first.equals(second) || !first.equals(again)) {
+                        failure.set("snapshot " + snapshot.version + " saw " + first + "/" + second + "/" + again);
+                    }
+                }
+                repo.purgeAll();
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        TestSupport.check(failure.get() == null, failure.get());
+        repo.purgeAll();
+        TestSupport.assertEquals(0, repo.undoSize(), "undo entries after all snapshots closed");
+    }
+
+    // Kalıcı yazmayı taklit eder: gate açılana kadar save bekler
+    private static final class SlowRepository extends IntArrayRepository<Integer> {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger waiting = new AtomicInteger();
+
+        @Override
+        public void save(int id, Integer entity) {
+            waiting.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.save(id, entity);
+        }
+    }
+
+    private static List<Thread> startSaves(SnapshotRepository<Integer> repo, int count) {
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            int id = i;
+            Thread t = new Thread(() -> repo.save(id, Integer.valueOf(id)));
+            t.start();
+            writers.add(t);
+        }
+        return writers;
+    }
+
+    private static void awaitCount(AtomicInteger counter, int expected, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (counter.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        TestSupport.assertEquals(expected, counter.get(), what);
+    }
+
+    // Açık anlık görüntü varken yazarlar I/O süresince sürüm tutmaz: yazar sayısı sınırlı değil,
+    // bekleyen yazmalar görünmez, bittikten sonra açılan görüntü hepsini görür
+    static void testSlowLoggedWritesDoNotBlockEachOther() throws Exception {
+        VersionClock clock = new VersionClock();
+        SlowRepository slow = new SlowRepository();
+        SnapshotRepository<Integer> repo = new SnapshotRepository<>(slow, clock);
+        int writers = 100;
+        VersionClock.Snapshot before = clock.open();
+        List<Thread> threads = startSaves(repo, writers);
+        awaitCount(slow.waiting, writers, "writers inside the slow store");
+
+        try (VersionClock.Snapshot during = clock.open()) {
+            TestSupport.assertEquals(0, repo.at(during).count(), "pending writes seen by a snapshot");
+        }
+        slow.gate.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        TestSupport.assertEquals(0, repo.at(before).count(), "writes after the first snapshot");
+        before.close();
+        try (VersionClock.Snapshot after = clock.open()) {
+            TestSupport.assertEquals(writers, repo.at(after).count(), "finished writes");
+        }
+        repo.purgeAll();
+        TestSupport.assertEquals(0, repo.undoSize(), "undo entries after all snapshots closed");
+    }
+
+    // Okuyucu yokken başlamış (kayıtsız) yazma bitmeden anlık görüntü açılmaz; açılınca yazmayı görür
+    static void testSnapshotWaitsForUnloggedWrites() throws Exception {
+        VersionClock clock = new VersionClock();
+        SlowRepository slow = new SlowRepository();
+        SnapshotRepository<Integer> repo = new SnapshotRepository<>(slow, clock);
+        List<Thread> threads = startSaves(repo, 3);
+        awaitCount(slow.waiting, 3, "writers inside the slow store");
+
+        AtomicReference<Integer> seen = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try (VersionClock.Snapshot snapshot = clock.open()) {
+                seen.set(repo.at(snapshot).count());
+            }
+        });
+        reader.start();
+        reader.join(200);
+        TestSupport.check(reader.isAlive(), "snapshot opened while an unlogged write was in flight");
+        slow.gate.countDown();
+        reader.join(10_000);
+        for (Thread t : threads) {
+            t.join();
+        }
+        TestSupport.assertEquals(3, seen.get(), "writes seen by the snapshot");
+        TestSupport.assertEquals(0, repo.undoSize(), "undo entries");
+    }
+}
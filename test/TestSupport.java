@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Harici bağımlılığı olmayan küçük test çalıştırıcısı (proje bir derleme aracı kullanmadığı için JUnit yok).
+ * Test sınıfındaki parametresiz "static void test*" metotları isim sırasıyla çalışır; biri başarısız
+ * olursa diğerleri yine çalışır ve süreç 1 ile çıkar.
+ *
+ * Çalıştırma:
+ *   javac -encoding UTF-8 -d out src/*.java test/*.java
+ *   java -ea -cp out TestSupport                      (tüm testler)
+ *   java -ea -cp out ClinicServiceConcurrencyTest     (tek sınıf)
+ */
+public class TestSupport {
+
+    // Tüm testler: yeni test sınıfları buraya eklenir
+    static final Class<?>[] ALL = {
+            ClinicServiceConcurrencyTest.class,
+            WalRepositoryTest.class,
+            MappedRecordRepositoryTest.class,
+            IntArrayRepositoryTest.class,
+            IntRepositoryPagingTest.class,
+            PagedTableModelTest.class,
+            BulkImporterTest.class,
+            ClinicServiceValidationTest.class,
+            CachingRepositoryTest.class,
+            ColumnarAppointmentRepositoryTest.class,
+            ClinicHttpServerTest.class,
+            ArchivedAppointmentsTest.class,
+            EventBusTest.class,
+            ClinicScriptTest.class,
+            SnapshotRepositoryTest.class,
+            ShardedClinicServiceTest.class,
+            NoteIndexTest.class,
+    };
+
+    public static void main(String[] args) {
+        int failed = 0;
+        for (Class<?> testClass : ALL) {
+            failed += runTests(testClass);
+        }
+        System.out.println(failed == 0 ? "All tests passed" : failed + " test(s) failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // Test sınıflarının main'i: sadece o sınıfı çalıştırır
+    static void run(Class<?> testClass) {
+        System.exit(runTests(testClass) == 0 ? 0 : 1);
+    }
+
+    private static int runTests(Class<?> testClass) {
+        int failed = 0;
+        Method[] methods = testClass.getDeclaredMethods();
+        java.util.Arrays.sort(methods, Comparator.comparing(Method::getName));
+        for (Method m : methods) {
+            if (!m.getName().startsWith("test") || !Modifier.isStatic(m.getModifiers()) || m.getParameterCount() != 0) {
+                continue;
+            }
+            String name = testClass.getSimpleName() + "." + m.getName();
+            long start = System.nanoTime();
+            try {
+                m.setAccessible(true);
+                m.invoke(null);
+                System.out.printf("PASS %s (%d ms)%n", name, (System.nanoTime() - start) / 1_000_000);
+            } catch (InvocationTargetException e) {
+                failed++;
+                System.out.println("FAIL " + name);
+                e.getCause().printStackTrace(System.out);
+            } catch (IllegalAccessException e) {
+                failed++;
+                System.out.println("FAIL " + name + ": " + e);
+            }
+        }
+        return failed;
+    }
+
+    // === DOĞRULAMA ===
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    static <E extends Throwable> E assertThrows(Class<E> type, ThrowingRunnable action, String message) {
+        try {
+            action.run();
+        } catch (Throwable t) {
+            if (type.isInstance(t)) {
+                return type.cast(t);
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but got " + t, t);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+
+    // === GEÇİCİ DİZİN ===
+
+    static Path tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * WalRepository: yeniden açılışta kurtarma, yarım kalmış log kaydı, snapshot, uzun metinler.
+ */
+public class WalRepositoryTest {
+
+    public static void main(String[] args) {
+        TestSupport.run(WalRepositoryTest.class);
+    }
+
+    static class StringCodec implements EntityCodec<String> {
+        @Override
+        public void write(DataOutput out, String s) throws IOException {
+            Codecs.writeString(out, s);
+        }
+
+        @Override
+        public String read(int id, DataInput in) throws IOException {
+            return Codecs.readString(in);
+        }
+    }
+
+    static void testRecoversAfterReopen() throws Exception {
+        Path dir = TestSupport.tempDir("wal-test");
+        try {
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                for (int i = 1; i <= 100; i++) {
+                    repo.save(i, "v" + i);
+                }
+                repo.save(7, "seven");
+                repo.delete(8);
+                Map<Integer, String> batch = new LinkedHashMap<>();
+                batch.put(200, "a");
+                batch.put(201, "b");
+                repo.saveAll(batch);
+                repo.deleteAllById(List.of(1, 2, 3));
+                TestSupport.assertEquals("seven", repo.get(7), "read after write");
+            }
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                TestSupport.assertEquals(100 - 1 + 2 - 3, repo.count(), "record count");
+                TestSupport.assertEquals("seven", repo.get(7), "updated record");
+                TestSupport.assertEquals(null, repo.get(8), "deleted record");
+                TestSupport.assertEquals(null, repo.get(2), "batch deleted record");
+                TestSupport.assertEquals("b", repo.get(201), "batch saved record");
+                TestSupport.assertEquals("v100", repo.get(100), "last record");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Çökme anında yarım yazılmış kayıt atılır, öncekiler korunur ve log kullanılmaya devam eder
+    static void testTornTailIsTruncated() throws Exception {
+        Path dir = TestSupport.tempDir("wal-test");
+        try {
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                repo.save(1, "one");
+                repo.save(2, "two");
+            }
+            Path log;
+            try (var files = Files.list(dir)) {
+                log = files.filter(p -> p.getFileName().toString().startsWith("wal-")
+                        && p.getFileName().toString().endsWith(".log")).max(Comparator.naturalOrder()).orElseThrow();
+            }
+            long validSize = Files.size(log);
+            try (FileChannel ch = FileChannel.open(log, StandardOpenOption.APPEND)) {
+                // Uzunluğu 100 diyen ama yarıda kesilmiş bir kayıt
+                ByteBuffer torn = ByteBuffer.allocate(20).putInt(100).putInt(12345).put(new byte[12]);
+                torn.flip();
+                ch.write(torn);
+            }
+
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                TestSupport.assertEquals("one", repo.get(1), "record before torn tail");
+                TestSupport.assertEquals("two", repo.get(2), "record before torn tail");
+                TestSupport.assertEquals(validSize, Files.size(log), "log truncated to last valid record");
+                repo.save(3, "three");
+            }
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                TestSupport.assertEquals(3, repo.count(), "records after reopen");
+                TestSupport.assertEquals("three", repo.get(3), "record written after truncation");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    static void testSnapshotsKeepStateAndTrimLogs() throws Exception {
+        Path dir = TestSupport.tempDir("wal-test");
+        try {
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec(), 10)) {
+                for (int i = 1; i <= 300; i++) {
+                    repo.save(i % 120, "v" + i);
+                }
+            }
+            try (var files = Files.list(dir)) {
+                TestSupport.check(files.anyMatch(p -> p.getFileName().toString().startsWith("snapshot-")),
+                        "a snapshot must have been written");
+            }
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec(), 10)) {
+                TestSupport.assertEquals(120, repo.count(), "record count");
+                for (int i = 181; i <= 300; i++) {
+                    TestSupport.assertEquals("v" + i, repo.get(i % 120), "latest value of " + (i % 120));
+                }
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Snapshot yazılırken (burada store taraması bloklanmış) yazmalar beklemeden diske iner
+    static void testWritesContinueDuringSnapshot() throws Exception {
+        Path dir = TestSupport.tempDir("wal-test");
+        CountDownLatch scanStarted = new CountDownLatch(1);
+        CountDownLatch releaseScan = new CountDownLatch(1);
+        IntArrayRepository<String> blockingStore = new IntArrayRepository<>() {
+            @Override
+            public void forEach(IntEntryConsumer<? super String> action) {
+                scanStarted.countDown();
+                try {
+                    releaseScan.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEach(action);
+            }
+        };
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec(), 5, blockingStore)) {
+                for (int i = 1; i <= 5; i++) {
+                    repo.save(i, "v" + i);
+                }
+                TestSupport.check(scanStarted.await(10, TimeUnit.SECONDS), "snapshot must start");
+                Future<?> writes = writer.submit(() -> {
+                    for (int i = 6; i <= 50; i++) {
+                        repo.save(i, "v" + i);
+                    }
+                    return null;
+                });
+                try {
+                    writes.get(10, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    throw new AssertionError("writes stalled while a snapshot was running");
+                } finally {
+                    releaseScan.countDown();
+                }
+            }
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                TestSupport.assertEquals(50, repo.count(), "records after reopen");
+                TestSupport.assertEquals("v50", repo.get(50), "record written during snapshot");
+            }
+        } finally {
+            releaseScan.countDown();
+            writer.shutdownNow();
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+
+    // writeUTF 64KB sınırını aşan metinler
+    static void testLongStringsRoundTrip() throws Exception {
+        Path dir = TestSupport.tempDir("wal-test");
+        try {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < 200_000) {
+                sb.append("Uzun not: baş ağrısı, öksürük. ");
+            }
+            String longNote = sb.toString();
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec(), 2)) {
+                repo.save(1, longNote);
+                repo.save(2, "short");
+                repo.save(3, longNote.substring(0, 30_000));
+            }
+            try (WalRepository<String> repo = new WalRepository<>(dir, new StringCodec())) {
+                TestSupport.assertEquals(longNote, repo.get(1), "long string");
+                TestSupport.assertEquals("short", repo.get(2), "short string");
+                TestSupport.assertEquals(longNote.substring(0, 30_000), repo.get(3), "medium string");
+            }
+        } finally {
+            TestSupport.deleteRecursively(dir);
+        }
+    }
+}